@@ -32,6 +32,7 @@ import io.micrometer.core.instrument.Gauge;
 import io.micrometer.core.instrument.Meter;
 import io.micrometer.core.instrument.Metrics;
 import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
 import io.reactivex.rxjava3.core.Observable;
 import io.reactivex.rxjava3.disposables.CompositeDisposable;
 import io.reactivex.rxjava3.subjects.PublishSubject;
@@ -41,9 +42,11 @@ import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import org.apache.bifromq.basecrdt.core.api.ICRDTOperation;
 import org.apache.bifromq.basecrdt.core.api.ICausalCRDT;
 import org.apache.bifromq.basecrdt.core.api.ICausalCRDTInflater;
+import org.apache.bifromq.basecrdt.store.compressor.Compressor;
 import org.apache.bifromq.basecrdt.store.proto.AckMessage;
 import org.apache.bifromq.basecrdt.store.proto.DeltaMessage;
 import org.apache.bifromq.basehlc.HLC;
@@ -64,12 +67,14 @@ final class AntiEntropyManager {
     private final int maxEventsInDelta;
     private final CompositeDisposable disposable = new CompositeDisposable();
     private final MetricManager metricManager;
+    private final Compressor compressor;
 
     public AntiEntropyManager(String storeId,
                               ByteString localAddr,
                               ICausalCRDTInflater<?, ?> crdtInflater,
                               ScheduledExecutorService executor,
                               int maxEventsInDelta,
+                              Compressor compressor,
                               String... tags) {
         this.storeId = storeId;
         this.localAddr = localAddr;
@@ -81,12 +86,17 @@ final class AntiEntropyManager {
         this.metricManager = new MetricManager(Tags.of(tags)
             .and("replica.uri", crdtInflater.id().getUri())
             .and("replica.id", BaseEncoding.base64().encode(crdtInflater.id().getId().toByteArray())));
+        this.compressor = new MeteredCompressor(compressor);
     }
 
     ByteString localAddr() {
         return localAddr;
     }
 
+    Compressor compressor() {
+        return compressor;
+    }
+
     @SuppressWarnings("unchecked")
     <O extends ICRDTOperation, C extends ICausalCRDT<O>> C crdt() {
         return (C) crdtInflater.getCRDT();
@@ -188,6 +198,10 @@ final class AntiEntropyManager {
         private final Counter sendAckBytes;
         private final Counter receiveAckNum;
         private final Counter receiveAckBytes;
+        private final Counter compressRawBytes;
+        private final Counter compressedBytes;
+        private final Timer compressTimer;
+        private final Timer decompressTimer;
         private final Set<Meter> meters = new HashSet<>();
 
         MetricManager(Tags tags) {
@@ -203,6 +217,11 @@ final class AntiEntropyManager {
             sendAckBytes = Metrics.counter("basecrdt.send.ack.bytes", tags);
             receiveAckNum = Metrics.counter("basecrdt.receive.ack.count", tags);
             receiveAckBytes = Metrics.counter("basecrdt.receive.ack.bytes", tags);
+            // saved bytes = raw bytes - compressed bytes
+            compressRawBytes = Metrics.counter("basecrdt.compress.raw.bytes", tags);
+            compressedBytes = Metrics.counter("basecrdt.compress.compressed.bytes", tags);
+            compressTimer = Metrics.timer("basecrdt.compress.time", tags);
+            decompressTimer = Metrics.timer("basecrdt.decompress.time", tags);
         }
 
         void close() {
@@ -215,6 +234,36 @@ final class AntiEntropyManager {
             Metrics.globalRegistry.removeByPreFilterId(sendDeltaBytes.getId());
             Metrics.globalRegistry.removeByPreFilterId(receiveDeltaNum.getId());
             Metrics.globalRegistry.removeByPreFilterId(receiveDeltaBytes.getId());
+            Metrics.globalRegistry.removeByPreFilterId(compressRawBytes.getId());
+            Metrics.globalRegistry.removeByPreFilterId(compressedBytes.getId());
+            Metrics.globalRegistry.removeByPreFilterId(compressTimer.getId());
+            Metrics.globalRegistry.removeByPreFilterId(decompressTimer.getId());
+        }
+    }
+
+    private class MeteredCompressor implements Compressor {
+        private final Compressor delegate;
+
+        MeteredCompressor(Compressor delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public ByteString compress(ByteString src) {
+            long start = System.nanoTime();
+            ByteString compressed = delegate.compress(src);
+            metricManager.compressTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            metricManager.compressRawBytes.increment(src.size());
+            metricManager.compressedBytes.increment(compressed.size());
+            return compressed;
+        }
+
+        @Override
+        public ByteString decompress(ByteString src) {
+            long start = System.nanoTime();
+            ByteString decompressed = delegate.decompress(src);
+            metricManager.decompressTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return decompressed;
         }
     }
 }
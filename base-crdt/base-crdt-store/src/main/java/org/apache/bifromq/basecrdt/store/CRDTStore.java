@@ -78,7 +78,9 @@ class CRDTStore implements ICRDTStore {
             options.maxCompactionTime(),
             storeExecutor,
             tags);
-        compressor = Compressor.newInstance(options.compressAlgorithm());
+        compressor = Compressor.newInstance(options.compressAlgorithm(),
+            options.compressThreshold(),
+            options.compressDictionary());
         metricManager = new MetricManager(Tags.of(tags));
     }
 
@@ -95,13 +97,14 @@ class CRDTStore implements ICRDTStore {
                 localAddr,
                 inflaterFactory.create(replicaId),
                 storeExecutor,
-                options.maxEventsInDelta()));
+                options.maxEventsInDelta(),
+                compressor));
         antiEntropyMgr.neighborMessages()
             .subscribe(t -> storeMsgPublisher.onNext(CRDTStoreMessage.newBuilder()
                 .setUri(replicaId.getUri())
                 .setSender(localAddr)
                 .setReceiver(t.neighborAddress())
-                .setPayload(compressToPayload(compressor, t.deltaMsg()))
+                .setPayload(compressToPayload(antiEntropyMgr.compressor(), t.deltaMsg()))
                 .build()));
         return antiEntropyMgr.crdt();
     }
@@ -170,14 +173,14 @@ class CRDTStore implements ICRDTStore {
     private void handleStoreMessage(CRDTStoreMessage msg) {
         AntiEntropyManager antiEntropyMgr = antiEntroyMgrs.get(msg.getUri());
         if (antiEntropyMgr != null && antiEntropyMgr.localAddr().equals(msg.getReceiver())) {
-            MessagePayload payload = decompress(compressor, msg);
+            MessagePayload payload = decompress(antiEntropyMgr.compressor(), msg);
             switch (payload.getMsgTypeCase()) {
                 case DELTA -> antiEntropyMgr.receive(payload.getDelta(), msg.getSender())
                     .thenAccept(ack -> storeMsgPublisher.onNext(CRDTStoreMessage.newBuilder()
                         .setUri(msg.getUri())
                         .setSender(msg.getReceiver())
                         .setReceiver(msg.getSender())
-                        .setPayload(compressToPayload(compressor, ack))
+                        .setPayload(compressToPayload(antiEntropyMgr.compressor(), ack))
                         .build()));
                 case ACK -> antiEntropyMgr.receive(payload.getAck(), msg.getSender());
                 default -> log.warn("Unknown message type: {}", payload.getMsgTypeCase());
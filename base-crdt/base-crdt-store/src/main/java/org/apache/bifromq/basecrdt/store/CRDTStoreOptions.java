@@ -19,6 +19,7 @@
 
 package org.apache.bifromq.basecrdt.store;
 
+import com.google.protobuf.ByteString;
 import org.apache.bifromq.baseenv.EnvProvider;
 import java.time.Duration;
 import java.util.UUID;
@@ -45,6 +46,12 @@ public class CRDTStoreOptions {
     private int maxEventsInDelta = 1024;
     @Builder.Default
     private CompressAlgorithm compressAlgorithm = CompressAlgorithm.GZIP;
+    // the payload smaller than the threshold is not compressed, only for DEFLATE
+    @Builder.Default
+    private int compressThreshold = 256;
+    // the preset dictionary which must be identical across the cluster, only for DEFLATE
+    @Builder.Default
+    private ByteString compressDictionary = ByteString.EMPTY;
     @Builder.Default
     private Duration orHistoryExpireTime = Duration.ofSeconds(20);
     @Builder.Default
@@ -21,5 +21,6 @@ package org.apache.bifromq.basecrdt.store;
 
 public enum CompressAlgorithm {
     NONE,
-    GZIP
+    GZIP,
+    DEFLATE
 }
@@ -29,10 +29,17 @@ public interface Compressor {
     ByteString decompress(ByteString src);
 
     static Compressor newInstance(CompressAlgorithm algorithm) {
+        return newInstance(algorithm, 0, ByteString.EMPTY);
+    }
+
+    static Compressor newInstance(CompressAlgorithm algorithm, int threshold, ByteString dictionary) {
         switch (algorithm) {
             case GZIP: {
                 return new GzipCompressor();
             }
+            case DEFLATE: {
+                return new DeflateCompressor(threshold, dictionary);
+            }
             case NONE:
             default: {
                 return new NoopCompressor();
@@ -0,0 +1,144 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.    
+ */
+
+package org.apache.bifromq.basecrdt.store.compressor;
+
+import com.google.protobuf.ByteString;
+import com.google.protobuf.UnsafeByteOperations;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Deflate at the fastest level with optional preset dictionary shared by all replicas, which helps a lot on the
+ * small and repetitive protobuf payloads. The payload smaller than the threshold or could not be shrunk is kept as
+ * is, the leading byte of the output tells which. The deflater, inflater and output buffer are pooled per thread.
+ */
+public class DeflateCompressor implements Compressor {
+    private static final byte RAW = 0;
+    private static final byte DEFLATED = 1;
+    private static final ByteString RAW_HEADER = ByteString.copyFrom(new byte[] {RAW});
+    // flag byte and at most 5 bytes varint of raw size
+    private static final int MAX_HEADER_SIZE = 6;
+    // deflate could not expand the input more than 1032 times, a larger declared raw size means corruption
+    private static final int MAX_INFLATE_RATIO = 1032;
+    private static final int MAX_RAW_SIZE = 64 * 1024 * 1024;
+    private final int threshold;
+    private final byte[] dictionary;
+    private final ThreadLocal<Deflater> deflaters = ThreadLocal.withInitial(() -> new Deflater(Deflater.BEST_SPEED));
+    private final ThreadLocal<Inflater> inflaters = ThreadLocal.withInitial(Inflater::new);
+    private final ThreadLocal<byte[]> buffers = ThreadLocal.withInitial(() -> new byte[4096]);
+
+    public DeflateCompressor(int threshold, ByteString dictionary) {
+        this.threshold = threshold;
+        this.dictionary = dictionary.toByteArray();
+    }
+
+    @Override
+    public ByteString compress(ByteString src) {
+        if (src.size() < threshold) {
+            return RAW_HEADER.concat(src);
+        }
+        // no point to keep the output not smaller than the raw one
+        int limit = src.size() + 1;
+        byte[] buffer = buffers.get();
+        if (buffer.length < Math.max(limit, MAX_HEADER_SIZE)) {
+            buffer = new byte[Math.max(limit, MAX_HEADER_SIZE)];
+            buffers.set(buffer);
+        }
+        int pos = 0;
+        buffer[pos++] = DEFLATED;
+        int rawSize = src.size();
+        while ((rawSize & ~0x7F) != 0) {
+            buffer[pos++] = (byte) ((rawSize & 0x7F) | 0x80);
+            rawSize >>>= 7;
+        }
+        buffer[pos++] = (byte) rawSize;
+
+        Deflater deflater = deflaters.get();
+        deflater.reset();
+        if (dictionary.length > 0) {
+            deflater.setDictionary(dictionary);
+        }
+        deflater.setInput(src.asReadOnlyByteBuffer());
+        deflater.finish();
+        while (!deflater.finished() && pos < limit) {
+            pos += deflater.deflate(buffer, pos, limit - pos);
+        }
+        if (!deflater.finished() || pos >= limit) {
+            return RAW_HEADER.concat(src);
+        }
+        return ByteString.copyFrom(buffer, 0, pos);
+    }
+
+    @Override
+    public ByteString decompress(ByteString src) {
+        if (src.byteAt(0) == RAW) {
+            return src.substring(1);
+        }
+        try {
+            int pos = 1;
+            long rawSize = 0;
+            int shift = 0;
+            byte b;
+            do {
+                if (pos >= src.size() || pos >= MAX_HEADER_SIZE) {
+                    throw new DataFormatException("Malformed raw size");
+                }
+                b = src.byteAt(pos++);
+                rawSize |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+            if (rawSize > Math.min(MAX_RAW_SIZE, (long) (src.size() - pos) * MAX_INFLATE_RATIO)) {
+                throw new DataFormatException("Invalid raw size: " + rawSize);
+            }
+            byte[] out = new byte[(int) rawSize];
+            inflate(src.substring(pos), out);
+            // the array is not shared, wrap it without copy
+            return UnsafeByteOperations.unsafeWrap(out);
+        } catch (DataFormatException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private void inflate(ByteString deflated, byte[] out) throws DataFormatException {
+        Inflater inflater = inflaters.get();
+        inflater.reset();
+        inflater.setInput(deflated.asReadOnlyByteBuffer());
+        int inflated = 0;
+        while (inflated < out.length) {
+            int n = inflater.inflate(out, inflated, out.length - inflated);
+            if (n == 0) {
+                if (inflater.needsDictionary() && dictionary.length > 0) {
+                    try {
+                        inflater.setDictionary(dictionary);
+                    } catch (IllegalArgumentException e) {
+                        throw new DataFormatException("Dictionary mismatched");
+                    }
+                } else if (inflater.finished() || inflater.needsInput()) {
+                    throw new DataFormatException("Truncated deflated payload");
+                } else {
+                    // no progress without any reason, stop spinning on corrupted payload
+                    throw new DataFormatException("Corrupted deflated payload");
+                }
+            }
+            inflated += n;
+        }
+    }
+}
@@ -20,6 +20,7 @@
 package org.apache.bifromq.basecrdt.store.compressor;
 
 import com.google.protobuf.ByteString;
+import java.util.Random;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
@@ -33,6 +34,64 @@ public class CompressorTest {
         Assert.assertEquals(bytes, gzip.decompress(compressed));
     }
 
+    @Test
+    public void testDeflate() {
+        Compressor deflate = new DeflateCompressor(16, ByteString.EMPTY);
+        ByteString small = ByteString.copyFromUtf8("deflate test");
+        ByteString compressed = deflate.compress(small);
+        Assert.assertEquals(compressed.size(), small.size() + 1);
+        Assert.assertEquals(small, deflate.decompress(compressed));
+
+        ByteString large = ByteString.copyFromUtf8("deflate test ".repeat(100));
+        compressed = deflate.compress(large);
+        Assert.assertTrue(compressed.size() < large.size());
+        Assert.assertEquals(large, deflate.decompress(compressed));
+
+        byte[] random = new byte[1024];
+        new Random().nextBytes(random);
+        ByteString incompressible = ByteString.copyFrom(random);
+        compressed = deflate.compress(incompressible);
+        Assert.assertEquals(compressed.size(), incompressible.size() + 1);
+        Assert.assertEquals(incompressible, deflate.decompress(compressed));
+    }
+
+    @Test
+    public void testDeflateWithDictionary() {
+        ByteString dictionary = ByteString.copyFromUtf8("replica uri neighbor address lattice events history");
+        Compressor deflate = new DeflateCompressor(0, dictionary);
+        ByteString bytes = ByteString.copyFromUtf8("replica uri neighbor address lattice events history events");
+        ByteString compressed = deflate.compress(bytes);
+        Assert.assertTrue(compressed.size() < bytes.size());
+        Assert.assertTrue(compressed.size() < new DeflateCompressor(0, ByteString.EMPTY).compress(bytes).size());
+        Assert.assertEquals(bytes, deflate.decompress(compressed));
+    }
+
+    @Test
+    public void testDeflateRejectCorrupted() {
+        ByteString dictionary = ByteString.copyFromUtf8("replica uri neighbor address lattice events history");
+        Compressor deflate = new DeflateCompressor(0, dictionary);
+        ByteString bytes = ByteString.copyFromUtf8("replica uri neighbor address lattice events history ".repeat(10));
+        ByteString compressed = deflate.compress(bytes);
+        Assert.assertEquals(bytes, deflate.decompress(compressed));
+
+        // missing raw size
+        Assert.expectThrows(RuntimeException.class, () -> deflate.decompress(compressed.substring(0, 1)));
+        // raw size varint longer than 5 bytes
+        Assert.expectThrows(RuntimeException.class, () -> deflate.decompress(ByteString.copyFrom(
+            new byte[] {1, (byte) 0x80, (byte) 0x80, (byte) 0x80, (byte) 0x80, (byte) 0x80, 1, 0})));
+        // raw size beyond what the deflated payload could expand to
+        Assert.expectThrows(RuntimeException.class, () -> deflate.decompress(ByteString.copyFrom(
+            new byte[] {1, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x0F, 0})));
+        // truncated payload
+        Assert.expectThrows(RuntimeException.class,
+            () -> deflate.decompress(compressed.substring(0, compressed.size() / 2)));
+        // mismatched dictionary
+        Assert.expectThrows(RuntimeException.class,
+            () -> new DeflateCompressor(0, ByteString.copyFromUtf8("other")).decompress(compressed));
+        Assert.expectThrows(RuntimeException.class,
+            () -> new DeflateCompressor(0, ByteString.EMPTY).decompress(compressed));
+    }
+
     @Test
     public void testNoop() {
         Compressor noop = new NoopCompressor();
@@ -75,6 +75,14 @@ public interface IRaftNode {
      */
     CompletableFuture<Long> readIndex();
 
+    /**
+     * Get the index for linearized read if the local node is the leader holding a valid lease, this is a non-blocking
+     * alternative of {@link #readIndex()} which doesn't go through raft execution thread.
+     *
+     * @return the read index or -1 if the lease is not available
+     */
+    long leaseReadIndex();
+
     /**
      * Receive raft messages from other Peers and drive local Raft StateMachine to proceed.
      *
@@ -0,0 +1,127 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.bifromq.basekv.raft;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.apache.bifromq.basekv.raft.proto.ClusterConfig;
+
+/**
+ * Track the leader lease using the heartbeat rounds acknowledged by quorum. Every AppendEntries sent during the same
+ * tick carries the same lease sequence, and followers echo it back in their replies. A follower who has received a
+ * message of round N won't grant vote to others for at least electionTimeoutTick ticks after round N, so the lease
+ * is valid until electionTimeoutTick ticks since the highest round acknowledged by quorum, shortened by the
+ * configured max clock drift. The same lease is also expressed as a monotonic deadline derived from the time the
+ * round started, so that it could be checked by threads not driven by ticks.
+ */
+class LeaderLeaseTracker {
+    private final IRaftStateStore stateStorage;
+    private final Map<String, Long> ackedSeqs = new HashMap<>();
+    private final long leaseTicks;
+    private final long tickNanos;
+    // the start time of the rounds within lease window, indexed by seq
+    private final long[] seqStartNanos;
+    private long currentSeq = 1;
+
+    LeaderLeaseTracker(RaftConfig config, IRaftStateStore stateStorage) {
+        this.stateStorage = stateStorage;
+        this.leaseTicks = (long) Math.floor(config.getElectionTimeoutTick() * (1 - config.getMaxClockDrift()));
+        this.tickNanos = TimeUnit.MILLISECONDS.toNanos(config.getTickUnitInMS());
+        this.seqStartNanos = new long[(int) Math.max(leaseTicks, 0) + 1];
+        seqStartNanos[slot(currentSeq)] = System.nanoTime();
+    }
+
+    long currentSeq() {
+        return currentSeq;
+    }
+
+    void tick() {
+        currentSeq++;
+        seqStartNanos[slot(currentSeq)] = System.nanoTime();
+    }
+
+    void ack(String peer, long leaseSeq) {
+        if (leaseSeq > currentSeq) {
+            // must be sent by previous leader in some way, ignore it
+            return;
+        }
+        ackedSeqs.merge(peer, leaseSeq, Math::max);
+    }
+
+    /**
+     * The remaining ticks of the lease, the lease is considered valid if it's still valid at next tick.
+     *
+     * @return the remaining ticks, non-positive if the lease is expired
+     */
+    long remainingTicks() {
+        long leaseStart = leaseStartSeq();
+        if (leaseStart == 0) {
+            return 0;
+        }
+        return leaseStart + leaseTicks - (currentSeq + 1);
+    }
+
+    boolean isValid() {
+        return remainingTicks() > 0;
+    }
+
+    /**
+     * The deadline of current lease in {@link System#nanoTime()}, measured from the start of the round acknowledged
+     * by quorum. One tick is deducted since the election timer of follower may tick right after receiving the round.
+     *
+     * @return the deadline, only meaningful if the lease is valid
+     */
+    long expiryNanos() {
+        long leaseStart = leaseStartSeq();
+        return seqStartNanos[slot(leaseStart)] + (leaseTicks - 1) * tickNanos;
+    }
+
+    private long leaseStartSeq() {
+        ClusterConfig clusterConfig = stateStorage.latestClusterConfig();
+        long leaseStart = quorumAckedSeq(clusterConfig.getVotersList());
+        if (!clusterConfig.getNextVotersList().isEmpty()) {
+            // in joint-consensus, take the earlier round acknowledged by two voter groups
+            leaseStart = Math.min(leaseStart, quorumAckedSeq(clusterConfig.getNextVotersList()));
+        }
+        return leaseStart;
+    }
+
+    private int slot(long seq) {
+        return (int) (seq % seqStartNanos.length);
+    }
+
+    private long quorumAckedSeq(List<String> voters) {
+        if (voters.isEmpty()) {
+            return 0;
+        }
+        long[] seqs = new long[voters.size()];
+        for (int i = 0; i < seqs.length; i++) {
+            String voter = voters.get(i);
+            // local always active
+            seqs[i] = voter.equals(stateStorage.local()) ? currentSeq : ackedSeqs.getOrDefault(voter, 0L);
+        }
+        Arrays.sort(seqs);
+        // the highest round acknowledged by majority
+        return seqs[seqs.length - ((seqs.length >> 1) + 1)];
+    }
+}
@@ -37,6 +37,9 @@ import lombok.experimental.Accessors;
 @NoArgsConstructor
 @AllArgsConstructor(access = AccessLevel.PRIVATE)
 public final class RaftConfig {
+    // the interval between ticks, used to derive the deadline of leader lease
+    @Builder.Default
+    private long tickUnitInMS = 100;
     @Builder.Default
     private int electionTimeoutTick = 10;
     @Builder.Default
@@ -57,6 +60,9 @@ public final class RaftConfig {
     private boolean readOnlyLeaderLeaseMode = true;
     @Builder.Default
     private int readOnlyBatch = 10;
+    // the max relative drift between the tick rates of peers tolerated by the leader lease
+    @Builder.Default
+    private double maxClockDrift = 0.1;
     @Builder.Default
     private boolean disableForwardProposal = false;
     // if append log entries asynchronously which is an optimization described in $10.2.1 section of raft thesis
@@ -20,6 +20,7 @@
 package org.apache.bifromq.basekv.raft;
 
 import com.google.protobuf.ByteString;
+import io.micrometer.core.instrument.Counter;
 import io.micrometer.core.instrument.Gauge;
 import io.micrometer.core.instrument.Metrics;
 import io.micrometer.core.instrument.Tags;
@@ -60,6 +61,7 @@ public final class RaftNode implements IRaftNode {
     private final AtomicReference<CompletableFuture<Void>> stopFuture = new AtomicReference<>();
     private final String[] tags;
     private MetricManager metricMgr;
+    private long lastTickAt;
 
     public RaftNode(RaftConfig config,
                     IRaftStateStore stateStore,
@@ -98,6 +100,12 @@ public final class RaftNode implements IRaftNode {
     @Override
     public void tick() {
         submit(() -> {
+            long now = System.nanoTime();
+            if (lastTickAt != 0) {
+                // the actual tick interval, its variance should be bounded by maxClockDrift for leader lease safety
+                metricMgr.tickIntervalTimer.record(now - lastTickAt, TimeUnit.NANOSECONDS);
+            }
+            lastTickAt = now;
             RaftNodeState state = stateRef.get();
             Timer.Sample sample = Timer.start();
             String leader = state.currentLeader();
@@ -139,7 +147,27 @@ public final class RaftNode implements IRaftNode {
 
     @Override
     public CompletableFuture<Long> readIndex() {
-        return submit(onDone -> stateRef.get().readIndex(sampleLatency(onDone, metricMgr.readIndexTimer)));
+        return submit(onDone -> {
+            RaftNodeState state = stateRef.get();
+            if (config.isReadOnlyLeaderLeaseMode()
+                && state.getState() == RaftNodeStatus.Leader
+                && state.leaseReadIndex() < 0) {
+                metricMgr.leaseExpiredCounter.increment();
+            }
+            state.readIndex(sampleLatency(onDone, metricMgr.readIndexTimer));
+        });
+    }
+
+    @Override
+    public long leaseReadIndex() {
+        if (status.get() != Status.STARTED) {
+            return -1;
+        }
+        long leaseReadIndex = stateRef.get().leaseReadIndex();
+        if (leaseReadIndex >= 0) {
+            metricMgr.leaseReadCounter.increment();
+        }
+        return leaseReadIndex;
     }
 
     @Override
@@ -312,6 +340,9 @@ public final class RaftNode implements IRaftNode {
         if (config.getHeartbeatTimeoutTick() > config.getElectionTimeoutTick()) {
             throw new IllegalArgumentException("heartbeat timeout must be less than election timeout, normally 1/10");
         }
+        if (config.getMaxClockDrift() < 0 || config.getMaxClockDrift() >= 1) {
+            throw new IllegalArgumentException("max clock drift must be in range [0, 1)");
+        }
     }
 
     private void verifyStateStore(IRaftStateStore stateStorage) {
@@ -374,6 +405,9 @@ public final class RaftNode implements IRaftNode {
         final Timer tickTimer;
         final Timer proposeTimer;
         final Timer readIndexTimer;
+        final Timer tickIntervalTimer;
+        final Counter leaseReadCounter;
+        final Counter leaseExpiredCounter;
         final Timer peerMsgHandlingTimer;
         final Timer compactTimer;
         final Timer transferLeadershipTimer;
@@ -404,6 +438,15 @@ public final class RaftNode implements IRaftNode {
 
             readIndexTimer = Metrics.timer("raft.cmd.readindex", tags);
 
+            // timer for the interval between ticks, which reflects the clock drift tolerated by leader lease
+            tickIntervalTimer = Metrics.timer("raft.tick.interval", tags);
+
+            // counter for reads served by leader lease
+            leaseReadCounter = Metrics.counter("raft.lease.read", tags);
+
+            // counter for readIndex requests falling back to quorum confirmation due to lease expiry
+            leaseExpiredCounter = Metrics.counter("raft.lease.expired", tags);
+
             // timer for handling peer message operation
             peerMsgHandlingTimer = Metrics.timer("raft.cmd.recvmsg", tags);
 
@@ -518,6 +561,12 @@ public final class RaftNode implements IRaftNode {
 
             Metrics.globalRegistry.removeByPreFilterId(readIndexTimer.getId());
 
+            Metrics.globalRegistry.removeByPreFilterId(tickIntervalTimer.getId());
+
+            Metrics.globalRegistry.removeByPreFilterId(leaseReadCounter.getId());
+
+            Metrics.globalRegistry.removeByPreFilterId(leaseExpiredCounter.getId());
+
             Metrics.globalRegistry.removeByPreFilterId(peerMsgHandlingTimer.getId());
 
             Metrics.globalRegistry.removeByPreFilterId(compactTimer.getId());
@@ -112,6 +112,16 @@ abstract class RaftNodeState implements IRaftNodeState {
 
     abstract void readIndex(CompletableFuture<Long> onDone);
 
+    /**
+     * The index which could be used for linearized read without confirming leadership, the method is allowed to be
+     * called outside raft thread.
+     *
+     * @return the commit index if current state holds a valid leader lease, otherwise -1
+     */
+    long leaseReadIndex() {
+        return -1;
+    }
+
     abstract void transferLeadership(String newLeader, CompletableFuture<Void> onDone);
 
     abstract void changeClusterConfig(String correlateId,
@@ -255,6 +255,7 @@ class RaftNodeStateFollower extends RaftNodeState {
                                         .setLastIndex(index)
                                         .build())
                                     .setReadIndex(task.readIndex)
+                                    .setLeaseSeq(task.leaseSeq)
                                     .build())
                             .build());
                     }
@@ -314,9 +315,11 @@ class RaftNodeStateFollower extends RaftNodeState {
                     // ignore the higher term pre-vote reply which may be a delayed reply of previous pre-vote
                     return nextState;
                 case REQUESTVOTE:
-                    // prevent from being disrupted
+                    // prevent from being disrupted, in lease read mode the vote from a voter is also rejected,
+                    // otherwise a new leader may be elected before the lease of current leader expires
                     boolean leaderTransfer = message.getRequestVote().getLeaderTransfer();
-                    if (!leaderTransfer && inLease() && !voters().contains(fromPeer)) {
+                    if (!leaderTransfer && inLease()
+                        && (config.isReadOnlyLeaderLeaseMode() || !voters().contains(fromPeer))) {
                         log.debug("Vote[{}] from candidate[{}] not granted, lease is not expired",
                             message.getTerm(), fromPeer);
                         sendRequestVoteReply(fromPeer, message.getTerm(), false);
@@ -489,6 +492,7 @@ class RaftNodeStateFollower extends RaftNodeState {
                             .setRejectedIndex(appendEntries.getPrevLogIndex())
                             .build())
                         .setReadIndex(appendEntries.getReadIndex())
+                        .setLeaseSeq(appendEntries.getLeaseSeq())
                         .build())
                 .build());
         } else {
@@ -505,6 +509,7 @@ class RaftNodeStateFollower extends RaftNodeState {
                     }
                     v.pendingReplyCount++;
                     v.readIndex = appendEntries.getReadIndex();
+                    v.leaseSeq = appendEntries.getLeaseSeq();
                     return v;
                 });
                 // the higher index tasks are obsolete
@@ -520,6 +525,7 @@ class RaftNodeStateFollower extends RaftNodeState {
                                 .setLastIndex(appendEntries.getPrevLogIndex())
                                 .build())
                             .setReadIndex(appendEntries.getReadIndex())
+                            .setLeaseSeq(appendEntries.getLeaseSeq())
                             .build())
                     .build());
             }
@@ -752,6 +758,7 @@ class RaftNodeStateFollower extends RaftNodeState {
     private static class StabilizingTask {
         int pendingReplyCount = 0;
         long readIndex = -1;
+        long leaseSeq = 0;
         boolean committed = false;
     }
 }
\ No newline at end of file
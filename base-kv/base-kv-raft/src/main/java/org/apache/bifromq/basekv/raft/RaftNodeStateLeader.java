@@ -65,10 +65,14 @@ class RaftNodeStateLeader extends RaftNodeState {
     private final PeerLogTracker peerLogTracker;
     private final RaftConfigChanger configChanger;
     private final ReadProgressTracker readProgressTracker;
+    private final LeaderLeaseTracker leaseTracker;
     private final Deque<SnapshotTask> pendingCompactions = new ArrayDeque<>();
     private LeaderTransferTask leaderTransferTask;
     private PendingCompaction activeCompaction;
     private int electionElapsedTick;
+    private boolean commitIndexConfirmed;
+    // published to the threads not driven by raft events, null if lease read is not allowed
+    private volatile LeaseRead leaseRead;
 
     RaftNodeStateLeader(long term,
                         long commitIndex,
@@ -95,6 +99,7 @@ class RaftNodeStateLeader extends RaftNodeState {
         ClusterConfig clusterConfig = stateStorage.latestClusterConfig();
         activityTracker = new QuorumTracker(clusterConfig, log);
         readProgressTracker = new ReadProgressTracker(stateStorage, log);
+        leaseTracker = new LeaderLeaseTracker(config, stateStorage);
         // track peers in current config
         Set<String> peersToStartTracking = new HashSet<>(clusterConfig.getVotersList());
         peersToStartTracking.addAll(clusterConfig.getLearnersList());
@@ -131,6 +136,16 @@ class RaftNodeStateLeader extends RaftNodeState {
         return stateStorage.local();
     }
 
+    @Override
+    long leaseReadIndex() {
+        LeaseRead current = leaseRead;
+        if (current == null || System.nanoTime() - current.expiryNanos >= 0) {
+            // the lease may have expired between raft events
+            return -1;
+        }
+        return current.readIndex;
+    }
+
     @Override
     RaftNodeState stepDown() {
         log.debug("leader is asked to step down to follower");
@@ -159,6 +174,7 @@ class RaftNodeStateLeader extends RaftNodeState {
     @Override
     RaftNodeState tick() {
         electionElapsedTick++;
+        leaseTracker.tick();
         peerLogTracker.tick();
         onPendingCompactionTick();
         if (configChanger.tick(currentTerm())) {
@@ -222,6 +238,7 @@ class RaftNodeStateLeader extends RaftNodeState {
             submitRaftMessages(appendEntriesToSend);
         }
         checkPendingCompaction(false);
+        refreshLeaseReadIndex();
         return this;
     }
 
@@ -281,8 +298,9 @@ class RaftNodeStateLeader extends RaftNodeState {
             return;
         }
 
-        if (config.isReadOnlyLeaderLeaseMode() && leaderTransferTask == null) {
-            // if there is a running leader transfer task we need to fall back to msg-based approach
+        if (config.isReadOnlyLeaderLeaseMode() && leaderTransferTask == null && leaseTracker.isValid()) {
+            // if there is a running leader transfer task or the lease is expired
+            // we need to fall back to msg-based approach
             onDone.complete(commitIndex);
         } else {
             readProgressTracker.add(commitIndex, onDone);
@@ -402,6 +420,8 @@ class RaftNodeStateLeader extends RaftNodeState {
         // reset tick since leader transfer is expected to finish in one election timeout
         electionElapsedTick = 0;
         leaderTransferTask = new LeaderTransferTask(newLeader, onDone);
+        // the new leader may be elected before the lease expired
+        leaseRead = null;
         if (peerLogTracker.matchIndex(newLeader) == stateStorage.lastIndex()) {
             sendTimeoutNow(newLeader);
         } else {
@@ -436,10 +456,10 @@ class RaftNodeStateLeader extends RaftNodeState {
             return this;
         }
         activityTracker.poll(fromPeer, true);
-        if (!config.isReadOnlyLeaderLeaseMode()) {
-            // check if there is any pending read index could be confirmed by quorum
-            readProgressTracker.confirm(reply.getReadIndex(), fromPeer);
-        }
+        leaseTracker.ack(fromPeer, reply.getLeaseSeq());
+        // check if there is any pending read index could be confirmed by quorum,
+        // in lease mode there are pending ones if the lease is expired
+        readProgressTracker.confirm(reply.getReadIndex(), fromPeer);
         if (peerLogTracker.status(fromPeer) != RaftNodeSyncState.SnapshotSyncing) {
             // ignore heartbeat reply during snapshot syncing
             if (reply.getResultCase() == AppendEntriesReply.ResultCase.REJECT) {
@@ -450,6 +470,7 @@ class RaftNodeStateLeader extends RaftNodeState {
                 checkPendingCompaction(false);
                 List<RaftMessage> messages = prepareAppendEntriesForPeer(fromPeer, true);
                 submitRaftMessages(fromPeer, messages);
+                refreshLeaseReadIndex();
                 return this;
             }
             AppendEntriesReply.Accept accept = reply.getAccept();
@@ -464,6 +485,7 @@ class RaftNodeStateLeader extends RaftNodeState {
             }
             return commit();
         }
+        refreshLeaseReadIndex();
         return this;
     }
 
@@ -473,10 +495,8 @@ class RaftNodeStateLeader extends RaftNodeState {
             return this;
         }
         activityTracker.poll(fromPeer, true);
-        if (!config.isReadOnlyLeaderLeaseMode()) {
-            // check if there is any pending read index could be confirmed by quorum
-            readProgressTracker.confirm(reply.getReadIndex(), fromPeer);
-        }
+        // check if there is any pending read index could be confirmed by quorum
+        readProgressTracker.confirm(reply.getReadIndex(), fromPeer);
         if (peerLogTracker.status(fromPeer) != RaftNodeSyncState.SnapshotSyncing) {
             return this;
         }
@@ -545,6 +565,7 @@ class RaftNodeStateLeader extends RaftNodeState {
                             // prevent follower from advancing commit index too earlier
                             .setCommitIndex(snapshot.getIndex())
                             .setReadIndex(readIndex)
+                            .setLeaseSeq(leaseTracker.currentSeq())
                             .build())
                         .build());
                     peerLogTracker.replicateBy(peer, snapshot.getIndex());
@@ -569,6 +590,7 @@ class RaftNodeStateLeader extends RaftNodeState {
                             // tell follower the minimum commit index to prevent it from committing mismatched entries
                             .setCommitIndex(Math.min(preLogIndex, commitIndex))
                             .setReadIndex(readIndex)
+                            .setLeaseSeq(leaseTracker.currentSeq())
                             .build())
                         .build());
                     peerLogTracker.replicateBy(peer, preLogIndex);
@@ -589,7 +611,8 @@ class RaftNodeStateLeader extends RaftNodeState {
                             .setPrevLogIndex(preLogIndex)
                             .setPrevLogTerm(preLogTerm)
                             .setCommitIndex(commitIndex) // tell follower the latest commit index
-                            .setReadIndex(readIndex);
+                            .setReadIndex(readIndex)
+                            .setLeaseSeq(leaseTracker.currentSeq());
                         entries.forEachRemaining(builder::addEntries);
                         AppendEntries appendEntries = builder.build();
                         messages.add(RaftMessage.newBuilder()
@@ -624,6 +647,7 @@ class RaftNodeStateLeader extends RaftNodeState {
                             .setPrevLogTerm(preLogTerm)
                             .setCommitIndex(commitIndex) // tell follower the latest commit index
                             .setReadIndex(readIndex)
+                            .setLeaseSeq(leaseTracker.currentSeq())
                             .build())
                         .build());
                     peerLogTracker.replicateBy(peer, preLogIndex);
@@ -693,6 +717,7 @@ class RaftNodeStateLeader extends RaftNodeState {
                         // target config has been committed, step down if local server has been removed from voters
                         // abort pending read index requests if any
                         log.debug("Leader stepped down due to being removed from cluster config");
+                        leaseRead = null;
                         readProgressTracker.abort(ReadIndexException.leaderStepDown());
                         if (leaderTransferTask != null) {
                             leaderTransferTask.abort(LeaderTransferException.leaderStepDown());
@@ -752,6 +777,10 @@ class RaftNodeStateLeader extends RaftNodeState {
                 }
             }
         }
+        if (nextState == this) {
+            // publish before notifying so that the committed entries are visible to lease reads
+            refreshLeaseReadIndex();
+        }
         if (needNotify) {
             notifyCommit(true);
         }
@@ -826,13 +855,30 @@ class RaftNodeStateLeader extends RaftNodeState {
     }
 
     private boolean commitIndexNotConfirmed() {
+        if (commitIndexConfirmed) {
+            // commit index never goes backward in the same term
+            return false;
+        }
         Optional<LogEntry> committed = stateStorage.entryAt(commitIndex);
-        return !committed.map(logEntry -> logEntry.getTerm() == currentTerm())
+        commitIndexConfirmed = committed.map(logEntry -> logEntry.getTerm() == currentTerm())
             .orElseGet(() -> stateStorage.latestSnapshot().getTerm() == currentTerm());
+        return !commitIndexConfirmed;
+    }
 
+    private void refreshLeaseReadIndex() {
+        if (config.isReadOnlyLeaderLeaseMode()
+            && leaderTransferTask == null
+            && !commitIndexNotConfirmed()
+            && leaseTracker.isValid()) {
+            leaseRead = new LeaseRead(commitIndex, leaseTracker.expiryNanos());
+        } else {
+            leaseRead = null;
+        }
     }
 
     private void abortPendingRequests(AbortReason reason) {
+        // stop serving lease read before transiting to other state
+        leaseRead = null;
         switch (reason) {
             case LeaderStepDown -> {
                 configChanger.abort(ClusterConfigChangeException.leaderStepDown());
@@ -996,4 +1042,7 @@ class RaftNodeStateLeader extends RaftNodeState {
             return waitingPeers.isEmpty();
         }
     }
+
+    private record LeaseRead(long readIndex, long expiryNanos) {
+    }
 }
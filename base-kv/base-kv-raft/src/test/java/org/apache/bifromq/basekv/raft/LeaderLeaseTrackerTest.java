@@ -0,0 +1,152 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.bifromq.basekv.raft;
+
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+import org.apache.bifromq.basekv.raft.proto.ClusterConfig;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class LeaderLeaseTrackerTest {
+    private final RaftConfig config = RaftConfig.builder().electionTimeoutTick(10).maxClockDrift(0.1).build();
+    @Mock
+    IRaftStateStore stateStorage;
+    private AutoCloseable closeable;
+
+    @BeforeMethod
+    public void setup() {
+        closeable = MockitoAnnotations.openMocks(this);
+        when(stateStorage.local()).thenReturn("V1");
+    }
+
+    @AfterMethod
+    public void releaseMocks() throws Exception {
+        closeable.close();
+    }
+
+    @Test
+    public void singleVoter() {
+        when(stateStorage.latestClusterConfig()).thenReturn(ClusterConfig.newBuilder().addVoters("V1").build());
+        LeaderLeaseTracker leaseTracker = new LeaderLeaseTracker(config, stateStorage);
+        assertTrue(leaseTracker.isValid());
+        for (int i = 0; i < 100; i++) {
+            leaseTracker.tick();
+        }
+        assertTrue(leaseTracker.isValid());
+    }
+
+    @Test
+    public void quorumAcked() {
+        when(stateStorage.latestClusterConfig()).thenReturn(ClusterConfig.newBuilder()
+            .addVoters("V1")
+            .addVoters("V2")
+            .addVoters("V3")
+            .build());
+        LeaderLeaseTracker leaseTracker = new LeaderLeaseTracker(config, stateStorage);
+        assertFalse(leaseTracker.isValid());
+
+        long seq = leaseTracker.currentSeq();
+        leaseTracker.ack("V2", seq);
+        assertTrue(leaseTracker.isValid());
+        // floor(10 * 0.9) - 1
+        assertEquals(leaseTracker.remainingTicks(), 8);
+
+        for (int i = 0; i < 7; i++) {
+            leaseTracker.tick();
+        }
+        assertTrue(leaseTracker.isValid());
+        leaseTracker.tick();
+        assertFalse(leaseTracker.isValid());
+
+        // renewed by another voter
+        leaseTracker.ack("V3", leaseTracker.currentSeq());
+        assertTrue(leaseTracker.isValid());
+    }
+
+    @Test
+    public void expiryNanos() {
+        when(stateStorage.latestClusterConfig()).thenReturn(ClusterConfig.newBuilder()
+            .addVoters("V1")
+            .addVoters("V2")
+            .addVoters("V3")
+            .build());
+        RaftConfig config = this.config.toBuilder().tickUnitInMS(100).build();
+        // (floor(10 * 0.9) - 1) * 100ms
+        long leaseNanos = TimeUnit.MILLISECONDS.toNanos(800);
+        long before = System.nanoTime();
+        LeaderLeaseTracker leaseTracker = new LeaderLeaseTracker(config, stateStorage);
+        long after = System.nanoTime();
+        leaseTracker.ack("V2", leaseTracker.currentSeq());
+        long expiry = leaseTracker.expiryNanos();
+        assertTrue(expiry - (before + leaseNanos) >= 0);
+        assertTrue(expiry - (after + leaseNanos) <= 0);
+
+        // the deadline is derived from the round acknowledged by quorum, not the latest round
+        leaseTracker.tick();
+        assertEquals(leaseTracker.expiryNanos(), expiry);
+
+        before = System.nanoTime();
+        leaseTracker.tick();
+        after = System.nanoTime();
+        leaseTracker.ack("V3", leaseTracker.currentSeq());
+        expiry = leaseTracker.expiryNanos();
+        assertTrue(expiry - (before + leaseNanos) >= 0);
+        assertTrue(expiry - (after + leaseNanos) <= 0);
+    }
+
+    @Test
+    public void ignoreFutureSeq() {
+        when(stateStorage.latestClusterConfig()).thenReturn(ClusterConfig.newBuilder()
+            .addVoters("V1")
+            .addVoters("V2")
+            .addVoters("V3")
+            .build());
+        LeaderLeaseTracker leaseTracker = new LeaderLeaseTracker(config, stateStorage);
+        leaseTracker.ack("V2", leaseTracker.currentSeq() + 10);
+        assertFalse(leaseTracker.isValid());
+    }
+
+    @Test
+    public void jointConfig() {
+        when(stateStorage.latestClusterConfig()).thenReturn(ClusterConfig.newBuilder()
+            .addVoters("V1")
+            .addVoters("V2")
+            .addVoters("V3")
+            .addNextVoters("V4")
+            .addNextVoters("V5")
+            .addNextVoters("V6")
+            .build());
+        LeaderLeaseTracker leaseTracker = new LeaderLeaseTracker(config, stateStorage);
+        leaseTracker.ack("V2", leaseTracker.currentSeq());
+        assertFalse(leaseTracker.isValid());
+        leaseTracker.ack("V4", leaseTracker.currentSeq());
+        assertFalse(leaseTracker.isValid());
+        leaseTracker.ack("V5", leaseTracker.currentSeq());
+        assertTrue(leaseTracker.isValid());
+    }
+}
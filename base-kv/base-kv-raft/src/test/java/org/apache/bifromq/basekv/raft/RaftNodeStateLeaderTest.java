@@ -685,6 +685,7 @@ public class RaftNodeStateLeaderTest extends RaftNodeStateTest {
             new LinkedHashMap<>(), messages -> {
             if (onMessageReadyIndex.get() == 0) {
                 onMessageReadyIndex.incrementAndGet();
+                // the first batch is flushed during the first tick, which starts lease round 2
                 assertEquals(messages, new HashMap<String, List<RaftMessage>>() {{
                     put("l1", Collections.singletonList(RaftMessage.newBuilder()
                         .setTerm(1)
@@ -694,6 +695,7 @@ public class RaftNodeStateLeaderTest extends RaftNodeStateTest {
                             .setPrevLogTerm(0)
                             .setCommitIndex(0)
                             .setReadIndex(0)
+                            .setLeaseSeq(2)
                             .build())
                         .build()));
                     put("v1", Collections.singletonList(RaftMessage.newBuilder()
@@ -704,6 +706,7 @@ public class RaftNodeStateLeaderTest extends RaftNodeStateTest {
                             .setPrevLogTerm(0)
                             .setCommitIndex(0)
                             .setReadIndex(0)
+                            .setLeaseSeq(2)
                             .addAllEntries(toList(finalStateStorage.entries(1, 2,
                                 defaultRaftConfig.getMaxSizePerAppend())))
                             .build())
@@ -716,6 +719,7 @@ public class RaftNodeStateLeaderTest extends RaftNodeStateTest {
                             .setPrevLogTerm(0)
                             .setCommitIndex(0)
                             .setReadIndex(0)
+                            .setLeaseSeq(2)
                             .addAllEntries(toList(finalStateStorage.entries(1, 2,
                                 defaultRaftConfig.getMaxSizePerAppend())))
                             .build())
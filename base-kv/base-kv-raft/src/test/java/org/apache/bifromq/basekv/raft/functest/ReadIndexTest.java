@@ -30,6 +30,7 @@ import org.apache.bifromq.basekv.raft.functest.annotation.Config;
 import org.apache.bifromq.basekv.raft.functest.annotation.Ticker;
 import org.apache.bifromq.basekv.raft.functest.template.SharedRaftConfigTestTemplate;
 import org.apache.bifromq.basekv.raft.proto.LogEntry;
+import org.apache.bifromq.basekv.raft.proto.RaftNodeStatus;
 import com.google.protobuf.ByteString;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
@@ -217,6 +218,29 @@ public class ReadIndexTest extends SharedRaftConfigTestTemplate {
             }).join();
     }
 
+    @Config(preVote = false)
+    @Test(groups = "integration")
+    public void testLeaderLeaseNotBrokenByPartitionedCandidateWithoutPreVote() {
+        String leader = group.currentLeader().get();
+        String follower1 = group.currentFollowers().get(0);
+        String follower2 = group.currentFollowers().get(1);
+        group.propose(leader, ByteString.copyFromUtf8("appCommand1"));
+        assertTrue(group.awaitIndexCommitted(follower1, 2));
+        assertTrue(group.awaitIndexCommitted(follower2, 2));
+
+        // follower2 campaigns without pre-vote after losing the leader, while the leader keeps its lease via follower1
+        group.cut(leader, follower2);
+        group.cut(follower2, leader);
+        group.await(ticks(5));
+
+        // follower1 must not vote for follower2 during the lease, otherwise the lease read of leader may be stale
+        assertEquals(group.nodeState(leader), RaftNodeStatus.Leader);
+        assertEquals(group.nodeState(follower1), RaftNodeStatus.Follower);
+        assertTrue(group.currentLeader().isPresent());
+        assertEquals(group.currentLeader().get(), leader);
+        assertTrue(group.readIndex(leader).join() >= 2);
+    }
+
     @Test(groups = "integration")
     public void testReadIndexWhenTransferLeadershipInLeaseMode() {
         String leader = group.currentLeader().get();
@@ -512,6 +512,10 @@ final class BaseKVStoreClient implements IBaseKVStoreClient {
             effectiveRouter.set(Collections.unmodifiableNavigableMap(router));
             return true;
         }
+        if (!hasSameReplicaLags(router, last)) {
+            // only the replica lags changed, no need to refresh mutation pipelines
+            effectiveRouter.set(Collections.unmodifiableNavigableMap(router));
+        }
         return false;
     }
 
@@ -535,12 +539,23 @@ final class BaseKVStoreClient implements IBaseKVStoreClient {
             NavigableMap<Boundary, KVRangeSetting> router = buildClientRoute(clusterId, rangeLeaders,
                 latestRouteMap.get());
             NavigableMap<Boundary, KVRangeSetting> last = effectiveRouter.get();
-            if (!router.equals(last)) {
+            if (!router.equals(last) || !hasSameReplicaLags(router, last)) {
                 effectiveRouter.set(Collections.unmodifiableNavigableMap(router));
             }
         });
     }
 
+    private boolean hasSameReplicaLags(NavigableMap<Boundary, KVRangeSetting> router,
+                                       NavigableMap<Boundary, KVRangeSetting> last) {
+        // the routers are equal, so they have the same boundaries
+        for (Map.Entry<Boundary, KVRangeSetting> entry : router.entrySet()) {
+            if (!entry.getValue().hasSameReplicaLags(last.get(entry.getKey()))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     private void refreshMutPipelines(Map<String, KVRangeStoreDescriptor> storeDescriptors) {
         Map<String, Map<KVRangeId, IMutationPipeline>> nextMutPplns = new HashMap<>();
         Map<String, Map<KVRangeId, IMutationPipeline>> currentMutPplns = mutPplns;
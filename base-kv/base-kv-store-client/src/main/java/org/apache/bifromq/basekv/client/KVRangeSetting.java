@@ -28,6 +28,7 @@ import com.google.protobuf.Any;
 import com.google.protobuf.InvalidProtocolBufferException;
 import com.google.protobuf.Message;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -61,6 +62,11 @@ public class KVRangeSetting {
     private final String leader;
     private final List<String> allQueryReadyReplicas;
     private final List<String> inProcReplicas;
+    // the estimated number of entries each replica's applied index lags behind the leader's, excluded from equality
+    // for not affecting routing, compare them via hasSameReplicaLags instead
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private final Map<String, Long> replicaLags;
     @EqualsAndHashCode.Exclude
     private volatile Object factObject;
 
@@ -104,6 +110,24 @@ public class KVRangeSetting {
         }
         this.allQueryReadyReplicas = Collections.unmodifiableList(Lists.newArrayList(allQueryReadyReplicas));
         this.inProcReplicas = Collections.unmodifiableList(Lists.newArrayList(inProcReplicas));
+        Map<String, Long> replicaLags = new HashMap<>();
+        for (String replica : allQueryReadyReplicas) {
+            // applied indexes are sampled by each replica at fixed rate but not at the same time, so the lag is
+            // only an estimation with bounded staleness
+            replicaLags.put(replica,
+                Math.max(0, leaderDesc.getLastAppliedIndex() - currentReplicas.get(replica).getLastAppliedIndex()));
+        }
+        this.replicaLags = Collections.unmodifiableMap(replicaLags);
+    }
+
+    /**
+     * Check if the estimated replica lags are the same as the other setting's.
+     *
+     * @param other the other setting
+     * @return true if same
+     */
+    boolean hasSameReplicaLags(KVRangeSetting other) {
+        return replicaLags.equals(other.replicaLags);
     }
 
     public <T extends Message> Optional<T> getFact(Class<T> factType) {
@@ -162,6 +186,30 @@ public class KVRangeSetting {
             allQueryReadyReplicas.get(ThreadLocalRandom.current().nextInt(allQueryReadyReplicas.size())));
     }
 
+    /**
+     * Pick a query ready replica randomly whose applied index lags behind the leader's no more than the given entries,
+     * in-proc replica is preferred if any.
+     *
+     * @param maxLag the max number of entries the replica is allowed to lag behind
+     * @return the store id of the picked replica
+     */
+    public Optional<String> randomReplicaForQuery(long maxLag) {
+        String picked = null;
+        int candidates = 0;
+        for (String replica : allQueryReadyReplicas) {
+            if (replicaLags.get(replica) > maxLag) {
+                continue;
+            }
+            if (inProcReplicas.contains(replica)) {
+                return Optional.of(replica);
+            }
+            if (ThreadLocalRandom.current().nextInt(++candidates) == 0) {
+                picked = replica;
+            }
+        }
+        return Optional.ofNullable(picked);
+    }
+
     private boolean isReadyForQuery(String storeId, Map<String, KVRangeDescriptor> descMap) {
         KVRangeDescriptor desc = descMap.get(storeId);
         if (desc == null) {
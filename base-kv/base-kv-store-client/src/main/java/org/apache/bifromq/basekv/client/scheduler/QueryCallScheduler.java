@@ -37,15 +37,36 @@ import org.apache.bifromq.basescheduler.BatchCallScheduler;
 public abstract class QueryCallScheduler<ReqT, RespT, BatchCallT extends BatchQueryCall<ReqT, RespT>>
     extends BatchCallScheduler<ReqT, RespT, QueryCallBatcherKey> {
     protected final IBaseKVStoreClient storeClient;
+    private final long maxReplicaLag;
 
     public QueryCallScheduler(IBatchQueryCallBuilder<ReqT, RespT, BatchCallT> batchCallBuilder,
                               long maxBurstLatency,
                               IBaseKVStoreClient storeClient) {
+        this(batchCallBuilder, maxBurstLatency, storeClient, -1);
+    }
+
+    /**
+     * Construct a query call scheduler which could offload non-linearizable queries to follower replicas.
+     *
+     * @param batchCallBuilder the batch call builder
+     * @param maxBurstLatency the max burst latency
+     * @param storeClient the store client
+     * @param maxReplicaLag the max number of entries a replica could lag behind the leader to serve non-linearizable
+     *                      queries, negative value means always querying the leader
+     */
+    public QueryCallScheduler(IBatchQueryCallBuilder<ReqT, RespT, BatchCallT> batchCallBuilder,
+                              long maxBurstLatency,
+                              IBaseKVStoreClient storeClient,
+                              long maxReplicaLag) {
         super(new BatchQueryCallBuilderFactory<>(storeClient, batchCallBuilder), maxBurstLatency);
         this.storeClient = storeClient;
+        this.maxReplicaLag = maxReplicaLag;
     }
 
     protected String selectStore(KVRangeSetting setting, ReqT request) {
+        if (maxReplicaLag >= 0 && !isLinearizable(request)) {
+            return setting.randomReplicaForQuery(maxReplicaLag).orElse(setting.leader());
+        }
         return setting.leader();
     }
 
@@ -274,6 +274,64 @@ public class KVRangeSettingTest {
         assertTrue(seen.contains(remoteLearner1));
     }
 
+    @Test
+    public void skipLaggingReplicas() {
+        KVRangeId rangeId = KVRangeIdUtil.generate();
+        Map<String, KVRangeDescriptor> replicas = buildReplicas(rangeId, FULL_BOUNDARY,
+            new String[]{remoteVoter2, remoteLearner1}, new HashSet<>());
+        replicas.put(remoteVoter2, replicas.get(remoteVoter2).toBuilder().setLastAppliedIndex(95).build());
+        replicas.put(remoteLearner1, replicas.get(remoteLearner1).toBuilder().setLastAppliedIndex(10).build());
+        KVRangeDescriptor leaderDesc = KVRangeDescriptor.newBuilder()
+            .setId(rangeId).setRole(RaftNodeStatus.Leader).setVer(1)
+            .setBoundary(FULL_BOUNDARY)
+            .putSyncState(remoteVoter1, RaftNodeSyncState.Replicating)
+            .putSyncState(remoteVoter2, RaftNodeSyncState.Replicating)
+            .putSyncState(remoteLearner1, RaftNodeSyncState.Replicating)
+            .setConfig(ClusterConfig.newBuilder()
+                .addVoters(remoteVoter1).addVoters(remoteVoter2)
+                .addLearners(remoteLearner1)
+                .build())
+            .setReadyForQuery(true)
+            .setLastAppliedIndex(100)
+            .build();
+        replicas.put(remoteVoter1, leaderDesc);
+        KVRangeSetting setting = new KVRangeSetting(clusterId, remoteVoter1, replicas);
+
+        Set<String> seen = new HashSet<>();
+        for (int i = 0; i < 100; i++) {
+            seen.add(setting.randomReplicaForQuery(10).orElseThrow());
+        }
+        assertTrue(seen.contains(remoteVoter1));
+        assertTrue(seen.contains(remoteVoter2));
+        assertFalse(seen.contains(remoteLearner1));
+
+        for (int i = 0; i < 10; i++) {
+            assertEquals(setting.randomReplicaForQuery(0).orElseThrow(), remoteVoter1);
+        }
+    }
+
+    @Test
+    public void replicaLagsExcludedFromEquality() {
+        KVRangeId rangeId = KVRangeIdUtil.generate();
+        Map<String, KVRangeDescriptor> replicas = buildReplicas(rangeId, FULL_BOUNDARY,
+            new String[]{remoteVoter2}, new HashSet<>());
+        replicas.put(remoteVoter1, KVRangeDescriptor.newBuilder()
+            .setId(rangeId).setRole(RaftNodeStatus.Leader).setVer(1)
+            .setBoundary(FULL_BOUNDARY)
+            .putSyncState(remoteVoter1, RaftNodeSyncState.Replicating)
+            .putSyncState(remoteVoter2, RaftNodeSyncState.Replicating)
+            .setConfig(ClusterConfig.newBuilder().addVoters(remoteVoter1).addVoters(remoteVoter2).build())
+            .setReadyForQuery(true)
+            .build());
+        KVRangeSetting setting = new KVRangeSetting(clusterId, remoteVoter1, replicas);
+        assertTrue(setting.hasSameReplicaLags(new KVRangeSetting(clusterId, remoteVoter1, new HashMap<>(replicas))));
+
+        replicas.put(remoteVoter1, replicas.get(remoteVoter1).toBuilder().setLastAppliedIndex(100).build());
+        KVRangeSetting lagged = new KVRangeSetting(clusterId, remoteVoter1, replicas);
+        assertEquals(lagged, setting);
+        assertFalse(lagged.hasSameReplicaLags(setting));
+    }
+
     @Test
     public void getFact() {
         Boundary fact = toBoundary(ByteString.copyFromUtf8("abc"), ByteString.copyFromUtf8("def"));
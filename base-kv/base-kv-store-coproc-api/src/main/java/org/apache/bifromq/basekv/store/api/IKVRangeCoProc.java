@@ -54,6 +54,19 @@ public interface IKVRangeCoProc {
      */
     Supplier<MutationResult> mutate(RWCoProcInput input, IKVRangeReader reader, IKVWriter writer, boolean isLeader);
 
+    /**
+     * Whether the mutations from consecutive logs could be persisted in one group. If true, the later mutations in the
+     * group are applied before the suppliers returned by {@link #mutate} for the earlier ones get called, which happens
+     * only after the whole group is persisted. So the mutation must not rely on the in-memory states updated by those
+     * suppliers, but read the keys written by them via the given reader instead. If the group is aborted, the suppliers
+     * of the discarded mutations are never called, and {@link #reset} is called afterwards.
+     *
+     * @return true if the mutations could be applied in group
+     */
+    default boolean supportGroupMutation() {
+        return false;
+    }
+
     /**
      * This method will be called whenever owner range is restored from a snapshot or boundary changed via split/merge.
      * The returned fact will be included in the KVRangeDescriptor.
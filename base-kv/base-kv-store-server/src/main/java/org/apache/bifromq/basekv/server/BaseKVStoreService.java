@@ -67,6 +67,8 @@ class BaseKVStoreService extends BaseKVStoreServiceGrpc.BaseKVStoreServiceImplBa
     private final IAgentHost agentHost;
     private final String clusterId;
     private final IBaseKVMetaService metaService;
+    private final int maxInflightQueriesPerStream;
+    private final boolean orderQueriesPerRange;
     private IBaseKVLandscapeReporter landscapeReporter;
 
     BaseKVStoreService(BaseKVStoreServiceBuilder builder) {
@@ -81,6 +83,8 @@ class BaseKVStoreService extends BaseKVStoreServiceGrpc.BaseKVStoreServiceImplBa
         this.clusterId = builder.clusterId;
         this.agentHost = builder.agentHost;
         this.metaService = builder.serverBuilder.metaService;
+        this.maxInflightQueriesPerStream = builder.storeOptions.getMaxInflightQueriesPerStream();
+        this.orderQueriesPerRange = builder.storeOptions.isOrderQueriesPerRange();
         log = MDCLogger.getLogger(BaseKVStoreService.class, "clusterId", clusterId, "storeId", kvRangeStore.id());
     }
 
@@ -281,7 +285,8 @@ class BaseKVStoreService extends BaseKVStoreServiceGrpc.BaseKVStoreServiceImplBa
 
     @Override
     public StreamObserver<KVRangeRORequest> query(StreamObserver<KVRangeROReply> responseObserver) {
-        return new QueryPipeline(kvRangeStore, false, responseObserver);
+        return new QueryPipeline(kvRangeStore, false, maxInflightQueriesPerStream, orderQueriesPerRange,
+            responseObserver);
     }
 
     @Override
@@ -22,11 +22,16 @@ package org.apache.bifromq.basekv.server;
 import static org.apache.bifromq.base.util.CompletableFutureUtil.unwrap;
 
 import io.grpc.stub.StreamObserver;
+import java.util.ArrayDeque;
+import java.util.Queue;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
+import org.apache.bifromq.basekv.proto.KVRangeId;
 import org.apache.bifromq.basekv.raft.exception.ReadIndexException;
 import org.apache.bifromq.basekv.store.IKVRangeStore;
 import org.apache.bifromq.basekv.store.exception.KVRangeException;
@@ -43,15 +48,42 @@ class QueryPipeline extends ResponsePipeline<KVRangeRORequest, KVRangeROReply> {
 
     private final Logger log;
     private final ConcurrentLinkedQueue<QueryTask> requests = new ConcurrentLinkedQueue<>();
+    // tasks whose range has been handed over by the previous finished task of the same range
+    private final ConcurrentLinkedQueue<QueryTask> readyTasks = new ConcurrentLinkedQueue<>();
+    // the ranges having a query in flight, mapped to the tasks waiting for them
+    private final ConcurrentHashMap<KVRangeId, Queue<QueryTask>> busyRanges = new ConcurrentHashMap<>();
     private final IKVRangeStore kvRangeStore;
     private final boolean linearized;
+    private final int maxInflightQueries;
+    private final boolean orderedPerRange;
+    private final AtomicInteger inflightQueries = new AtomicInteger();
     private final AtomicBoolean executing = new AtomicBoolean(false);
 
     public QueryPipeline(IKVRangeStore kvRangeStore, boolean linearized,
                          StreamObserver<KVRangeROReply> responseObserver) {
+        this(kvRangeStore, linearized, 1, true, responseObserver);
+    }
+
+    /**
+     * Construct a query pipeline.
+     *
+     * @param kvRangeStore the range store to query
+     * @param linearized whether the queries are linearized
+     * @param maxInflightQueries the max number of queries executed concurrently, linearized pipeline always
+     *                           executes queries one by one
+     * @param orderedPerRange whether queries targeting the same range are executed in submission order
+     * @param responseObserver the response observer
+     */
+    public QueryPipeline(IKVRangeStore kvRangeStore,
+                         boolean linearized,
+                         int maxInflightQueries,
+                         boolean orderedPerRange,
+                         StreamObserver<KVRangeROReply> responseObserver) {
         super(responseObserver);
         this.linearized = linearized;
         this.kvRangeStore = kvRangeStore;
+        this.maxInflightQueries = linearized ? 1 : Math.max(1, maxInflightQueries);
+        this.orderedPerRange = orderedPerRange;
         this.log = MDCLogger.getLogger(QueryPipeline.class, "clusterId", kvRangeStore.clusterId(), "storeId",
             kvRangeStore.id());
     }
@@ -71,83 +103,127 @@ class QueryPipeline extends ResponsePipeline<KVRangeRORequest, KVRangeROReply> {
 
     private void submitForExecution() {
         if (executing.compareAndSet(false, true)) {
-            QueryTask task = requests.poll();
-            if (task != null) {
+            while (inflightQueries.get() < maxInflightQueries) {
+                QueryTask task = readyTasks.poll();
+                if (task == null) {
+                    task = requests.poll();
+                    if (task == null) {
+                        break;
+                    }
+                    if (!acquireRange(task)) {
+                        // parked until the preceding query on the same range finishes
+                        continue;
+                    }
+                }
                 KVRangeRORequest request = task.request;
                 // skip canceled or closed pipeline tasks to avoid unnecessary store calls
                 if (task.onDone.isCancelled() || isClosed()) {
                     log.trace("Skip ro range request due to canceled or closed pipeline [linearized={}]:\n{}",
                         linearized, request);
-                    executing.set(false);
-                    if (!requests.isEmpty()) {
-                        submitForExecution();
-                    }
-                    return;
+                    releaseRange(task);
+                    continue;
                 }
-                task.queryFn.apply(request)
-                    .exceptionally(unwrap(e -> {
-                        if (e instanceof KVRangeException.BadVersion badVersion) {
-                            KVRangeROReply.Builder replyBuilder = KVRangeROReply.newBuilder()
-                                .setReqId(request.getReqId())
-                                .setCode(ReplyCode.BadVersion);
-                            if (badVersion.latest != null) {
-                                replyBuilder.setLatest(badVersion.latest);
-                            }
-                            return replyBuilder.build();
-                        }
-                        if (e instanceof KVRangeException.TryLater tryLater) {
-                            KVRangeROReply.Builder replyBuilder = KVRangeROReply.newBuilder()
-                                .setReqId(request.getReqId())
-                                .setCode(ReplyCode.TryLater);
-                            if (tryLater.latest != null) {
-                                replyBuilder.setLatest(tryLater.latest);
-                            }
-                            return replyBuilder.build();
-                        }
-                        if (e instanceof KVRangeStoreException.KVRangeNotFoundException) {
-                            return KVRangeROReply.newBuilder()
-                                .setReqId(request.getReqId())
-                                .setCode(ReplyCode.TryLater)
-                                .build();
-                        }
-                        if (e instanceof KVRangeException.BadRequest badRequest) {
-                            KVRangeROReply.Builder replyBuilder = KVRangeROReply.newBuilder()
-                                .setReqId(request.getReqId())
-                                .setCode(ReplyCode.BadRequest);
-                            if (badRequest.latest != null) {
-                                replyBuilder.setLatest(badRequest.latest);
-                            }
-                            return replyBuilder.build();
-                        }
-                        if (e instanceof ReadIndexException) {
-                            return KVRangeROReply.newBuilder()
-                                .setReqId(request.getReqId())
-                                .setCode(ReplyCode.TryLater)
-                                .build();
-                        }
-                        log.debug("query range error: reqId={}", request.getReqId(), e);
-                        return KVRangeROReply.newBuilder()
-                            .setReqId(request.getReqId())
-                            .setCode(ReplyCode.InternalError)
-                            .build();
-                    }))
-                    .thenAccept(v -> {
-                        // complete only if not canceled concurrently
-                        if (!task.onDone.isDone()) {
-                            task.onDone.complete(v);
-                        }
-                        executing.set(false);
-                        if (!requests.isEmpty()) {
-                            submitForExecution();
-                        }
-                    });
-            } else {
-                executing.set(false);
-                if (!requests.isEmpty()) {
-                    submitForExecution();
+                inflightQueries.incrementAndGet();
+                execute(task);
+            }
+            executing.set(false);
+            if (inflightQueries.get() < maxInflightQueries && (!readyTasks.isEmpty() || !requests.isEmpty())) {
+                submitForExecution();
+            }
+        }
+    }
+
+    private boolean acquireRange(QueryTask task) {
+        if (!orderedPerRange || maxInflightQueries == 1) {
+            return true;
+        }
+        boolean[] acquired = new boolean[1];
+        busyRanges.compute(task.request.getKvRangeId(), (k, waiting) -> {
+            if (waiting == null) {
+                acquired[0] = true;
+                return new ArrayDeque<>();
+            }
+            waiting.add(task);
+            return waiting;
+        });
+        return acquired[0];
+    }
+
+    private void releaseRange(QueryTask task) {
+        if (!orderedPerRange || maxInflightQueries == 1) {
+            return;
+        }
+        QueryTask[] next = new QueryTask[1];
+        busyRanges.computeIfPresent(task.request.getKvRangeId(), (k, waiting) -> {
+            next[0] = waiting.poll();
+            return next[0] == null ? null : waiting;
+        });
+        if (next[0] != null) {
+            // hand over the range to the next waiting task
+            readyTasks.add(next[0]);
+        }
+    }
+
+    private void execute(QueryTask task) {
+        KVRangeRORequest request = task.request;
+        task.queryFn.apply(request)
+            .exceptionally(unwrap(e -> toErrorReply(request, e)))
+            .thenAccept(v -> {
+                // complete only if not canceled concurrently
+                if (!task.onDone.isDone()) {
+                    task.onDone.complete(v);
                 }
+                releaseRange(task);
+                inflightQueries.decrementAndGet();
+                submitForExecution();
+            });
+    }
+
+    private KVRangeROReply toErrorReply(KVRangeRORequest request, Throwable e) {
+        if (e instanceof KVRangeException.BadVersion badVersion) {
+            KVRangeROReply.Builder replyBuilder = KVRangeROReply.newBuilder()
+                .setReqId(request.getReqId())
+                .setCode(ReplyCode.BadVersion);
+            if (badVersion.latest != null) {
+                replyBuilder.setLatest(badVersion.latest);
+            }
+            return replyBuilder.build();
+        }
+        if (e instanceof KVRangeException.TryLater tryLater) {
+            KVRangeROReply.Builder replyBuilder = KVRangeROReply.newBuilder()
+                .setReqId(request.getReqId())
+                .setCode(ReplyCode.TryLater);
+            if (tryLater.latest != null) {
+                replyBuilder.setLatest(tryLater.latest);
+            }
+            return replyBuilder.build();
+        }
+        if (e instanceof KVRangeStoreException.KVRangeNotFoundException) {
+            return KVRangeROReply.newBuilder()
+                .setReqId(request.getReqId())
+                .setCode(ReplyCode.TryLater)
+                .build();
+        }
+        if (e instanceof KVRangeException.BadRequest badRequest) {
+            KVRangeROReply.Builder replyBuilder = KVRangeROReply.newBuilder()
+                .setReqId(request.getReqId())
+                .setCode(ReplyCode.BadRequest);
+            if (badRequest.latest != null) {
+                replyBuilder.setLatest(badRequest.latest);
             }
+            return replyBuilder.build();
+        }
+        if (e instanceof ReadIndexException) {
+            return KVRangeROReply.newBuilder()
+                .setReqId(request.getReqId())
+                .setCode(ReplyCode.TryLater)
+                .build();
         }
+        log.debug("query range error: reqId={}", request.getReqId(), e);
+        return KVRangeROReply.newBuilder()
+            .setReqId(request.getReqId())
+            .setCode(ReplyCode.InternalError)
+            .build();
     }
 
     private CompletionStage<KVRangeROReply> exist(KVRangeRORequest request) {
@@ -181,6 +257,8 @@ class QueryPipeline extends ResponsePipeline<KVRangeRORequest, KVRangeROReply> {
     @Override
     protected void afterClose() {
         requests.clear();
+        readyTasks.clear();
+        busyRanges.clear();
     }
 
     private static class QueryTask {
@@ -134,7 +134,7 @@ public class KVRangeStore implements IKVRangeStore {
         this.coProcFactory = coProcFactory;
         this.opts = opts.toBuilder().build();
         this.walStorageEngine = new KVRangeWALStorageEngine(clusterId, opts.getOverrideIdentity(),
-            opts.getWalEngineType(), opts.getWalEngineConf());
+            opts.getWalEngineType(), opts.getWalEngineConf(), opts.getWalFlushGroupWindowMicros());
         id = walStorageEngine.id();
         String[] tags = new String[] {"clusterId", clusterId, "storeId", id};
         log = MDCLogger.getLogger(KVRangeStore.class, tags);
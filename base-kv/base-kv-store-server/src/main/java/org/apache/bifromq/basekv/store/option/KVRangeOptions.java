@@ -48,10 +48,16 @@ public class KVRangeOptions {
     @Builder.Default
     private int maxWALFatchBatchSize = 5 * 1024 * 1024; // 5MB
     @Builder.Default
+    private int maxGroupApplyEntries = 1; // the max number of committed logs applied in one write batch
+    @Builder.Default
+    private int maxGroupApplyBytes = 4 * 1024 * 1024; // 4MB
+    @Builder.Default
     private int snapshotSyncIdleTimeoutSec = 600; // 10min
     @Builder.Default
     private int statsCollectIntervalSec = 5;
     @Builder.Default
+    private long appliedIndexSampleIntervalInMS = 0; // non-positive to disable, required by lag bounded replica reads
+    @Builder.Default
     private int zombieTimeoutSec = 60; // 1min
     @Builder.Default
     private int mergeTimeoutSec = 60; // 1min
@@ -53,6 +53,12 @@ public class KVRangeStoreOptions {
     private KVRangeOptions kvRangeOptions = new KVRangeOptions();
     @Builder.Default
     private int statsCollectIntervalSec = 5;
+    // the max number of non-linearized queries executed concurrently per query stream
+    @Builder.Default
+    private int maxInflightQueriesPerStream = 1;
+    // execute non-linearized queries targeting the same range in submission order
+    @Builder.Default
+    private boolean orderQueriesPerRange = true;
 
     // Struct-only engine spec
     @Builder.Default
@@ -64,6 +70,9 @@ public class KVRangeStoreOptions {
     private String walEngineType = "rocksdb";
     @Builder.Default
     private Struct walEngineConf = defaultWalConf();
+    // the window for coalescing WAL flushes from all ranges in the store, 0 means no group flush
+    @Builder.Default
+    private long walFlushGroupWindowMicros = 0;
 
     @Builder.Default
     private Map<String, Struct> splitHinterFactoryConfig = new HashMap<>();
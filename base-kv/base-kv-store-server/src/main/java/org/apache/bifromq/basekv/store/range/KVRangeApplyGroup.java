@@ -0,0 +1,333 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.bifromq.basekv.store.range;
+
+import static org.apache.bifromq.basekv.utils.BoundaryUtil.FULL_BOUNDARY;
+import static org.apache.bifromq.basekv.utils.BoundaryUtil.endKey;
+import static org.apache.bifromq.basekv.utils.BoundaryUtil.inRange;
+import static org.apache.bifromq.basekv.utils.BoundaryUtil.isOverlap;
+import static org.apache.bifromq.basekv.utils.BoundaryUtil.startKey;
+
+import com.google.protobuf.ByteString;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.Optional;
+import java.util.TreeSet;
+import java.util.function.Consumer;
+import org.apache.bifromq.basekv.proto.Boundary;
+import org.apache.bifromq.basekv.proto.State;
+import org.apache.bifromq.basekv.raft.proto.ClusterConfig;
+import org.apache.bifromq.basekv.store.api.IKVIterator;
+import org.apache.bifromq.basekv.store.api.IKVRangeRefreshableReader;
+import org.apache.bifromq.basekv.store.api.IKVWriter;
+import org.apache.bifromq.basekv.utils.BoundaryUtil;
+
+/**
+ * Coalesce the mutations of consecutive committed logs into one write batch of the range.
+ *
+ * <p>The mutation of each log is staged in its own buffer and moved into the shared write batch once the log has been
+ * applied, so that the logs are still applied one by one in order. The staged but not yet persisted keys are tracked,
+ * and the group will be flushed before any later read touching them, so every log observes the effects of all the
+ * logs before it just like being applied individually.
+ */
+class KVRangeApplyGroup implements AutoCloseable {
+    private final IKVRange kvRange;
+    private final List<IKVRangeRefreshableReader> retiredReaders = new ArrayList<>();
+    private final NavigableSet<ByteString> stagedKeys = new TreeSet<>(BoundaryUtil::compare);
+    private final List<Boundary> stagedClears = new ArrayList<>();
+    private final List<StagedLog> stagedLogs = new ArrayList<>();
+    private IKVRangeRefreshableReader reader;
+    private IKVRangeWriter<?> rangeWriter;
+    private long stagedIndex = -1;
+    private int stagedBytes = 0;
+
+    KVRangeApplyGroup(IKVRange kvRange) {
+        this.kvRange = kvRange;
+        this.reader = kvRange.newReader();
+    }
+
+    /**
+     * The reader for applying the next log, which observes the effects of all previously staged logs.
+     *
+     * @return the reader
+     */
+    IKVRangeRefreshableReader reader() {
+        return new GroupReader();
+    }
+
+    /**
+     * Create a buffer for staging the mutation of the next log.
+     *
+     * @return the staging writer
+     */
+    StagingWriter newStage() {
+        return new StagingWriter();
+    }
+
+    /**
+     * Move the staged mutation of the log into the write batch.
+     *
+     * @param logIndex the index of the applied log
+     * @param stage the staged mutation of the log
+     * @param afterFlushed the callback to run after the log has been persisted
+     * @param onAborted the callback to run if the log is discarded before being persisted
+     */
+    void stage(long logIndex, StagingWriter stage, Runnable afterFlushed, Consumer<Throwable> onAborted) {
+        if (!stage.ops.isEmpty()) {
+            if (rangeWriter == null) {
+                rangeWriter = kvRange.toWriter();
+            }
+            IKVWriter kvWriter = rangeWriter.kvWriter();
+            for (StagedOp op : stage.ops) {
+                switch (op.type) {
+                    case Put -> {
+                        kvWriter.put(op.key, op.value);
+                        stagedKeys.add(op.key);
+                        stagedBytes += op.key.size() + op.value.size();
+                    }
+                    case Insert -> {
+                        kvWriter.insert(op.key, op.value);
+                        stagedKeys.add(op.key);
+                        stagedBytes += op.key.size() + op.value.size();
+                    }
+                    case Delete -> {
+                        kvWriter.delete(op.key);
+                        stagedKeys.add(op.key);
+                        stagedBytes += op.key.size();
+                    }
+                    case Clear -> {
+                        kvWriter.clear(op.boundary);
+                        stagedClears.add(op.boundary);
+                    }
+                    default -> {
+                        // never happen
+                    }
+                }
+            }
+        }
+        stagedIndex = logIndex;
+        stagedLogs.add(new StagedLog(afterFlushed, onAborted));
+    }
+
+    /**
+     * The approximate bytes staged in the write batch.
+     *
+     * @return the staged bytes
+     */
+    int stagedBytes() {
+        return stagedBytes;
+    }
+
+    /**
+     * Persist all staged logs in one write batch along with the last applied index, and run the after flushed
+     * callbacks in order. All the callbacks are run even if some of them throw, and the first error is rethrown
+     * afterwards.
+     */
+    void flush() {
+        if (stagedIndex < 0) {
+            return;
+        }
+        if (rangeWriter == null) {
+            rangeWriter = kvRange.toWriter();
+        }
+        rangeWriter.lastAppliedIndex(stagedIndex);
+        rangeWriter.done();
+        rangeWriter = null;
+        stagedIndex = -1;
+        stagedBytes = 0;
+        stagedKeys.clear();
+        stagedClears.clear();
+        // iterators opened before flushing don't cover any staged keys, so they are left on the previous view
+        retiredReaders.add(reader);
+        reader = kvRange.newReader();
+        List<StagedLog> flushedLogs = new ArrayList<>(stagedLogs);
+        stagedLogs.clear();
+        RuntimeException error = null;
+        for (StagedLog flushedLog : flushedLogs) {
+            try {
+                flushedLog.afterFlushed.run();
+            } catch (RuntimeException e) {
+                if (error == null) {
+                    error = e;
+                } else {
+                    error.addSuppressed(e);
+                }
+            }
+        }
+        if (error != null) {
+            throw error;
+        }
+    }
+
+    /**
+     * Discard all staged but not yet persisted logs, and run their aborted callbacks in order.
+     *
+     * @param cause the reason of aborting
+     */
+    void abort(Throwable cause) {
+        if (rangeWriter != null) {
+            rangeWriter.abort();
+            rangeWriter = null;
+        }
+        stagedIndex = -1;
+        stagedBytes = 0;
+        stagedKeys.clear();
+        stagedClears.clear();
+        List<StagedLog> abortedLogs = new ArrayList<>(stagedLogs);
+        stagedLogs.clear();
+        abortedLogs.forEach(abortedLog -> abortedLog.onAborted.accept(cause));
+    }
+
+    @Override
+    public void close() {
+        retiredReaders.forEach(IKVRangeRefreshableReader::close);
+        retiredReaders.clear();
+        reader.close();
+    }
+
+    private void flushIfStaged(ByteString key) {
+        if (stagedKeys.contains(key) || stagedClears.stream().anyMatch(b -> inRange(key, b))) {
+            flush();
+        }
+    }
+
+    private void flushIfStaged(Boundary boundary) {
+        if (stagedKeys.isEmpty() && stagedClears.isEmpty()) {
+            return;
+        }
+        ByteString startKey = startKey(boundary);
+        ByteString endKey = endKey(boundary);
+        NavigableSet<ByteString> keys = stagedKeys;
+        if (startKey != null) {
+            keys = keys.tailSet(startKey, true);
+        }
+        if (endKey != null) {
+            keys = keys.headSet(endKey, false);
+        }
+        if (!keys.isEmpty() || stagedClears.stream().anyMatch(b -> isOverlap(b, boundary))) {
+            flush();
+        }
+    }
+
+    private enum OpType {
+        Put, Insert, Delete, Clear
+    }
+
+    private record StagedOp(OpType type, ByteString key, ByteString value, Boundary boundary) {
+    }
+
+    private record StagedLog(Runnable afterFlushed, Consumer<Throwable> onAborted) {
+    }
+
+    /**
+     * The writer buffering the mutation of a single log.
+     */
+    static class StagingWriter implements IKVWriter {
+        private final List<StagedOp> ops = new ArrayList<>();
+
+        @Override
+        public void delete(ByteString key) {
+            ops.add(new StagedOp(OpType.Delete, key, null, null));
+        }
+
+        @Override
+        public void clear(Boundary boundary) {
+            ops.add(new StagedOp(OpType.Clear, null, null, boundary));
+        }
+
+        @Override
+        public void insert(ByteString key, ByteString value) {
+            ops.add(new StagedOp(OpType.Insert, key, value, null));
+        }
+
+        @Override
+        public void put(ByteString key, ByteString value) {
+            ops.add(new StagedOp(OpType.Put, key, value, null));
+        }
+    }
+
+    private class GroupReader implements IKVRangeRefreshableReader {
+        @Override
+        public long version() {
+            return reader.version();
+        }
+
+        @Override
+        public State state() {
+            return reader.state();
+        }
+
+        @Override
+        public long lastAppliedIndex() {
+            return reader.lastAppliedIndex();
+        }
+
+        @Override
+        public Boundary boundary() {
+            return reader.boundary();
+        }
+
+        @Override
+        public ClusterConfig clusterConfig() {
+            return reader.clusterConfig();
+        }
+
+        @Override
+        public long size(Boundary boundary) {
+            flushIfStaged(boundary);
+            return reader.size(boundary);
+        }
+
+        @Override
+        public boolean exist(ByteString key) {
+            flushIfStaged(key);
+            return reader.exist(key);
+        }
+
+        @Override
+        public Optional<ByteString> get(ByteString key) {
+            flushIfStaged(key);
+            return reader.get(key);
+        }
+
+        @Override
+        public IKVIterator iterator() {
+            flushIfStaged(FULL_BOUNDARY);
+            return reader.iterator();
+        }
+
+        @Override
+        public IKVIterator iterator(Boundary boundary) {
+            flushIfStaged(boundary);
+            return reader.iterator(boundary);
+        }
+
+        @Override
+        public void refresh() {
+            reader.refresh();
+        }
+
+        @Override
+        public void close() {
+            // the underlying reader is shared by the whole group
+        }
+    }
+}
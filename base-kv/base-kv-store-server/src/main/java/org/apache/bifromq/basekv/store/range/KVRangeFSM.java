@@ -56,6 +56,7 @@ import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 import com.google.protobuf.Any;
 import com.google.protobuf.ByteString;
+import com.google.protobuf.InvalidProtocolBufferException;
 import io.micrometer.core.instrument.Metrics;
 import io.micrometer.core.instrument.Tags;
 import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
@@ -138,6 +139,7 @@ import org.apache.bifromq.basekv.store.api.IKVRangeCoProc;
 import org.apache.bifromq.basekv.store.api.IKVRangeCoProcFactory;
 import org.apache.bifromq.basekv.store.api.IKVRangeReader;
 import org.apache.bifromq.basekv.store.api.IKVRangeRefreshableReader;
+import org.apache.bifromq.basekv.store.api.IKVWriter;
 import org.apache.bifromq.basekv.store.exception.KVRangeException;
 import org.apache.bifromq.basekv.store.option.KVRangeOptions;
 import org.apache.bifromq.basekv.store.proto.ROCoProcInput;
@@ -240,7 +242,9 @@ public class KVRangeFSM implements IKVRangeFSM {
         this.log = MDCLogger.getLogger(KVRangeFSM.class, tags);
         this.metricManager = new KVRangeMetricManager(clusterId, hostStoreId, id);
         this.wal = new KVRangeWAL(clusterId, hostStoreId, id,
-            walStore, opts.getWalRaftConfig(), opts.getMaxWALFatchBatchSize());
+            walStore, opts.getWalRaftConfig().toBuilder().tickUnitInMS(opts.getTickUnitInMS()).build(),
+            opts.getMaxWALFatchBatchSize(), opts.getMaxGroupApplyEntries(),
+            opts.getMaxGroupApplyBytes());
         this.fsmExecutor = ExecutorServiceMetrics.monitor(Metrics.globalRegistry,
             new ThreadPoolExecutor(1, 1,
                 0L, TimeUnit.MILLISECONDS, new LinkedTransferQueue<>(),
@@ -259,8 +263,8 @@ public class KVRangeFSM implements IKVRangeFSM {
         this.snapshotBandwidthGovernor = new SnapshotBandwidthGovernor(opts.getSnapshotSyncBytesPerSec());
 
         long lastAppliedIndex = this.kvRange.lastAppliedIndex().blockingFirst();
-        this.linearizer = new KVRangeQueryLinearizer(wal::readIndex, queryExecutor, lastAppliedIndex,
-            metricManager::recordLinearization, tags);
+        this.linearizer = new KVRangeQueryLinearizer(wal::readIndex, wal::leaseReadIndex, queryExecutor,
+            lastAppliedIndex, metricManager::recordLinearization, tags);
         this.queryRunner = new KVRangeQueryRunner(this.kvRange, coProc, queryExecutor, linearizer,
             splitHinters, this::latestDescriptor, resetLock, tags);
         this.statsCollector = new KVRangeStatsCollector(this.kvRange,
@@ -272,6 +276,11 @@ public class KVRangeFSM implements IKVRangeFSM {
                     return metricManager.recordLogApply(() -> KVRangeFSM.this.apply(log, isLeader));
                 }
 
+                @Override
+                public CompletableFuture<Void> apply(List<LogEntry> logs, boolean isLeader) {
+                    return metricManager.recordLogApply(() -> KVRangeFSM.this.apply(logs, isLeader));
+                }
+
                 @Override
                 public CompletableFuture<Void> restore(KVRangeSnapshot snapshot, String leader,
                                                        IAfterRestoredCallback callback) {
@@ -346,7 +355,15 @@ public class KVRangeFSM implements IKVRangeFSM {
                                         return Observable.just(false);
                                     }
                                 })
-                                .distinctUntilChanged()},
+                                .distinctUntilChanged(),
+                            // sample applied index at fixed rate if enabled, so the replica lag estimated by clients
+                            // is not computed from stale samples when other fields stay unchanged
+                            opts.getAppliedIndexSampleIntervalInMS() > 0
+                                ? Observable.interval(0, opts.getAppliedIndexSampleIntervalInMS(),
+                                    TimeUnit.MILLISECONDS, Schedulers.from(mgmtExecutor))
+                                .map(t -> kvRange.currentLastAppliedIndex())
+                                .distinctUntilChanged()
+                                : Observable.just(-1L)},
                         (latest) -> {
                             long ver = (long) latest[0];
                             State state = (State) latest[1];
@@ -361,6 +378,7 @@ public class KVRangeFSM implements IKVRangeFSM {
                             List<SplitHint> splitHints = (List<SplitHint>) latest[7];
                             Any fact = (Any) latest[8];
                             boolean readyForQuery = (boolean) latest[9];
+                            long sampledAppliedIndex = (long) latest[10];
                             log.trace("Split hints: \n{}", splitHints);
                             List<SplitHint> alignedHints = splitHints.stream().map(h -> {
                                 if (h.hasSplitKey()) {
@@ -383,6 +401,8 @@ public class KVRangeFSM implements IKVRangeFSM {
                                 .setHlc(HLC.INST.get())
                                 .setFact(fact)
                                 .setReadyForQuery(readyForQuery)
+                                .setLastAppliedIndex(sampledAppliedIndex >= 0
+                                    ? sampledAppliedIndex : kvRange.currentLastAppliedIndex())
                                 .build();
                         })
                     .observeOn(Schedulers.from(mgmtExecutor))
@@ -828,6 +848,105 @@ public class KVRangeFSM implements IKVRangeFSM {
         return onDone;
     }
 
+    private CompletableFuture<Void> apply(List<LogEntry> entries, boolean isLeader) {
+        CompletableFuture<Void> onDone = new CompletableFuture<>();
+        applyInGroup(entries, 0, isLeader, onDone);
+        return onDone;
+    }
+
+    private void applyInGroup(List<LogEntry> entries, int from, boolean isLeader, CompletableFuture<Void> onDone) {
+        int i = from;
+        KVRangeCommand command = null;
+        try (KVRangeApplyGroup applyGroup = new KVRangeApplyGroup(kvRange)) {
+            try {
+                for (; i < entries.size(); i++) {
+                    LogEntry entry = entries.get(i);
+                    command = groupableCommand(entry);
+                    if (command == null) {
+                        break;
+                    }
+                    if (kvRange.currentLastAppliedIndex() >= entry.getIndex()) {
+                        // skip already applied log
+                        continue;
+                    }
+                    stage(applyGroup, entry, command, isLeader);
+                    if (applyGroup.stagedBytes() >= opts.getMaxGroupApplyBytes()) {
+                        applyGroup.flush();
+                    }
+                }
+                applyGroup.flush();
+            } catch (Throwable e) {
+                // the logs persisted before have been called back during flushing, fail the rest discarded
+                applyGroup.abort(e);
+                log.error("Failed to apply logs in group", e);
+                // rebuild coproc's in-memory states which may contain effects of the aborted mutations
+                factSubject.onNext(reset(kvRange.currentBoundary()));
+                onDone.completeExceptionally(e);
+                return;
+            }
+        }
+        if (i == entries.size()) {
+            onDone.complete(null);
+            return;
+        }
+        // apply the log which could not be grouped individually, and continue with the rest
+        int next = i + 1;
+        CompletableFuture<Void> applyFuture = apply(entries.get(i), isLeader);
+        onDone.whenComplete((v, e) -> {
+            if (onDone.isCancelled()) {
+                applyFuture.cancel(true);
+            }
+        });
+        applyFuture.whenCompleteAsync((v, e) -> {
+            if (onDone.isDone()) {
+                return;
+            }
+            if (e != null) {
+                onDone.completeExceptionally(e);
+            } else {
+                applyInGroup(entries, next, isLeader, onDone);
+            }
+        }, fsmExecutor);
+    }
+
+    private KVRangeCommand groupableCommand(LogEntry entry) throws InvalidProtocolBufferException {
+        if (entry.getTypeCase() != LogEntry.TypeCase.DATA) {
+            return null;
+        }
+        KVRangeCommand command = ZeroCopyParser.parse(entry.getData(), KVRangeCommand.parser());
+        return switch (command.getCommandTypeCase()) {
+            case PUT, DELETE -> command;
+            case RWCOPROC -> coProc.supportGroupMutation() ? command : null;
+            default -> null;
+        };
+    }
+
+    private void stage(KVRangeApplyGroup applyGroup, LogEntry entry, KVRangeCommand command, boolean isLeader) {
+        if (log.isTraceEnabled()) {
+            log.trace("Execute KVRange Command in group[term={}, index={}, taskId={}]: \n{}",
+                entry.getTerm(), entry.getIndex(), command.getTaskId(), command);
+        }
+        IKVLoadRecorder loadRecorder = new KVLoadRecorder();
+        KVRangeApplyGroup.StagingWriter stage = applyGroup.newStage();
+        Runnable callback = applyDataCommand(isLeader, command,
+            new LoadRecordableKVReader(applyGroup.reader(), loadRecorder),
+            new LoadRecordableKVWriter(stage, loadRecorder));
+        long index = entry.getIndex();
+        applyGroup.stage(index, stage, () -> {
+            if (command.hasRwCoProc()) {
+                IKVLoadRecord loadRecord = loadRecorder.stop();
+                splitHinters.forEach(hint -> hint.recordMutate(command.getRwCoProc(), loadRecord));
+            }
+            try {
+                callback.run();
+            } finally {
+                linearizer.afterLogApplied(index);
+                metricManager.reportLastAppliedIndex(index);
+            }
+        }, e -> finishCommandWithError(command.getTaskId(), new KVRangeException.InternalException(
+            "Failed to execute " + command.getCommandTypeCase().name(), e)));
+    }
+
     private Supplier<CompletableFuture<Void>> applyConfigChange(long term,
                                                                 long index,
                                                                 ClusterConfig config,
@@ -1513,61 +1632,8 @@ public class KVRangeFSM implements IKVRangeFSM {
                         resetHinterAndCoProc(NULL_BOUNDARY);
                     }, fsmExecutor));
             }
-            case PUT, DELETE, RWCOPROC -> {
-                if (!boundaryCompatible(reqVer, ver)) {
-                    onDone.complete(() -> finishCommandWithError(taskId,
-                        new KVRangeException.BadVersion("Version Mismatch", latestLeaderDescriptor())));
-                    break;
-                }
-                if (state.getType() == NoUse
-                    || state.getType() == WaitingForMerge
-                    || state.getType() == Merged
-                    || state.getType() == MergedQuiting
-                    || state.getType() == Removed
-                    || state.getType() == ToBePurged) {
-                    onDone.complete(() -> finishCommandWithError(taskId,
-                        new KVRangeException.TryLater(
-                            "Range is being merge or has been merged: state=" + state.getType().name())));
-                    break;
-                }
-                try {
-                    switch (command.getCommandTypeCase()) {
-                        // normal commands
-                        case DELETE -> {
-                            Delete delete = command.getDelete();
-                            Preconditions.checkArgument(BoundaryUtil.inRange(delete.getKey(), boundary));
-                            Optional<ByteString> value = rangeReader.get(delete.getKey());
-                            if (value.isPresent()) {
-                                rangeWriter.kvWriter().delete(delete.getKey());
-                            }
-                            onDone.complete(() -> finishCommand(taskId, value.orElse(ByteString.EMPTY)));
-                        }
-                        case PUT -> {
-                            Put put = command.getPut();
-                            Preconditions.checkArgument(BoundaryUtil.inRange(put.getKey(), boundary));
-                            Optional<ByteString> value = rangeReader.get(put.getKey());
-                            rangeWriter.kvWriter().put(put.getKey(), put.getValue());
-                            onDone.complete(() -> finishCommand(taskId, value.orElse(ByteString.EMPTY)));
-                        }
-                        case RWCOPROC -> {
-                            Supplier<IKVRangeCoProc.MutationResult> resultSupplier =
-                                coProc.mutate(command.getRwCoProc(), rangeReader, rangeWriter.kvWriter(), isLeader);
-                            onDone.complete(() -> {
-                                IKVRangeCoProc.MutationResult result = resultSupplier.get();
-                                result.fact().ifPresent(factSubject::onNext);
-                                finishCommand(taskId, result.output());
-                            });
-                        }
-                        default -> {
-                            // do nothing
-                        }
-                    }
-                } catch (Throwable e) {
-                    onDone.complete(
-                        () -> finishCommandWithError(taskId, new KVRangeException.InternalException(
-                            "Failed to execute " + command.getCommandTypeCase().name(), e)));
-                }
-            }
+            case PUT, DELETE, RWCOPROC -> onDone.complete(
+                applyDataCommand(isLeader, command, rangeReader, rangeWriter.kvWriter()));
             default -> {
                 log.error("Unknown KVRange Command[type={}]", command.getCommandTypeCase());
                 onDone.complete(NOOP);
@@ -1576,6 +1642,74 @@ public class KVRangeFSM implements IKVRangeFSM {
         return onDone;
     }
 
+    private Runnable applyDataCommand(boolean isLeader,
+                                      KVRangeCommand command,
+                                      IKVRangeReader rangeReader,
+                                      IKVWriter kvWriter) {
+        long reqVer = command.getVer();
+        String taskId = command.getTaskId();
+        long ver = rangeReader.version();
+        State state = rangeReader.state();
+        Boundary boundary = rangeReader.boundary();
+        if (!boundaryCompatible(reqVer, ver)) {
+            return () -> finishCommandWithError(taskId,
+                new KVRangeException.BadVersion("Version Mismatch", latestLeaderDescriptor()));
+        }
+        if (state.getType() == NoUse
+            || state.getType() == WaitingForMerge
+            || state.getType() == Merged
+            || state.getType() == MergedQuiting
+            || state.getType() == Removed
+            || state.getType() == ToBePurged) {
+            return () -> finishCommandWithError(taskId,
+                new KVRangeException.TryLater(
+                    "Range is being merge or has been merged: state=" + state.getType().name()));
+        }
+        try {
+            switch (command.getCommandTypeCase()) {
+                // normal commands
+                case DELETE -> {
+                    Delete delete = command.getDelete();
+                    Preconditions.checkArgument(BoundaryUtil.inRange(delete.getKey(), boundary));
+                    Optional<ByteString> value = rangeReader.get(delete.getKey());
+                    if (value.isPresent()) {
+                        kvWriter.delete(delete.getKey());
+                    }
+                    return () -> finishCommand(taskId, value.orElse(ByteString.EMPTY));
+                }
+                case PUT -> {
+                    Put put = command.getPut();
+                    Preconditions.checkArgument(BoundaryUtil.inRange(put.getKey(), boundary));
+                    Optional<ByteString> value = rangeReader.get(put.getKey());
+                    kvWriter.put(put.getKey(), put.getValue());
+                    return () -> finishCommand(taskId, value.orElse(ByteString.EMPTY));
+                }
+                case RWCOPROC -> {
+                    Supplier<IKVRangeCoProc.MutationResult> resultSupplier =
+                        coProc.mutate(command.getRwCoProc(), rangeReader, kvWriter, isLeader);
+                    return () -> {
+                        IKVRangeCoProc.MutationResult result;
+                        try {
+                            result = resultSupplier.get();
+                        } catch (Throwable e) {
+                            finishCommandWithError(taskId, new KVRangeException.InternalException(
+                                "Failed to execute " + command.getCommandTypeCase().name(), e));
+                            throw e;
+                        }
+                        result.fact().ifPresent(factSubject::onNext);
+                        finishCommand(taskId, result.output());
+                    };
+                }
+                default -> {
+                    return NOOP;
+                }
+            }
+        } catch (Throwable e) {
+            return () -> finishCommandWithError(taskId, new KVRangeException.InternalException(
+                "Failed to execute " + command.getCommandTypeCase().name(), e));
+        }
+    }
+
     private String randomPickOne(List<String> remoteVoters, List<String> localVoters) {
         if (remoteVoters.contains(hostStoreId)) {
             return hostStoreId;
@@ -27,6 +27,7 @@ import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.Executor;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Function;
+import java.util.function.LongSupplier;
 import java.util.function.Supplier;
 import lombok.AllArgsConstructor;
 import org.apache.bifromq.logger.MDCLogger;
@@ -37,17 +38,20 @@ class KVRangeQueryLinearizer implements IKVRangeQueryLinearizer {
     private final ConcurrentMap<CompletableFuture<Long>, CompletableFuture<Void>> readIndexes = Maps.newConcurrentMap();
     private final ConcurrentLinkedDeque<ToLinearize> toBeLinearized = new ConcurrentLinkedDeque<>();
     private final Supplier<CompletableFuture<Long>> readIndexProvider;
+    private final LongSupplier leaseReadIndexProvider;
     private final Function<Supplier<CompletableFuture<Void>>, CompletableFuture<Void>> recordDuration;
     private final Executor executor;
     private final AtomicBoolean linearizing = new AtomicBoolean();
     private volatile long lastAppliedIndex = 0;
 
     KVRangeQueryLinearizer(Supplier<CompletableFuture<Long>> readIndexProvider,
+                           LongSupplier leaseReadIndexProvider,
                            Executor executor,
                            long lastAppliedIndex,
                            Function<Supplier<CompletableFuture<Void>>, CompletableFuture<Void>> recordDuration,
                            String... tags) {
         this.readIndexProvider = readIndexProvider;
+        this.leaseReadIndexProvider = leaseReadIndexProvider;
         this.recordDuration = recordDuration;
         this.executor = executor;
         this.lastAppliedIndex = lastAppliedIndex;
@@ -57,6 +61,17 @@ class KVRangeQueryLinearizer implements IKVRangeQueryLinearizer {
     @Override
     public CompletionStage<Void> linearize() {
         return recordDuration.apply(() -> {
+            long leaseReadIndex = leaseReadIndexProvider.getAsLong();
+            if (leaseReadIndex >= 0) {
+                // leader lease is valid, no need to confirm the read index via raft
+                if (leaseReadIndex <= lastAppliedIndex) {
+                    return CompletableFuture.completedFuture(null);
+                }
+                CompletableFuture<Void> onDone = new CompletableFuture<>();
+                toBeLinearized.add(new ToLinearize(leaseReadIndex, onDone));
+                schedule();
+                return onDone;
+            }
             CompletableFuture<Void> onDone = new CompletableFuture<>();
             CompletableFuture<Long> readIndex = readIndexProvider.get();
             readIndexes.put(readIndex, onDone);
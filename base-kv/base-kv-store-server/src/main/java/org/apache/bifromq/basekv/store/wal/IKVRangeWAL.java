@@ -75,6 +75,8 @@ public interface IKVRangeWAL {
 
     CompletableFuture<Long> readIndex();
 
+    long leaseReadIndex();
+
     CompletableFuture<Void> transferLeadership(String peerId);
 
     boolean stepDown();
@@ -19,6 +19,7 @@
 
 package org.apache.bifromq.basekv.store.wal;
 
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
 import org.apache.bifromq.basekv.proto.KVRangeSnapshot;
 import org.apache.bifromq.basekv.raft.proto.LogEntry;
@@ -37,6 +38,22 @@ public interface IKVRangeWALSubscriber {
      */
     CompletableFuture<Void> apply(LogEntry log, boolean isLeader);
 
+    /**
+     * Callback method to apply a run of consecutive logs committed with the same leadership. The logs are applied one
+     * by one by default, implementation may override it to apply them in group.
+     *
+     * @param logs the committed logs in index order
+     * @param isLeader if the node was leader when the logs committed
+     * @return the future to indicate when all the logs have been applied
+     */
+    default CompletableFuture<Void> apply(List<LogEntry> logs, boolean isLeader) {
+        CompletableFuture<Void> onDone = CompletableFuture.completedFuture(null);
+        for (LogEntry log : logs) {
+            onDone = onDone.thenCompose(v -> apply(log, isLeader));
+        }
+        return onDone;
+    }
+
     /**
      * Install snapshot to kv range asynchronously and the returned snapshot will be used for WAL compaction.
      *
@@ -62,6 +62,8 @@ import org.slf4j.Logger;
 public class KVRangeWAL implements IKVRangeWAL, IRaftNode.ISnapshotInstaller {
     private final Logger log;
     private final long maxFetchBytes;
+    private final int maxApplyEntries;
+    private final long maxApplyBytes;
     private final PublishSubject<SnapshotRestoredEvent> snapRestoreEventPublisher = PublishSubject.create();
     private final BehaviorSubject<CommitEvent> commitIndexSubject = BehaviorSubject.create();
     private final PublishSubject<RestoreSnapshotTask> snapRestoreTaskPublisher = PublishSubject.create();
@@ -82,9 +84,22 @@ public class KVRangeWAL implements IKVRangeWAL, IRaftNode.ISnapshotInstaller {
                       IKVRangeWALStore walStore,
                       RaftConfig raftConfig,
                       int maxFetchBytes) {
+        this(clusterId, localId, rangeId, walStore, raftConfig, maxFetchBytes, 1, maxFetchBytes);
+    }
+
+    public KVRangeWAL(String clusterId,
+                      String localId,
+                      KVRangeId rangeId,
+                      IKVRangeWALStore walStore,
+                      RaftConfig raftConfig,
+                      int maxFetchBytes,
+                      int maxApplyEntries,
+                      int maxApplyBytes) {
         this.rangeId = rangeId;
         this.localId = localId;
         this.maxFetchBytes = maxFetchBytes;
+        this.maxApplyEntries = maxApplyEntries;
+        this.maxApplyBytes = maxApplyBytes;
         this.walStore = walStore;
         tags =
             new String[] {"clusterId", clusterId, "storeId", localId, "rangeId", KVRangeIdUtil.toString(rangeId)};
@@ -140,7 +155,7 @@ public class KVRangeWAL implements IKVRangeWAL, IRaftNode.ISnapshotInstaller {
     @Override
     public IKVRangeWALSubscription subscribe(long lastFetchedIndex, IKVRangeWALSubscriber subscriber,
                                              Executor executor) {
-        return new KVRangeWALSubscription(maxFetchBytes, this,
+        return new KVRangeWALSubscription(maxFetchBytes, maxApplyEntries, maxApplyBytes, this,
             commitIndexSubject, lastFetchedIndex, subscriber, executor, tags);
     }
 
@@ -193,6 +208,11 @@ public class KVRangeWAL implements IKVRangeWAL, IRaftNode.ISnapshotInstaller {
         return raftNode.readIndex();
     }
 
+    @Override
+    public long leaseReadIndex() {
+        return raftNode.leaseReadIndex();
+    }
+
     @Override
     public CompletableFuture<Void> transferLeadership(String peerId) {
         return raftNode.transferLeadership(peerId);
@@ -0,0 +1,146 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.bifromq.basekv.store.wal;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.apache.bifromq.baseenv.EnvProvider;
+import org.apache.bifromq.basekv.localengine.IWALableKVSpace;
+
+/**
+ * Store-level group committer for WAL flushes.
+ *
+ * <p>Flush requests issued by all WALStores within a short window are coalesced, so that each WALSpace is flushed
+ * at most once per window, and all the flushes of a window are issued together. Urgent requests(e.g. for config
+ * entries) drain the pending group immediately, and the group is flushed along with them.
+ *
+ * <p>Every WALSpace is backed by its own RocksDB instance, so a group still costs one WAL flush per distinct WALSpace
+ * in it. The group time metric measures how long it takes until all of them complete.
+ */
+class KVRangeWALGroupFlusher {
+    private final long windowNanos;
+    private final ScheduledExecutorService scheduler;
+    private final DistributionSummary groupSizeSummary;
+    private final Timer groupFlushTimer;
+    private Map<IWALableKVSpace, CompletableFuture<Long>> pending = new LinkedHashMap<>();
+    private boolean scheduled;
+
+    /**
+     * Constructor of the flusher.
+     *
+     * @param windowMicros the max time in microseconds to wait for more flush requests, non-positive value means
+     *                     flushing the WALSpace directly
+     * @param tags         the metric tags
+     */
+    KVRangeWALGroupFlusher(long windowMicros, String... tags) {
+        this.windowNanos = TimeUnit.MICROSECONDS.toNanos(Math.max(0, windowMicros));
+        if (windowNanos > 0) {
+            scheduler = Executors.newSingleThreadScheduledExecutor(
+                EnvProvider.INSTANCE.newThreadFactory("basekv-wal-group-flusher", true));
+        } else {
+            scheduler = null;
+        }
+        groupSizeSummary = DistributionSummary.builder("basekv.wal.flush.groupsize")
+            .tags(tags)
+            .register(Metrics.globalRegistry);
+        groupFlushTimer = Timer.builder("basekv.wal.flush.grouptime")
+            .tags(tags)
+            .register(Metrics.globalRegistry);
+    }
+
+    /**
+     * Flush the WALSpace as part of a group.
+     *
+     * @param kvSpace the WALSpace to flush
+     * @param urgent  if the flush should be issued without waiting for the window
+     * @return the flush start nanos time
+     */
+    CompletableFuture<Long> flush(IWALableKVSpace kvSpace, boolean urgent) {
+        if (windowNanos == 0) {
+            groupSizeSummary.record(1);
+            Timer.Sample sample = Timer.start();
+            return kvSpace.flush().whenComplete((v, e) -> sample.stop(groupFlushTimer));
+        }
+        CompletableFuture<Long> flushFuture;
+        boolean schedule = false;
+        synchronized (this) {
+            flushFuture = pending.computeIfAbsent(kvSpace, k -> new CompletableFuture<>());
+            if (!urgent && !scheduled) {
+                scheduled = true;
+                schedule = true;
+            }
+        }
+        if (urgent) {
+            drain();
+        } else if (schedule) {
+            try {
+                scheduler.schedule(this::drain, windowNanos, TimeUnit.NANOSECONDS);
+            } catch (Throwable e) {
+                // scheduler has been shutdown
+                drain();
+            }
+        }
+        return flushFuture;
+    }
+
+    void close() {
+        if (scheduler != null) {
+            scheduler.shutdown();
+        }
+        drain();
+        Metrics.globalRegistry.remove(groupSizeSummary);
+        Metrics.globalRegistry.remove(groupFlushTimer);
+    }
+
+    private void drain() {
+        Map<IWALableKVSpace, CompletableFuture<Long>> group;
+        synchronized (this) {
+            scheduled = false;
+            if (pending.isEmpty()) {
+                return;
+            }
+            group = pending;
+            pending = new LinkedHashMap<>();
+        }
+        groupSizeSummary.record(group.size());
+        Timer.Sample sample = Timer.start();
+        CompletableFuture<?>[] flushFutures = new CompletableFuture[group.size()];
+        int i = 0;
+        for (Map.Entry<IWALableKVSpace, CompletableFuture<Long>> entry : group.entrySet()) {
+            CompletableFuture<Long> onDone = entry.getValue();
+            flushFutures[i++] = entry.getKey().flush()
+                .whenComplete((flushTime, e) -> {
+                    if (e != null) {
+                        onDone.completeExceptionally(e);
+                    } else {
+                        onDone.complete(flushTime);
+                    }
+                });
+        }
+        CompletableFuture.allOf(flushFutures).whenComplete((v, e) -> sample.stop(groupFlushTimer));
+    }
+}
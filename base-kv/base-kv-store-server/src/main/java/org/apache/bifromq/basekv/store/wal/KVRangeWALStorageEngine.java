@@ -47,11 +47,32 @@ public class KVRangeWALStorageEngine implements IKVRangeWALStoreEngine {
     private final AtomicReference<State> state = new AtomicReference<>(State.INIT);
     private final Map<KVRangeId, KVRangeWALStore> instances = Maps.newConcurrentMap();
     private final IKVEngine<? extends IWALableKVSpace> kvEngine;
+    private final KVRangeWALGroupFlusher groupFlusher;
 
     public KVRangeWALStorageEngine(String clusterId, String overrideIdentity, String engineType, Struct conf) {
+        this(clusterId, overrideIdentity, engineType, conf, 0);
+    }
+
+    /**
+     * Constructor of the engine.
+     *
+     * @param clusterId              the cluster id
+     * @param overrideIdentity       the identity to override
+     * @param engineType             the type of the underlying WALable engine
+     * @param conf                   the configuration of the underlying WALable engine
+     * @param flushGroupWindowMicros the window in microseconds for coalescing WAL flushes from all ranges, 0 means
+     *                               flushing each range's WAL independently
+     */
+    public KVRangeWALStorageEngine(String clusterId,
+                                   String overrideIdentity,
+                                   String engineType,
+                                   Struct conf,
+                                   long flushGroupWindowMicros) {
         this.clusterId = clusterId;
         kvEngine = KVEngineFactory.createWALable(overrideIdentity, engineType, conf);
         log = MDCLogger.getLogger(KVRangeWALStorageEngine.class, "clusterId", clusterId, "storeId", kvEngine.id());
+        groupFlusher = new KVRangeWALGroupFlusher(flushGroupWindowMicros, "clusterId", clusterId,
+            "storeId", kvEngine.id());
     }
 
     // configurator-based constructor removed; use type + struct only
@@ -62,6 +83,7 @@ public class KVRangeWALStorageEngine implements IKVRangeWALStoreEngine {
             try {
                 log.debug("Stopping WALStoreEngine");
                 instances.values().forEach(KVRangeWALStore::stop);
+                groupFlusher.close();
                 kvEngine.stop();
                 state.set(State.STOPPED);
             } catch (Throwable e) {
@@ -105,7 +127,7 @@ public class KVRangeWALStorageEngine implements IKVRangeWALStoreEngine {
             kvSpace.toWriter().put(KEY_LATEST_SNAPSHOT_BYTES, initSnapshot.toByteString())
                 .done();
             kvSpace.flush().join();
-            return new KVRangeWALStore(clusterId, kvEngine.id(), kvRangeId, kvSpace,
+            return new KVRangeWALStore(clusterId, kvEngine.id(), kvRangeId, kvSpace, groupFlusher,
                 store -> instances.remove(kvRangeId, store));
         });
         return instances.get(kvRangeId);
@@ -131,7 +153,7 @@ public class KVRangeWALStorageEngine implements IKVRangeWALStoreEngine {
         kvEngine.spaces().forEach((String id, IWALableKVSpace kvSpace) -> {
             KVRangeId kvRangeId = KVRangeIdUtil.fromString(id);
             instances.put(kvRangeId,
-                new KVRangeWALStore(clusterId, kvEngine.id(), kvRangeId, kvSpace,
+                new KVRangeWALStore(clusterId, kvEngine.id(), kvRangeId, kvSpace, groupFlusher,
                     store -> instances.remove(kvRangeId, store)));
             log.debug("WALStore loaded: kvRangeId={}", KVRangeIdUtil.toString(kvRangeId));
 
@@ -72,6 +72,7 @@ class KVRangeWALStore implements IKVRangeWALStore {
     private final String storeId;
     private final KVRangeId rangeId;
     private final IWALableKVSpace kvSpace;
+    private final KVRangeWALGroupFlusher groupFlusher;
     private final TreeMap<Long, ClusterConfig> configEntryMap = Maps.newTreeMap();
     private final Deque<StabilizingIndex> stabilizingIndices = new ConcurrentLinkedDeque<>();
     private final Consumer<KVRangeWALStore> onDestroy;
@@ -83,9 +84,10 @@ class KVRangeWALStore implements IKVRangeWALStore {
     private volatile StableListener stableListener = DEFAULT_STABLE_LISTENER;
 
     KVRangeWALStore(String clusterId, String storeId, KVRangeId rangeId, IWALableKVSpace kvSpace,
-                    Consumer<KVRangeWALStore> onDestroy) {
+                    KVRangeWALGroupFlusher groupFlusher, Consumer<KVRangeWALStore> onDestroy) {
         this.rangeId = rangeId;
         this.kvSpace = kvSpace;
+        this.groupFlusher = groupFlusher;
         this.storeId = storeId;
         this.onDestroy = onDestroy;
         log = MDCLogger.getLogger(KVRangeWALStore.class, "clusterId", clusterId, "storeId", storeId, "rangeId",
@@ -343,7 +345,7 @@ class KVRangeWALStore implements IKVRangeWALStore {
 
     private void flush() {
         try {
-            long flushTime = kvSpace.flush().join();
+            long flushTime = groupFlusher.flush(kvSpace, true).join();
             onStable(flushTime);
         } catch (Throwable e) {
             log.warn("Flush error, try again", e);
@@ -351,7 +353,7 @@ class KVRangeWALStore implements IKVRangeWALStore {
     }
 
     private void asyncFlush() {
-        kvSpace.flush()
+        groupFlusher.flush(kvSpace, false)
             .whenComplete((ts, e) -> {
                 if (e != null) {
                     log.warn("Flush error, try again", e);
@@ -21,6 +21,8 @@ package org.apache.bifromq.basekv.store.wal;
 
 import io.reactivex.rxjava3.core.Observable;
 import io.reactivex.rxjava3.disposables.CompositeDisposable;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.NavigableMap;
 import java.util.concurrent.CompletableFuture;
@@ -41,6 +43,8 @@ import org.slf4j.Logger;
 class KVRangeWALSubscription implements IKVRangeWALSubscription {
     private final Logger log;
     private final long maxFetchBytes;
+    private final int maxApplyEntries;
+    private final long maxApplyBytes;
     private final IKVRangeWAL wal;
     private final Executor executor;
     private final AsyncRunner fetchRunner;
@@ -61,8 +65,22 @@ class KVRangeWALSubscription implements IKVRangeWALSubscription {
                            IKVRangeWALSubscriber subscriber,
                            Executor executor,
                            String... tags) {
+        this(maxFetchBytes, 1, maxFetchBytes, wal, commitIndex, lastFetchedIndex, subscriber, executor, tags);
+    }
+
+    KVRangeWALSubscription(long maxFetchBytes,
+                           int maxApplyEntries,
+                           long maxApplyBytes,
+                           IKVRangeWAL wal,
+                           Observable<CommitEvent> commitIndex,
+                           long lastFetchedIndex,
+                           IKVRangeWALSubscriber subscriber,
+                           Executor executor,
+                           String... tags) {
         this.log = MDCLogger.getLogger(KVRangeWALSubscription.class, tags);
         this.maxFetchBytes = maxFetchBytes;
+        this.maxApplyEntries = Math.max(1, maxApplyEntries);
+        this.maxApplyBytes = maxApplyBytes;
         this.wal = wal;
         this.executor = executor;
         this.fetchRunner = new AsyncRunner("basekv.runner.walfetch", executor,
@@ -150,19 +168,34 @@ class KVRangeWALSubscription implements IKVRangeWALSubscription {
                         fetchRunner.add(() -> {
                             LogEntry entry = null;
                             boolean hasMore = false;
+                            List<LogEntry> applyGroup = new ArrayList<>();
+                            boolean applyGroupIsLeader = false;
+                            long applyGroupBytes = 0;
                             while (logEntries.hasNext()) {
                                 // no restore task interrupted
                                 entry = logEntries.next();
                                 Map.Entry<Long, Boolean> commitIdx = toFetch.ceilingEntry(entry.getIndex());
                                 if (commitIdx != null) {
                                     boolean isLeader = commitIdx.getValue();
-                                    applyRunner.add(applyLog(entry, isLeader));
+                                    if (!applyGroup.isEmpty() && (isLeader != applyGroupIsLeader
+                                        || applyGroup.size() >= maxApplyEntries
+                                        || applyGroupBytes + entry.getData().size() > maxApplyBytes)) {
+                                        applyRunner.add(applyLogs(applyGroup, applyGroupIsLeader));
+                                        applyGroup = new ArrayList<>();
+                                        applyGroupBytes = 0;
+                                    }
+                                    applyGroup.add(entry);
+                                    applyGroupIsLeader = isLeader;
+                                    applyGroupBytes += entry.getData().size();
                                 } else {
                                     // fetch beyond the observed commit index
                                     hasMore = true;
                                     break;
                                 }
                             }
+                            if (!applyGroup.isEmpty()) {
+                                applyRunner.add(applyLogs(applyGroup, applyGroupIsLeader));
+                            }
                             logEntries.close();
                             if (entry != null) {
                                 if (hasMore) {
@@ -193,10 +226,11 @@ class KVRangeWALSubscription implements IKVRangeWALSubscription {
         return pendingApplies.tailMap(lastFetchedIdx.get() + 1);
     }
 
-    private Supplier<CompletableFuture<Void>> applyLog(LogEntry logEntry, boolean isLeader) {
+    private Supplier<CompletableFuture<Void>> applyLogs(List<LogEntry> logEntries, boolean isLeader) {
         return () -> {
             CompletableFuture<Void> onDone = new CompletableFuture<>();
-            CompletableFuture<Void> applyFuture = subscriber.apply(logEntry, isLeader);
+            CompletableFuture<Void> applyFuture = logEntries.size() == 1
+                ? subscriber.apply(logEntries.get(0), isLeader) : subscriber.apply(logEntries, isLeader);
             onDone.whenComplete((v, e) -> {
                 if (onDone.isCancelled()) {
                     applyFuture.cancel(true);
@@ -207,7 +241,7 @@ class KVRangeWALSubscription implements IKVRangeWALSubscription {
                 if (!onDone.isCancelled()) {
                     if (e != null) {
                         // reapply
-                        applyRunner.addFirst(applyLog(logEntry, isLeader));
+                        applyRunner.addFirst(applyLogs(logEntries, isLeader));
                     }
                 }
                 onDone.complete(null);
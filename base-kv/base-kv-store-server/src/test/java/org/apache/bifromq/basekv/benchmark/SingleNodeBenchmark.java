@@ -40,6 +40,7 @@ import org.openjdk.jmh.annotations.GroupThreads;
 import org.openjdk.jmh.annotations.Measurement;
 import org.openjdk.jmh.annotations.Mode;
 import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
 import org.openjdk.jmh.annotations.Scope;
 import org.openjdk.jmh.annotations.Setup;
 import org.openjdk.jmh.annotations.State;
@@ -61,6 +62,9 @@ public class SingleNodeBenchmark {
     private int count = 3;
     private KVRangeStoreOptions options = new KVRangeStoreOptions();
     private List<KVRangeId> ranges;
+    // 1 means applying committed logs one by one
+    @Param({"1", "64"})
+    private int maxGroupApplyEntries;
 
     @Setup
     public void setup() {
@@ -68,6 +72,7 @@ public class SingleNodeBenchmark {
         options.getKvRangeOptions().getWalRaftConfig()
             .setAsyncAppend(false)
             .setMaxUncommittedProposals(Integer.MAX_VALUE);
+        options.getKvRangeOptions().setMaxGroupApplyEntries(maxGroupApplyEntries);
         cluster = new KVRangeStoreTestCluster(options);
         String store0 = cluster.bootstrapStore();
         KVRangeId rangeId = cluster.genesisKVRangeId();
@@ -310,4 +310,129 @@ public class QueryPipelineTest extends MockableTest {
         verify(rangeStore, times(0)).get(1, rangeId, key2, linearized);
         assertTrue(pipeline.isClosed());
     }
+
+    @Test
+    public void concurrentQueriesOnDifferentRanges() {
+        QueryPipeline pipeline = new QueryPipeline(rangeStore, false, 2, true, streamObserver);
+        KVRangeId rangeId1 = KVRangeIdUtil.generate();
+        KVRangeId rangeId2 = KVRangeIdUtil.generate();
+        ByteString key = ByteString.copyFromUtf8("k");
+
+        CompletableFuture<Optional<ByteString>> slowFuture = new CompletableFuture<>();
+        when(rangeStore.get(1, rangeId1, key, false)).thenReturn(slowFuture);
+        when(rangeStore.get(1, rangeId2, key, false))
+            .thenReturn(CompletableFuture.completedFuture(Optional.empty()));
+
+        CompletableFuture<KVRangeROReply> f1 = pipeline.handleRequest("_", getRequest(1, rangeId1, key));
+        CompletableFuture<KVRangeROReply> f2 = pipeline.handleRequest("_", getRequest(2, rangeId2, key));
+
+        // the slow query doesn't block the query on another range
+        assertEquals(f2.join().getReqId(), 2);
+        assertFalse(f1.isDone());
+
+        slowFuture.complete(Optional.empty());
+        assertEquals(f1.join().getReqId(), 1);
+    }
+
+    @Test
+    public void orderedQueriesOnSameRange() {
+        QueryPipeline pipeline = new QueryPipeline(rangeStore, false, 4, true, streamObserver);
+        KVRangeId rangeId = KVRangeIdUtil.generate();
+        ByteString key1 = ByteString.copyFromUtf8("k1");
+        ByteString key2 = ByteString.copyFromUtf8("k2");
+
+        CompletableFuture<Optional<ByteString>> firstFuture = new CompletableFuture<>();
+        when(rangeStore.get(1, rangeId, key1, false)).thenReturn(firstFuture);
+        when(rangeStore.get(1, rangeId, key2, false))
+            .thenReturn(CompletableFuture.completedFuture(Optional.empty()));
+
+        CompletableFuture<KVRangeROReply> f1 = pipeline.handleRequest("_", getRequest(1, rangeId, key1));
+        CompletableFuture<KVRangeROReply> f2 = pipeline.handleRequest("_", getRequest(2, rangeId, key2));
+
+        verify(rangeStore, times(0)).get(1, rangeId, key2, false);
+        assertFalse(f2.isDone());
+
+        firstFuture.complete(Optional.empty());
+        f1.join();
+        f2.join();
+        verify(rangeStore, times(1)).get(1, rangeId, key2, false);
+    }
+
+    @Test
+    public void unorderedQueriesOnSameRange() {
+        QueryPipeline pipeline = new QueryPipeline(rangeStore, false, 4, false, streamObserver);
+        KVRangeId rangeId = KVRangeIdUtil.generate();
+        ByteString key1 = ByteString.copyFromUtf8("k1");
+        ByteString key2 = ByteString.copyFromUtf8("k2");
+
+        CompletableFuture<Optional<ByteString>> firstFuture = new CompletableFuture<>();
+        when(rangeStore.get(1, rangeId, key1, false)).thenReturn(firstFuture);
+        when(rangeStore.get(1, rangeId, key2, false))
+            .thenReturn(CompletableFuture.completedFuture(Optional.empty()));
+
+        CompletableFuture<KVRangeROReply> f1 = pipeline.handleRequest("_", getRequest(1, rangeId, key1));
+        CompletableFuture<KVRangeROReply> f2 = pipeline.handleRequest("_", getRequest(2, rangeId, key2));
+
+        assertEquals(f2.join().getReqId(), 2);
+        assertFalse(f1.isDone());
+        firstFuture.complete(Optional.empty());
+        f1.join();
+    }
+
+    @Test
+    public void boundedInflightQueries() {
+        QueryPipeline pipeline = new QueryPipeline(rangeStore, false, 2, false, streamObserver);
+        KVRangeId rangeId = KVRangeIdUtil.generate();
+        List<CompletableFuture<Optional<ByteString>>> storeFutures = new ArrayList<>();
+        List<CompletableFuture<KVRangeROReply>> replyFutures = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            ByteString key = ByteString.copyFromUtf8("k" + i);
+            CompletableFuture<Optional<ByteString>> storeFuture = new CompletableFuture<>();
+            storeFutures.add(storeFuture);
+            when(rangeStore.get(1, rangeId, key, false)).thenReturn(storeFuture);
+            replyFutures.add(pipeline.handleRequest("_", getRequest(i, rangeId, key)));
+        }
+        verify(rangeStore, times(1)).get(1, rangeId, ByteString.copyFromUtf8("k0"), false);
+        verify(rangeStore, times(1)).get(1, rangeId, ByteString.copyFromUtf8("k1"), false);
+        verify(rangeStore, times(0)).get(1, rangeId, ByteString.copyFromUtf8("k2"), false);
+
+        storeFutures.get(1).complete(Optional.empty());
+        replyFutures.get(1).join();
+        verify(rangeStore, times(1)).get(1, rangeId, ByteString.copyFromUtf8("k2"), false);
+
+        storeFutures.get(0).complete(Optional.empty());
+        storeFutures.get(2).complete(Optional.empty());
+        CompletableFuture.allOf(replyFutures.toArray(CompletableFuture[]::new)).join();
+    }
+
+    @Test
+    public void linearizedQueriesExecutedOneByOne() {
+        QueryPipeline pipeline = new QueryPipeline(rangeStore, true, 4, false, streamObserver);
+        KVRangeId rangeId1 = KVRangeIdUtil.generate();
+        KVRangeId rangeId2 = KVRangeIdUtil.generate();
+        ByteString key = ByteString.copyFromUtf8("k");
+
+        CompletableFuture<Optional<ByteString>> firstFuture = new CompletableFuture<>();
+        when(rangeStore.get(1, rangeId1, key, true)).thenReturn(firstFuture);
+        when(rangeStore.get(1, rangeId2, key, true))
+            .thenReturn(CompletableFuture.completedFuture(Optional.empty()));
+
+        CompletableFuture<KVRangeROReply> f1 = pipeline.handleRequest("_", getRequest(1, rangeId1, key));
+        CompletableFuture<KVRangeROReply> f2 = pipeline.handleRequest("_", getRequest(2, rangeId2, key));
+        verify(rangeStore, times(0)).get(1, rangeId2, key, true);
+
+        firstFuture.complete(Optional.empty());
+        f1.join();
+        f2.join();
+        verify(rangeStore, times(1)).get(1, rangeId2, key, true);
+    }
+
+    private KVRangeRORequest getRequest(long reqId, KVRangeId rangeId, ByteString key) {
+        return KVRangeRORequest.newBuilder()
+            .setReqId(reqId)
+            .setVer(1)
+            .setKvRangeId(rangeId)
+            .setGetKey(key)
+            .build();
+    }
 }
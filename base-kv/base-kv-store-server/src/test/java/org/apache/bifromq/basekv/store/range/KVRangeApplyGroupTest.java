@@ -0,0 +1,197 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.bifromq.basekv.store.range;
+
+import static org.apache.bifromq.basekv.utils.BoundaryUtil.FULL_BOUNDARY;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.expectThrows;
+
+import com.google.protobuf.ByteString;
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.bifromq.basekv.localengine.ICPableKVSpace;
+import org.apache.bifromq.basekv.proto.Boundary;
+import org.apache.bifromq.basekv.proto.KVRangeSnapshot;
+import org.apache.bifromq.basekv.proto.State;
+import org.apache.bifromq.basekv.raft.proto.ClusterConfig;
+import org.apache.bifromq.basekv.store.api.IKVIterator;
+import org.apache.bifromq.basekv.store.api.IKVRangeRefreshableReader;
+import org.apache.bifromq.basekv.utils.KVRangeIdUtil;
+import org.testng.annotations.Test;
+
+public class KVRangeApplyGroupTest extends AbstractKVRangeTest {
+    private final ByteString key1 = ByteString.copyFromUtf8("key1");
+    private final ByteString key2 = ByteString.copyFromUtf8("key2");
+    private final ByteString value1 = ByteString.copyFromUtf8("value1");
+    private final ByteString value2 = ByteString.copyFromUtf8("value2");
+
+    @Test
+    public void flushInOneBatch() {
+        IKVRange kvRange = newKVRange();
+        List<Long> flushed = new ArrayList<>();
+        try (KVRangeApplyGroup group = new KVRangeApplyGroup(kvRange)) {
+            KVRangeApplyGroup.StagingWriter stage1 = group.newStage();
+            stage1.put(key1, value1);
+            group.stage(1, stage1, () -> flushed.add(1L), e -> {
+            });
+            KVRangeApplyGroup.StagingWriter stage2 = group.newStage();
+            stage2.put(key2, value2);
+            group.stage(2, stage2, () -> flushed.add(2L), e -> {
+            });
+
+            // nothing persisted before flush
+            assertEquals(kvRange.currentLastAppliedIndex(), 0);
+            try (IKVRangeRefreshableReader reader = kvRange.newReader()) {
+                assertFalse(reader.exist(key1));
+            }
+            assertTrue(flushed.isEmpty());
+
+            group.flush();
+        }
+        assertEquals(kvRange.currentLastAppliedIndex(), 2);
+        assertEquals(flushed, List.of(1L, 2L));
+        try (IKVRangeRefreshableReader reader = kvRange.newReader()) {
+            assertEquals(reader.get(key1).get(), value1);
+            assertEquals(reader.get(key2).get(), value2);
+        }
+    }
+
+    @Test
+    public void readStagedKey() {
+        IKVRange kvRange = newKVRange();
+        List<Long> flushed = new ArrayList<>();
+        try (KVRangeApplyGroup group = new KVRangeApplyGroup(kvRange)) {
+            KVRangeApplyGroup.StagingWriter stage1 = group.newStage();
+            stage1.put(key1, value1);
+            group.stage(1, stage1, () -> flushed.add(1L), e -> {
+            });
+
+            // the next log reads the key staged by previous log
+            assertEquals(group.reader().get(key1).get(), value1);
+            assertEquals(kvRange.currentLastAppliedIndex(), 1);
+            assertEquals(flushed, List.of(1L));
+
+            KVRangeApplyGroup.StagingWriter stage2 = group.newStage();
+            stage2.delete(key1);
+            group.stage(2, stage2, () -> flushed.add(2L), e -> {
+            });
+            assertFalse(group.reader().exist(key1));
+            assertEquals(kvRange.currentLastAppliedIndex(), 2);
+        }
+        assertEquals(flushed, List.of(1L, 2L));
+    }
+
+    @Test
+    public void iterateStagedBoundary() {
+        IKVRange kvRange = newKVRange();
+        try (KVRangeApplyGroup group = new KVRangeApplyGroup(kvRange)) {
+            KVRangeApplyGroup.StagingWriter stage1 = group.newStage();
+            stage1.put(key2, value2);
+            group.stage(1, stage1, () -> {
+            }, e -> {
+            });
+
+            // iterating boundary without staged keys doesn't flush
+            Boundary boundary = Boundary.newBuilder().setEndKey(key2).build();
+            try (IKVIterator itr = group.reader().iterator(boundary)) {
+                itr.seekToFirst();
+                assertFalse(itr.isValid());
+            }
+            assertEquals(kvRange.currentLastAppliedIndex(), 0);
+
+            try (IKVIterator itr = group.reader().iterator()) {
+                itr.seekToFirst();
+                assertTrue(itr.isValid());
+                assertEquals(itr.key(), key2);
+            }
+            assertEquals(kvRange.currentLastAppliedIndex(), 1);
+
+            KVRangeApplyGroup.StagingWriter stage2 = group.newStage();
+            stage2.clear(FULL_BOUNDARY);
+            group.stage(2, stage2, () -> {
+            }, e -> {
+            });
+            assertFalse(group.reader().exist(key1));
+            assertEquals(kvRange.currentLastAppliedIndex(), 2);
+            assertFalse(group.reader().exist(key2));
+        }
+    }
+
+    @Test
+    public void flushAllCallbacks() {
+        IKVRange kvRange = newKVRange();
+        List<Long> flushed = new ArrayList<>();
+        RuntimeException error = new RuntimeException("Mocked");
+        try (KVRangeApplyGroup group = new KVRangeApplyGroup(kvRange)) {
+            KVRangeApplyGroup.StagingWriter stage1 = group.newStage();
+            stage1.put(key1, value1);
+            group.stage(1, stage1, () -> {
+                throw error;
+            }, e -> {
+            });
+            KVRangeApplyGroup.StagingWriter stage2 = group.newStage();
+            stage2.put(key2, value2);
+            group.stage(2, stage2, () -> flushed.add(2L), e -> {
+            });
+            assertSame(expectThrows(RuntimeException.class, group::flush), error);
+            // persisted logs are not aborted
+            group.abort(error);
+        }
+        assertEquals(flushed, List.of(2L));
+        assertEquals(kvRange.currentLastAppliedIndex(), 2);
+    }
+
+    @Test
+    public void abort() {
+        IKVRange kvRange = newKVRange();
+        List<Long> flushed = new ArrayList<>();
+        List<Throwable> aborted = new ArrayList<>();
+        RuntimeException cause = new RuntimeException("Mocked");
+        try (KVRangeApplyGroup group = new KVRangeApplyGroup(kvRange)) {
+            KVRangeApplyGroup.StagingWriter stage = group.newStage();
+            stage.put(key1, value1);
+            group.stage(1, stage, () -> flushed.add(1L), aborted::add);
+            group.abort(cause);
+            group.flush();
+        }
+        assertTrue(flushed.isEmpty());
+        assertEquals(aborted, List.of(cause));
+        assertEquals(kvRange.currentLastAppliedIndex(), 0);
+        try (IKVRangeRefreshableReader reader = kvRange.newReader()) {
+            assertFalse(reader.exist(key1));
+        }
+    }
+
+    private IKVRange newKVRange() {
+        KVRangeSnapshot snapshot = KVRangeSnapshot.newBuilder()
+            .setId(KVRangeIdUtil.generate())
+            .setVer(0)
+            .setLastAppliedIndex(0)
+            .setState(State.newBuilder().setType(State.StateType.Normal).build())
+            .setBoundary(FULL_BOUNDARY)
+            .setClusterConfig(ClusterConfig.newBuilder().addVoters("storeA").build())
+            .build();
+        ICPableKVSpace keyRange = kvEngine.createIfMissing(KVRangeIdUtil.toString(snapshot.getId()));
+        return new KVRange(snapshot.getId(), keyRange, snapshot);
+    }
+}
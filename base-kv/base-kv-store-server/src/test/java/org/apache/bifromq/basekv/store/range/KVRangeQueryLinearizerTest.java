@@ -20,6 +20,7 @@
 package org.apache.bifromq.basekv.store.range;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -28,6 +29,7 @@ import static org.testng.Assert.assertTrue;
 
 import com.google.common.util.concurrent.MoreExecutors;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Function;
 import java.util.function.Supplier;
 import lombok.extern.slf4j.Slf4j;
@@ -50,7 +52,8 @@ public class KVRangeQueryLinearizerTest extends MockableTest {
             (Answer<CompletableFuture<Void>>) invocation ->
                 ((Supplier<CompletableFuture<Void>>) invocation.getArgument(0)).get());
         KVRangeQueryLinearizer linearizer =
-            new KVRangeQueryLinearizer(readIndexSupplier, MoreExecutors.directExecutor(), 3, recordDuration);
+            new KVRangeQueryLinearizer(readIndexSupplier, () -> -1L, MoreExecutors.directExecutor(),
+                3, recordDuration);
         when(readIndexSupplier.get())
             .thenReturn(CompletableFuture.completedFuture(1L),
                 CompletableFuture.completedFuture(2L),
@@ -70,7 +73,8 @@ public class KVRangeQueryLinearizerTest extends MockableTest {
             (Answer<CompletableFuture<Void>>) invocation ->
                 ((Supplier<CompletableFuture<Void>>) invocation.getArgument(0)).get());
         KVRangeQueryLinearizer linearizer =
-            new KVRangeQueryLinearizer(readIndexSupplier, MoreExecutors.directExecutor(), 0, recordDuration);
+            new KVRangeQueryLinearizer(readIndexSupplier, () -> -1L, MoreExecutors.directExecutor(),
+                0, recordDuration);
         when(readIndexSupplier.get())
             .thenReturn(CompletableFuture.completedFuture(1L),
                 CompletableFuture.completedFuture(1L),
@@ -92,4 +96,29 @@ public class KVRangeQueryLinearizerTest extends MockableTest {
         assertTrue(linearizer.linearize().toCompletableFuture().isDone());
         verify(recordDuration, times(4)).apply(any());
     }
+
+    @Test
+    public void linearizeWithLeaderLease() {
+        when(recordDuration.apply(any(Supplier.class))).thenAnswer(
+            (Answer<CompletableFuture<Void>>) invocation ->
+                ((Supplier<CompletableFuture<Void>>) invocation.getArgument(0)).get());
+        AtomicLong leaseReadIndex = new AtomicLong(1);
+        KVRangeQueryLinearizer linearizer =
+            new KVRangeQueryLinearizer(readIndexSupplier, leaseReadIndex::get, MoreExecutors.directExecutor(),
+                1, recordDuration);
+        assertTrue(linearizer.linearize().toCompletableFuture().isDone());
+
+        leaseReadIndex.set(2);
+        CompletableFuture<Void> t1 = linearizer.linearize().toCompletableFuture();
+        assertFalse(t1.isDone());
+        linearizer.afterLogApplied(2);
+        assertTrue(t1.isDone());
+        verify(readIndexSupplier, never()).get();
+
+        // lease expired, fallback to readIndex
+        leaseReadIndex.set(-1);
+        when(readIndexSupplier.get()).thenReturn(CompletableFuture.completedFuture(2L));
+        assertTrue(linearizer.linearize().toCompletableFuture().isDone());
+        verify(readIndexSupplier, times(1)).get();
+    }
 }
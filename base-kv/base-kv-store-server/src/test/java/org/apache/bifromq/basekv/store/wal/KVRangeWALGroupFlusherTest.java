@@ -0,0 +1,105 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.bifromq.basekv.store.wal;
+
+import static org.awaitility.Awaitility.await;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.util.concurrent.CompletableFuture;
+import org.apache.bifromq.basekv.MockableTest;
+import org.apache.bifromq.basekv.localengine.IWALableKVSpace;
+import org.mockito.Mock;
+import org.testng.annotations.Test;
+
+public class KVRangeWALGroupFlusherTest extends MockableTest {
+    @Mock
+    private IWALableKVSpace kvSpace1;
+    @Mock
+    private IWALableKVSpace kvSpace2;
+
+    @Test
+    public void flushDirectly() {
+        KVRangeWALGroupFlusher flusher = new KVRangeWALGroupFlusher(0);
+        when(kvSpace1.flush()).thenReturn(CompletableFuture.completedFuture(1L));
+        assertEquals(flusher.flush(kvSpace1, false).join(), 1L);
+        assertEquals(flusher.flush(kvSpace1, true).join(), 1L);
+        verify(kvSpace1, times(2)).flush();
+        flusher.close();
+    }
+
+    @Test
+    public void coalesceInWindow() {
+        KVRangeWALGroupFlusher flusher = new KVRangeWALGroupFlusher(200_000);
+        when(kvSpace1.flush()).thenReturn(CompletableFuture.completedFuture(1L));
+        when(kvSpace2.flush()).thenReturn(CompletableFuture.completedFuture(2L));
+        CompletableFuture<Long> flush1 = flusher.flush(kvSpace1, false);
+        CompletableFuture<Long> flush2 = flusher.flush(kvSpace1, false);
+        CompletableFuture<Long> flush3 = flusher.flush(kvSpace2, false);
+        assertFalse(flush1.isDone());
+        verify(kvSpace1, never()).flush();
+
+        await().until(() -> flush1.isDone() && flush3.isDone());
+        assertEquals(flush1.join(), 1L);
+        assertEquals(flush2.join(), 1L);
+        assertEquals(flush3.join(), 2L);
+        verify(kvSpace1, times(1)).flush();
+        verify(kvSpace2, times(1)).flush();
+        flusher.close();
+    }
+
+    @Test
+    public void urgentFlushDrainsGroup() {
+        KVRangeWALGroupFlusher flusher = new KVRangeWALGroupFlusher(60_000_000);
+        when(kvSpace1.flush()).thenReturn(CompletableFuture.completedFuture(1L));
+        when(kvSpace2.flush()).thenReturn(CompletableFuture.completedFuture(2L));
+        CompletableFuture<Long> flush1 = flusher.flush(kvSpace1, false);
+        assertFalse(flush1.isDone());
+
+        CompletableFuture<Long> flush2 = flusher.flush(kvSpace2, true);
+        assertTrue(flush1.isDone());
+        assertTrue(flush2.isDone());
+        assertEquals(flush2.join(), 2L);
+        flusher.close();
+    }
+
+    @Test
+    public void flushError() {
+        KVRangeWALGroupFlusher flusher = new KVRangeWALGroupFlusher(60_000_000);
+        when(kvSpace1.flush()).thenReturn(CompletableFuture.failedFuture(new RuntimeException("Mocked")));
+        CompletableFuture<Long> flush1 = flusher.flush(kvSpace1, true);
+        assertTrue(flush1.isCompletedExceptionally());
+        flusher.close();
+    }
+
+    @Test
+    public void drainOnClose() {
+        KVRangeWALGroupFlusher flusher = new KVRangeWALGroupFlusher(60_000_000);
+        when(kvSpace1.flush()).thenReturn(CompletableFuture.completedFuture(1L));
+        CompletableFuture<Long> flush1 = flusher.flush(kvSpace1, false);
+        flusher.close();
+        assertEquals(flush1.join(), 1L);
+    }
+}
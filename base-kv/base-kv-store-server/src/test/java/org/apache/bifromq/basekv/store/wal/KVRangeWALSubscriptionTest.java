@@ -22,6 +22,7 @@ package org.apache.bifromq.basekv.store.wal;
 import static org.awaitility.Awaitility.await;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.atLeast;
@@ -374,6 +375,48 @@ public class KVRangeWALSubscriptionTest extends MockableTest {
         assertEquals(leaders.get(3), Boolean.FALSE);
     }
 
+    @SneakyThrows
+    @Test
+    public void applyLogsInGroup() {
+        // Logs: 0,1,2,3,4; Commits: (2,true) then (4,false); at most 2 logs per group
+        when(wal.retrieveCommitted(eq(0L), eq(maxSize))).thenReturn(
+            CompletableFuture.completedFuture(it(
+                LogEntry.newBuilder().setTerm(0).setIndex(0).build(),
+                LogEntry.newBuilder().setTerm(0).setIndex(1).build(),
+                LogEntry.newBuilder().setTerm(0).setIndex(2).build(),
+                LogEntry.newBuilder().setTerm(0).setIndex(3).build(),
+                LogEntry.newBuilder().setTerm(0).setIndex(4).build()
+            ))
+        );
+        List<List<Long>> groups = Collections.synchronizedList(new ArrayList<>());
+        List<Boolean> leaders = Collections.synchronizedList(new ArrayList<>());
+        when(subscriber.apply(any(LogEntry.class), anyBoolean()))
+            .thenAnswer((Answer<CompletableFuture<Void>>) inv -> {
+                LogEntry le = inv.getArgument(0);
+                groups.add(List.of(le.getIndex()));
+                leaders.add(inv.getArgument(1));
+                return CompletableFuture.completedFuture(null);
+            });
+        when(subscriber.apply(anyList(), anyBoolean()))
+            .thenAnswer((Answer<CompletableFuture<Void>>) inv -> {
+                List<LogEntry> logs = inv.getArgument(0);
+                groups.add(logs.stream().map(LogEntry::getIndex).toList());
+                leaders.add(inv.getArgument(1));
+                return CompletableFuture.completedFuture(null);
+            });
+
+        KVRangeWALSubscription walSub =
+            new KVRangeWALSubscription(maxSize, 2, maxSize, wal, commitIndexSource, -1, subscriber, executor);
+
+        commitIndexSource.onNext(toCommitEvent(2L, true));
+        commitIndexSource.onNext(toCommitEvent(4L, false));
+
+        await().until(() -> groups.stream().mapToInt(List::size).sum() >= 5);
+        assertEquals(groups, List.of(List.of(0L, 1L), List.of(2L), List.of(3L, 4L)));
+        assertEquals(leaders, List.of(true, true, false));
+        walSub.stop();
+    }
+
     @SneakyThrows
     @Test
     public void notFetchBeyondObservedCommit() {
@@ -319,6 +319,12 @@ public final class BluePrint {
 
         public <ReqT, RespT> BluePrintBuilder methodSemantic(
             MethodDescriptor<ReqT, RespT> methodSemanticKey, MethodSemantic methodSemanticValue) {
+            return methodSemantic(methodSemanticKey, methodSemanticValue, methodSemanticKey.getRequestMarshaller());
+        }
+
+        public <ReqT, RespT> BluePrintBuilder methodSemantic(
+            MethodDescriptor<ReqT, RespT> methodSemanticKey, MethodSemantic methodSemanticValue,
+            MethodDescriptor.Marshaller<ReqT> requestMarshaller) {
             if (this.methods == null) {
                 this.methods = new ArrayList<>();
                 this.wrappedMethods = new ArrayList<>();
@@ -327,7 +333,7 @@ public final class BluePrint {
             this.methodSemantics.add(methodSemanticValue);
             this.methods.add(methodSemanticKey);
             this.wrappedMethods.add(methodSemanticKey.toBuilder()
-                .setRequestMarshaller(enhance(methodSemanticKey.getRequestMarshaller()))
+                .setRequestMarshaller(enhance(requestMarshaller))
                 .setResponseMarshaller(enhance(methodSemanticKey.getResponseMarshaller()))
                 .build());
             return this;
@@ -0,0 +1,105 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.bifromq.baserpc.marshaller;
+
+import io.grpc.Drainable;
+import io.grpc.KnownLength;
+import io.grpc.MethodDescriptor;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.function.UnaryOperator;
+
+/**
+ * Marshaller that applies the transformer only when the message is actually encoded, in-proc calls get the original
+ * message without being touched.
+ */
+public class OnWireTransformMarshaller<T> implements MethodDescriptor.Marshaller<T> {
+    private final MethodDescriptor.Marshaller<T> delegate;
+    private final UnaryOperator<T> transformer;
+
+    public OnWireTransformMarshaller(MethodDescriptor.Marshaller<T> delegate, UnaryOperator<T> transformer) {
+        this.delegate = delegate;
+        this.transformer = transformer;
+    }
+
+    @Override
+    public InputStream stream(T value) {
+        return new OnWireInputStream(value);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public T parse(InputStream stream) {
+        if (stream instanceof OnWireTransformMarshaller<?>.OnWireInputStream onWireStream) {
+            // optimized for in-proc
+            return (T) onWireStream.value;
+        }
+        return delegate.parse(stream);
+    }
+
+    private class OnWireInputStream extends InputStream implements Drainable, KnownLength {
+        private final T value;
+        private InputStream encoded;
+
+        private OnWireInputStream(T value) {
+            this.value = value;
+        }
+
+        private InputStream encoded() {
+            if (encoded == null) {
+                encoded = delegate.stream(transformer.apply(value));
+            }
+            return encoded;
+        }
+
+        @Override
+        public int drainTo(OutputStream target) throws IOException {
+            return ((Drainable) encoded()).drainTo(target);
+        }
+
+        @Override
+        public int available() throws IOException {
+            return encoded().available();
+        }
+
+        @Override
+        public int read() throws IOException {
+            return encoded().read();
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            return encoded().read(b, off, len);
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            return encoded().skip(n);
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (encoded != null) {
+                encoded.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.bifromq.baserpc.marshaller;
+
+import static io.grpc.protobuf.lite.ProtoLiteUtils.marshaller;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertSame;
+
+import com.google.protobuf.Struct;
+import com.google.protobuf.Value;
+import io.grpc.Drainable;
+import io.grpc.MethodDescriptor;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.util.concurrent.atomic.AtomicInteger;
+import lombok.SneakyThrows;
+import org.testng.annotations.Test;
+
+public class OnWireTransformMarshallerTest {
+    private final Struct orig = Struct.newBuilder()
+        .putFields("key", Value.newBuilder().setNumberValue(123).build())
+        .build();
+    private final Struct transformed = Struct.newBuilder()
+        .putFields("key", Value.newBuilder().setNumberValue(456).build())
+        .build();
+
+    @Test
+    public void inProcSkipTransform() {
+        AtomicInteger transformCount = new AtomicInteger();
+        OnWireTransformMarshaller<Struct> onWireMarshaller =
+            new OnWireTransformMarshaller<>(marshaller(Struct.getDefaultInstance()), struct -> {
+                transformCount.incrementAndGet();
+                return transformed;
+            });
+        HLCStampedMarshaller<Struct> stampedMarshaller = new HLCStampedMarshaller<>(onWireMarshaller);
+        assertSame(stampedMarshaller.parse(stampedMarshaller.stream(orig)), orig);
+        assertEquals(transformCount.get(), 0);
+    }
+
+    @SneakyThrows
+    @Test
+    public void transformOnWire() {
+        AtomicInteger transformCount = new AtomicInteger();
+        MethodDescriptor.Marshaller<Struct> onWireMarshaller =
+            new OnWireTransformMarshaller<>(marshaller(Struct.getDefaultInstance()), struct -> {
+                transformCount.incrementAndGet();
+                return transformed;
+            });
+        InputStream stream = onWireMarshaller.stream(orig);
+        assertEquals(stream.available(), transformed.getSerializedSize());
+        ByteArrayOutputStream wire = new ByteArrayOutputStream();
+        ((Drainable) stream).drainTo(wire);
+        assertEquals(onWireMarshaller.parse(new ByteArrayInputStream(wire.toByteArray())), transformed);
+        assertEquals(transformCount.get(), 1);
+    }
+}
@@ -36,6 +36,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.apache.bifromq.basescheduler.exception.AbortException;
 import org.apache.bifromq.basescheduler.exception.BatcherUnavailableException;
 import org.apache.bifromq.basescheduler.spi.ICallScheduler;
+import org.apache.bifromq.sysprops.props.BatcherCallQueueCapacity;
 
 /**
  * The abstract class for batch call scheduler.
@@ -58,6 +59,20 @@ public abstract class BatchCallScheduler<CallT, CallResultT, BatcherKeyT>
 
     protected BatchCallScheduler(IBatchCallBuilderFactory<CallT, CallResultT, BatcherKeyT> batchCallFactory,
                                  long maxBurstLatency) {
+        this(batchCallFactory, maxBurstLatency, BatcherCallQueueCapacity.INSTANCE.get());
+    }
+
+    /**
+     * Constructor of the scheduler.
+     *
+     * @param batchCallFactory the factory of batch call builder
+     * @param maxBurstLatency the max tolerable burst latency in nanoseconds
+     * @param callQueueCapacity the capacity of the bounded ring buffer for queueing calls in each batcher, calls
+     *                          will be rejected with back pressure when it's full. Non-positive value means unbounded
+     */
+    protected BatchCallScheduler(IBatchCallBuilderFactory<CallT, CallResultT, BatcherKeyT> batchCallFactory,
+                                 long maxBurstLatency,
+                                 int callQueueCapacity) {
         String name = getName();
         this.callScheduler = CallSchedulerFactory.INSTANCE.create(name);
         batchers = Caffeine.newBuilder()
@@ -73,7 +88,8 @@ public abstract class BatchCallScheduler<CallT, CallResultT, BatcherKeyT>
                 batchCallFactory.newBuilder(name, k),
                 maxBurstLatency,
                 CapacityEstimatorFactory.INSTANCE.get(name, k),
-                BatchCallWeighterFactory.INSTANCE.create(name, getReqType())));
+                BatchCallWeighterFactory.INSTANCE.create(name, getReqType()),
+                callQueueCapacity));
         runningCallsGauge = Gauge.builder("batcher.call.running.gauge", runningCalls::sum)
             .tags("name", name)
             .register(Metrics.globalRegistry);
@@ -25,7 +25,7 @@ import io.micrometer.core.instrument.Gauge;
 import io.micrometer.core.instrument.Metrics;
 import io.micrometer.core.instrument.Tags;
 import io.micrometer.core.instrument.Timer;
-import java.util.LinkedList;
+import java.util.ArrayList;
 import java.util.Queue;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentLinkedDeque;
@@ -47,9 +47,11 @@ final class Batcher<CallT, CallResultT, BatcherKeyT> {
     private final BatcherKeyT key;
     private final IBatchCallBuilder<CallT, CallResultT, BatcherKeyT> batchCallBuilder;
     private final Queue<IBatchCall<CallT, CallResultT, BatcherKeyT>> batchPool;
-    private final Queue<ICallTask<CallT, CallResultT, BatcherKeyT>> callTaskBuffers = new ConcurrentLinkedQueue<>();
+    private final Queue<ArrayList<ICallTask<CallT, CallResultT, BatcherKeyT>>> batchedTasksPool;
+    private final Queue<ICallTask<CallT, CallResultT, BatcherKeyT>> callTaskBuffers;
     private final AtomicReference<State> state = new AtomicReference<>(State.RUNNING);
     private final AtomicBoolean triggering = new AtomicBoolean();
+    private final AtomicBoolean lingering = new AtomicBoolean();
     private final AtomicInteger pipelineDepth = new AtomicInteger();
     private final AtomicInteger queuedCallCount = new AtomicInteger(0);
     private final AtomicInteger inFlightCallCount = new AtomicInteger(0);
@@ -57,6 +59,7 @@ final class Batcher<CallT, CallResultT, BatcherKeyT> {
     private final IBatchCallWeighter<CallT> batchCallWeighter;
     private final long maxBurstLatency;
     private final EMALong emaQueueingTime;
+    private final EMALong emaBatchedCallCount;
     private final Gauge pipelineDepthGauge;
     private final Counter dropCounter;
     private final Timer batchCallTimer;
@@ -79,13 +82,28 @@ final class Batcher<CallT, CallResultT, BatcherKeyT> {
             long maxBurstLatency,
             ICapacityEstimator<BatcherKeyT> capacityEstimator,
             IBatchCallWeighter<CallT> batchCallWeighter) {
+        this(name, key, batchCallBuilder, maxBurstLatency, capacityEstimator, batchCallWeighter, 0);
+    }
+
+    Batcher(String name,
+            BatcherKeyT key,
+            IBatchCallBuilder<CallT, CallResultT, BatcherKeyT> batchCallBuilder,
+            long maxBurstLatency,
+            ICapacityEstimator<BatcherKeyT> capacityEstimator,
+            IBatchCallWeighter<CallT> batchCallWeighter,
+            int callQueueCapacity) {
         this.key = key;
+        // bounded ring buffer pre-allocates its slots, while unbounded linked queue allocates node per call
+        this.callTaskBuffers = callQueueCapacity > 0
+            ? new MpscCallQueue<>(callQueueCapacity) : new ConcurrentLinkedQueue<>();
         this.batchCallBuilder = batchCallBuilder;
         this.capacityEstimator = capacityEstimator;
         this.batchCallWeighter = batchCallWeighter;
         this.maxBurstLatency = maxBurstLatency;
         this.batchPool = new ConcurrentLinkedDeque<>();
+        this.batchedTasksPool = new ConcurrentLinkedDeque<>();
         this.emaQueueingTime = new EMALong(System::nanoTime, 0.1, 0.9, maxBurstLatency);
+        this.emaBatchedCallCount = new EMALong(System::nanoTime, 0.1, 1, Long.MAX_VALUE);
         Tags tags = Tags.of("name", name, "key", Integer.toUnsignedString(System.identityHashCode(this)));
         pipelineDepthGauge = Gauge.builder("batcher.pipeline.depth", pipelineDepth::get)
             .tags(tags)
@@ -139,8 +157,11 @@ final class Batcher<CallT, CallResultT, BatcherKeyT> {
         }
 
         ICallTask<CallT, CallResultT, BatcherKeyT> callTask = new CallTask<>(batcherKey, request);
-        boolean offered = callTaskBuffers.offer(callTask);
-        assert offered;
+        if (!callTaskBuffers.offer(callTask)) {
+            dropCounter.increment();
+            trigger();
+            return CompletableFuture.failedFuture(new BackPressureException("Batch call queue full"));
+        }
         queuedCallCount.incrementAndGet();
         trigger();
         return callTask.resultPromise();
@@ -185,25 +206,61 @@ final class Batcher<CallT, CallResultT, BatcherKeyT> {
 
     private void trigger() {
         if (triggering.compareAndSet(false, true)) {
+            boolean lingered = false;
             try {
                 if (!callTaskBuffers.isEmpty() && capacityEstimator.hasCapacity(inFlightWeight.get(), key)) {
-                    batchAndEmit();
+                    lingered = linger();
+                    if (!lingered) {
+                        batchAndEmit();
+                    }
                 }
             } finally {
                 triggering.set(false);
-                if (!callTaskBuffers.isEmpty() && capacityEstimator.hasCapacity(inFlightWeight.get(), key)) {
+                if (!lingered
+                    && !callTaskBuffers.isEmpty()
+                    && capacityEstimator.hasCapacity(inFlightWeight.get(), key)) {
                     this.trigger();
                 }
             }
         }
     }
 
+    private boolean linger() {
+        // only hold a tiny batch back when nothing is in-flight, otherwise the completion will trigger next batch
+        if (pipelineDepth.get() != 0 || state.get() != State.RUNNING) {
+            return false;
+        }
+        long lingerNanos = capacityEstimator.lingerNanos(key);
+        if (lingerNanos <= 0 || queuedCallCount.get() >= Math.max(2, emaBatchedCallCount.get() >> 2)) {
+            return false;
+        }
+        ICallTask<CallT, CallResultT, BatcherKeyT> head = callTaskBuffers.peek();
+        if (head == null) {
+            return false;
+        }
+        long remaining = lingerNanos - (System.nanoTime() - head.ts());
+        if (remaining <= 0) {
+            return false;
+        }
+        if (!lingering.compareAndSet(false, true)) {
+            // a wakeup has been scheduled already
+            return true;
+        }
+        CompletableFuture.delayedExecutor(remaining, TimeUnit.NANOSECONDS).execute(() -> {
+            lingering.set(false);
+            if (!callTaskBuffers.isEmpty()) {
+                trigger();
+            }
+        });
+        return true;
+    }
+
     private void batchAndEmit() {
         pipelineDepth.incrementAndGet();
         long buildStart = System.nanoTime();
         IBatchCall<CallT, CallResultT, BatcherKeyT> batchCall = borrowBatchCall();
         int batchedCallNums = 0;
-        LinkedList<ICallTask<CallT, CallResultT, BatcherKeyT>> batchedTasks = new LinkedList<>();
+        ArrayList<ICallTask<CallT, CallResultT, BatcherKeyT>> batchedTasks = borrowBatchedTasks();
         ICallTask<CallT, CallResultT, BatcherKeyT> callTask;
         batchCallWeighter.reset();
         long avail = capacityEstimator.maxCapacity(key);
@@ -217,6 +274,7 @@ final class Batcher<CallT, CallResultT, BatcherKeyT> {
             batchedCallNums++;
         }
         final long batchWeight = batchCallWeighter.weight();
+        emaBatchedCallCount.update(batchedCallNums);
         queuedCallCount.addAndGet(-batchedCallNums);
         inFlightCallCount.addAndGet(batchedCallNums);
         batchCountSummary.record(batchedCallNums);
@@ -241,6 +299,7 @@ final class Batcher<CallT, CallResultT, BatcherKeyT> {
                             batchedTasks.forEach(t -> t.resultPromise().completeExceptionally(e));
                             returnBatchCall(batchCall, true);
                         }
+                        returnBatchedTasks(batchedTasks);
                     } else {
                         long execLatency = execEnd - execBegin;
                         batchExecTimer.record(execLatency, TimeUnit.NANOSECONDS);
@@ -250,6 +309,7 @@ final class Batcher<CallT, CallResultT, BatcherKeyT> {
                             batchCallTimer.record(callLatency, TimeUnit.NANOSECONDS);
                         });
                         returnBatchCall(batchCall, false);
+                        returnBatchedTasks(batchedTasks);
                     }
                     inFlightCallCount.addAndGet(-finalBatchSize);
                     inFlightWeight.addAndGet(-batchWeight);
@@ -266,6 +326,7 @@ final class Batcher<CallT, CallResultT, BatcherKeyT> {
             log.error("Batch call failed unexpectedly", e);
             batchedTasks.forEach(t -> t.resultPromise().completeExceptionally(e));
             returnBatchCall(batchCall, true);
+            returnBatchedTasks(batchedTasks);
             // decrease in-flight count by completed size on failure path
             inFlightCallCount.addAndGet(-batchedCallNums);
             inFlightWeight.addAndGet(-batchWeight);
@@ -292,5 +353,18 @@ final class Batcher<CallT, CallResultT, BatcherKeyT> {
         batchPool.offer(batchCall);
     }
 
+    private ArrayList<ICallTask<CallT, CallResultT, BatcherKeyT>> borrowBatchedTasks() {
+        ArrayList<ICallTask<CallT, CallResultT, BatcherKeyT>> batchedTasks = batchedTasksPool.poll();
+        if (batchedTasks == null) {
+            batchedTasks = new ArrayList<>();
+        }
+        return batchedTasks;
+    }
+
+    private void returnBatchedTasks(ArrayList<ICallTask<CallT, CallResultT, BatcherKeyT>> batchedTasks) {
+        batchedTasks.clear();
+        batchedTasksPool.offer(batchedTasks);
+    }
+
     private enum State { RUNNING, SHUTTING_DOWN, TERMINATED }
 }
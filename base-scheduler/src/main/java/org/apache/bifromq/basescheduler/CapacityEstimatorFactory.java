@@ -24,6 +24,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.apache.bifromq.basehookloader.BaseHookLoader;
 import org.apache.bifromq.basescheduler.spi.ICapacityEstimator;
 import org.apache.bifromq.basescheduler.spi.ICapacityEstimatorFactory;
+import org.apache.bifromq.sysprops.props.BatcherLatencyTargetEstimator;
 
 @Slf4j
 class CapacityEstimatorFactory implements ICapacityEstimatorFactory {
@@ -34,7 +35,8 @@ class CapacityEstimatorFactory implements ICapacityEstimatorFactory {
     private CapacityEstimatorFactory() {
         Map<String, ICapacityEstimatorFactory> factoryMap = BaseHookLoader.load(ICapacityEstimatorFactory.class);
         if (factoryMap.isEmpty()) {
-            delegate = FallbackFactory.INSTANCE;
+            delegate = BatcherLatencyTargetEstimator.INSTANCE.get()
+                ? new LatencyTargetCapacityEstimatorFactory() : FallbackFactory.INSTANCE;
         } else {
             delegate = factoryMap.values().iterator().next();
             if (factoryMap.size() > 1) {
@@ -0,0 +1,159 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.bifromq.basescheduler;
+
+import com.google.common.base.Preconditions;
+import org.apache.bifromq.basescheduler.spi.ICapacityEstimator;
+
+/**
+ * AIMD style capacity estimator which keeps the p99 batch execution latency around a target.
+ *
+ * <p>The estimator learns a linear relation between batch weight and execution latency from the recorded samples,
+ * and tracks the p99 latency in a streaming way. The capacity is increased additively, bounded by the weight the
+ * learned model predicts for the target latency, while the p99 stays below target, and decreased multiplicatively
+ * once it goes beyond.
+ */
+class LatencyTargetCapacityEstimator<BatcherKey> implements ICapacityEstimator<BatcherKey> {
+    private static final double QUANTILE = 0.99;
+    private static final double MODEL_ALPHA = 0.05;
+    private static final double QUANTILE_STEP_RATIO = 0.1;
+    private static final double DECREASE_FACTOR = 0.8;
+    private static final int INCREASE_SHIFT = 3;
+    private final long targetLatencyNanos;
+    private final long maxLingerNanos;
+    private final long minCapacity;
+    private volatile long capacity;
+    private volatile long p99LatencyNanos;
+    // exponentially weighted statistics of (weight, latency) samples
+    private double meanWeight;
+    private double meanLatency;
+    private double weightVariance;
+    private double weightLatencyCovariance;
+    private long lastDecreaseNanos;
+
+    LatencyTargetCapacityEstimator(long targetLatencyNanos,
+                                   long maxLingerNanos,
+                                   long minCapacity,
+                                   long initCapacity) {
+        Preconditions.checkArgument(targetLatencyNanos > 0, "targetLatencyNanos must be positive");
+        Preconditions.checkArgument(maxLingerNanos >= 0, "maxLingerNanos must be non-negative");
+        Preconditions.checkArgument(minCapacity > 0, "minCapacity must be positive");
+        this.targetLatencyNanos = targetLatencyNanos;
+        this.maxLingerNanos = maxLingerNanos;
+        this.minCapacity = minCapacity;
+        this.capacity = Math.max(minCapacity, initCapacity);
+    }
+
+    @Override
+    public synchronized void record(long weight, long latencyNs) {
+        updateModel(weight, latencyNs);
+        updateP99(latencyNs);
+        long now = System.nanoTime();
+        long current = capacity;
+        if (p99LatencyNanos > targetLatencyNanos) {
+            // decrease at most once per observed round trip, samples of in-flight batches reflect the old capacity
+            if (now - lastDecreaseNanos > latencyNs) {
+                capacity = Math.max(minCapacity, (long) (current * DECREASE_FACTOR));
+                lastDecreaseNanos = now;
+            }
+        } else if (weight >= current >> 1) {
+            // only grow when the batches actually used the capacity
+            long increased = current + Math.max(1, current >> INCREASE_SHIFT);
+            long predicted = predictCapacity();
+            if (predicted > 0) {
+                increased = Math.min(increased, Math.max(current, predicted));
+            }
+            capacity = increased;
+        }
+    }
+
+    @Override
+    public boolean hasCapacity(long inflightWeight, BatcherKey batcherKey) {
+        return inflightWeight < capacity;
+    }
+
+    @Override
+    public long maxCapacity(BatcherKey batcherKey) {
+        return capacity;
+    }
+
+    @Override
+    public synchronized void onBackPressure() {
+        capacity = Math.max(minCapacity, capacity >> 1);
+        lastDecreaseNanos = System.nanoTime();
+    }
+
+    @Override
+    public long lingerNanos(BatcherKey batcherKey) {
+        long p99 = p99LatencyNanos;
+        if (p99 == 0) {
+            return 0;
+        }
+        // only trade latency for batching when there is enough headroom to the target
+        long headroom = targetLatencyNanos - p99;
+        return headroom > 0 ? Math.min(maxLingerNanos, headroom >> 2) : 0;
+    }
+
+    long p99LatencyNanos() {
+        return p99LatencyNanos;
+    }
+
+    private void updateModel(long weight, long latencyNs) {
+        if (meanLatency == 0) {
+            meanWeight = weight;
+            meanLatency = latencyNs;
+            return;
+        }
+        double diffWeight = weight - meanWeight;
+        double diffLatency = latencyNs - meanLatency;
+        meanWeight += MODEL_ALPHA * diffWeight;
+        meanLatency += MODEL_ALPHA * diffLatency;
+        weightVariance = (1 - MODEL_ALPHA) * (weightVariance + MODEL_ALPHA * diffWeight * diffWeight);
+        weightLatencyCovariance = (1 - MODEL_ALPHA)
+            * (weightLatencyCovariance + MODEL_ALPHA * diffWeight * diffLatency);
+    }
+
+    private void updateP99(long latencyNs) {
+        long p99 = p99LatencyNanos;
+        if (p99 == 0) {
+            p99LatencyNanos = latencyNs;
+            return;
+        }
+        double step = Math.max(1, meanLatency * QUANTILE_STEP_RATIO);
+        if (latencyNs > p99) {
+            p99LatencyNanos = p99 + (long) Math.ceil(step * QUANTILE);
+        } else {
+            p99LatencyNanos = Math.max(1, p99 - (long) Math.ceil(step * (1 - QUANTILE)));
+        }
+    }
+
+    private long predictCapacity() {
+        if (weightVariance <= 0) {
+            return 0;
+        }
+        double slope = weightLatencyCovariance / weightVariance;
+        if (slope <= 0) {
+            return 0;
+        }
+        double intercept = meanLatency - slope * meanWeight;
+        double predicted = (targetLatencyNanos - Math.max(0, intercept)) / slope;
+        return predicted >= Long.MAX_VALUE ? Long.MAX_VALUE : Math.max(minCapacity, (long) predicted);
+    }
+}
@@ -0,0 +1,55 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.bifromq.basescheduler;
+
+import java.time.Duration;
+import org.apache.bifromq.basescheduler.spi.ICapacityEstimator;
+import org.apache.bifromq.basescheduler.spi.ICapacityEstimatorFactory;
+import org.apache.bifromq.sysprops.props.BatcherInitCapacity;
+import org.apache.bifromq.sysprops.props.BatcherMaxLingerMicros;
+import org.apache.bifromq.sysprops.props.BatcherTargetLatencyMillis;
+
+/**
+ * The built-in {@link ICapacityEstimatorFactory} creating latency targeted capacity estimators. It's used when no
+ * capacity estimator factory is registered via SPI and 'batcher_latency_target_estimator' is enabled, and tuned by
+ * 'batcher_target_latency_ms', 'batcher_max_linger_us' and 'batcher_init_capacity'.
+ */
+public class LatencyTargetCapacityEstimatorFactory implements ICapacityEstimatorFactory {
+    private final long targetLatencyNanos;
+    private final long maxLingerNanos;
+    private final long initCapacity;
+
+    public LatencyTargetCapacityEstimatorFactory() {
+        this(Duration.ofMillis(BatcherTargetLatencyMillis.INSTANCE.get()),
+            Duration.ofNanos(BatcherMaxLingerMicros.INSTANCE.get() * 1000),
+            BatcherInitCapacity.INSTANCE.get());
+    }
+
+    public LatencyTargetCapacityEstimatorFactory(Duration targetLatency, Duration maxLinger, long initCapacity) {
+        this.targetLatencyNanos = targetLatency.toNanos();
+        this.maxLingerNanos = maxLinger.toNanos();
+        this.initCapacity = initCapacity;
+    }
+
+    @Override
+    public <BatcherKey> ICapacityEstimator<BatcherKey> get(String name, BatcherKey batcherKey) {
+        return new LatencyTargetCapacityEstimator<>(targetLatencyNanos, maxLingerNanos, 1, initCapacity);
+    }
+}
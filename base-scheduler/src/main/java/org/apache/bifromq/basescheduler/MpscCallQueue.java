@@ -0,0 +1,176 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.bifromq.basescheduler;
+
+import com.google.common.base.Preconditions;
+import java.util.AbstractQueue;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded lock-free multi-producer single-consumer queue backed by a pre-allocated ring buffer.
+ *
+ * <p>Each slot carries a sequence number telling whether it's ready for the producer at a given position or for the
+ * consumer, so offering doesn't allocate any node. {@link #poll()} and {@link #peek()} must be called from one consumer
+ * at a time.
+ *
+ * @param <E> the type of elements
+ */
+final class MpscCallQueue<E> extends AbstractQueue<E> {
+    private final int mask;
+    private final AtomicReferenceArray<E> slots;
+    private final AtomicLongArray sequences;
+    private final AtomicLong tail = new AtomicLong();
+    private volatile long head;
+
+    MpscCallQueue(int capacity) {
+        Preconditions.checkArgument(capacity > 0, "capacity must be positive");
+        int size = capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+        Preconditions.checkArgument(size > 0, "capacity is too large");
+        this.mask = size - 1;
+        this.slots = new AtomicReferenceArray<>(size);
+        this.sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    int capacity() {
+        return mask + 1;
+    }
+
+    @Override
+    public boolean offer(E e) {
+        Preconditions.checkNotNull(e);
+        while (true) {
+            long pos = tail.get();
+            int idx = (int) (pos & mask);
+            long diff = sequences.get(idx) - pos;
+            if (diff == 0) {
+                if (tail.compareAndSet(pos, pos + 1)) {
+                    slots.lazySet(idx, e);
+                    // publish the slot to consumer
+                    sequences.set(idx, pos + 1);
+                    return true;
+                }
+            } else if (diff < 0) {
+                // the slot has not been consumed yet since last round
+                return false;
+            }
+            // otherwise other producer claimed the position, retry
+        }
+    }
+
+    @Override
+    public E poll() {
+        long pos = head;
+        int idx = (int) (pos & mask);
+        if (sequences.get(idx) != pos + 1) {
+            return null;
+        }
+        E e = slots.get(idx);
+        slots.lazySet(idx, null);
+        // release the slot for the producer of next round
+        sequences.set(idx, pos + mask + 1);
+        head = pos + 1;
+        return e;
+    }
+
+    @Override
+    public E peek() {
+        long pos = head;
+        int idx = (int) (pos & mask);
+        if (sequences.get(idx) != pos + 1) {
+            return null;
+        }
+        return slots.get(idx);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        long pos = head;
+        return sequences.get((int) (pos & mask)) != pos + 1;
+    }
+
+    @Override
+    public int size() {
+        long size = tail.get() - head;
+        return (int) Math.max(0, Math.min(size, capacity()));
+    }
+
+    /**
+     * Returns a weakly consistent iterator walking the ring slots from head. It never throws
+     * {@link java.util.ConcurrentModificationException}, skips the elements polled concurrently, and may or may not
+     * reflect the elements offered after its creation. Removal via the iterator is not supported.
+     *
+     * @return the iterator
+     */
+    @Override
+    public Iterator<E> iterator() {
+        return new Itr();
+    }
+
+    private class Itr implements Iterator<E> {
+        private long pos = head;
+        private E next;
+
+        private Itr() {
+            advance();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public E next() {
+            E e = next;
+            if (e == null) {
+                throw new NoSuchElementException();
+            }
+            advance();
+            return e;
+        }
+
+        private void advance() {
+            while (true) {
+                pos = Math.max(pos, head);
+                int idx = (int) (pos & mask);
+                E e = sequences.get(idx) == pos + 1 ? slots.get(idx) : null;
+                // re-check the sequence in case the slot is consumed and reused while reading
+                if (e != null && sequences.get(idx) == pos + 1) {
+                    next = e;
+                    pos++;
+                    return;
+                }
+                if (head <= pos) {
+                    // reach the position not published yet
+                    next = null;
+                    return;
+                }
+                // the element at pos is polled concurrently, move on
+            }
+        }
+    }
+}
@@ -52,4 +52,14 @@ public interface ICapacityEstimator<BatcherKey> {
      * Notify estimator that downstream backpressure has been observed.
      */
     void onBackPressure();
+
+    /**
+     * Get the max time allowed to wait for more calls before emitting a tiny batch when the pipeline is idle.
+     *
+     * @param batcherKey the key of the batcher
+     * @return the linger time in nanoseconds, 0 means emitting immediately
+     */
+    default long lingerNanos(BatcherKey batcherKey) {
+        return 0L;
+    }
 }
@@ -282,11 +282,59 @@ public class BatcherTest {
         assertTrue(builder.batchSizes.stream().allMatch(sz -> sz <= 1));
     }
 
+    @Test
+    public void rejectWhenCallQueueFull() {
+        batcher.close().join();
+        builder = new RecordingBatchCallBuilder();
+        estimator = new TestCapacityEstimator(1);
+        batcher = new Batcher<>("test", 1, builder, Duration.ofSeconds(1).toNanos(), estimator, batchCallWeighter, 2);
+        builder.setHoldMode();
+        // first call is emitted and held, next two fill the queue
+        CompletableFuture<Integer> f1 = batcher.submit(0, 1);
+        CompletableFuture<Integer> f2 = batcher.submit(0, 2);
+        CompletableFuture<Integer> f3 = batcher.submit(0, 3);
+        CompletableFuture<Integer> f4 = batcher.submit(0, 4);
+        assertTrue(f4.isCompletedExceptionally());
+        try {
+            f4.join();
+            fail();
+        } catch (Throwable e) {
+            assertTrue(e.getCause() instanceof BackPressureException);
+        }
+        builder.setSuccessMode();
+        builder.releaseHeldSuccess();
+        CompletableFuture.allOf(f1, f2, f3).join();
+        assertEquals(builder.batchSizes, List.of(1, 1, 1));
+    }
+
+    @Test
+    public void lingerTinyBatchWhenPipelineIdle() {
+        builder.setSuccessMode();
+        estimator.lingerNanos = Duration.ofSeconds(10).toNanos();
+        CompletableFuture<Integer> f1 = batcher.submit(0, 1);
+        assertFalse(f1.isDone());
+        assertEquals(builder.executeCount.get(), 0);
+        // the second call makes the batch no longer tiny
+        CompletableFuture<Integer> f2 = batcher.submit(0, 2);
+        CompletableFuture.allOf(f1, f2).join();
+        assertEquals(builder.batchSizes, List.of(2));
+    }
+
+    @Test
+    public void lingerExpiresAndEmits() {
+        builder.setSuccessMode();
+        estimator.lingerNanos = Duration.ofMillis(50).toNanos();
+        CompletableFuture<Integer> f = batcher.submit(0, 1);
+        assertEquals((int) f.join(), 1);
+        assertEquals(builder.batchSizes, List.of(1));
+    }
+
     private static class TestCapacityEstimator implements ICapacityEstimator<Integer> {
         final AtomicInteger recordCount = new AtomicInteger();
         volatile long maxCapacity;
         volatile long lastRecordedWeight;
         volatile long lastRecordedLatency;
+        volatile long lingerNanos;
 
         TestCapacityEstimator(long maxCapacity) {
             this.maxCapacity = maxCapacity;
@@ -312,6 +360,11 @@ public class BatcherTest {
         @Override
         public void onBackPressure() {
         }
+
+        @Override
+        public long lingerNanos(Integer key) {
+            return lingerNanos;
+        }
     }
 
     private static class TestBatchCallWeighter implements IBatchCallWeighter<Integer> {
@@ -0,0 +1,99 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.bifromq.basescheduler;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import java.time.Duration;
+import org.testng.annotations.Test;
+
+public class LatencyTargetCapacityEstimatorTest {
+    private static final long TARGET = Duration.ofMillis(10).toNanos();
+    private static final long LINGER = Duration.ofMillis(1).toNanos();
+
+    @Test
+    public void growWhenUnderTarget() {
+        LatencyTargetCapacityEstimator<Integer> estimator = new LatencyTargetCapacityEstimator<>(TARGET, LINGER, 1, 8);
+        for (int i = 0; i < 100; i++) {
+            long cap = estimator.maxCapacity(0);
+            estimator.record(cap, Duration.ofMillis(1).toNanos());
+        }
+        assertTrue(estimator.maxCapacity(0) > 8);
+        assertTrue(estimator.hasCapacity(estimator.maxCapacity(0) - 1, 0));
+    }
+
+    @Test
+    public void notGrowWhenUnderUtilized() {
+        LatencyTargetCapacityEstimator<Integer> estimator = new LatencyTargetCapacityEstimator<>(TARGET, LINGER, 1, 8);
+        for (int i = 0; i < 100; i++) {
+            estimator.record(1, Duration.ofMillis(1).toNanos());
+        }
+        assertEquals(estimator.maxCapacity(0), 8);
+    }
+
+    @Test
+    public void boundedByLearnedModel() {
+        LatencyTargetCapacityEstimator<Integer> estimator = new LatencyTargetCapacityEstimator<>(TARGET, LINGER, 1, 8);
+        // latency = 1ms + 10us * weight, so the weight hitting target is about 900
+        for (int i = 0; i < 2000; i++) {
+            long weight = estimator.maxCapacity(0) - (i % 3);
+            estimator.record(weight, Duration.ofMillis(1).toNanos() + 10_000L * weight);
+        }
+        long cap = estimator.maxCapacity(0);
+        assertTrue(cap > 100 && cap < 1200, "capacity: " + cap);
+    }
+
+    @Test
+    public void decreaseWhenOverTarget() {
+        LatencyTargetCapacityEstimator<Integer> estimator =
+            new LatencyTargetCapacityEstimator<>(TARGET, LINGER, 1, 100);
+        estimator.record(100, TARGET * 2);
+        assertTrue(estimator.p99LatencyNanos() > TARGET);
+        assertEquals(estimator.maxCapacity(0), 80);
+        assertEquals(estimator.lingerNanos(0), 0);
+    }
+
+    @Test
+    public void halveOnBackPressure() {
+        LatencyTargetCapacityEstimator<Integer> estimator =
+            new LatencyTargetCapacityEstimator<>(TARGET, LINGER, 1, 100);
+        estimator.onBackPressure();
+        assertEquals(estimator.maxCapacity(0), 50);
+        for (int i = 0; i < 10; i++) {
+            estimator.onBackPressure();
+        }
+        assertEquals(estimator.maxCapacity(0), 1);
+        assertTrue(estimator.hasCapacity(0, 0));
+        assertTrue(!estimator.hasCapacity(1, 0));
+    }
+
+    @Test
+    public void lingerWithinHeadroom() {
+        LatencyTargetCapacityEstimator<Integer> estimator = new LatencyTargetCapacityEstimator<>(TARGET, LINGER, 1, 8);
+        // no sample yet
+        assertEquals(estimator.lingerNanos(0), 0);
+        estimator.record(8, Duration.ofMillis(1).toNanos());
+        assertEquals(estimator.lingerNanos(0), LINGER);
+        estimator = new LatencyTargetCapacityEstimator<>(TARGET, LINGER, 1, 8);
+        estimator.record(8, Duration.ofMillis(9).toNanos());
+        assertEquals(estimator.lingerNanos(0), Duration.ofMillis(1).toNanos() >> 2);
+    }
+}
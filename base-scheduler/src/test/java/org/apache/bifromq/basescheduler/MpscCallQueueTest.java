@@ -0,0 +1,138 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.bifromq.basescheduler;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertThrows;
+import static org.testng.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.testng.annotations.Test;
+
+public class MpscCallQueueTest {
+    @Test
+    public void capacityRoundUp() {
+        assertEquals(new MpscCallQueue<Integer>(1).capacity(), 1);
+        assertEquals(new MpscCallQueue<Integer>(5).capacity(), 8);
+        assertEquals(new MpscCallQueue<Integer>(16).capacity(), 16);
+    }
+
+    @Test
+    public void fifoAndBounded() {
+        MpscCallQueue<Integer> queue = new MpscCallQueue<>(4);
+        assertTrue(queue.isEmpty());
+        assertNull(queue.peek());
+        assertNull(queue.poll());
+        for (int i = 0; i < 4; i++) {
+            assertTrue(queue.offer(i));
+        }
+        assertFalse(queue.offer(4));
+        assertEquals(queue.size(), 4);
+        assertEquals((int) queue.peek(), 0);
+        assertEquals((int) queue.poll(), 0);
+        assertTrue(queue.offer(4));
+        for (int i = 1; i <= 4; i++) {
+            assertEquals((int) queue.poll(), i);
+        }
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    public void wrapAround() {
+        MpscCallQueue<Integer> queue = new MpscCallQueue<>(2);
+        for (int i = 0; i < 100; i++) {
+            assertTrue(queue.offer(i));
+            assertEquals((int) queue.poll(), i);
+        }
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    public void iterate() {
+        MpscCallQueue<Integer> queue = new MpscCallQueue<>(4);
+        assertFalse(queue.iterator().hasNext());
+        for (int i = 0; i < 6; i++) {
+            assertTrue(queue.offer(i));
+            if (i < 2) {
+                queue.poll();
+            }
+        }
+        // wrapped around the ring
+        assertEquals(new ArrayList<>(queue), List.of(2, 3, 4, 5));
+        assertTrue(queue.contains(4));
+        Iterator<Integer> itr = queue.iterator();
+        queue.poll();
+        queue.poll();
+        queue.poll();
+        // the first element has been fetched when the iterator created, the rest polled concurrently are skipped
+        assertEquals((int) itr.next(), 2);
+        assertEquals((int) itr.next(), 5);
+        assertFalse(itr.hasNext());
+        assertThrows(NoSuchElementException.class, itr::next);
+    }
+
+    @Test
+    public void concurrentProducers() throws InterruptedException {
+        int producers = 8;
+        int perProducer = 10000;
+        MpscCallQueue<Integer> queue = new MpscCallQueue<>(1024);
+        ExecutorService executor = Executors.newFixedThreadPool(producers);
+        CountDownLatch latch = new CountDownLatch(producers);
+        for (int p = 0; p < producers; p++) {
+            int producer = p;
+            executor.execute(() -> {
+                for (int i = 0; i < perProducer; i++) {
+                    while (!queue.offer(producer * perProducer + i)) {
+                        Thread.onSpinWait();
+                    }
+                }
+                latch.countDown();
+            });
+        }
+        int[] lastSeen = new int[producers];
+        Arrays.fill(lastSeen, -1);
+        List<Integer> received = new ArrayList<>();
+        while (received.size() < producers * perProducer) {
+            Integer e = queue.poll();
+            if (e == null) {
+                Thread.onSpinWait();
+                continue;
+            }
+            int producer = e / perProducer;
+            // per producer order is kept
+            assertTrue(e % perProducer > lastSeen[producer]);
+            lastSeen[producer] = e % perProducer;
+            received.add(e);
+        }
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertTrue(queue.isEmpty());
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.bifromq.basescheduler.benchmark;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import lombok.SneakyThrows;
+import org.apache.bifromq.basescheduler.BatchCallScheduler;
+import org.apache.bifromq.basescheduler.IBatchCall;
+import org.apache.bifromq.basescheduler.ICallTask;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Measure the submit throughput and allocation rate of batcher with different call queue, run with 1 to 64 producer
+ * threads.
+ */
+@State(Scope.Benchmark)
+public class BatcherSubmitBenchmark {
+    @Param({"0", "65536"})
+    private int callQueueCapacity;
+
+    @Param({"1", "8"})
+    private int batchers;
+
+    private NoopBatchCallScheduler scheduler;
+
+    @SneakyThrows
+    public static void main(String[] args) {
+        for (int threads : new int[] {1, 4, 16, 64}) {
+            Options opt = new OptionsBuilder()
+                .include(BatcherSubmitBenchmark.class.getSimpleName())
+                .threads(threads)
+                .warmupIterations(3)
+                .measurementIterations(5)
+                .addProfiler(GCProfiler.class)
+                .forks(1)
+                .build();
+            new Runner(opt).run();
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setup() {
+        scheduler = new NoopBatchCallScheduler(batchers, callQueueCapacity);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        scheduler.close();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    public Integer submit() {
+        return scheduler.schedule(ThreadLocalRandom.current().nextInt()).join();
+    }
+
+    private static class NoopBatchCallScheduler extends BatchCallScheduler<Integer, Integer, Integer> {
+        private final int batchers;
+
+        NoopBatchCallScheduler(int batchers, int callQueueCapacity) {
+            super((name, batcherKey) -> NoopBatchCall::new, Duration.ofSeconds(5).toNanos(), callQueueCapacity);
+            this.batchers = batchers;
+        }
+
+        @Override
+        protected Optional<Integer> find(Integer call) {
+            return Optional.of(Math.floorMod(call, batchers));
+        }
+    }
+
+    private static class NoopBatchCall implements IBatchCall<Integer, Integer, Integer> {
+        private ICallTask<Integer, Integer, Integer>[] tasks = newArray(64);
+        private int size;
+
+        @SuppressWarnings("unchecked")
+        private static ICallTask<Integer, Integer, Integer>[] newArray(int size) {
+            return new ICallTask[size];
+        }
+
+        @Override
+        public void add(ICallTask<Integer, Integer, Integer> task) {
+            if (size == tasks.length) {
+                ICallTask<Integer, Integer, Integer>[] grown = newArray(size << 1);
+                System.arraycopy(tasks, 0, grown, 0, size);
+                tasks = grown;
+            }
+            tasks[size++] = task;
+        }
+
+        @Override
+        public void reset(boolean abort) {
+            for (int i = 0; i < size; i++) {
+                tasks[i] = null;
+            }
+            size = 0;
+        }
+
+        @Override
+        public CompletableFuture<Void> execute() {
+            for (int i = 0; i < size; i++) {
+                tasks[i].resultPromise().complete(tasks[i].call());
+            }
+            return CompletableFuture.completedFuture(null);
+        }
+    }
+}
@@ -0,0 +1,201 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.bifromq.deliverer.benchmark;
+
+import static org.mockito.Mockito.mock;
+
+import com.google.protobuf.ByteString;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import org.apache.bifromq.deliverer.BatchDeliveryCallBuilderFactory;
+import org.apache.bifromq.deliverer.DeliveryCall;
+import org.apache.bifromq.deliverer.DeliveryCallResult;
+import org.apache.bifromq.deliverer.MessageDeliverer;
+import org.apache.bifromq.deliverer.TopicMessagePackHolder;
+import org.apache.bifromq.dist.client.IDistClient;
+import org.apache.bifromq.plugin.subbroker.CheckReply;
+import org.apache.bifromq.plugin.subbroker.CheckRequest;
+import org.apache.bifromq.plugin.subbroker.DeliveryPack;
+import org.apache.bifromq.plugin.subbroker.DeliveryReply;
+import org.apache.bifromq.plugin.subbroker.DeliveryRequest;
+import org.apache.bifromq.plugin.subbroker.DeliveryResult;
+import org.apache.bifromq.plugin.subbroker.DeliveryResults;
+import org.apache.bifromq.plugin.subbroker.IDeliverer;
+import org.apache.bifromq.plugin.subbroker.ISubBroker;
+import org.apache.bifromq.plugin.subbroker.ISubBrokerManager;
+import org.apache.bifromq.plugin.subbroker.MessagePackSplicer;
+import org.apache.bifromq.type.ClientInfo;
+import org.apache.bifromq.type.MatchInfo;
+import org.apache.bifromq.type.Message;
+import org.apache.bifromq.type.QoS;
+import org.apache.bifromq.type.TopicMessagePack;
+import org.apache.bifromq.util.TopicUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compare re-encoding the message pack for every fan-out target against splicing the pre-serialized bytes. The
+ * deliverer serializes every request the same way as the wire marshaller of the built-in sub-brokers.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+public class DeliveryFanOutBenchmark {
+    private static final String TENANT_ID = "tenant";
+
+    @Param({"1", "100", "10000"})
+    int fanout;
+
+    @Param({"false", "true"})
+    boolean splice;
+
+    @Param({"4096"})
+    int payloadSize;
+
+    private MessageDeliverer deliverer;
+    private TopicMessagePack messagePack;
+    private List<MatchInfo> matchInfos;
+
+    public static void main(String[] args) throws Exception {
+        Options opt = new OptionsBuilder()
+            .include(DeliveryFanOutBenchmark.class.getSimpleName())
+            .warmupIterations(3)
+            .measurementIterations(5)
+            .forks(1)
+            .addProfiler("gc")
+            .build();
+        new Runner(opt).run();
+    }
+
+    @Setup(Level.Trial)
+    public void setup() {
+        ISubBroker subBroker = new WireSimulatingSubBroker();
+        ISubBrokerManager subBrokerManager = new ISubBrokerManager() {
+            @Override
+            public ISubBroker get(int subBrokerId) {
+                return subBroker;
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        deliverer = new MessageDeliverer(
+            new BatchDeliveryCallBuilderFactory(mock(IDistClient.class), subBrokerManager));
+        messagePack = TopicMessagePack.newBuilder()
+            .setTopic("sensor/temperature")
+            .addMessage(TopicMessagePack.PublisherPack.newBuilder()
+                .setPublisher(ClientInfo.newBuilder().setTenantId(TENANT_ID).setType("benchmark").build())
+                .addMessage(Message.newBuilder()
+                    .setMessageId(1)
+                    .setPubQoS(QoS.AT_LEAST_ONCE)
+                    .setPayload(ByteString.copyFrom(new byte[payloadSize]))
+                    .setTimestamp(System.currentTimeMillis())
+                    .build())
+                .build())
+            .build();
+        matchInfos = new ArrayList<>(fanout);
+        for (int i = 0; i < fanout; i++) {
+            matchInfos.add(MatchInfo.newBuilder()
+                .setMatcher(TopicUtil.from("sensor/#"))
+                .setReceiverId("receiver" + i)
+                .setIncarnation(1)
+                .build());
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        deliverer.close();
+    }
+
+    @Benchmark
+    public void fanout(Blackhole bh) {
+        // a fresh message pack instance per publish, so its encoding is cached at most once per publish
+        TopicMessagePackHolder holder = TopicMessagePackHolder.hold(messagePack.toBuilder().build());
+        List<CompletableFuture<DeliveryCallResult>> futures = new ArrayList<>(fanout);
+        for (int i = 0; i < fanout; i++) {
+            futures.add(deliverer.schedule(new DeliveryCall(TENANT_ID, matchInfos.get(i), 0, "deliverer" + i, holder)));
+        }
+        for (CompletableFuture<DeliveryCallResult> future : futures) {
+            bh.consume(future.join());
+        }
+    }
+
+    private class WireSimulatingSubBroker implements ISubBroker {
+        @Override
+        public int id() {
+            return 0;
+        }
+
+        @Override
+        public CompletableFuture<CheckReply> check(CheckRequest request) {
+            return CompletableFuture.completedFuture(CheckReply.getDefaultInstance());
+        }
+
+        @Override
+        public IDeliverer open(String delivererKey) {
+            return new IDeliverer() {
+                @Override
+                public CompletableFuture<DeliveryReply> deliver(DeliveryRequest request) {
+                    ByteString wireBytes = (splice ? MessagePackSplicer.splice(request) : request).toByteString();
+                    DeliveryReply.Builder replyBuilder = DeliveryReply.newBuilder()
+                        .setCode(DeliveryReply.Code.OK);
+                    request.getPackageMap().forEach((tenantId, deliveryPackage) -> {
+                        DeliveryResults.Builder resultsBuilder = DeliveryResults.newBuilder();
+                        for (DeliveryPack pack : deliveryPackage.getPackList()) {
+                            for (MatchInfo matchInfo : pack.getMatchInfoList()) {
+                                resultsBuilder.addResult(DeliveryResult.newBuilder()
+                                    .setMatchInfo(matchInfo)
+                                    .setCode(wireBytes.isEmpty() ? DeliveryResult.Code.NO_RECEIVER
+                                        : DeliveryResult.Code.OK)
+                                    .build());
+                            }
+                        }
+                        replyBuilder.putResult(tenantId, resultsBuilder.build());
+                    });
+                    return CompletableFuture.completedFuture(replyBuilder.build());
+                }
+
+                @Override
+                public void close() {
+                }
+            };
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -21,16 +21,16 @@ package org.apache.bifromq.dist.worker;
 
 import static org.apache.bifromq.plugin.eventcollector.ThreadLocalEventPool.getLocal;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
 import io.micrometer.core.instrument.Metrics;
-import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import io.micrometer.core.instrument.Tags;
 import java.util.concurrent.ConcurrentLinkedQueue;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.LinkedTransferQueue;
-import java.util.concurrent.ThreadPoolExecutor;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinWorkerThread;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.bifromq.baseenv.EnvProvider;
 import org.apache.bifromq.deliverer.DeliveryCall;
 import org.apache.bifromq.deliverer.IMessageDeliverer;
 import org.apache.bifromq.deliverer.TopicMessagePackHolder;
@@ -40,21 +40,34 @@ import org.apache.bifromq.plugin.eventcollector.distservice.DeliverError;
 import org.apache.bifromq.plugin.eventcollector.distservice.Delivered;
 import org.apache.bifromq.type.MatchInfo;
 
+/**
+ * A fanout shard which sends its queued tasks in FIFO order. The shard has no dedicated thread, it's drained by
+ * whichever worker of the shared work-stealing executor picks it up, and at most one worker drains it at a time.
+ */
 @Slf4j
 public class DeliverExecutor {
+    private static final int MAX_SEND_PER_DRAIN = 256;
     private final IEventCollector eventCollector;
     private final IMessageDeliverer deliverer;
-    private final ExecutorService executor;
+    private final Executor executor;
     private final ConcurrentLinkedQueue<SendTask> tasks = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queued = new AtomicInteger();
     private final AtomicBoolean sending = new AtomicBoolean();
+    private final Gauge queueDepthGauge;
+    private final Counter stealCounter;
 
-    public DeliverExecutor(int id, IMessageDeliverer deliverer, IEventCollector eventCollector) {
+    public DeliverExecutor(int id, IMessageDeliverer deliverer, IEventCollector eventCollector, Executor executor,
+                           String... tags) {
         this.eventCollector = eventCollector;
         this.deliverer = deliverer;
-        executor = ExecutorServiceMetrics.monitor(Metrics.globalRegistry,
-            new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
-                new LinkedTransferQueue<>(),
-                EnvProvider.INSTANCE.newThreadFactory("deliver-executor-" + id)), Integer.toString(id), "deliver");
+        this.executor = executor;
+        Tags shardTags = Tags.of(tags).and("shard", Integer.toString(id));
+        queueDepthGauge = Gauge.builder("dist.fanout.shard.queued", queued::get)
+            .tags(shardTags)
+            .register(Metrics.globalRegistry);
+        stealCounter = Counter.builder("dist.fanout.shard.steals")
+            .tags(shardTags)
+            .register(Metrics.globalRegistry);
     }
 
     public void submit(NormalMatching route, TopicMessagePackHolder msgPackHolder, boolean inline) {
@@ -62,24 +75,34 @@ public class DeliverExecutor {
             send(route, msgPackHolder);
         } else {
             tasks.add(new SendTask(route, msgPackHolder));
+            queued.incrementAndGet();
             scheduleSend();
         }
     }
 
     public void shutdown() {
-        executor.shutdown();
+        Metrics.globalRegistry.remove(queueDepthGauge);
+        Metrics.globalRegistry.remove(stealCounter);
     }
 
     private void scheduleSend() {
         if (sending.compareAndSet(false, true)) {
-            executor.submit(this::sendAll);
+            Thread submitter = Thread.currentThread();
+            executor.execute(() -> sendAll(submitter));
         }
     }
 
-    private void sendAll() {
+    private void sendAll(Thread submitter) {
+        if (isStolen(submitter, Thread.currentThread())) {
+            stealCounter.increment();
+        }
         SendTask task;
-        while ((task = tasks.poll()) != null) {
+        int sent = 0;
+        // yield after a bounded number of sends, so a hot shard won't starve others sharing the same worker
+        while (sent < MAX_SEND_PER_DRAIN && (task = tasks.poll()) != null) {
+            queued.decrementAndGet();
             send(task.route, task.msgPackHolder);
+            sent++;
         }
         sending.set(false);
         if (!tasks.isEmpty()) {
@@ -87,6 +110,14 @@ public class DeliverExecutor {
         }
     }
 
+    private static boolean isStolen(Thread submitter, Thread drainer) {
+        // drain submitted from a worker goes to its local queue, running it on another worker of the pool is a steal
+        return submitter != drainer
+            && submitter instanceof ForkJoinWorkerThread submitWorker
+            && drainer instanceof ForkJoinWorkerThread drainWorker
+            && submitWorker.getPool() == drainWorker.getPool();
+    }
+
     private void send(NormalMatching matched, TopicMessagePackHolder msgPackHolder) {
         int subBrokerId = matched.subBrokerId();
         String delivererKey = matched.delivererKey();
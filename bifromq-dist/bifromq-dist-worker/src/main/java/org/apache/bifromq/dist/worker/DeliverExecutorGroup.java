@@ -33,11 +33,20 @@ import com.github.benmanes.caffeine.cache.LoadingCache;
 import com.github.benmanes.caffeine.cache.RemovalListener;
 import com.github.benmanes.caffeine.cache.Scheduler;
 import com.google.common.base.Charsets;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveTask;
 import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.bifromq.base.util.RendezvousHash;
 import org.apache.bifromq.deliverer.IMessageDeliverer;
@@ -52,7 +61,6 @@ import org.apache.bifromq.plugin.eventcollector.distservice.GroupFanoutThrottled
 import org.apache.bifromq.plugin.eventcollector.distservice.PersistentFanoutBytesThrottled;
 import org.apache.bifromq.plugin.eventcollector.distservice.PersistentFanoutThrottled;
 import org.apache.bifromq.plugin.resourcethrottler.IResourceThrottler;
-import org.apache.bifromq.plugin.resourcethrottler.TenantResourceType;
 import org.apache.bifromq.plugin.settingprovider.ISettingProvider;
 import org.apache.bifromq.sysprops.props.DistTopicMatchExpirySeconds;
 import org.apache.bifromq.type.ClientInfo;
@@ -61,7 +69,9 @@ import org.apache.bifromq.type.TopicMessagePack;
 import org.apache.bifromq.util.SizeUtil;
 
 @Slf4j
-class DeliverExecutorGroup implements IDeliverExecutorGroup {
+public class DeliverExecutorGroup implements IDeliverExecutorGroup {
+    // more shards than workers, so that idle workers could steal shards queued behind a hot one
+    private static final int SHARDS_PER_WORKER = 4;
     // OuterCacheKey: OrderedSharedMatchingKey(<tenantId>, <mqttTopicFilter>)
     // InnerCacheKey: ClientInfo(<tenantId>, <type>, <metadata>)
     private final LoadingCache<OrderedSharedMatchingKey, Cache<ClientInfo, NormalMatching>> orderedSharedMatching;
@@ -69,18 +79,24 @@ class DeliverExecutorGroup implements IDeliverExecutorGroup {
     private final IEventCollector eventCollector;
     private final IResourceThrottler resourceThrottler;
     private final ISettingProvider settingProvider;
+    private final int fanOutChunkSize;
+    private final ForkJoinPool fanoutPool;
+    private final ExecutorService fanoutWorkers;
     private final DeliverExecutor[] fanoutExecutors;
 
-    DeliverExecutorGroup(IMessageDeliverer deliverer,
-                         IEventCollector eventCollector,
-                         IResourceThrottler resourceThrottler,
-                         ISettingProvider settingProvider,
-                         int fanoutParallelism,
-                         int inlineFanOutThreshold) {
+    public DeliverExecutorGroup(IMessageDeliverer deliverer,
+                                IEventCollector eventCollector,
+                                IResourceThrottler resourceThrottler,
+                                ISettingProvider settingProvider,
+                                int fanoutParallelism,
+                                int inlineFanOutThreshold,
+                                int fanOutChunkSize,
+                                String... tags) {
         this.eventCollector = eventCollector;
         this.resourceThrottler = resourceThrottler;
         this.settingProvider = settingProvider;
         this.inlineFanOutThreshold = inlineFanOutThreshold;
+        this.fanOutChunkSize = fanOutChunkSize;
         int expirySec = DistTopicMatchExpirySeconds.INSTANCE.get();
         orderedSharedMatching = Caffeine.newBuilder()
             .expireAfterAccess(expirySec * 2L, TimeUnit.SECONDS)
@@ -94,9 +110,18 @@ class DeliverExecutorGroup implements IDeliverExecutorGroup {
             .build(k -> Caffeine.newBuilder()
                 .expireAfterAccess(expirySec, TimeUnit.SECONDS)
                 .build());
-        fanoutExecutors = new DeliverExecutor[fanoutParallelism];
-        for (int i = 0; i < fanoutParallelism; i++) {
-            fanoutExecutors[i] = new DeliverExecutor(i, deliverer, eventCollector);
+        AtomicInteger workerIndex = new AtomicInteger();
+        fanoutPool = new ForkJoinPool(fanoutParallelism, pool -> {
+            ForkJoinWorkerThread worker = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            worker.setName(String.format("deliver-executor-%d", workerIndex.incrementAndGet()));
+            worker.setDaemon(false);
+            return worker;
+        }, null, true);
+        fanoutWorkers = ExecutorServiceMetrics.monitor(Metrics.globalRegistry, fanoutPool, "deliver-executor",
+            Tags.of(tags));
+        fanoutExecutors = new DeliverExecutor[fanoutParallelism * SHARDS_PER_WORKER];
+        for (int i = 0; i < fanoutExecutors.length; i++) {
+            fanoutExecutors[i] = new DeliverExecutor(i, deliverer, eventCollector, fanoutWorkers, tags);
         }
     }
 
@@ -105,6 +130,7 @@ class DeliverExecutorGroup implements IDeliverExecutorGroup {
         for (DeliverExecutor fanoutExecutor : fanoutExecutors) {
             fanoutExecutor.shutdown();
         }
+        fanoutWorkers.shutdown();
         orderedSharedMatching.invalidateAll();
     }
 
@@ -128,105 +154,113 @@ class DeliverExecutorGroup implements IDeliverExecutorGroup {
                 }
             }
         } else if (routes.size() > 1) {
-            int maxPFanoutCount = settingProvider.provide(MaxPersistentFanout, tenantId);
-            long maxPFanoutBytes = settingProvider.provide(MaxPersistentFanoutBytes, tenantId);
-            int maxGFanoutCount = settingProvider.provide(MaxGroupFanout, tenantId);
-            boolean inline = routes.size() < inlineFanOutThreshold;
-            boolean hasTransientFanoutBandwidth =
-                resourceThrottler.hasResource(tenantId, TotalTransientFanOutBytesPerSeconds);
-            boolean isTransientFanoutThrottled = false;
-            boolean hasPersistentFanoutBandwidth =
-                resourceThrottler.hasResource(tenantId, TenantResourceType.TotalPersistentFanOutBytesPerSeconds);
-            boolean isPersistentFanoutThrottled = false;
-            boolean isGroupFanoutThrottled = false;
-            // we meter persistent fanout bytes here, since for transient fanout is actually happened in the broker
-            int persistentFanoutCount = 0;
-            long persistentFanoutBytes = 0;
-            int groupFanoutCount = 0;
-            for (Matching matching : routes) {
-                switch (matching.type()) {
-                    case Normal -> {
-                        NormalMatching normalMatching = (NormalMatching) matching;
-                        if (normalMatching.subBrokerId() == 1) {
-                            // persistent fanout
-                            if (persistentFanoutCount < maxPFanoutCount && persistentFanoutBytes < maxPFanoutBytes) {
-                                if (hasPersistentFanoutBandwidth) {
-                                    persistentFanoutCount++;
-                                    persistentFanoutBytes += msgPackSize;
-                                    send(normalMatching, messagePackHolder, inline);
-                                } else {
-                                    if (!isPersistentFanoutThrottled) {
-                                        isPersistentFanoutThrottled = true;
-                                        for (TopicMessagePack.PublisherPack publisherPack : msgPack.getMessageList()) {
-                                            eventCollector.report(getLocal(OutOfTenantResource.class)
-                                                .reason(TotalPersistentFanOutBytesPerSeconds.name())
-                                                .clientInfo(publisherPack.getPublisher())
-                                            );
-                                        }
-                                    }
-                                }
-                            } else {
-                                if (!isPersistentFanoutThrottled) {
-                                    isPersistentFanoutThrottled = true;
-                                    // persistent fanout throttled
-                                    if (persistentFanoutCount >= maxPFanoutCount) {
-                                        eventCollector.report(getLocal(PersistentFanoutThrottled.class)
-                                            .tenantId(tenantId)
-                                            .topic(msgPack.getTopic())
-                                            .maxCount(maxPFanoutCount)
-                                        );
-                                    }
-                                    if (persistentFanoutBytes >= maxPFanoutBytes) {
-                                        eventCollector.report(getLocal(PersistentFanoutBytesThrottled.class)
-                                            .tenantId(tenantId)
-                                            .topic(msgPack.getTopic())
-                                            .maxBytes(maxPFanoutBytes)
-                                        );
-                                    }
-                                }
-                            }
-                        } else {
-                            // transient fanout
-                            if (hasTransientFanoutBandwidth) {
-                                send(normalMatching, messagePackHolder, inline);
-                            } else {
-                                if (!isTransientFanoutThrottled) {
-                                    isTransientFanoutThrottled = true;
-                                    for (TopicMessagePack.PublisherPack publisherPack : msgPack.getMessageList()) {
-                                        eventCollector.report(getLocal(OutOfTenantResource.class)
-                                            .reason(TotalTransientFanOutBytesPerSeconds.name())
-                                            .clientInfo(publisherPack.getPublisher())
-                                        );
-                                    }
-                                }
-                            }
-                        }
-                    }
-                    case Group -> {
-                        if (groupFanoutCount < maxGFanoutCount) {
-                            groupFanoutCount++;
-                            send((GroupMatching) matching, messagePackHolder, inline);
-                        } else {
-                            if (!isGroupFanoutThrottled) {
-                                isGroupFanoutThrottled = true;
-                                // group fanout throttled
-                                eventCollector.report(getLocal(GroupFanoutThrottled.class)
-                                    .tenantId(tenantId)
-                                    .topic(msgPack.getTopic())
-                                    .maxCount(maxGFanoutCount)
-                                );
-                            }
-                        }
+            FanoutBudget budget = new FanoutBudget(tenantId, msgPackSize, routes.size() < inlineFanOutThreshold);
+            FanoutAccounting accounting;
+            if (routes.size() <= fanOutChunkSize) {
+                accounting = fanout(routes, budget, messagePackHolder);
+            } else {
+                // split huge route set into chunks and fan them out in parallel to bound the latency of the publish
+                accounting = fanoutPool.invoke(
+                    new ChunkedFanout(routes.toArray(new Matching[0]), 0, routes.size(), budget, messagePackHolder));
+            }
+            report(accounting, budget, msgPack);
+            ITenantMeter.get(tenantId).recordSummary(MqttPersistentFanOutBytes,
+                (long) accounting.persistentFanoutCount * msgPackSize);
+        }
+    }
+
+    private FanoutAccounting fanout(Iterable<Matching> routes,
+                                    FanoutBudget budget,
+                                    TopicMessagePackHolder messagePackHolder) {
+        FanoutAccounting accounting = new FanoutAccounting();
+        for (Matching matching : routes) {
+            fanout(matching, budget, messagePackHolder, accounting);
+            if (accounting.allThrottled()) {
+                break;
+            }
+        }
+        return accounting;
+    }
+
+    private void fanout(Matching matching,
+                        FanoutBudget budget,
+                        TopicMessagePackHolder messagePackHolder,
+                        FanoutAccounting accounting) {
+        switch (matching.type()) {
+            case Normal -> {
+                NormalMatching normalMatching = (NormalMatching) matching;
+                if (normalMatching.subBrokerId() == 1) {
+                    // persistent fanout
+                    if (!budget.hasPersistentFanoutBandwidth) {
+                        accounting.throttlePersistent(PersistentThrottleReason.Bandwidth);
+                    } else if (budget.tryAcquirePersistentFanout()) {
+                        accounting.persistentFanoutCount++;
+                        send(normalMatching, messagePackHolder, budget.inline);
+                    } else {
+                        accounting.throttlePersistent(PersistentThrottleReason.Limit);
                     }
-                    default -> {
-                        // never happen
+                } else {
+                    // transient fanout
+                    if (budget.hasTransientFanoutBandwidth) {
+                        send(normalMatching, messagePackHolder, budget.inline);
+                    } else {
+                        accounting.isTransientFanoutThrottled = true;
                     }
                 }
-                if (isPersistentFanoutThrottled && isTransientFanoutThrottled && isGroupFanoutThrottled) {
-                    break;
+            }
+            case Group -> {
+                if (budget.tryAcquireGroupFanout()) {
+                    send((GroupMatching) matching, messagePackHolder, budget.inline);
+                } else {
+                    accounting.isGroupFanoutThrottled = true;
                 }
             }
-            ITenantMeter.get(tenantId).recordSummary(MqttPersistentFanOutBytes, persistentFanoutBytes);
+            default -> {
+                // never happen
+            }
+        }
+    }
+
+    private void report(FanoutAccounting accounting, FanoutBudget budget, TopicMessagePack msgPack) {
+        if (accounting.persistentThrottleReason == PersistentThrottleReason.Bandwidth) {
+            for (TopicMessagePack.PublisherPack publisherPack : msgPack.getMessageList()) {
+                eventCollector.report(getLocal(OutOfTenantResource.class)
+                    .reason(TotalPersistentFanOutBytesPerSeconds.name())
+                    .clientInfo(publisherPack.getPublisher())
+                );
+            }
+        } else if (accounting.persistentThrottleReason == PersistentThrottleReason.Limit) {
+            // persistent fanout throttled
+            if (accounting.persistentFanoutCount >= budget.maxPFanoutCount) {
+                eventCollector.report(getLocal(PersistentFanoutThrottled.class)
+                    .tenantId(budget.tenantId)
+                    .topic(msgPack.getTopic())
+                    .maxCount(budget.maxPFanoutCount)
+                );
+            }
+            if ((long) accounting.persistentFanoutCount * budget.msgPackSize >= budget.maxPFanoutBytes) {
+                eventCollector.report(getLocal(PersistentFanoutBytesThrottled.class)
+                    .tenantId(budget.tenantId)
+                    .topic(msgPack.getTopic())
+                    .maxBytes(budget.maxPFanoutBytes)
+                );
+            }
+        }
+        if (accounting.isTransientFanoutThrottled) {
+            for (TopicMessagePack.PublisherPack publisherPack : msgPack.getMessageList()) {
+                eventCollector.report(getLocal(OutOfTenantResource.class)
+                    .reason(TotalTransientFanOutBytesPerSeconds.name())
+                    .clientInfo(publisherPack.getPublisher())
+                );
+            }
+        }
+        if (accounting.isGroupFanoutThrottled) {
+            // group fanout throttled
+            eventCollector.report(getLocal(GroupFanoutThrottled.class)
+                .tenantId(budget.tenantId)
+                .topic(msgPack.getTopic())
+                .maxCount(budget.maxGFanoutCount)
+            );
         }
     }
 
@@ -285,6 +319,122 @@ class DeliverExecutorGroup implements IDeliverExecutorGroup {
         fanoutExecutors[idx].submit(route, msgPackHolder, inline);
     }
 
+    private enum PersistentThrottleReason {
+        Bandwidth, Limit
+    }
+
     private record OrderedSharedMatchingKey(String tenantId, String mqttTopicFilter) {
     }
+
+    /**
+     * The accounting of the fanout done by one chunk of routes.
+     */
+    private static class FanoutAccounting {
+        int persistentFanoutCount;
+        PersistentThrottleReason persistentThrottleReason;
+        boolean isTransientFanoutThrottled;
+        boolean isGroupFanoutThrottled;
+
+        void throttlePersistent(PersistentThrottleReason reason) {
+            if (persistentThrottleReason == null) {
+                persistentThrottleReason = reason;
+            }
+        }
+
+        boolean allThrottled() {
+            return persistentThrottleReason != null && isTransientFanoutThrottled && isGroupFanoutThrottled;
+        }
+
+        FanoutAccounting merge(FanoutAccounting other) {
+            persistentFanoutCount += other.persistentFanoutCount;
+            throttlePersistent(other.persistentThrottleReason);
+            isTransientFanoutThrottled |= other.isTransientFanoutThrottled;
+            isGroupFanoutThrottled |= other.isGroupFanoutThrottled;
+            return this;
+        }
+    }
+
+    /**
+     * The fanout limits of one publish shared by all chunks.
+     */
+    private class FanoutBudget {
+        final String tenantId;
+        final int msgPackSize;
+        final boolean inline;
+        final int maxPFanoutCount;
+        final long maxPFanoutBytes;
+        final int maxGFanoutCount;
+        final boolean hasTransientFanoutBandwidth;
+        final boolean hasPersistentFanoutBandwidth;
+        // we meter persistent fanout bytes here, since for transient fanout is actually happened in the broker
+        private final AtomicInteger persistentFanoutCount = new AtomicInteger();
+        private final AtomicInteger groupFanoutCount = new AtomicInteger();
+
+        FanoutBudget(String tenantId, int msgPackSize, boolean inline) {
+            this.tenantId = tenantId;
+            this.msgPackSize = msgPackSize;
+            this.inline = inline;
+            maxPFanoutCount = settingProvider.provide(MaxPersistentFanout, tenantId);
+            maxPFanoutBytes = settingProvider.provide(MaxPersistentFanoutBytes, tenantId);
+            maxGFanoutCount = settingProvider.provide(MaxGroupFanout, tenantId);
+            hasTransientFanoutBandwidth = resourceThrottler.hasResource(tenantId, TotalTransientFanOutBytesPerSeconds);
+            hasPersistentFanoutBandwidth = resourceThrottler.hasResource(tenantId, TotalPersistentFanOutBytesPerSeconds);
+        }
+
+        boolean tryAcquirePersistentFanout() {
+            // every persistent fanout accounts the same bytes, so one counter is enough for both limits
+            int count = persistentFanoutCount.get();
+            while (count < maxPFanoutCount && (long) count * msgPackSize < maxPFanoutBytes) {
+                if (persistentFanoutCount.compareAndSet(count, count + 1)) {
+                    return true;
+                }
+                count = persistentFanoutCount.get();
+            }
+            return false;
+        }
+
+        boolean tryAcquireGroupFanout() {
+            int count = groupFanoutCount.get();
+            while (count < maxGFanoutCount) {
+                if (groupFanoutCount.compareAndSet(count, count + 1)) {
+                    return true;
+                }
+                count = groupFanoutCount.get();
+            }
+            return false;
+        }
+    }
+
+    private class ChunkedFanout extends RecursiveTask<FanoutAccounting> {
+        private final Matching[] routes;
+        private final int from;
+        private final int to;
+        private final FanoutBudget budget;
+        private final TopicMessagePackHolder messagePackHolder;
+
+        ChunkedFanout(Matching[] routes,
+                      int from,
+                      int to,
+                      FanoutBudget budget,
+                      TopicMessagePackHolder messagePackHolder) {
+            this.routes = routes;
+            this.from = from;
+            this.to = to;
+            this.budget = budget;
+            this.messagePackHolder = messagePackHolder;
+        }
+
+        @Override
+        protected FanoutAccounting compute() {
+            if (to - from <= fanOutChunkSize) {
+                return fanout(Arrays.asList(routes).subList(from, to), budget, messagePackHolder);
+            }
+            int mid = (from + to) >>> 1;
+            ChunkedFanout left = new ChunkedFanout(routes, from, mid, budget, messagePackHolder);
+            ChunkedFanout right = new ChunkedFanout(routes, mid, to, budget, messagePackHolder);
+            left.fork();
+            FanoutAccounting rightAccounting = right.compute();
+            return left.join().merge(rightAccounting);
+        }
+    }
 }
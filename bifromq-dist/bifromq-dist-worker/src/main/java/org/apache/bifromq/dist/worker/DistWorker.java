@@ -71,7 +71,8 @@ class DistWorker implements IDistWorker {
             this.messageDeliverer,
             builder.settingProvider,
             builder.fanoutParallelism,
-            builder.inlineFanoutThreshold);
+            builder.inlineFanoutThreshold,
+            builder.fanoutChunkSize);
         Map<String, IDistWorkerBalancerFactory> loadedFactories = BaseHookLoader.load(IDistWorkerBalancerFactory.class);
         for (String factoryName : builder.balancerFactoryConfig.keySet()) {
             if (!loadedFactories.containsKey(factoryName)) {
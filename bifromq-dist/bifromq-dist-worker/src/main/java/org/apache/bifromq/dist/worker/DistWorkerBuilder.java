@@ -38,6 +38,7 @@ import org.apache.bifromq.plugin.eventcollector.IEventCollector;
 import org.apache.bifromq.plugin.resourcethrottler.IResourceThrottler;
 import org.apache.bifromq.plugin.settingprovider.ISettingProvider;
 import org.apache.bifromq.plugin.subbroker.ISubBrokerManager;
+import org.apache.bifromq.sysprops.props.DistFanOutChunkSize;
 import org.apache.bifromq.sysprops.props.DistFanOutParallelism;
 import org.apache.bifromq.sysprops.props.DistInlineFanOutThreshold;
 
@@ -70,6 +71,7 @@ public class DistWorkerBuilder {
     Map<String, Struct> balancerFactoryConfig = new HashMap<>();
     int fanoutParallelism = DistFanOutParallelism.INSTANCE.get();
     int inlineFanoutThreshold = DistInlineFanOutThreshold.INSTANCE.get();
+    int fanoutChunkSize = DistFanOutChunkSize.INSTANCE.get();
     Map<String, String> attributes = new HashMap<>();
 
     public IDistWorker build() {
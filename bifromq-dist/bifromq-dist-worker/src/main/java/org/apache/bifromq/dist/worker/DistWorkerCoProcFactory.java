@@ -54,6 +54,7 @@ public class DistWorkerCoProcFactory implements IKVRangeCoProcFactory {
     private final ExecutorService matchExecutor;
     private final int fanoutParallelism;
     private final int inlineFanOutThreshold;
+    private final int fanOutChunkSize;
 
     public DistWorkerCoProcFactory(IDistClient distClient,
                                    IEventCollector eventCollector,
@@ -62,13 +63,15 @@ public class DistWorkerCoProcFactory implements IKVRangeCoProcFactory {
                                    IMessageDeliverer messageDeliverer,
                                    ISettingProvider settingProvider,
                                    int fanoutParallelism,
-                                   int inlineFanOutThreshold) {
+                                   int inlineFanOutThreshold,
+                                   int fanOutChunkSize) {
         this.eventCollector = eventCollector;
         this.resourceThrottler = resourceThrottler;
         this.deliverer = messageDeliverer;
         this.settingProvider = settingProvider;
         this.fanoutParallelism = fanoutParallelism;
         this.inlineFanOutThreshold = inlineFanOutThreshold;
+        this.fanOutChunkSize = fanOutChunkSize;
         subscriptionChecker = new SubscriptionCleaner(subBrokerManager, distClient);
 
         matchExecutor = ExecutorServiceMetrics.monitor(Metrics.globalRegistry,
@@ -94,7 +97,8 @@ public class DistWorkerCoProcFactory implements IKVRangeCoProcFactory {
             "clusterId", clusterId, "storeId", storeId, "rangeId", KVRangeIdUtil.toString(id));
 
         IDeliverExecutorGroup deliverExecutorGroup = new DeliverExecutorGroup(
-            deliverer, eventCollector, resourceThrottler, settingProvider, fanoutParallelism, inlineFanOutThreshold);
+            deliverer, eventCollector, resourceThrottler, settingProvider, fanoutParallelism, inlineFanOutThreshold,
+            fanOutChunkSize, "clusterId", clusterId, "storeId", storeId, "rangeId", KVRangeIdUtil.toString(id));
         return new DistWorkerCoProc(
             id, rangeReaderProvider, routeCache, tenantsState, deliverExecutorGroup, subscriptionChecker);
     }
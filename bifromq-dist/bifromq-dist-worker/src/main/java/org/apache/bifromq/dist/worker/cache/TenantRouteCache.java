@@ -32,6 +32,7 @@ import com.github.benmanes.caffeine.cache.Ticker;
 import com.github.benmanes.caffeine.cache.Weigher;
 import java.time.Duration;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -45,6 +46,7 @@ import org.apache.bifromq.basekv.proto.KVRangeId;
 import org.apache.bifromq.basekv.utils.KVRangeIdUtil;
 import org.apache.bifromq.dist.worker.TopicIndex;
 import org.apache.bifromq.dist.worker.cache.task.AddRoutesTask;
+import org.apache.bifromq.dist.worker.cache.task.CacheTaskType;
 import org.apache.bifromq.dist.worker.cache.task.LoadEntryTask;
 import org.apache.bifromq.dist.worker.cache.task.RefreshEntriesTask;
 import org.apache.bifromq.dist.worker.cache.task.ReloadEntryTask;
@@ -105,13 +107,17 @@ class TenantRouteCache implements ITenantRouteCache {
             .weigher(new Weigher<RouteCacheKey, IMatchedRoutes>() {
                 @Override
                 public @NonNegative int weigh(RouteCacheKey key, IMatchedRoutes value) {
-                    return Math.max(1, value.routes().size());
+                    return TenantRouteCache.weigh(value);
                 }
             })
             .expireAfterAccess(expiryAfterAccess)
             .refreshAfterWrite(fanoutCheckInterval)
-            .removalListener(
-                (RouteCacheKey key, IMatchedRoutes value, RemovalCause cause) -> index.remove(key.topic, key))
+            .removalListener((RouteCacheKey key, IMatchedRoutes value, RemovalCause cause) -> {
+                // the entry is still cached when its value is replaced by refreshing or reweighing
+                if (cause != RemovalCause.REPLACED) {
+                    index.remove(key.topic, key);
+                }
+            })
             .recordStats()
             .buildAsync(new AsyncCacheLoader<>() {
                 @Override
@@ -172,6 +178,8 @@ class TenantRouteCache implements ITenantRouteCache {
     private void runTaskLoop() {
         TenantRouteCacheTask task;
         List<CompletableFuture<Void>> loadFutures = new ArrayList<>(tasks.size());
+        // the weights of patched entries before patching
+        Map<RouteCacheKey, Integer> patchedWeights = new HashMap<>();
         int maxPersistentFanouts = settingProvider.provide(MaxPersistentFanout, tenantId);
         int maxGroupFanouts = settingProvider.provide(MaxGroupFanout, tenantId);
         outer:
@@ -209,76 +217,11 @@ class TenantRouteCache implements ITenantRouteCache {
                     if (!loadFutures.isEmpty()) {
                         tasks.addFirst(task);
                         break outer;
+                    }
+                    if (task.type() == CacheTaskType.AddRoutes) {
+                        addRoutes((AddRoutesTask) task, patchedWeights);
                     } else {
-                        switch (task.type()) {
-                            case AddRoutes -> {
-                                AddRoutesTask addTask = (AddRoutesTask) task;
-                                for (RouteMatcher topicFilter : addTask.routes.keySet()) {
-                                    Set<Matching> newMatchings = addTask.routes.get(topicFilter);
-                                    List<String> filterLevels = topicFilter.getFilterLevelList();
-                                    Set<RouteCacheKey> keys = index.match(filterLevels);
-                                    switch (topicFilter.getType()) {
-                                        case Normal -> {
-                                            for (RouteCacheKey cacheKey : keys) {
-                                                for (Matching matching : newMatchings) {
-                                                    cacheKey.cachedMatchedRoutes.get()
-                                                        .addNormalMatching((NormalMatching) matching);
-                                                }
-                                            }
-                                        }
-                                        case OrderedShare, UnorderedShare -> {
-                                            for (RouteCacheKey cacheKey : keys) {
-                                                for (Matching matching : newMatchings) {
-                                                    cacheKey.cachedMatchedRoutes.get()
-                                                        .putGroupMatching((GroupMatching) matching);
-                                                }
-                                            }
-                                        }
-                                        default -> {
-                                            // do nothing
-                                        }
-                                    }
-                                }
-                            }
-                            case RemoveRoutes -> {
-                                RemoveRoutesTask removeTask = (RemoveRoutesTask) task;
-                                for (RouteMatcher topicFilter : removeTask.routes.keySet()) {
-                                    Set<Matching> removedMatchings = removeTask.routes.get(topicFilter);
-                                    List<String> filterLevels = topicFilter.getFilterLevelList();
-                                    Set<RouteCacheKey> keys = index.match(filterLevels);
-                                    switch (topicFilter.getType()) {
-                                        case Normal -> {
-                                            for (RouteCacheKey cacheKey : keys) {
-                                                for (Matching matching : removedMatchings) {
-                                                    cacheKey.cachedMatchedRoutes.get()
-                                                        .removeNormalMatching((NormalMatching) matching);
-                                                }
-                                            }
-                                        }
-                                        case OrderedShare, UnorderedShare -> {
-                                            for (RouteCacheKey cacheKey : keys) {
-                                                for (Matching matching : removedMatchings) {
-                                                    GroupMatching groupMatching = (GroupMatching) matching;
-                                                    if (groupMatching.receivers().isEmpty()) {
-                                                        cacheKey.cachedMatchedRoutes.get()
-                                                            .removeGroupMatching(groupMatching);
-                                                    } else {
-                                                        cacheKey.cachedMatchedRoutes.get()
-                                                            .putGroupMatching(groupMatching);
-                                                    }
-                                                }
-                                            }
-                                        }
-                                        default -> {
-                                            // do nothing
-                                        }
-                                    }
-                                }
-                            }
-                            default -> {
-                                // do nothing
-                            }
-                        }
+                        removeRoutes((RemoveRoutesTask) task, patchedWeights);
                     }
                 }
                 default -> {
@@ -286,6 +229,7 @@ class TenantRouteCache implements ITenantRouteCache {
                 }
             }
         }
+        reweigh(patchedWeights);
         CompletableFuture.allOf(loadFutures.toArray(new CompletableFuture[0]))
             .whenComplete((v, e) -> {
                 taskRunning.set(false);
@@ -295,6 +239,79 @@ class TenantRouteCache implements ITenantRouteCache {
             });
     }
 
+    private void addRoutes(AddRoutesTask task, Map<RouteCacheKey, Integer> patchedWeights) {
+        for (RouteMatcher topicFilter : task.routes.keySet()) {
+            Set<Matching> newMatchings = task.routes.get(topicFilter);
+            for (RouteCacheKey cacheKey : index.match(topicFilter.getFilterLevelList())) {
+                IMatchedRoutes matchedRoutes = cacheKey.cachedMatchedRoutes.get();
+                patchedWeights.putIfAbsent(cacheKey, weigh(matchedRoutes));
+                switch (topicFilter.getType()) {
+                    case Normal -> {
+                        for (Matching matching : newMatchings) {
+                            matchedRoutes.addNormalMatching((NormalMatching) matching);
+                        }
+                    }
+                    case OrderedShare, UnorderedShare -> {
+                        for (Matching matching : newMatchings) {
+                            matchedRoutes.putGroupMatching((GroupMatching) matching);
+                        }
+                    }
+                    default -> {
+                        // do nothing
+                    }
+                }
+            }
+        }
+    }
+
+    private void removeRoutes(RemoveRoutesTask task, Map<RouteCacheKey, Integer> patchedWeights) {
+        for (RouteMatcher topicFilter : task.routes.keySet()) {
+            Set<Matching> removedMatchings = task.routes.get(topicFilter);
+            for (RouteCacheKey cacheKey : index.match(topicFilter.getFilterLevelList())) {
+                IMatchedRoutes matchedRoutes = cacheKey.cachedMatchedRoutes.get();
+                patchedWeights.putIfAbsent(cacheKey, weigh(matchedRoutes));
+                switch (topicFilter.getType()) {
+                    case Normal -> {
+                        for (Matching matching : removedMatchings) {
+                            matchedRoutes.removeNormalMatching((NormalMatching) matching);
+                        }
+                    }
+                    case OrderedShare, UnorderedShare -> {
+                        for (Matching matching : removedMatchings) {
+                            GroupMatching groupMatching = (GroupMatching) matching;
+                            if (groupMatching.receivers().isEmpty()) {
+                                matchedRoutes.removeGroupMatching(groupMatching);
+                            } else {
+                                matchedRoutes.putGroupMatching(groupMatching);
+                            }
+                        }
+                    }
+                    default -> {
+                        // do nothing
+                    }
+                }
+            }
+        }
+    }
+
+    private void reweigh(Map<RouteCacheKey, Integer> patchedWeights) {
+        // caffeine only weighs an entry when it's written, so write back the patched entries whose weight changed
+        long maxCachedRoutes = DistMaxCachedRoutesPerTenant.INSTANCE.get();
+        patchedWeights.forEach((cacheKey, prevWeight) -> {
+            int weight = weigh(cacheKey.cachedMatchedRoutes.get());
+            if (weight > maxCachedRoutes) {
+                // fallback to load from KV on next access instead of keeping an oversize entry
+                routesCache.synchronous().invalidate(cacheKey);
+            } else if (weight != prevWeight) {
+                routesCache.synchronous().asMap().computeIfPresent(cacheKey, (k, v) -> v);
+            }
+        });
+    }
+
+    private static int weigh(IMatchedRoutes matchedRoutes) {
+        return Math.max(1, matchedRoutes.routes().size());
+    }
+
     @Override
     public CompletableFuture<Set<Matching>> getMatch(String topic, Boundary currentTenantRange) {
         return routesCache.get(new RouteCacheKey(topic, currentTenantRange)).thenApply(IMatchedRoutes::routes);
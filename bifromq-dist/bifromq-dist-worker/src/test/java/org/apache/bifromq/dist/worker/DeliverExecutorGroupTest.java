@@ -0,0 +1,190 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.bifromq.dist.worker;
+
+import static org.apache.bifromq.dist.worker.schema.cache.Matchings.normalMatching;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.bifromq.deliverer.DeliveryCall;
+import org.apache.bifromq.deliverer.DeliveryCallResult;
+import org.apache.bifromq.deliverer.IMessageDeliverer;
+import org.apache.bifromq.deliverer.TopicMessagePackHolder;
+import org.apache.bifromq.dist.worker.schema.cache.Matching;
+import org.apache.bifromq.plugin.eventcollector.IEventCollector;
+import org.apache.bifromq.plugin.eventcollector.distservice.PersistentFanoutThrottled;
+import org.apache.bifromq.plugin.resourcethrottler.IResourceThrottler;
+import org.apache.bifromq.plugin.settingprovider.ISettingProvider;
+import org.apache.bifromq.plugin.settingprovider.Setting;
+import org.apache.bifromq.type.TopicMessagePack;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class DeliverExecutorGroupTest {
+    private static final String TENANT_ID = "tenant";
+    @Mock
+    private IMessageDeliverer deliverer;
+    @Mock
+    private IEventCollector eventCollector;
+    @Mock
+    private IResourceThrottler resourceThrottler;
+    @Mock
+    private ISettingProvider settingProvider;
+    private SimpleMeterRegistry meterRegistry;
+    private AutoCloseable closeable;
+
+    @BeforeMethod
+    public void setup() {
+        closeable = MockitoAnnotations.openMocks(this);
+        meterRegistry = new SimpleMeterRegistry();
+        Metrics.globalRegistry.add(meterRegistry);
+        when(resourceThrottler.hasResource(anyString(), any())).thenReturn(true);
+        when(settingProvider.provide(eq(Setting.MaxPersistentFanout), anyString())).thenReturn(Integer.MAX_VALUE);
+        when(settingProvider.provide(eq(Setting.MaxPersistentFanoutBytes), anyString())).thenReturn(Long.MAX_VALUE);
+        when(settingProvider.provide(eq(Setting.MaxGroupFanout), anyString())).thenReturn(Integer.MAX_VALUE);
+    }
+
+    @AfterMethod
+    public void tearDown() throws Exception {
+        Metrics.globalRegistry.remove(meterRegistry);
+        closeable.close();
+    }
+
+    @Test
+    public void keepOrderPerRoute() {
+        keepOrderPerRoute(10000);
+    }
+
+    @Test
+    public void keepOrderPerRouteInChunkedFanout() {
+        keepOrderPerRoute(8);
+    }
+
+    private void keepOrderPerRoute(int chunkSize) {
+        Map<String, List<String>> receivedByReceiver = new ConcurrentHashMap<>();
+        AtomicInteger received = new AtomicInteger();
+        when(deliverer.schedule(any())).thenAnswer(invocation -> {
+            DeliveryCall call = invocation.getArgument(0);
+            receivedByReceiver.computeIfAbsent(call.matchInfo.getReceiverId(), k -> new ArrayList<>())
+                .add(call.messagePackHolder.messagePack.getTopic());
+            received.incrementAndGet();
+            return CompletableFuture.completedFuture(DeliveryCallResult.OK);
+        });
+        DeliverExecutorGroup group = new DeliverExecutorGroup(deliverer, eventCollector, resourceThrottler,
+            settingProvider, 4, 1, chunkSize, "rangeId", "testRange");
+        int routeCount = 64;
+        int msgCount = 100;
+        Set<Matching> routes = new HashSet<>();
+        for (int i = 0; i < routeCount; i++) {
+            routes.add(normalMatching(TENANT_ID, "a/b", 0, "receiver" + i, "deliverer" + i, 1));
+        }
+        for (int i = 0; i < msgCount; i++) {
+            group.submit(TENANT_ID, routes, TopicMessagePack.newBuilder().setTopic(Integer.toString(i)).build());
+        }
+        await().until(() -> received.get() == routeCount * msgCount);
+        assertEquals(receivedByReceiver.size(), routeCount);
+        receivedByReceiver.forEach((receiverId, topics) -> {
+            for (int i = 0; i < msgCount; i++) {
+                assertEquals(topics.get(i), Integer.toString(i));
+            }
+        });
+        group.shutdown();
+    }
+
+    @Test
+    public void persistentFanoutLimitInChunkedFanout() {
+        int maxPersistentFanout = 10;
+        when(settingProvider.provide(eq(Setting.MaxPersistentFanout), anyString())).thenReturn(maxPersistentFanout);
+        AtomicInteger received = new AtomicInteger();
+        when(deliverer.schedule(any())).thenAnswer(invocation -> {
+            received.incrementAndGet();
+            return CompletableFuture.completedFuture(DeliveryCallResult.OK);
+        });
+        DeliverExecutorGroup group = new DeliverExecutorGroup(deliverer, eventCollector, resourceThrottler,
+            settingProvider, 4, 1, 4, "rangeId", "testRange");
+        Set<Matching> routes = new HashSet<>();
+        for (int i = 0; i < 100; i++) {
+            routes.add(normalMatching(TENANT_ID, "a/b", 1, "inbox" + i, "deliverer" + i, 1));
+        }
+        group.submit(TENANT_ID, routes, TopicMessagePack.newBuilder().setTopic("a/b").build());
+        await().until(() -> received.get() == maxPersistentFanout);
+        verify(eventCollector, times(1)).report(argThat(e -> e instanceof PersistentFanoutThrottled));
+        group.shutdown();
+        assertEquals(received.get(), maxPersistentFanout);
+    }
+
+    @Test
+    public void shardMetrics() {
+        DeliverExecutorGroup group = new DeliverExecutorGroup(deliverer, eventCollector, resourceThrottler,
+            settingProvider, 2, 1, 10000, "rangeId", "testRange");
+        assertEquals(meterRegistry.find("dist.fanout.shard.queued").tag("rangeId", "testRange").gauges().size(), 8);
+        assertEquals(meterRegistry.find("dist.fanout.shard.steals").tag("rangeId", "testRange").counters().size(),
+            8);
+        group.shutdown();
+        assertTrue(meterRegistry.find("dist.fanout.shard.queued").tag("rangeId", "testRange").gauges().isEmpty());
+        assertTrue(meterRegistry.find("dist.fanout.shard.steals").tag("rangeId", "testRange").counters().isEmpty());
+    }
+
+    @Test
+    public void noStealForExternalSubmission() {
+        AtomicInteger received = new AtomicInteger();
+        when(deliverer.schedule(any())).thenAnswer(invocation -> {
+            received.incrementAndGet();
+            return CompletableFuture.completedFuture(DeliveryCallResult.OK);
+        });
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        DeliverExecutor shard = new DeliverExecutor(0, deliverer, eventCollector, executor, "rangeId", "testRange");
+        TopicMessagePackHolder msgPackHolder = TopicMessagePackHolder.hold(TopicMessagePack.newBuilder()
+            .setTopic("a/b")
+            .build());
+        for (int i = 0; i < 100; i++) {
+            int expected = i + 1;
+            shard.submit(normalMatching(TENANT_ID, "a/b", 1, "inbox" + i, "deliverer" + i, 1), msgPackHolder, false);
+            // drains hop between threads of the plain executor, none of them is a steal
+            await().until(() -> received.get() == expected);
+        }
+        assertEquals(meterRegistry.find("dist.fanout.shard.steals").tag("rangeId", "testRange").counter().count(), 0D);
+        shard.shutdown();
+        executor.shutdown();
+    }
+}
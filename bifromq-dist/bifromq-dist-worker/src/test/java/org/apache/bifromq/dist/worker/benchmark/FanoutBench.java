@@ -0,0 +1,128 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.bifromq.dist.worker.benchmark;
+
+import static org.apache.bifromq.dist.worker.schema.cache.Matchings.normalMatching;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import org.apache.bifromq.deliverer.DeliveryCall;
+import org.apache.bifromq.deliverer.DeliveryCallResult;
+import org.apache.bifromq.deliverer.IMessageDeliverer;
+import org.apache.bifromq.dist.worker.DeliverExecutorGroup;
+import org.apache.bifromq.dist.worker.schema.cache.Matching;
+import org.apache.bifromq.plugin.eventcollector.IEventCollector;
+import org.apache.bifromq.plugin.resourcethrottler.IResourceThrottler;
+import org.apache.bifromq.plugin.settingprovider.ISettingProvider;
+import org.apache.bifromq.plugin.settingprovider.Setting;
+import org.apache.bifromq.type.TopicMessagePack;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class FanoutBench {
+    private static final String TENANT_ID = "tenant";
+
+    @Param({"1000000"})
+    int routeCount;
+
+    // chunk size no less than route count means sequential fanout
+    @Param({"1000000", "10000"})
+    int chunkSize;
+
+    @Param({"4"})
+    int fanoutParallelism;
+
+    DeliverExecutorGroup executorGroup;
+    Set<Matching> routes;
+    TopicMessagePack msgPack;
+
+    public static void main(String[] args) throws Exception {
+        Options opt = new OptionsBuilder()
+            .include(FanoutBench.class.getSimpleName())
+            .warmupIterations(3)
+            .measurementIterations(5)
+            .jvmArgs("-Xmx4g")
+            .forks(1)
+            .shouldDoGC(true)
+            .build();
+        new Runner(opt).run();
+    }
+
+    @Setup(Level.Trial)
+    public void setup() {
+        IMessageDeliverer deliverer = new IMessageDeliverer() {
+            @Override
+            public CompletableFuture<DeliveryCallResult> schedule(DeliveryCall call) {
+                return CompletableFuture.completedFuture(DeliveryCallResult.OK);
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        ISettingProvider settingProvider = mock(ISettingProvider.class);
+        when(settingProvider.provide(eq(Setting.MaxPersistentFanout), anyString())).thenReturn(Integer.MAX_VALUE);
+        when(settingProvider.provide(eq(Setting.MaxPersistentFanoutBytes), anyString())).thenReturn(Long.MAX_VALUE);
+        when(settingProvider.provide(eq(Setting.MaxGroupFanout), anyString())).thenReturn(Integer.MAX_VALUE);
+        IResourceThrottler resourceThrottler = mock(IResourceThrottler.class);
+        when(resourceThrottler.hasResource(anyString(), any())).thenReturn(true);
+        IEventCollector eventCollector = event -> {
+        };
+        executorGroup = new DeliverExecutorGroup(deliverer, eventCollector, resourceThrottler, settingProvider,
+            fanoutParallelism, 1000, chunkSize);
+        routes = new HashSet<>(routeCount);
+        for (int i = 0; i < routeCount; i++) {
+            // mix transient and persistent subscribers
+            routes.add(normalMatching(TENANT_ID, "$iot/+/user/up", i % 2, "receiver" + i, "deliverer" + (i % 1000), 1));
+        }
+        msgPack = TopicMessagePack.newBuilder().setTopic("$iot/dev1/user/up").build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        executorGroup.shutdown();
+    }
+
+    @Benchmark
+    public void fanout() {
+        executorGroup.submit(TENANT_ID, routes, msgPack);
+    }
+}
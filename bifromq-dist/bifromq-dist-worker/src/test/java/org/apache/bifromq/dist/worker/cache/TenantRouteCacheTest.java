@@ -39,6 +39,7 @@ import static org.testng.Assert.assertTrue;
 import com.github.benmanes.caffeine.cache.AsyncLoadingCache;
 import com.github.benmanes.caffeine.cache.Ticker;
 import java.time.Duration;
+import java.util.HashSet;
 import java.util.Map;
 import java.util.NavigableMap;
 import java.util.Set;
@@ -253,6 +254,101 @@ public class TenantRouteCacheTest extends MeterTest {
         });
     }
 
+    @Test
+    public void shouldKeepPatchingAfterRefresh() {
+        NormalMatching existing = normalMatching(TENANT_ID, TOPIC, 1, "receiverA", "delivererA", 1);
+        IMatchedRoutes matchedRoutes = mockRoutesWithBackingSet(10, 5, Set.of(existing));
+
+        when(settingProvider.provide(eq(Setting.MaxPersistentFanout), eq(TENANT_ID))).thenReturn(10);
+        when(settingProvider.provide(eq(Setting.MaxGroupFanout), eq(TENANT_ID))).thenReturn(5);
+        when(matcher.matchAll(eq(Set.of(TOPIC)), eq(10), eq(5))).thenReturn(Map.of(TOPIC, matchedRoutes));
+
+        TenantRouteCache cache = newCache(directExecutor());
+        cache.getMatch(TOPIC, FULL_BOUNDARY).join();
+
+        // refresh without reloading replaces the cached value, the entry should stay indexed
+        ticker.advance(FANOUT_CHECK.plusMillis(1));
+        cache.getMatch(TOPIC, FULL_BOUNDARY).join();
+        assertTrue(cache.isCached(TopicUtil.from(TOPIC).getFilterLevelList()));
+
+        NormalMatching newNormal = normalMatching(TENANT_ID, TOPIC, 1, "receiverB", "delivererB", 2);
+        NavigableMap<RouteMatcher, Set<Matching>> additions = new TreeMap<>(Comparators.RouteMatcherComparator);
+        additions.put(newNormal.matcher, Set.of(newNormal));
+        cache.refresh(AddRoutesTask.of(additions));
+
+        assertTrue(cache.getMatch(TOPIC, FULL_BOUNDARY).join().contains(newNormal));
+        verify(matcher, times(1)).matchAll(any(), anyInt(), anyInt());
+    }
+
+    @Test
+    public void shouldReweighPatchedEntries() throws Exception {
+        NormalMatching existing = normalMatching(TENANT_ID, TOPIC, 1, "receiverA", "delivererA", 1);
+        IMatchedRoutes matchedRoutes = mockRoutesWithBackingSet(10, 5, Set.of(existing));
+
+        when(settingProvider.provide(eq(Setting.MaxPersistentFanout), eq(TENANT_ID))).thenReturn(10);
+        when(settingProvider.provide(eq(Setting.MaxGroupFanout), eq(TENANT_ID))).thenReturn(5);
+        when(matcher.matchAll(eq(Set.of(TOPIC)), eq(10), eq(5))).thenReturn(Map.of(TOPIC, matchedRoutes));
+
+        TenantRouteCache cache = newCache(directExecutor());
+        cache.getMatch(TOPIC, FULL_BOUNDARY).join();
+
+        Set<Matching> newMatchings = new HashSet<>();
+        for (int i = 0; i < 5; i++) {
+            newMatchings.add(normalMatching(TENANT_ID, TOPIC, 0, "receiver" + i, "deliverer" + i, 1));
+        }
+        NavigableMap<RouteMatcher, Set<Matching>> additions = new TreeMap<>(Comparators.RouteMatcherComparator);
+        additions.put(TopicUtil.from(TOPIC), newMatchings);
+        cache.refresh(AddRoutesTask.of(additions));
+
+        var routesCacheField = TenantRouteCache.class.getDeclaredField("routesCache");
+        routesCacheField.setAccessible(true);
+        @SuppressWarnings("unchecked")
+        AsyncLoadingCache<RouteCacheKey, IMatchedRoutes> routesCache = (AsyncLoadingCache<RouteCacheKey, IMatchedRoutes>)
+            routesCacheField.get(cache);
+        assertEquals(routesCache.synchronous().policy().eviction().get().weightedSize().getAsLong(), 6);
+        assertTrue(cache.isCached(TopicUtil.from(TOPIC).getFilterLevelList()));
+        verify(matcher, times(1)).matchAll(any(), anyInt(), anyInt());
+    }
+
+    @Test
+    public void shouldInvalidatePatchedEntryExceedingMaxCachedRoutes() {
+        String propKey = org.apache.bifromq.sysprops.props.DistMaxCachedRoutesPerTenant.INSTANCE.propKey();
+        String original = System.getProperty(propKey);
+        try {
+            System.setProperty(propKey, String.valueOf(3));
+            org.apache.bifromq.sysprops.props.DistMaxCachedRoutesPerTenant.INSTANCE.resolve();
+            NormalMatching existing = normalMatching(TENANT_ID, TOPIC, 1, "receiverA", "delivererA", 1);
+            IMatchedRoutes matchedRoutes = mockRoutesWithBackingSet(10, 5, Set.of(existing));
+
+            when(settingProvider.provide(eq(Setting.MaxPersistentFanout), eq(TENANT_ID))).thenReturn(10);
+            when(settingProvider.provide(eq(Setting.MaxGroupFanout), eq(TENANT_ID))).thenReturn(5);
+            when(matcher.matchAll(eq(Set.of(TOPIC)), eq(10), eq(5))).thenReturn(Map.of(TOPIC, matchedRoutes));
+
+            TenantRouteCache cache = newCache(directExecutor());
+            cache.getMatch(TOPIC, FULL_BOUNDARY).join();
+
+            Set<Matching> newMatchings = new HashSet<>();
+            for (int i = 0; i < 5; i++) {
+                newMatchings.add(normalMatching(TENANT_ID, TOPIC, 0, "receiver" + i, "deliverer" + i, 1));
+            }
+            NavigableMap<RouteMatcher, Set<Matching>> additions = new TreeMap<>(Comparators.RouteMatcherComparator);
+            additions.put(TopicUtil.from(TOPIC), newMatchings);
+            cache.refresh(AddRoutesTask.of(additions));
+
+            // the oversize entry is dropped, and will be loaded from KV on next access
+            assertFalse(cache.isCached(TopicUtil.from(TOPIC).getFilterLevelList()));
+            cache.getMatch(TOPIC, FULL_BOUNDARY).join();
+            verify(matcher, times(2)).matchAll(any(), anyInt(), anyInt());
+        } finally {
+            if (original == null) {
+                System.clearProperty(propKey);
+            } else {
+                System.setProperty(propKey, original);
+            }
+            org.apache.bifromq.sysprops.props.DistMaxCachedRoutesPerTenant.INSTANCE.resolve();
+        }
+    }
+
     @Test
     public void shouldQueueTasksUntilLoadCompletes() throws Exception {
         executorToShutdown = Executors.newSingleThreadExecutor();
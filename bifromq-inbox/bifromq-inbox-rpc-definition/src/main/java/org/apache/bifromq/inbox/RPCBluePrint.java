@@ -21,7 +21,9 @@ package org.apache.bifromq.inbox;
 
 import static org.apache.bifromq.inbox.util.InboxServiceUtil.getDelivererKey;
 
+import io.grpc.MethodDescriptor;
 import org.apache.bifromq.baserpc.BluePrint;
+import org.apache.bifromq.baserpc.marshaller.OnWireTransformMarshaller;
 import org.apache.bifromq.inbox.rpc.proto.AttachRequest;
 import org.apache.bifromq.inbox.rpc.proto.CommitRequest;
 import org.apache.bifromq.inbox.rpc.proto.DeleteRequest;
@@ -30,16 +32,20 @@ import org.apache.bifromq.inbox.rpc.proto.ExistRequest;
 import org.apache.bifromq.inbox.rpc.proto.InboxServiceGrpc;
 import org.apache.bifromq.inbox.rpc.proto.InboxStateRequest;
 import org.apache.bifromq.inbox.rpc.proto.SendLWTRequest;
+import org.apache.bifromq.inbox.rpc.proto.SendRequest;
 import org.apache.bifromq.inbox.rpc.proto.SubRequest;
 import org.apache.bifromq.inbox.rpc.proto.UnsubRequest;
 import org.apache.bifromq.plugin.subbroker.CheckRequest;
+import org.apache.bifromq.plugin.subbroker.MessagePackSplicer;
+import org.apache.bifromq.sysprops.props.DeliverySpliceMessagePack;
 
 public class RPCBluePrint {
     public static final BluePrint INSTANCE = BluePrint.builder()
         .serviceDescriptor(InboxServiceGrpc.getServiceDescriptor())
         // inbox related rpc must be routed using WCH mode
         // broker client rpc
-        .methodSemantic(InboxServiceGrpc.getReceiveMethod(), BluePrint.WCHPipelineUnaryMethod.getInstance())
+        .methodSemantic(InboxServiceGrpc.getReceiveMethod(), BluePrint.WCHPipelineUnaryMethod.getInstance(),
+            receiveRequestMarshaller())
         .methodSemantic(InboxServiceGrpc.getFetchMethod(), BluePrint.WCHStreamingMethod.getInstance())
         .methodSemantic(InboxServiceGrpc.getCheckSubscriptionsMethod(), BluePrint.WCHUnaryMethod.<CheckRequest>builder()
             .keyHashFunc(CheckRequest::getDelivererKey).build())
@@ -68,4 +74,14 @@ public class RPCBluePrint {
         // expire all
         .methodSemantic(InboxServiceGrpc.getExpireAllMethod(), BluePrint.WRUnaryMethod.getInstance())
         .build();
+
+    private static MethodDescriptor.Marshaller<SendRequest> receiveRequestMarshaller() {
+        MethodDescriptor.Marshaller<SendRequest> marshaller =
+            InboxServiceGrpc.getReceiveMethod().getRequestMarshaller();
+        if (!DeliverySpliceMessagePack.INSTANCE.get()) {
+            return marshaller;
+        }
+        return new OnWireTransformMarshaller<>(marshaller,
+            req -> req.toBuilder().setRequest(MessagePackSplicer.splice(req.getRequest())).build());
+    }
 }
@@ -19,20 +19,71 @@
 
 package org.apache.bifromq.inbox.server;
 
+import static java.util.Collections.emptySet;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import org.apache.bifromq.inbox.record.TenantInboxInstance;
+import org.apache.bifromq.inbox.storage.proto.InsertResult;
 
-public class FetcherSignaler implements InboxWriterPipeline.IWriteCallback {
+public class FetcherSignaler implements InboxWriterPipeline.IWriteCallback, InboxWriter.IWriteThrough {
     private final IInboxFetcherRegistry registry;
+    // the inboxes whose fetchers have been notified by write through, keyed by the sequence of the ongoing write
+    private final Map<Long, Set<TenantInboxInstance>> writtenThrough = new ConcurrentHashMap<>();
 
     public FetcherSignaler(IInboxFetcherRegistry registry) {
         this.registry = registry;
     }
 
     @Override
-    public void afterWrite(TenantInboxInstance tenantInboxInstance, String delivererKey, long now) {
-        for (IInboxFetcher fetcher : registry.get(tenantInboxInstance.tenantId(), delivererKey)) {
-            if (fetcher.signalFetch(tenantInboxInstance.instance().inboxId(),
-                tenantInboxInstance.instance().incarnation(), now)) {
+    public void afterWrite(Collection<TenantInboxInstance> tenantInboxInstances, String delivererKey, long now) {
+        // look up the fetchers once per tenant, the signaled fetches are submitted in one go to share fetch batches
+        Map<String, List<TenantInboxInstance>> inboxInstancesByTenant = new HashMap<>();
+        for (TenantInboxInstance tenantInboxInstance : tenantInboxInstances) {
+            inboxInstancesByTenant.computeIfAbsent(tenantInboxInstance.tenantId(), k -> new ArrayList<>())
+                .add(tenantInboxInstance);
+        }
+        inboxInstancesByTenant.forEach((tenantId, inboxInstances) -> {
+            Collection<IInboxFetcher> fetchers = registry.get(tenantId, delivererKey);
+            if (fetchers.isEmpty()) {
+                return;
+            }
+            for (TenantInboxInstance tenantInboxInstance : inboxInstances) {
+                for (IInboxFetcher fetcher : fetchers) {
+                    if (fetcher.signalFetch(tenantInboxInstance.instance().inboxId(),
+                        tenantInboxInstance.instance().incarnation(), now)) {
+                        break;
+                    }
+                }
+            }
+        });
+    }
+
+    @Override
+    public Set<TenantInboxInstance> writtenThrough(long writeSeq) {
+        Set<TenantInboxInstance> inboxInstances = writtenThrough.remove(writeSeq);
+        return inboxInstances == null ? emptySet() : inboxInstances;
+    }
+
+    @Override
+    public boolean attached(TenantInboxInstance tenantInboxInstance) {
+        return !registry.get(tenantInboxInstance).isEmpty();
+    }
+
+    @Override
+    public void inserted(long writeSeq, TenantInboxInstance tenantInboxInstance, InsertResult result) {
+        long now = System.nanoTime();
+        for (IInboxFetcher fetcher : registry.get(tenantInboxInstance)) {
+            if (fetcher.writeThrough(tenantInboxInstance.instance().inboxId(),
+                tenantInboxInstance.instance().incarnation(),
+                result.getQos0MsgList(),
+                result.getSendBufferMsgList(), now)) {
+                writtenThrough.computeIfAbsent(writeSeq, k -> ConcurrentHashMap.newKeySet()).add(tenantInboxInstance);
                 break;
             }
         }
@@ -19,6 +19,9 @@
 
 package org.apache.bifromq.inbox.server;
 
+import java.util.List;
+import org.apache.bifromq.inbox.storage.proto.InboxMessage;
+
 public interface IInboxFetcher {
     String id();
 
@@ -28,5 +31,24 @@ public interface IInboxFetcher {
 
     boolean signalFetch(String inboxId, long incarnation, long now);
 
+    boolean hasFetchSession(String inboxId, long incarnation);
+
+    /**
+     * Push the messages just inserted into the inbox to its fetch sessions, the session which could not take them
+     * in order falls back to fetch from store.
+     *
+     * @param inboxId        the inbox id
+     * @param incarnation    the incarnation of the inbox
+     * @param qos0Msgs       the inserted qos0 messages
+     * @param sendBufferMsgs the inserted buffered messages
+     * @param now            the signal time
+     * @return true if the inbox has fetch session in this fetcher
+     */
+    boolean writeThrough(String inboxId,
+                         long incarnation,
+                         List<InboxMessage> qos0Msgs,
+                         List<InboxMessage> sendBufferMsgs,
+                         long now);
+
     void close();
 }
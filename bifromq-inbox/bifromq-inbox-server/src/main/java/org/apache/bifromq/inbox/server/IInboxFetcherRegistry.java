@@ -20,6 +20,7 @@
 package org.apache.bifromq.inbox.server;
 
 import java.util.Collection;
+import org.apache.bifromq.inbox.record.TenantInboxInstance;
 
 public interface IInboxFetcherRegistry extends Iterable<IInboxFetcher> {
     void reg(IInboxFetcher fetcher);
@@ -27,4 +28,22 @@ public interface IInboxFetcherRegistry extends Iterable<IInboxFetcher> {
     void unreg(IInboxFetcher fetcher);
 
     Collection<IInboxFetcher> get(String tenantId, String delivererKey);
+
+    /**
+     * Index the fetcher under the inbox instance it has fetch session for.
+     *
+     * @param fetcher             the fetcher
+     * @param tenantInboxInstance the inbox instance
+     */
+    void attach(IInboxFetcher fetcher, TenantInboxInstance tenantInboxInstance);
+
+    /**
+     * Remove the fetcher from the index of the inbox instance once it has no fetch session for it.
+     *
+     * @param fetcher             the fetcher
+     * @param tenantInboxInstance the inbox instance
+     */
+    void detach(IInboxFetcher fetcher, TenantInboxInstance tenantInboxInstance);
+
+    Collection<IInboxFetcher> get(TenantInboxInstance tenantInboxInstance);
 }
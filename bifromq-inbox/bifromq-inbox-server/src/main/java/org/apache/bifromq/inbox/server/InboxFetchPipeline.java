@@ -26,6 +26,7 @@ import static org.apache.bifromq.inbox.util.PipelineUtil.PIPELINE_ATTR_KEY_ID;
 import io.grpc.stub.StreamObserver;
 import io.reactivex.rxjava3.disposables.Disposable;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
@@ -33,16 +34,20 @@ import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 import lombok.ToString;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.bifromq.baserpc.server.AckStream;
 import org.apache.bifromq.basescheduler.exception.BackPressureException;
 import org.apache.bifromq.basescheduler.exception.BatcherUnavailableException;
+import org.apache.bifromq.inbox.record.InboxInstance;
+import org.apache.bifromq.inbox.record.TenantInboxInstance;
 import org.apache.bifromq.inbox.rpc.proto.InboxFetchHint;
 import org.apache.bifromq.inbox.rpc.proto.InboxFetched;
 import org.apache.bifromq.inbox.server.scheduler.FetchRequest;
 import org.apache.bifromq.inbox.storage.proto.BatchFetchRequest;
 import org.apache.bifromq.inbox.storage.proto.Fetched;
+import org.apache.bifromq.inbox.storage.proto.InboxMessage;
 
 @Slf4j
 final class InboxFetchPipeline extends AckStream<InboxFetchHint, InboxFetched> implements IInboxFetcher {
@@ -52,6 +57,7 @@ final class InboxFetchPipeline extends AckStream<InboxFetchHint, InboxFetched> i
     private final Map<Long, FetchState> inboxFetchSessions;
     private final Map<InboxId, Set<Long>> inboxSessionMap = new ConcurrentHashMap<>();
     private final Fetcher fetcher;
+    private final InboxFetcherRegistry registry;
     private final Disposable disposable;
     private volatile boolean closed = false;
 
@@ -64,11 +70,13 @@ final class InboxFetchPipeline extends AckStream<InboxFetchHint, InboxFetched> i
 
         inboxFetchSessions = new ConcurrentHashMap<>();
         this.fetcher = fetcher;
+        this.registry = registry;
         registry.reg(this);
         disposable = ack()
             .doFinally(() -> {
-                registry.unreg(this);
                 closed = true;
+                inboxSessionMap.keySet().forEach(this::detach);
+                registry.unreg(this);
             })
             .subscribe(fetchHint -> {
                 String inboxId = fetchHint.getInboxId();
@@ -77,7 +85,11 @@ final class InboxFetchPipeline extends AckStream<InboxFetchHint, InboxFetched> i
                     inboxFetchSessions.computeIfPresent(fetchHint.getSessionId(), (k, v) -> {
                         inboxSessionMap.computeIfPresent(new InboxId(v.inboxId, v.incarnation), (k1, set) -> {
                             set.remove(fetchHint.getSessionId());
-                            return set.isEmpty() ? null : set;
+                            if (set.isEmpty()) {
+                                detach(k1);
+                                return null;
+                            }
+                            return set;
                         });
                         return null;
                     });
@@ -87,9 +99,15 @@ final class InboxFetchPipeline extends AckStream<InboxFetchHint, InboxFetched> i
                             v = new FetchState(fetchHint.getInboxId(),
                                 fetchHint.getIncarnation(),
                                 fetchHint.getSessionId());
-                            inboxSessionMap.computeIfAbsent(
-                                new InboxId(fetchHint.getInboxId(), fetchHint.getIncarnation()),
-                                k1 -> ConcurrentHashMap.newKeySet()).add(fetchHint.getSessionId());
+                            inboxSessionMap.compute(new InboxId(fetchHint.getInboxId(), fetchHint.getIncarnation()),
+                                (k1, set) -> {
+                                    if (set == null) {
+                                        set = ConcurrentHashMap.newKeySet();
+                                        attach(k1);
+                                    }
+                                    set.add(fetchHint.getSessionId());
+                                    return set;
+                                });
                         }
                         v.lastFetchQoS0Seq.set(
                             Math.max(fetchHint.getLastFetchQoS0Seq(), v.lastFetchQoS0Seq.get()));
@@ -130,6 +148,37 @@ final class InboxFetchPipeline extends AckStream<InboxFetchHint, InboxFetched> i
     public boolean signalFetch(String inboxId, long incarnation, long now) {
         log.trace("Signal fetch: tenantId={}, inboxId={}", tenantId, inboxId);
         // signal fetch won't refresh expiry
+        return forEachFetchState(inboxId, incarnation, fetchState -> signalFetch(fetchState, now));
+    }
+
+    @Override
+    public boolean hasFetchSession(String inboxId, long incarnation) {
+        Set<Long> sessionIds = inboxSessionMap.get(new InboxId(inboxId, incarnation));
+        return sessionIds != null && !sessionIds.isEmpty();
+    }
+
+    @Override
+    public boolean writeThrough(String inboxId,
+                                long incarnation,
+                                List<InboxMessage> qos0Msgs,
+                                List<InboxMessage> sendBufferMsgs,
+                                long now) {
+        log.trace("Write through: tenantId={}, inboxId={}", tenantId, inboxId);
+        return forEachFetchState(inboxId, incarnation, fetchState -> {
+            if (!push(fetchState, qos0Msgs, sendBufferMsgs)) {
+                // fallback to fetch from store to fill the gap
+                signalFetch(fetchState, now);
+            }
+        });
+    }
+
+    @Override
+    public void close() {
+        super.close();
+        disposable.dispose();
+    }
+
+    private boolean forEachFetchState(String inboxId, long incarnation, Consumer<FetchState> action) {
         InboxId inboxKey = new InboxId(inboxId, incarnation);
         Set<Long> sessionIds = inboxSessionMap.get(inboxKey);
         if (sessionIds == null || sessionIds.isEmpty()) {
@@ -145,22 +194,77 @@ final class InboxFetchPipeline extends AckStream<InboxFetchHint, InboxFetched> i
                 continue;
             }
             triggered = true;
-            if (fetchState.signalFetchTS.get() < now) {
-                fetchState.hasMore.set(true);
-                fetchState.signalFetchTS.set(now);
-                fetch(fetchState);
-            }
+            action.accept(fetchState);
         }
         if (sessionIds.isEmpty()) {
-            inboxSessionMap.remove(inboxKey, sessionIds);
+            inboxSessionMap.computeIfPresent(inboxKey, (k, set) -> {
+                if (set == sessionIds && set.isEmpty()) {
+                    detach(k);
+                    return null;
+                }
+                return set;
+            });
         }
         return triggered;
     }
 
-    @Override
-    public void close() {
-        super.close();
-        disposable.dispose();
+    private void attach(InboxId inboxId) {
+        registry.attach(this, toTenantInboxInstance(inboxId));
+    }
+
+    private void detach(InboxId inboxId) {
+        registry.detach(this, toTenantInboxInstance(inboxId));
+    }
+
+    private TenantInboxInstance toTenantInboxInstance(InboxId inboxId) {
+        return new TenantInboxInstance(tenantId, new InboxInstance(inboxId.inboxId, inboxId.incarnation));
+    }
+
+    private void signalFetch(FetchState fetchState, long now) {
+        if (fetchState.signalFetchTS.get() < now) {
+            fetchState.hasMore.set(true);
+            fetchState.signalFetchTS.set(now);
+            fetch(fetchState);
+        }
+    }
+
+    private boolean push(FetchState fetchState, List<InboxMessage> qos0Msgs, List<InboxMessage> sendBufferMsgs) {
+        if (closed || !fetchState.fetching.compareAndSet(false, true)) {
+            return false;
+        }
+        try {
+            // only the session which has caught up with the store could take the inserted messages directly
+            if (fetchState.hasMore.get()
+                || sendBufferMsgs.size() > fetchState.downStreamCapacity.get()
+                || !continues(fetchState.lastFetchQoS0Seq.get(), qos0Msgs)
+                || !continues(fetchState.lastFetchSendBufferSeq.get(), sendBufferMsgs)) {
+                return false;
+            }
+            send(InboxFetched.newBuilder()
+                .setSessionId(fetchState.sessionId)
+                .setInboxId(fetchState.inboxId)
+                .setIncarnation(fetchState.incarnation)
+                .setFetched(Fetched.newBuilder()
+                    .setResult(Fetched.Result.OK)
+                    .addAllQos0Msg(qos0Msgs)
+                    .addAllSendBufferMsg(sendBufferMsgs)
+                    .build())
+                .build());
+            if (!qos0Msgs.isEmpty()) {
+                fetchState.lastFetchQoS0Seq.set(qos0Msgs.get(qos0Msgs.size() - 1).getSeq());
+            }
+            if (!sendBufferMsgs.isEmpty()) {
+                fetchState.downStreamCapacity.accumulateAndGet(sendBufferMsgs.size(), (a, b) -> Math.max(a - b, 0));
+                fetchState.lastFetchSendBufferSeq.set(sendBufferMsgs.get(sendBufferMsgs.size() - 1).getSeq());
+            }
+            return true;
+        } finally {
+            fetchState.fetching.set(false);
+        }
+    }
+
+    private boolean continues(long lastFetchSeq, List<InboxMessage> msgs) {
+        return msgs.isEmpty() || msgs.get(0).getSeq() == lastFetchSeq + 1;
     }
 
     private void fetch(long sessionId) {
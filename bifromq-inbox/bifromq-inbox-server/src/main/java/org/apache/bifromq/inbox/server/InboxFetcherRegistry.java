@@ -20,18 +20,22 @@
 package org.apache.bifromq.inbox.server;
 
 import static java.util.Collections.emptyMap;
+import static java.util.Collections.emptySet;
 
 import com.google.common.collect.Iterators;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.bifromq.inbox.record.TenantInboxInstance;
 
 @Slf4j
 public final class InboxFetcherRegistry implements IInboxFetcherRegistry {
     private final ConcurrentMap<String, Map<String, Map<String, IInboxFetcher>>> fetchers = new ConcurrentHashMap<>();
+    private final ConcurrentMap<TenantInboxInstance, Set<IInboxFetcher>> attachedFetchers = new ConcurrentHashMap<>();
 
     @Override
     public void reg(IInboxFetcher fetcher) {
@@ -72,6 +76,30 @@ public final class InboxFetcherRegistry implements IInboxFetcherRegistry {
         return fetchers.getOrDefault(tenantId, emptyMap()).getOrDefault(delivererKey, emptyMap()).values();
     }
 
+    @Override
+    public void attach(IInboxFetcher fetcher, TenantInboxInstance tenantInboxInstance) {
+        attachedFetchers.compute(tenantInboxInstance, (k, v) -> {
+            if (v == null) {
+                v = ConcurrentHashMap.newKeySet();
+            }
+            v.add(fetcher);
+            return v;
+        });
+    }
+
+    @Override
+    public void detach(IInboxFetcher fetcher, TenantInboxInstance tenantInboxInstance) {
+        attachedFetchers.computeIfPresent(tenantInboxInstance, (k, v) -> {
+            v.remove(fetcher);
+            return v.isEmpty() ? null : v;
+        });
+    }
+
+    @Override
+    public Collection<IInboxFetcher> get(TenantInboxInstance tenantInboxInstance) {
+        return attachedFetchers.getOrDefault(tenantInboxInstance, emptySet());
+    }
+
     @Override
     public Iterator<IInboxFetcher> iterator() {
         return Iterators.concat(
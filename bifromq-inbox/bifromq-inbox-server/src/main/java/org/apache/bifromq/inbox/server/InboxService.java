@@ -391,8 +391,9 @@ class InboxService extends InboxServiceGrpc.InboxServiceImplBase {
 
     @Override
     public StreamObserver<SendRequest> receive(StreamObserver<SendReply> responseObserver) {
-        return new InboxWriterPipeline(new FetcherSignaler(registry),
-            new InboxWriter(insertScheduler), responseObserver);
+        FetcherSignaler fetcherSignaler = new FetcherSignaler(registry);
+        return new InboxWriterPipeline(fetcherSignaler,
+            new InboxWriter(insertScheduler, fetcherSignaler), responseObserver);
     }
 
     @Override
@@ -55,16 +55,32 @@ import org.apache.bifromq.type.TopicMessagePack;
 
 @Slf4j
 class InboxWriter implements InboxWriterPipeline.ISendRequestHandler {
+    private static final IWriteThrough NO_WRITE_THROUGH = new IWriteThrough() {
+        @Override
+        public boolean attached(TenantInboxInstance tenantInboxInstance) {
+            return false;
+        }
+
+        @Override
+        public void inserted(long writeSeq, TenantInboxInstance tenantInboxInstance, InsertResult result) {
+        }
+    };
     private final IInboxInsertScheduler insertScheduler;
+    private final IWriteThrough writeThrough;
     private final long retryTimeoutNanos;
 
     InboxWriter(IInboxInsertScheduler insertScheduler) {
+        this(insertScheduler, NO_WRITE_THROUGH);
+    }
+
+    InboxWriter(IInboxInsertScheduler insertScheduler, IWriteThrough writeThrough) {
         this.insertScheduler = insertScheduler;
+        this.writeThrough = writeThrough;
         this.retryTimeoutNanos = Duration.ofMillis(DataPlaneMaxBurstLatencyMillis.INSTANCE.get()).toNanos();
     }
 
     @Override
-    public CompletableFuture<SendReply> handle(SendRequest request) {
+    public CompletableFuture<SendReply> handle(long writeSeq, SendRequest request) {
         Map<TenantInboxInstance, Map<MatchedRoute, MatchInfo>> matchInfosByInbox = new LinkedHashMap<>();
         Map<TenantInboxInstance, List<SubMessagePack>> subMsgPacksByInbox = new LinkedHashMap<>();
         // break DeliveryPack into SubMessagePack by each TenantInboxInstance
@@ -98,7 +114,10 @@ class InboxWriter implements InboxWriterPipeline.ISendRequestHandler {
                     .setTenantId(entry.getKey().tenantId())
                     .setInboxId(entry.getKey().instance().inboxId())
                     .setIncarnation(entry.getKey().instance().incarnation())
-                    .addAllMessagePack(entry.getValue()).build();
+                    .addAllMessagePack(entry.getValue())
+                    // read back inserted messages only when there is a local fetcher to push them to
+                    .setReturnInserted(writeThrough.attached(entry.getKey()))
+                    .build();
                 return AsyncRetry.exec(() -> insertScheduler.schedule(insertRequest), (v, e) -> {
                     if (e == null) {
                         return false;
@@ -111,7 +130,17 @@ class InboxWriter implements InboxWriterPipeline.ISendRequestHandler {
                             insertRequest.getInboxId(), insertRequest.getIncarnation(), e.getClass().getSimpleName());
                     }
                     return needRetry;
-                }, retryTimeoutNanos / 5, retryTimeoutNanos);
+                }, retryTimeoutNanos / 5, retryTimeoutNanos).thenApply(result -> {
+                    if (result.getCode() == InsertResult.Code.OK
+                        && (result.getQos0MsgCount() > 0 || result.getSendBufferMsgCount() > 0)) {
+                        try {
+                            writeThrough.inserted(writeSeq, entry.getKey(), result);
+                        } catch (Throwable e) {
+                            log.error("Failed to write through inserted messages", e);
+                        }
+                    }
+                    return result;
+                });
             }).toList();
         return CompletableFuture.allOf(replyFutures.toArray(new CompletableFuture[0]))
             .handle(unwrap((v, e) -> {
@@ -169,6 +198,25 @@ class InboxWriter implements InboxWriterPipeline.ISendRequestHandler {
             }));
     }
 
+    interface IWriteThrough {
+        /**
+         * Check if the inbox instance is being fetched locally.
+         *
+         * @param tenantInboxInstance the inbox instance
+         * @return true if the inserted messages could be pushed to its fetcher
+         */
+        boolean attached(TenantInboxInstance tenantInboxInstance);
+
+        /**
+         * Push the inserted messages to the fetcher of the inbox instance.
+         *
+         * @param writeSeq            the sequence of the write which inserted the messages
+         * @param tenantInboxInstance the inbox instance
+         * @param result              the insert result carrying the inserted messages
+         */
+        void inserted(long writeSeq, TenantInboxInstance tenantInboxInstance, InsertResult result);
+    }
+
     private Function<MatchedRoute, DeliveryResult.Code> getFinalResultFinder(List<InsertResult.SubStatus> subStatuses) {
         Function<MatchedRoute, DeliveryResult.Code> resultFinder = getResultFinder(subStatuses);
         return matchedRoute -> {
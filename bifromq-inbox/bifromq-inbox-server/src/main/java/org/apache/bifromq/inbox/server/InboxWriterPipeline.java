@@ -23,9 +23,16 @@ import static org.apache.bifromq.inbox.util.PipelineUtil.PIPELINE_ATTR_KEY_DELIV
 
 import io.grpc.stub.StreamObserver;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.bifromq.baseenv.MemUsage;
 import org.apache.bifromq.baserpc.server.ResponsePipeline;
@@ -47,6 +54,9 @@ class InboxWriterPipeline extends ResponsePipeline<SendRequest, SendReply> {
     private final String delivererKey;
     private final ConcurrentLinkedQueue<WriteTask> tasks = new ConcurrentLinkedQueue<>();
     private final AtomicBoolean draining = new AtomicBoolean(false);
+    private final Set<TenantInboxInstance> signalingInboxes = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean signaling = new AtomicBoolean(false);
+    private final AtomicLong writeSeqGen = new AtomicLong();
 
     public InboxWriterPipeline(IWriteCallback writeCallback,
                                ISendRequestHandler handler,
@@ -68,7 +78,7 @@ class InboxWriterPipeline extends ResponsePipeline<SendRequest, SendReply> {
         WriteTask task = new WriteTask(request);
         tasks.add(task);
         task.replyFuture.whenComplete((v, e) -> drain());
-        bridge(doWrite(task.request), task.replyFuture);
+        bridge(doWrite(writeSeqGen.incrementAndGet(), task.request), task.replyFuture);
         return task.onDone;
     }
 
@@ -114,32 +124,72 @@ class InboxWriterPipeline extends ResponsePipeline<SendRequest, SendReply> {
         });
     }
 
-    private CompletableFuture<SendReply> doWrite(SendRequest request) {
-        return handler.handle(request)
-            .thenApply(v -> {
-                FetchSignalSender.INSTANCE.execute(() -> {
-                    long now = System.nanoTime();
-                    v.getReply().getResultMap()
-                        .forEach((tenantId, deliveryResults) ->
-                            deliveryResults.getResultList()
-                                .forEach(result -> {
-                                    if (result.getCode() == DeliveryResult.Code.OK) {
-                                        writeCallback.afterWrite(
-                                            TenantInboxInstance.from(tenantId, result.getMatchInfo()),
-                                            delivererKey, now);
+    private CompletableFuture<SendReply> doWrite(long writeSeq, SendRequest request) {
+        return handler.handle(writeSeq, request)
+            .whenComplete((v, e) -> {
+                // the inboxes whose inserted messages have been pushed by this write need no fetch signal
+                Set<TenantInboxInstance> writtenThrough = writeCallback.writtenThrough(writeSeq);
+                if (e != null) {
+                    return;
+                }
+                v.getReply().getResultMap()
+                    .forEach((tenantId, deliveryResults) ->
+                        deliveryResults.getResultList()
+                            .forEach(result -> {
+                                if (result.getCode() == DeliveryResult.Code.OK) {
+                                    TenantInboxInstance inboxInstance =
+                                        TenantInboxInstance.from(tenantId, result.getMatchInfo());
+                                    if (!writtenThrough.contains(inboxInstance)) {
+                                        signalingInboxes.add(inboxInstance);
                                     }
-                                }));
-                });
-                return v;
+                                }
+                            }));
+                triggerSignal();
             });
     }
 
+    private void triggerSignal() {
+        // inboxes written before the signal task runs are signaled together and only once
+        if (!signalingInboxes.isEmpty() && signaling.compareAndSet(false, true)) {
+            FetchSignalSender.INSTANCE.execute(this::signal);
+        }
+    }
+
+    private void signal() {
+        try {
+            long now = System.nanoTime();
+            List<TenantInboxInstance> inboxInstances = new ArrayList<>(signalingInboxes.size());
+            Iterator<TenantInboxInstance> itr = signalingInboxes.iterator();
+            while (itr.hasNext()) {
+                inboxInstances.add(itr.next());
+                itr.remove();
+            }
+            if (!inboxInstances.isEmpty()) {
+                writeCallback.afterWrite(inboxInstances, delivererKey, now);
+            }
+        } catch (Throwable e) {
+            log.error("Failed to signal fetch", e);
+        } finally {
+            signaling.set(false);
+        }
+        // pick up the inboxes added during signaling
+        triggerSignal();
+    }
+
     interface IWriteCallback {
-        void afterWrite(TenantInboxInstance tenantInboxInstance, String delivererKey, long now);
+        void afterWrite(Collection<TenantInboxInstance> tenantInboxInstances, String delivererKey, long now);
+
+        /**
+         * Take the inbox instances whose inserted messages have been written through by the given write.
+         *
+         * @param writeSeq the sequence of the finished write
+         * @return the written through inbox instances, which are forgotten afterwards
+         */
+        Set<TenantInboxInstance> writtenThrough(long writeSeq);
     }
 
     interface ISendRequestHandler {
-        CompletableFuture<SendReply> handle(SendRequest request);
+        CompletableFuture<SendReply> handle(long writeSeq, SendRequest request);
     }
 
     private static class WriteTask {
@@ -67,7 +67,8 @@ class BatchInsertCall extends BatchMutationCall<InsertRequest, InsertResult> {
             BatchInsertRequest.InsertRef.Builder refBuilder = BatchInsertRequest.InsertRef.newBuilder()
                 .setTenantId(req.getTenantId())
                 .setInboxId(req.getInboxId())
-                .setIncarnation(req.getIncarnation());
+                .setIncarnation(req.getIncarnation())
+                .setReturnInserted(req.getReturnInserted());
             for (SubMessagePack subPack : req.getMessagePackList()) {
                 TopicMessagePack msgPack = subPack.getMessages();
                 Integer idx = poolIndex.get(msgPack);
@@ -26,11 +26,13 @@ import org.apache.bifromq.basekv.client.IBaseKVStoreClient;
 import org.apache.bifromq.inbox.util.InboxServiceUtil;
 import org.apache.bifromq.plugin.subbroker.CheckReply;
 import org.apache.bifromq.sysprops.props.InboxCheckQueuesPerRange;
+import org.apache.bifromq.sysprops.props.InboxReadMaxReplicaLag;
 
 public class InboxCheckSubScheduler extends InboxReadScheduler<CheckMatchInfo, CheckReply.Code, BatchCheckSubCall>
     implements IInboxCheckSubScheduler {
     public InboxCheckSubScheduler(IBaseKVStoreClient inboxStoreClient) {
-        super(BatchCheckSubCall::new, InboxCheckQueuesPerRange.INSTANCE.get(), inboxStoreClient);
+        super(BatchCheckSubCall::new, InboxCheckQueuesPerRange.INSTANCE.get(), inboxStoreClient,
+            InboxReadMaxReplicaLag.INSTANCE.get());
     }
 
     @Override
@@ -27,12 +27,14 @@ import org.apache.bifromq.basekv.client.IBaseKVStoreClient;
 import org.apache.bifromq.inbox.rpc.proto.ExistReply;
 import org.apache.bifromq.inbox.rpc.proto.ExistRequest;
 import org.apache.bifromq.sysprops.props.InboxCheckQueuesPerRange;
+import org.apache.bifromq.sysprops.props.InboxReadMaxReplicaLag;
 
 @Slf4j
 public class InboxExistScheduler extends InboxReadScheduler<ExistRequest, ExistReply, BatchExistCall>
     implements IInboxExistScheduler {
     public InboxExistScheduler(IBaseKVStoreClient inboxStoreClient) {
-        super(BatchExistCall::new, InboxCheckQueuesPerRange.INSTANCE.get(), inboxStoreClient);
+        super(BatchExistCall::new, InboxCheckQueuesPerRange.INSTANCE.get(), inboxStoreClient,
+            InboxReadMaxReplicaLag.INSTANCE.get());
     }
 
     @Override
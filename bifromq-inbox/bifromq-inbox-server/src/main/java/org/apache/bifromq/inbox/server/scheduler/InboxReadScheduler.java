@@ -34,8 +34,13 @@ public abstract class InboxReadScheduler<ReqT, RespT, InboxBatchQueryT extends B
 
     public InboxReadScheduler(IBatchQueryCallBuilder<ReqT, RespT, InboxBatchQueryT> batchQueryCallBuilder,
                               int queuesPerRange, IBaseKVStoreClient inboxStoreClient) {
+        this(batchQueryCallBuilder, queuesPerRange, inboxStoreClient, -1);
+    }
+
+    public InboxReadScheduler(IBatchQueryCallBuilder<ReqT, RespT, InboxBatchQueryT> batchQueryCallBuilder,
+                              int queuesPerRange, IBaseKVStoreClient inboxStoreClient, long maxReplicaLag) {
         super(batchQueryCallBuilder, Duration.ofMillis(DataPlaneMaxBurstLatencyMillis.INSTANCE.get()).toNanos(),
-            inboxStoreClient);
+            inboxStoreClient, maxReplicaLag);
         Preconditions.checkArgument(queuesPerRange > 0, "Queues per range must be positive");
         this.queuesPerRange = queuesPerRange;
     }
@@ -50,6 +50,8 @@ import lombok.SneakyThrows;
 import org.apache.bifromq.baserpc.RPCContext;
 import org.apache.bifromq.baserpc.metrics.IRPCMeter;
 import org.apache.bifromq.baserpc.metrics.RPCMetric;
+import org.apache.bifromq.inbox.record.InboxInstance;
+import org.apache.bifromq.inbox.record.TenantInboxInstance;
 import org.apache.bifromq.inbox.rpc.proto.InboxFetchHint;
 import org.apache.bifromq.inbox.rpc.proto.InboxFetched;
 import org.apache.bifromq.inbox.server.scheduler.FetchRequest;
@@ -93,6 +95,9 @@ public class InboxFetchPipelineMappingTest {
     @BeforeMethod
     public void setup() {
         closeable = MockitoAnnotations.openMocks(this);
+        synchronized (received) {
+            received.clear();
+        }
         setupContext();
         doAnswer((Answer<Void>) invocation -> {
             InboxFetched v = invocation.getArgument(0);
@@ -316,12 +321,127 @@ public class InboxFetchPipelineMappingTest {
         pipeline.close();
     }
 
+    @Test
+    public void writeThroughPushWhenCaughtUp() {
+        InboxFetcherRegistry registry = new InboxFetcherRegistry();
+        TestFetcher fetcher = new TestFetcher();
+        InboxFetchPipeline pipeline = new InboxFetchPipeline(responseObserver, fetcher, registry);
+
+        long sessionId = 7007L;
+        pipeline.onNext(hint(sessionId, 3));
+        fetcher.awaitRequest();
+        fetcher.completeNext(Fetched.newBuilder().setResult(Fetched.Result.OK).build());
+        await().until(() -> {
+            synchronized (received) {
+                return received.size() == 1;
+            }
+        });
+
+        assertTrue(pipeline.hasFetchSession(INBOX, INCARNATION));
+        assertTrue(pipeline.writeThrough(INBOX, INCARNATION, List.of(msg(0)), List.of(msg(0), msg(1)),
+            System.nanoTime()));
+        InboxFetched pushed = lastReceived();
+        assertEquals(received.size(), 2);
+        assertEquals(pushed.getSessionId(), sessionId);
+        assertEquals(pushed.getFetched().getQos0MsgList(), List.of(msg(0)));
+        assertEquals(pushed.getFetched().getSendBufferMsgList(), List.of(msg(0), msg(1)));
+
+        // continue right after the pushed seqs
+        assertTrue(pipeline.writeThrough(INBOX, INCARNATION, List.of(msg(1)), List.of(), System.nanoTime()));
+        assertEquals(received.size(), 3);
+        assertEquals(lastReceived().getFetched().getQos0MsgList(), List.of(msg(1)));
+        assertTrue(fetcher.requests.isEmpty());
+
+        // exceeding the remaining capacity falls back to fetch from where the pushed ones end
+        assertTrue(pipeline.writeThrough(INBOX, INCARNATION, List.of(), List.of(msg(2), msg(3)),
+            System.nanoTime()));
+        FetchRequest request = fetcher.awaitRequest();
+        assertEquals(received.size(), 3);
+        assertEquals(request.params().getMaxFetch(), 1);
+        assertEquals(request.params().getQos0StartAfter(), 1);
+        assertEquals(request.params().getSendBufferStartAfter(), 1);
+
+        fetcher.completeNext(Fetched.newBuilder().setResult(Fetched.Result.OK).build());
+        pipeline.close();
+    }
+
+    @Test
+    public void writeThroughFallbackOnSeqGap() {
+        InboxFetcherRegistry registry = new InboxFetcherRegistry();
+        TestFetcher fetcher = new TestFetcher();
+        InboxFetchPipeline pipeline = new InboxFetchPipeline(responseObserver, fetcher, registry);
+
+        long sessionId = 8008L;
+        pipeline.onNext(hint(sessionId, 10, 4, 9));
+        fetcher.awaitRequest();
+        fetcher.completeNext(Fetched.newBuilder().setResult(Fetched.Result.OK).build());
+        await().until(() -> {
+            synchronized (received) {
+                return received.size() == 1;
+            }
+        });
+
+        // some inserted messages were not seen, e.g. those inserted by other servers
+        assertTrue(pipeline.writeThrough(INBOX, INCARNATION, List.of(msg(6)), List.of(), System.nanoTime()));
+        FetchRequest request = fetcher.awaitRequest();
+        assertEquals(received.size(), 1);
+        assertEquals(request.params().getQos0StartAfter(), 4);
+        assertEquals(request.params().getSendBufferStartAfter(), 9);
+
+        fetcher.completeNext(Fetched.newBuilder()
+            .setResult(Fetched.Result.OK)
+            .addQos0Msg(msg(5))
+            .addQos0Msg(msg(6))
+            .build());
+        await().until(() -> {
+            synchronized (received) {
+                return received.size() == 2;
+            }
+        });
+        assertEquals(lastReceived().getFetched().getQos0MsgList(), List.of(msg(5), msg(6)));
+
+        // caught up again
+        assertTrue(pipeline.writeThrough(INBOX, INCARNATION, List.of(), List.of(msg(10)), System.nanoTime()));
+        assertEquals(received.size(), 3);
+        assertEquals(lastReceived().getFetched().getSendBufferMsgList(), List.of(msg(10)));
+        assertTrue(fetcher.requests.isEmpty());
+
+        assertFalse(pipeline.writeThrough(INBOX, INCARNATION + 1, List.of(msg(7)), List.of(), System.nanoTime()));
+        pipeline.close();
+    }
+
+    @Test
+    public void attachInboxWhileFetching() {
+        InboxFetcherRegistry registry = new InboxFetcherRegistry();
+        InboxFetchPipeline pipeline = new InboxFetchPipeline(responseObserver, noopFetcher(), registry);
+        TenantInboxInstance inboxInstance = new TenantInboxInstance(TENANT, new InboxInstance(INBOX, INCARNATION));
+
+        pipeline.onNext(hint(1001L, 10));
+        pipeline.onNext(hint(2002L, 10));
+        assertEquals(registry.get(inboxInstance), Set.of(pipeline));
+
+        pipeline.onNext(hint(2002L, -1));
+        assertEquals(registry.get(inboxInstance), Set.of(pipeline));
+
+        pipeline.onNext(hint(1001L, -1));
+        assertTrue(registry.get(inboxInstance).isEmpty());
+
+        pipeline.onNext(hint(3003L, 10));
+        assertEquals(registry.get(inboxInstance), Set.of(pipeline));
+        pipeline.close();
+        assertTrue(registry.get(inboxInstance).isEmpty());
+    }
+
     private InboxFetched lastReceived() {
         synchronized (received) {
             return received.get(received.size() - 1);
         }
     }
 
+    private static InboxMessage msg(long seq) {
+        return InboxMessage.newBuilder().setSeq(seq).build();
+    }
+
     @SuppressWarnings("unchecked")
     private Map<Long, ?> fetchSessions(InboxFetchPipeline pipeline) throws Exception {
         Field field = InboxFetchPipeline.class.getDeclaredField("inboxFetchSessions");
@@ -28,6 +28,8 @@ import com.google.common.collect.Sets;
 import java.util.Collections;
 import java.util.Set;
 import lombok.SneakyThrows;
+import org.apache.bifromq.inbox.record.InboxInstance;
+import org.apache.bifromq.inbox.record.TenantInboxInstance;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.testng.annotations.AfterMethod;
@@ -88,6 +90,24 @@ public class InboxFetcherRegistryTest {
         assertEquals(fetchers, Sets.newHashSet(fetcher1, fetcher2, fetcher3));
     }
 
+    @Test
+    public void attachAndDetach() {
+        InboxFetcherRegistry registry = new InboxFetcherRegistry();
+        TenantInboxInstance inbox1 = new TenantInboxInstance("tenantA", new InboxInstance("inbox1", 1));
+        TenantInboxInstance inbox2 = new TenantInboxInstance("tenantA", new InboxInstance("inbox1", 2));
+        registry.attach(fetcher1, inbox1);
+        registry.attach(fetcher2, inbox1);
+        registry.attach(fetcher3, inbox2);
+        assertEquals(registry.get(inbox1), Sets.newHashSet(fetcher1, fetcher2));
+        assertEquals(registry.get(inbox2), Collections.singleton(fetcher3));
+        registry.detach(fetcher1, inbox1);
+        assertEquals(registry.get(inbox1), Collections.singleton(fetcher2));
+        registry.detach(fetcher2, inbox1);
+        registry.detach(fetcher3, inbox1);
+        assertTrue(registry.get(inbox1).isEmpty());
+        assertEquals(registry.get(inbox2), Collections.singleton(fetcher3));
+    }
+
     private void mockFetcher(IInboxFetcher fetcher, String tenantId, String delivererKey, String fetcherId) {
         when(fetcher.tenantId()).thenReturn(tenantId);
         when(fetcher.delivererKey()).thenReturn(delivererKey);
@@ -23,7 +23,10 @@ import static org.apache.bifromq.inbox.server.Fixtures.matchInfo;
 import static org.apache.bifromq.inbox.server.Fixtures.sendRequest;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertFalse;
@@ -34,6 +37,7 @@ import io.micrometer.core.instrument.Timer;
 import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
 import lombok.SneakyThrows;
@@ -42,6 +46,7 @@ import org.apache.bifromq.baseenv.MemUsage;
 import org.apache.bifromq.baserpc.RPCContext;
 import org.apache.bifromq.baserpc.metrics.IRPCMeter;
 import org.apache.bifromq.baserpc.metrics.RPCMetric;
+import org.apache.bifromq.inbox.record.TenantInboxInstance;
 import org.apache.bifromq.inbox.rpc.proto.SendReply;
 import org.apache.bifromq.inbox.rpc.proto.SendRequest;
 import org.apache.bifromq.inbox.util.PipelineUtil;
@@ -125,16 +130,50 @@ public class InboxWriterPipelineTest {
     public void handleRequestDeliveryError() {
         SendReply mockSendReply = SendReply.newBuilder().setReqId(1)
             .setReply(DeliveryReply.newBuilder().setCode(DeliveryReply.Code.ERROR).build()).build();
-        when(inboxWriter.handle(any())).thenReturn(CompletableFuture.completedFuture(mockSendReply));
+        when(inboxWriter.handle(anyLong(), any())).thenReturn(CompletableFuture.completedFuture(mockSendReply));
         doNothing().when(fetcherSignaler).afterWrite(any(), any(), anyLong());
         InboxWriterPipeline writerPipeline = new InboxWriterPipeline(fetcherSignaler, inboxWriter, responseObserver);
         SendReply sendReply = writerPipeline.handleRequest("_", sendRequest()).join();
         assertEquals(sendReply, mockSendReply);
     }
 
+    @Test
+    public void signalWrittenInboxesOnce() {
+        SendReply mockSendReply = SendReply.newBuilder().setReqId(1)
+            .setReply(DeliveryReply.newBuilder().setCode(DeliveryReply.Code.OK)
+                .putResult("tenantId", DeliveryResults.newBuilder()
+                    .addResult(DeliveryResult.newBuilder().setMatchInfo(matchInfo())
+                        .setCode(DeliveryResult.Code.OK).build())
+                    .addResult(DeliveryResult.newBuilder().setMatchInfo(matchInfo())
+                        .setCode(DeliveryResult.Code.OK).build())
+                    .build())
+                .build())
+            .build();
+        when(inboxWriter.handle(anyLong(), any())).thenReturn(CompletableFuture.completedFuture(mockSendReply));
+        doNothing().when(fetcherSignaler).afterWrite(any(), any(), anyLong());
+        InboxWriterPipeline writerPipeline = new InboxWriterPipeline(fetcherSignaler, inboxWriter, responseObserver);
+        writerPipeline.handleRequest("_", sendRequest()).join();
+        verify(fetcherSignaler, timeout(5000)).afterWrite(argThat(inboxes -> inboxes.size() == 1), any(), anyLong());
+    }
+
+    @Test
+    public void skipSignalForWrittenThroughInboxes() {
+        SendReply mockSendReply = createSendReply(DeliveryResult.Code.OK);
+        when(inboxWriter.handle(anyLong(), any())).thenReturn(CompletableFuture.completedFuture(mockSendReply));
+        when(fetcherSignaler.writtenThrough(1L))
+            .thenReturn(Set.of(TenantInboxInstance.from("tenantId", matchInfo())));
+        InboxWriterPipeline writerPipeline = new InboxWriterPipeline(fetcherSignaler, inboxWriter, responseObserver);
+        writerPipeline.handleRequest("_", sendRequest()).join();
+        verify(fetcherSignaler).writtenThrough(1L);
+        // the next write of the same inbox is not written through
+        writerPipeline.handleRequest("_", sendRequest()).join();
+        verify(fetcherSignaler).writtenThrough(2L);
+        verify(fetcherSignaler, timeout(5000)).afterWrite(argThat(inboxes -> inboxes.size() == 1), any(), anyLong());
+    }
+
     private void testHandleRequest(DeliveryResult.Code code) {
         SendReply mockSendReply = createSendReply(code);
-        when(inboxWriter.handle(any())).thenReturn(CompletableFuture.completedFuture(mockSendReply));
+        when(inboxWriter.handle(anyLong(), any())).thenReturn(CompletableFuture.completedFuture(mockSendReply));
         doNothing().when(fetcherSignaler).afterWrite(any(), any(), anyLong());
         InboxWriterPipeline writerPipeline = new InboxWriterPipeline(fetcherSignaler, inboxWriter, responseObserver);
         SendReply sendReply = writerPipeline.handleRequest("_", sendRequest()).join();
@@ -170,7 +209,8 @@ public class InboxWriterPipelineTest {
     }
 
     private void testMemoryUsageThresholdExceed() {
-        when(inboxWriter.handle(any())).thenReturn(CompletableFuture.completedFuture(SendReply.getDefaultInstance()));
+        when(inboxWriter.handle(anyLong(), any()))
+            .thenReturn(CompletableFuture.completedFuture(SendReply.getDefaultInstance()));
         doNothing().when(fetcherSignaler).afterWrite(any(), any(), anyLong());
         try (MockedStatic<MemUsage> mocked = Mockito.mockStatic(MemUsage.class)) {
             mocked.when(MemUsage::local).thenReturn(memUsage);
@@ -188,7 +228,7 @@ public class InboxWriterPipelineTest {
         CompletableFuture<SendReply> f1 = new CompletableFuture<>();
         CompletableFuture<SendReply> f2 = new CompletableFuture<>();
 
-        when(inboxWriter.handle(any())).thenReturn(f1).thenReturn(f2);
+        when(inboxWriter.handle(anyLong(), any())).thenReturn(f1).thenReturn(f2);
         doNothing().when(fetcherSignaler).afterWrite(any(), any(), anyLong());
 
         InboxWriterPipeline writerPipeline = new InboxWriterPipeline(fetcherSignaler, inboxWriter, responseObserver);
@@ -22,14 +22,19 @@ package org.apache.bifromq.inbox.server;
 import static org.apache.bifromq.inbox.server.Fixtures.matchInfo;
 import static org.apache.bifromq.inbox.server.Fixtures.sendRequest;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.testng.Assert.assertEquals;
 
 import java.util.concurrent.CompletableFuture;
 import lombok.SneakyThrows;
+import org.apache.bifromq.inbox.record.TenantInboxInstance;
 import org.apache.bifromq.inbox.rpc.proto.SendReply;
 import org.apache.bifromq.inbox.rpc.proto.SendRequest;
 import org.apache.bifromq.inbox.server.scheduler.IInboxInsertScheduler;
+import org.apache.bifromq.inbox.storage.proto.InboxMessage;
 import org.apache.bifromq.inbox.storage.proto.InsertRequest;
 import org.apache.bifromq.inbox.storage.proto.InsertResult;
 import org.apache.bifromq.inbox.storage.proto.MatchedRoute;
@@ -46,6 +51,8 @@ public class InboxWriterTest {
 
     @Mock
     private IInboxInsertScheduler insertScheduler;
+    @Mock
+    private InboxWriter.IWriteThrough writeThrough;
 
     private AutoCloseable closeable;
 
@@ -65,7 +72,7 @@ public class InboxWriterTest {
         when(insertScheduler.schedule(any(InsertRequest.class)))
             .thenReturn(CompletableFuture.failedFuture(new RuntimeException("err")));
         SendRequest request = sendRequest();
-        SendReply sendReply = new InboxWriter(insertScheduler).handle(request).join();
+        SendReply sendReply = new InboxWriter(insertScheduler).handle(1, request).join();
         assertEquals(sendReply, sendReply(request.getReqId(), DeliveryReply.Code.ERROR));
     }
 
@@ -76,7 +83,7 @@ public class InboxWriterTest {
                 .setCode(InsertResult.Code.NO_INBOX)
                 .build()));
         SendRequest request = sendRequest();
-        SendReply sendReply = new InboxWriter(insertScheduler).handle(request).join();
+        SendReply sendReply = new InboxWriter(insertScheduler).handle(1, request).join();
         assertEquals(sendReply, sendReply(request.getReqId(), DeliveryResult.Code.NO_RECEIVER));
     }
 
@@ -95,7 +102,7 @@ public class InboxWriterTest {
                     .setCode(InsertResult.Code.OK)
                     .build()));
         SendRequest request = sendRequest();
-        SendReply sendReply = new InboxWriter(insertScheduler).handle(request).join();
+        SendReply sendReply = new InboxWriter(insertScheduler).handle(1, request).join();
         assertEquals(sendReply, sendReply(request.getReqId(), DeliveryResult.Code.NO_SUB));
     }
 
@@ -113,8 +120,32 @@ public class InboxWriterTest {
                     .build())
                 .build()));
         SendRequest request = sendRequest();
-        SendReply sendReply = new InboxWriter(insertScheduler).handle(request).join();
+        SendReply sendReply = new InboxWriter(insertScheduler).handle(1, request).join();
+        assertEquals(sendReply, sendReply(request.getReqId(), DeliveryResult.Code.OK));
+    }
+
+    @Test
+    public void insertWriteThrough() {
+        SendRequest request = sendRequest();
+        TenantInboxInstance tenantInboxInstance = TenantInboxInstance.from("_", matchInfo());
+        InsertResult insertResult = InsertResult.newBuilder()
+            .setCode(InsertResult.Code.OK)
+            .addResult(InsertResult.SubStatus.newBuilder()
+                .setRejected(false)
+                .setMatchedRoute(MatchedRoute.newBuilder()
+                    .setTopicFilter("/foo/+")
+                    .setIncarnation(1L)
+                    .build())
+                .build())
+            .addQos0Msg(InboxMessage.newBuilder().setSeq(0).build())
+            .build();
+        when(writeThrough.attached(tenantInboxInstance)).thenReturn(true);
+        when(insertScheduler.schedule(any(InsertRequest.class)))
+            .thenReturn(CompletableFuture.completedFuture(insertResult));
+        SendReply sendReply = new InboxWriter(insertScheduler, writeThrough).handle(1, request).join();
         assertEquals(sendReply, sendReply(request.getReqId(), DeliveryResult.Code.OK));
+        verify(insertScheduler).schedule(argThat(InsertRequest::getReturnInserted));
+        verify(writeThrough).inserted(eq(1L), eq(tenantInboxInstance), eq(insertResult));
     }
 
     private SendReply sendReply(long reqId, DeliveryReply.Code code) {
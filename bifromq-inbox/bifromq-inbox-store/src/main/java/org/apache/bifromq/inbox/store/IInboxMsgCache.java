@@ -0,0 +1,50 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.bifromq.inbox.store;
+
+import com.google.protobuf.ByteString;
+import java.util.Optional;
+import org.apache.bifromq.inbox.storage.proto.InboxMessageList;
+
+/**
+ * The cache of recently written or fetched message chunks, keyed by the chunk key.
+ *
+ * <p>Chunks cached by concurrent readers are tagged with the generation observed before reading, a chunk is served
+ * only if its generation is not older than the latest invalidation of its queue, so that invalidating a queue makes
+ * all of its cached chunks obsolete without enumerating them.
+ */
+interface IInboxMsgCache {
+
+    long generation();
+
+    Optional<InboxMessageList> get(ByteString chunkKey);
+
+    void put(ByteString chunkKey, long generation, InboxMessageList chunk, int chunkSize);
+
+    void put(ByteString chunkKey, InboxMessageList chunk);
+
+    void invalidate(ByteString chunkKey);
+
+    void invalidateQueue(ByteString queuePrefix);
+
+    void reset();
+
+    void close();
+}
@@ -0,0 +1,176 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.bifromq.inbox.store;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.google.protobuf.ByteString;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Tags;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.bifromq.inbox.storage.proto.InboxMessageList;
+
+class InboxMsgCache implements IInboxMsgCache {
+    private final boolean enabled;
+    private final long expiryNanos;
+    private final Cache<ByteString, CachedChunk> chunks;
+    // the generation at which each queue was invalidated lately, pruned once the chunks cached before are expired
+    private final Map<ByteString, Invalidation> invalidations = new ConcurrentHashMap<>();
+    private final AtomicLong generationSeq = new AtomicLong();
+    // the least generation a cached chunk must have, raised before any invalidation record is dropped
+    private final AtomicLong baseGeneration = new AtomicLong();
+    private final AtomicLong lastPruneAt = new AtomicLong(System.nanoTime());
+    private final Counter hitCounter;
+    private final Counter missCounter;
+    private final Gauge hitRatioGauge;
+    private final Gauge sizeGauge;
+
+    static ByteString queuePrefix(ByteString chunkKey) {
+        // chunk key: <QUEUE_PREFIX><SEQ>
+        return chunkKey.substring(0, chunkKey.size() - Long.BYTES);
+    }
+
+    InboxMsgCache(long maxSizeInBytes, Duration expireAfterWrite, String... tags) {
+        this.enabled = maxSizeInBytes > 0;
+        this.expiryNanos = expireAfterWrite.toNanos();
+        this.chunks = Caffeine.newBuilder()
+            .maximumWeight(maxSizeInBytes)
+            .weigher((ByteString key, CachedChunk value) -> key.size() + value.size)
+            .expireAfterWrite(expireAfterWrite)
+            .build();
+        Tags meterTags = Tags.of(tags);
+        hitCounter = Counter.builder("inbox.msg.cache.hit")
+            .tags(meterTags)
+            .register(Metrics.globalRegistry);
+        missCounter = Counter.builder("inbox.msg.cache.miss")
+            .tags(meterTags)
+            .register(Metrics.globalRegistry);
+        hitRatioGauge = Gauge.builder("inbox.msg.cache.hit.ratio", this, InboxMsgCache::hitRatio)
+            .tags(meterTags)
+            .register(Metrics.globalRegistry);
+        sizeGauge = Gauge.builder("inbox.msg.cache.size", chunks, c -> c.policy().eviction()
+                .map(e -> e.weightedSize().orElse(0L)).orElse(0L))
+            .tags(meterTags)
+            .register(Metrics.globalRegistry);
+    }
+
+    @Override
+    public long generation() {
+        return generationSeq.get();
+    }
+
+    @Override
+    public Optional<InboxMessageList> get(ByteString chunkKey) {
+        CachedChunk cached = chunks.getIfPresent(chunkKey);
+        if (cached != null && cached.generation >= invalidatedAt(queuePrefix(chunkKey))) {
+            hitCounter.increment();
+            return Optional.of(cached.chunk);
+        }
+        missCounter.increment();
+        return Optional.empty();
+    }
+
+    @Override
+    public void put(ByteString chunkKey, long generation, InboxMessageList chunk, int chunkSize) {
+        if (!enabled || generation < invalidatedAt(queuePrefix(chunkKey))) {
+            return;
+        }
+        chunks.put(chunkKey, new CachedChunk(generation, chunk, chunkSize));
+    }
+
+    @Override
+    public void put(ByteString chunkKey, InboxMessageList chunk) {
+        if (!enabled) {
+            return;
+        }
+        put(chunkKey, generation(), chunk, chunk.getSerializedSize());
+    }
+
+    @Override
+    public void invalidate(ByteString chunkKey) {
+        chunks.invalidate(chunkKey);
+    }
+
+    @Override
+    public void invalidateQueue(ByteString queuePrefix) {
+        long now = System.nanoTime();
+        Invalidation invalidation = new Invalidation(generationSeq.incrementAndGet(), now);
+        invalidations.merge(queuePrefix, invalidation, (o, n) -> o.generation > n.generation ? o : n);
+        if (now - lastPruneAt.get() > expiryNanos) {
+            long prevPruneAt = lastPruneAt.get();
+            if (now - prevPruneAt > expiryNanos && lastPruneAt.compareAndSet(prevPruneAt, now)) {
+                prune(now);
+            }
+        }
+    }
+
+    @Override
+    public void reset() {
+        // the range may be restored from snapshot or changed boundary, none of the cached chunks is trustable
+        baseGeneration.accumulateAndGet(generationSeq.incrementAndGet(), Math::max);
+        invalidations.clear();
+        chunks.invalidateAll();
+    }
+
+    @Override
+    public void close() {
+        reset();
+        Metrics.globalRegistry.remove(hitCounter);
+        Metrics.globalRegistry.remove(missCounter);
+        Metrics.globalRegistry.remove(hitRatioGauge);
+        Metrics.globalRegistry.remove(sizeGauge);
+    }
+
+    private long invalidatedAt(ByteString queuePrefix) {
+        // look up the record before the base, so a concurrently pruned record is covered by the raised base
+        Invalidation invalidation = invalidations.get(queuePrefix);
+        long base = baseGeneration.get();
+        return invalidation == null ? base : Math.max(invalidation.generation, base);
+    }
+
+    private void prune(long now) {
+        invalidations.forEach((queuePrefix, invalidation) -> {
+            // the chunks read before the invalidation are expired by now, except the ones put by very slow readers,
+            // which the raised base still rejects
+            if (now - invalidation.invalidatedAt > expiryNanos) {
+                baseGeneration.accumulateAndGet(invalidation.generation, Math::max);
+                invalidations.remove(queuePrefix, invalidation);
+            }
+        });
+    }
+
+    private double hitRatio() {
+        double hit = hitCounter.count();
+        double total = hit + missCounter.count();
+        return total == 0 ? 0 : hit / total;
+    }
+
+    private record CachedChunk(long generation, InboxMessageList chunk, int size) {
+    }
+
+    private record Invalidation(long generation, long invalidatedAt) {
+    }
+}
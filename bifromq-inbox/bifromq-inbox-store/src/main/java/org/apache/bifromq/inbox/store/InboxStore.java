@@ -71,6 +71,7 @@ class InboxStore implements IInboxStore {
                 builder.resourceThrottler,
                 builder.detachTimeout,
                 builder.metaCacheExpireTime,
+                builder.msgCacheSize,
                 builder.expireRateLimit);
         Map<String, IInboxStoreBalancerFactory> loadedFactories = BaseHookLoader.load(IInboxStoreBalancerFactory.class);
         for (String factoryName : builder.balancerFactoryConfig.keySet()) {
@@ -41,6 +41,7 @@ import org.apache.bifromq.plugin.settingprovider.ISettingProvider;
 import org.apache.bifromq.retain.client.IRetainClient;
 import org.apache.bifromq.sessiondict.client.ISessionDictClient;
 import org.apache.bifromq.sysprops.props.InboxMetaCacheExpirySeconds;
+import org.apache.bifromq.sysprops.props.InboxMsgCacheSizeMB;
 import org.apache.bifromq.sysprops.props.PersistentSessionDetachTimeoutSecond;
 
 /**
@@ -72,6 +73,7 @@ public class InboxStoreBuilder {
     Map<String, Struct> balancerFactoryConfig = new HashMap<>();
     Duration detachTimeout = Duration.ofSeconds(PersistentSessionDetachTimeoutSecond.INSTANCE.get());
     Duration metaCacheExpireTime = Duration.ofSeconds(InboxMetaCacheExpirySeconds.INSTANCE.get());
+    long msgCacheSize = InboxMsgCacheSizeMB.INSTANCE.get() * 1024L * 1024L;
     int expireRateLimit = 1000;
     Duration minGCInterval = Duration.ofMinutes(5);
     Duration maxGCInterval = Duration.ofHours(24);
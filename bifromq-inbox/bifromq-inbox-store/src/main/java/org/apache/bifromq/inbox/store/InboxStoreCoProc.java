@@ -45,6 +45,7 @@ import com.google.protobuf.ByteString;
 import com.google.protobuf.InvalidProtocolBufferException;
 import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedList;
@@ -55,6 +56,7 @@ import java.util.Set;
 import java.util.SortedMap;
 import java.util.TreeMap;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -165,6 +167,7 @@ import org.apache.bifromq.type.TopicMessagePack;
 @Slf4j
 final class InboxStoreCoProc implements IKVRangeCoProc {
     private static final int UINT_MAX = 0xFFFFFFFF;
+    private static final Duration MSG_CACHE_EXPIRY = Duration.ofMinutes(1);
     private final IDistClient distClient;
     private final IRetainClient retainClient;
     private final IInboxClient inboxClient;
@@ -173,9 +176,12 @@ final class InboxStoreCoProc implements IKVRangeCoProc {
     private final IEventCollector eventCollector;
     private final IResourceThrottler resourceThrottler;
     private final IInboxMetaCache inboxMetaCache;
+    private final IInboxMsgCache inboxMsgCache;
     private final ITenantStats tenantStats;
     private final IDelayTaskRunner<TenantInboxInstance> delayTaskRunner;
     private final Duration detachTimeout;
+    // the metadata keys written by the mutations whose after-mutate callbacks have not been run yet
+    private final Map<ByteString, Integer> pendingMetaKeys = new ConcurrentHashMap<>();
 
     InboxStoreCoProc(String clusterId,
                      String storeId,
@@ -190,6 +196,7 @@ final class InboxStoreCoProc implements IKVRangeCoProc {
                      Supplier<IKVRangeRefreshableReader> rangeReaderProvider,
                      Duration detachTimeout,
                      Duration metaCacheExpireTime,
+                     long msgCacheSize,
                      int expireRateLimit) {
         this.distClient = distClient;
         this.retainClient = retainClient;
@@ -199,6 +206,8 @@ final class InboxStoreCoProc implements IKVRangeCoProc {
         this.eventCollector = eventCollector;
         this.resourceThrottler = resourceThrottler;
         this.inboxMetaCache = new InboxMetaCache(metaCacheExpireTime);
+        this.inboxMsgCache = new InboxMsgCache(msgCacheSize, MSG_CACHE_EXPIRY, "clusterId", clusterId,
+            "storeId", storeId, "rangeId", KVRangeIdUtil.toString(id));
         this.tenantStats = new TenantsStats(rangeReaderProvider, "clusterId", clusterId,
             "storeId", storeId, "rangeId", KVRangeIdUtil.toString(id));
         this.delayTaskRunner = new DelayTaskRunner<>(TenantInboxInstance::compareTo, HLC.INST::getPhysical,
@@ -262,6 +271,8 @@ final class InboxStoreCoProc implements IKVRangeCoProc {
         InboxServiceRWCoProcInput coProcInput = input.getInboxService();
         InboxServiceRWCoProcOutput.Builder outputBuilder = InboxServiceRWCoProcOutput.newBuilder()
             .setReqId(coProcInput.getReqId());
+        List<ByteString> metaKeys = new ArrayList<>();
+        writer = trackMetaKeys(writer, metaKeys);
         AtomicReference<Runnable> afterMutate = new AtomicReference<>();
         switch (coProcInput.getTypeCase()) {
             case BATCHATTACH -> {
@@ -306,13 +317,21 @@ final class InboxStoreCoProc implements IKVRangeCoProc {
         RWCoProcOutput output = RWCoProcOutput.newBuilder().setInboxService(outputBuilder.build()).build();
         return () -> {
             afterMutate.get().run();
+            metaKeys.forEach(metaKey -> pendingMetaKeys.computeIfPresent(metaKey, (k, v) -> v > 1 ? v - 1 : null));
             return new MutationResult(output, Optional.empty());
         };
     }
 
+    @Override
+    public boolean supportGroupMutation() {
+        return true;
+    }
+
     @Override
     public Any reset(Boundary boundary) {
+        pendingMetaKeys.clear();
         inboxMetaCache.reset(boundary);
+        inboxMsgCache.reset();
         tenantStats.reset(boundary);
         return Any.getDefaultInstance();
     }
@@ -325,6 +344,7 @@ final class InboxStoreCoProc implements IKVRangeCoProc {
     @Override
     public void close() {
         inboxMetaCache.close();
+        inboxMsgCache.close();
         tenantStats.close();
         delayTaskRunner.shutdown();
     }
@@ -381,17 +401,24 @@ final class InboxStoreCoProc implements IKVRangeCoProc {
         InboxMetadata metadata = inboxMetadataOpt.get();
         ByteString inboxInstStartKey = inboxInstanceStartKey(params.getTenantId(), params.getInboxId(),
             params.getIncarnation());
-        // deal with qos0 queue
-        long startFetchFromSeq = !params.hasQos0StartAfter() ? metadata.getQos0StartSeq() :
-            Math.max(params.getQos0StartAfter() + 1, metadata.getQos0StartSeq());
-        fetchFromInbox(inboxInstStartKey, Integer.MAX_VALUE, metadata.getQos0StartSeq(), startFetchFromSeq,
-            metadata.getQos0NextSeq(), KVSchemaUtil::qos0MsgKey, Fetched.Builder::addQos0Msg, reader, replyBuilder);
-        // deal with qos12 queue
-        startFetchFromSeq = !params.hasSendBufferStartAfter() ? metadata.getSendBufferStartSeq() :
-            Math.max(params.getSendBufferStartAfter() + 1, metadata.getSendBufferStartSeq());
-        fetchFromInbox(inboxInstStartKey, params.getMaxFetch(), metadata.getSendBufferStartSeq(), startFetchFromSeq,
-            metadata.getSendBufferNextSeq(), KVSchemaUtil::bufferedMsgKey, Fetched.Builder::addSendBufferMsg, reader,
-            replyBuilder);
+        // scan both queues of the inbox instance with one iterator
+        try (IKVIterator itr = reader.iterator(Boundary.newBuilder()
+            .setStartKey(inboxInstStartKey)
+            .setEndKey(upperBound(inboxInstStartKey))
+            .build())) {
+            // deal with qos0 queue
+            long startFetchFromSeq = !params.hasQos0StartAfter() ? metadata.getQos0StartSeq() :
+                Math.max(params.getQos0StartAfter() + 1, metadata.getQos0StartSeq());
+            fetchFromInbox(inboxInstStartKey, Integer.MAX_VALUE, metadata.getQos0StartSeq(), startFetchFromSeq,
+                metadata.getQos0NextSeq(), KVSchemaUtil::qos0QueuePrefix, KVSchemaUtil::qos0MsgKey,
+                Fetched.Builder::addQos0Msg, itr, replyBuilder);
+            // deal with qos12 queue
+            startFetchFromSeq = !params.hasSendBufferStartAfter() ? metadata.getSendBufferStartSeq() :
+                Math.max(params.getSendBufferStartAfter() + 1, metadata.getSendBufferStartSeq());
+            fetchFromInbox(inboxInstStartKey, params.getMaxFetch(), metadata.getSendBufferStartSeq(),
+                startFetchFromSeq, metadata.getSendBufferNextSeq(), KVSchemaUtil::sendBufferPrefix,
+                KVSchemaUtil::bufferedMsgKey, Fetched.Builder::addSendBufferMsg, itr, replyBuilder);
+        }
         return replyBuilder.setResult(Fetched.Result.OK).build();
     }
 
@@ -401,39 +428,36 @@ final class InboxStoreCoProc implements IKVRangeCoProc {
                                 long startSeq,
                                 long startFetchFromSeq,
                                 long nextSeq,
+                                Function<ByteString, ByteString> queuePrefixGenerator,
                                 BiFunction<ByteString, Long, ByteString> keyGenerator,
                                 BiConsumer<Fetched.Builder, InboxMessage> messageConsumer,
-                                IKVRangeReader reader,
+                                IKVIterator itr,
                                 Fetched.Builder replyBuilder) {
         if (startFetchFromSeq < nextSeq) {
-            // locate the first record to scan
-            long currSeq = startSeq;
-            Optional<ByteString> currData = Optional.empty();
-            if (startFetchFromSeq > startSeq) {
-                Optional<ByteString> pointed = reader.get(keyGenerator.apply(inboxInstStartKey, startFetchFromSeq));
-                if (pointed.isPresent()) {
-                    currSeq = startFetchFromSeq; // jump to next chunk directly
-                    currData = pointed; // use pointed chunk as first record
-                }
-            }
-            if (currData.isEmpty()) {
-                // find first message chunk
-                currData = reader.get(keyGenerator.apply(inboxInstStartKey, currSeq));
-                // the currSeq may not reflect the latest seq of the first message when query is non-linearized
-                // it may point to the message was committed.
-                while (currData.isEmpty() && currSeq < nextSeq) {
-                    currSeq++;
-                    currData = reader.get(keyGenerator.apply(inboxInstStartKey, currSeq));
+            ByteString queuePrefix = queuePrefixGenerator.apply(inboxInstStartKey);
+            // observe the generation before reading, chunks read from an invalidated queue won't be hit
+            long generation = inboxMsgCache.generation();
+            // locate the chunk containing startFetchFromSeq, or the first chunk after startSeq.
+            // the startSeq may not reflect the latest seq of the first message when query is non-linearized,
+            // it may point to the message was committed.
+            itr.seekForPrev(keyGenerator.apply(inboxInstStartKey, startFetchFromSeq));
+            if (!itr.isValid()
+                || !itr.key().startsWith(queuePrefix)
+                || parseSeq(inboxInstStartKey, itr.key()) < startSeq) {
+                itr.seek(keyGenerator.apply(inboxInstStartKey, startSeq));
+            }
+            long expectedSeq = -1;
+            // scan forward through the contiguous chunks from located record
+            while (itr.isValid() && fetchCount > 0) {
+                ByteString chunkKey = itr.key();
+                if (!chunkKey.startsWith(queuePrefix)) {
+                    break;
                 }
-                // if current record not exists, nothing to scan
-                if (currData.isEmpty()) {
-                    return;
+                long chunkSeq = parseSeq(inboxInstStartKey, chunkKey);
+                if (chunkSeq >= nextSeq || (expectedSeq >= 0 && chunkSeq != expectedSeq)) {
+                    break;
                 }
-            }
-            // scan forward from located record
-            while (currData.isPresent() && fetchCount > 0) {
-                List<InboxMessage> messageList = ZeroCopyParser.parse(currData.get(),
-                    InboxMessageList.parser()).getMessageList();
+                List<InboxMessage> messageList = fetchChunk(chunkKey, generation, itr).getMessageList();
                 long lastSeq = messageList.get(messageList.size() - 1).getSeq();
                 if (lastSeq >= startFetchFromSeq) {
                     for (InboxMessage inboxMsg : messageList) {
@@ -444,12 +468,24 @@ final class InboxStoreCoProc implements IKVRangeCoProc {
                         }
                     }
                 }
-                currSeq = lastSeq + 1;
-                currData = reader.get(keyGenerator.apply(inboxInstStartKey, currSeq));
+                expectedSeq = lastSeq + 1;
+                itr.next();
             }
         }
     }
 
+    private InboxMessageList fetchChunk(ByteString chunkKey, long generation, IKVIterator itr)
+        throws InvalidProtocolBufferException {
+        Optional<InboxMessageList> cached = inboxMsgCache.get(chunkKey);
+        if (cached.isPresent()) {
+            return cached.get();
+        }
+        ByteString chunkData = itr.value();
+        InboxMessageList chunk = ZeroCopyParser.parse(chunkData, InboxMessageList.parser());
+        inboxMsgCache.put(chunkKey, generation, chunk, chunkData.size());
+        return chunk;
+    }
+
     private CompletableFuture<BatchFetchInboxStateReply> batchFetchInboxState(BatchFetchInboxStateRequest request,
                                                                               IKVRangeReader reader) {
         BatchFetchInboxStateReply.Builder replyBuilder = BatchFetchInboxStateReply.newBuilder();
@@ -906,8 +942,8 @@ final class InboxStoreCoProc implements IKVRangeCoProc {
         Map<InboxMetadata, List<InboxMessage>> dropedQoS0Msgs = new HashMap<>();
         Map<InboxMetadata, List<InboxMessage>> dropedBufferedMsg = new HashMap<>();
         for (BatchDeleteRequest.Params params : request.getParamsList()) {
-            Optional<InboxMetadata> metadataOpt = inboxMetaCache.get(params.getTenantId(), params.getInboxId(),
-                params.getVersion().getIncarnation(), this.inboxMetadataProvider(reader));
+            Optional<InboxMetadata> metadataOpt = getInboxMetadata(params.getTenantId(), params.getInboxId(),
+                params.getVersion().getIncarnation(), reader);
             if (metadataOpt.isEmpty()) {
                 replyBuilder.addResult(
                     BatchDeleteReply.Result.newBuilder().setCode(BatchDeleteReply.Code.NO_INBOX).build());
@@ -934,6 +970,7 @@ final class InboxStoreCoProc implements IKVRangeCoProc {
                 .putAllTopicFilters(metadata.getTopicFiltersMap()).build());
         }
         return () -> {
+            toBeRemoved.values().forEach(removed -> removed.keySet().forEach(this::invalidateMsgCache));
             if (isLeader) {
                 for (InboxMetadata inboxMetadata : dropedQoS0Msgs.keySet()) {
                     List<InboxMessage> dropedQoS0MsgList = dropedQoS0Msgs.get(inboxMetadata);
@@ -1006,8 +1043,8 @@ final class InboxStoreCoProc implements IKVRangeCoProc {
         Map<String, Map<InboxMetadata, Boolean>> toBeCached = new HashMap<>();
         Map<String, Integer> addedSubCounts = new HashMap<>();
         for (BatchSubRequest.Params params : request.getParamsList()) {
-            Optional<InboxMetadata> metadataOpt = inboxMetaCache.get(params.getTenantId(), params.getInboxId(),
-                params.getVersion().getIncarnation(), this.inboxMetadataProvider(reader));
+            Optional<InboxMetadata> metadataOpt = getInboxMetadata(params.getTenantId(), params.getInboxId(),
+                params.getVersion().getIncarnation(), reader);
             if (metadataOpt.isEmpty()) {
                 replyBuilder.addCode(BatchSubReply.Code.NO_INBOX);
                 continue;
@@ -1054,8 +1091,8 @@ final class InboxStoreCoProc implements IKVRangeCoProc {
         Map<String, Map<InboxMetadata, Boolean>> toBeCached = new HashMap<>();
         Map<String, Integer> removedSubCounts = new HashMap<>();
         for (BatchUnsubRequest.Params params : request.getParamsList()) {
-            Optional<InboxMetadata> metadataOpt = inboxMetaCache.get(params.getTenantId(), params.getInboxId(),
-                params.getVersion().getIncarnation(), this.inboxMetadataProvider(reader));
+            Optional<InboxMetadata> metadataOpt = getInboxMetadata(params.getTenantId(), params.getInboxId(),
+                params.getVersion().getIncarnation(), reader);
             if (metadataOpt.isEmpty()) {
                 replyBuilder.addResult(
                     BatchUnsubReply.Result.newBuilder().setCode(BatchUnsubReply.Code.NO_INBOX).build());
@@ -1291,10 +1328,11 @@ final class InboxStoreCoProc implements IKVRangeCoProc {
         Map<String, Map<InboxMetadata, Boolean>> toBeCached = new HashMap<>();
         Map<ClientInfo, Map<QoS, Integer>> dropCountMap = new HashMap<>();
         Map<ClientInfo, Boolean> dropOldestMap = new HashMap<>();
+        List<Runnable> msgCacheUpdates = new ArrayList<>();
         List<TopicMessagePack> pool = request.getTopicMessagePackList();
         for (BatchInsertRequest.InsertRef ref : request.getInsertRefList()) {
-            Optional<InboxMetadata> metadataOpt = inboxMetaCache.get(ref.getTenantId(), ref.getInboxId(),
-                ref.getIncarnation(), this.inboxMetadataProvider(reader));
+            Optional<InboxMetadata> metadataOpt = getInboxMetadata(ref.getTenantId(), ref.getInboxId(),
+                ref.getIncarnation(), reader);
             if (metadataOpt.isEmpty()) {
                 replyBuilder.addResult(InsertResult.newBuilder().setCode(InsertResult.Code.NO_INBOX).build());
                 continue;
@@ -1385,15 +1423,15 @@ final class InboxStoreCoProc implements IKVRangeCoProc {
             dropOldestMap.put(metadata.getClient(), metadata.getDropOldest());
             ByteString inboxInstStartKey = inboxInstanceStartKey(ref.getTenantId(), ref.getInboxId(),
                 ref.getIncarnation());
+            InsertResult.Builder resultBuilder = InsertResult.newBuilder().setCode(InsertResult.Code.OK);
             Map<QoS, Integer> dropCounts = insertInbox(inboxInstStartKey, qos0MsgList, bufferMsgList,
-                metadataBuilder, reader, writer);
+                metadataBuilder, ref.getReturnInserted() ? resultBuilder : null, msgCacheUpdates, reader, writer);
             metadata = metadataBuilder.build();
 
             Map<QoS, Integer> aggregated = dropCountMap.computeIfAbsent(metadata.getClient(), k -> new HashMap<>());
             dropCounts.forEach((qos, count) -> aggregated.compute(qos, (k, v) -> v == null ? count : v + count));
 
-            replyBuilder.addResult(InsertResult.newBuilder()
-                .setCode(InsertResult.Code.OK)
+            replyBuilder.addResult(resultBuilder
                 .addAllResult(insertResults)
                 .build());
 
@@ -1401,6 +1439,7 @@ final class InboxStoreCoProc implements IKVRangeCoProc {
             toBeCached.computeIfAbsent(ref.getTenantId(), k -> new HashMap<>()).put(metadata, false);
         }
         return () -> {
+            msgCacheUpdates.forEach(Runnable::run);
             updateTenantStates(toBeCached, isLeader);
             dropCountMap.forEach((client, dropCounts) -> dropCounts.forEach((qos, count) -> {
                 if (count > 0) {
@@ -1423,9 +1462,10 @@ final class InboxStoreCoProc implements IKVRangeCoProc {
         Map<String, Map<InboxMetadata, Boolean>> toBeCached = new HashMap<>();
         Map<ClientInfo, Map<QoS, Integer>> dropCountMap = new HashMap<>();
         Map<ClientInfo, Boolean> dropOldestMap = new HashMap<>();
+        List<Runnable> msgCacheUpdates = new ArrayList<>();
         for (InsertRequest params : request.getRequestList()) {
-            Optional<InboxMetadata> metadataOpt = inboxMetaCache.get(params.getTenantId(), params.getInboxId(),
-                params.getIncarnation(), this.inboxMetadataProvider(reader));
+            Optional<InboxMetadata> metadataOpt = getInboxMetadata(params.getTenantId(), params.getInboxId(),
+                params.getIncarnation(), reader);
             if (metadataOpt.isEmpty()) {
                 replyBuilder.addResult(InsertResult.newBuilder().setCode(InsertResult.Code.NO_INBOX).build());
                 continue;
@@ -1515,9 +1555,9 @@ final class InboxStoreCoProc implements IKVRangeCoProc {
             dropOldestMap.put(metadata.getClient(), metadata.getDropOldest());
             ByteString inboxInstStartKey = inboxInstanceStartKey(params.getTenantId(), params.getInboxId(),
                 params.getIncarnation());
+            InsertResult.Builder resultBuilder = InsertResult.newBuilder().setCode(InsertResult.Code.OK);
             Map<QoS, Integer> dropCounts = insertInbox(inboxInstStartKey, qos0MsgList, bufferMsgList,
-                metadataBuilder,
-                reader, writer);
+                metadataBuilder, params.getReturnInserted() ? resultBuilder : null, msgCacheUpdates, reader, writer);
             metadata = metadataBuilder.build();
 
             Map<QoS, Integer> aggregated = dropCountMap.computeIfAbsent(metadata.getClient(), k -> new HashMap<>());
@@ -1528,8 +1568,7 @@ final class InboxStoreCoProc implements IKVRangeCoProc {
                 return v + count;
             }));
 
-            replyBuilder.addResult(InsertResult.newBuilder()
-                .setCode(InsertResult.Code.OK)
+            replyBuilder.addResult(resultBuilder
                 .addAllResult(insertResults)
                 .build());
 
@@ -1538,6 +1577,7 @@ final class InboxStoreCoProc implements IKVRangeCoProc {
             toBeCached.computeIfAbsent(params.getTenantId(), k -> new HashMap<>()).put(metadata, false);
         }
         return () -> {
+            msgCacheUpdates.forEach(Runnable::run);
             updateTenantStates(toBeCached, isLeader);
             dropCountMap.forEach((client, dropCounts) -> dropCounts.forEach((qos, count) -> {
                 if (count > 0) {
@@ -1555,6 +1595,8 @@ final class InboxStoreCoProc implements IKVRangeCoProc {
                                           List<SubMessage> qos0MsgList,
                                           List<SubMessage> bufferedMsgList,
                                           InboxMetadata.Builder metaBuilder,
+                                          InsertResult.Builder insertedBuilder,
+                                          List<Runnable> msgCacheUpdates,
                                           IKVRangeReader reader,
                                           IKVWriter writer) {
         Map<QoS, Integer> dropCounts = new HashMap<>();
@@ -1563,24 +1605,47 @@ final class InboxStoreCoProc implements IKVRangeCoProc {
             long nextSeq = metaBuilder.getQos0NextSeq();
             int dropCount = insertToInbox(inboxKeyPrefix, startSeq, nextSeq, metaBuilder.getLimit(),
                 metaBuilder.getDropOldest(), KVSchemaUtil::qos0MsgKey, metaBuilder::setQos0StartSeq,
-                metaBuilder::setQos0NextSeq, qos0MsgList, reader, writer);
+                metaBuilder::setQos0NextSeq, qos0MsgList, msgCacheUpdates, reader, writer);
             if (dropCount > 0) {
                 dropCounts.put(QoS.AT_MOST_ONCE, dropCount);
             }
+            if (insertedBuilder != null) {
+                insertedBuilder.addAllQos0Msg(inserted(nextSeq, metaBuilder.getQos0StartSeq(),
+                    metaBuilder.getQos0NextSeq(), metaBuilder.getDropOldest(), qos0MsgList));
+            }
         }
         if (!bufferedMsgList.isEmpty()) {
             long startSeq = metaBuilder.getSendBufferStartSeq();
             long nextSeq = metaBuilder.getSendBufferNextSeq();
             int dropCount = insertToInbox(inboxKeyPrefix, startSeq, nextSeq, metaBuilder.getLimit(), false,
                 KVSchemaUtil::bufferedMsgKey, metaBuilder::setSendBufferStartSeq, metaBuilder::setSendBufferNextSeq,
-                bufferedMsgList, reader, writer);
+                bufferedMsgList, msgCacheUpdates, reader, writer);
             if (dropCount > 0) {
                 dropCounts.put(QoS.AT_LEAST_ONCE, dropCount);
             }
+            if (insertedBuilder != null) {
+                insertedBuilder.addAllSendBufferMsg(inserted(nextSeq, metaBuilder.getSendBufferStartSeq(),
+                    metaBuilder.getSendBufferNextSeq(), false, bufferedMsgList));
+            }
         }
         return dropCounts;
     }
 
+    private List<InboxMessage> inserted(long prevNextSeq,
+                                        long startSeq,
+                                        long nextSeq,
+                                        boolean dropOldest,
+                                        List<SubMessage> messages) {
+        // the new messages kept in queue: the tail ones if dropping oldest, otherwise the head ones
+        int keptCount = (int) (nextSeq - Math.max(prevNextSeq, startSeq));
+        if (keptCount <= 0) {
+            return Collections.emptyList();
+        }
+        List<SubMessage> keptMessages = dropOldest
+            ? messages.subList(messages.size() - keptCount, messages.size()) : messages.subList(0, keptCount);
+        return buildInboxMessageList(nextSeq - keptCount, keptMessages).getMessageList();
+    }
+
     @SneakyThrows
     private int insertToInbox(ByteString inboxKeyPrefix,
                               long startSeq,
@@ -1591,6 +1656,7 @@ final class InboxStoreCoProc implements IKVRangeCoProc {
                               Function<Long, InboxMetadata.Builder> startSeqSetter,
                               Function<Long, InboxMetadata.Builder> nextSeqSetter,
                               List<SubMessage> messages,
+                              List<Runnable> msgCacheUpdates,
                               IKVRangeReader reader,
                               IKVWriter writer) {
         int newMsgCount = messages.size();
@@ -1606,8 +1672,13 @@ final class InboxStoreCoProc implements IKVRangeCoProc {
                     if (dropCount > currCount) {
                         messages = messages.subList(dropCount - currCount, newMsgCount);
                     }
-                    writer.insert(keyGenerator.apply(inboxKeyPrefix, startSeq + dropCount),
-                        buildInboxMessageList(startSeq + dropCount, messages).toByteString());
+                    ByteString chunkKey = keyGenerator.apply(inboxKeyPrefix, startSeq + dropCount);
+                    InboxMessageList chunk = buildInboxMessageList(startSeq + dropCount, messages);
+                    writer.insert(chunkKey, chunk.toByteString());
+                    msgCacheUpdates.add(() -> {
+                        inboxMsgCache.invalidateQueue(InboxMsgCache.queuePrefix(chunkKey));
+                        inboxMsgCache.put(chunkKey, chunk);
+                    });
                 } else {
                     try (IKVIterator itr = reader.iterator(Boundary.newBuilder()
                         .setStartKey(inboxKeyPrefix)
@@ -1632,21 +1703,25 @@ final class InboxStoreCoProc implements IKVRangeCoProc {
                         }
                         writer.clear(Boundary.newBuilder().setStartKey(keyGenerator.apply(inboxKeyPrefix, startSeq))
                             .setEndKey(keyGenerator.apply(inboxKeyPrefix, startSeq + dropCount)).build());
+                        ByteString chunkKey = keyGenerator.apply(inboxKeyPrefix, startSeq + dropCount);
+                        InboxMessageList chunk = msgListBuilder.build();
                         if (beginSeq == startSeq + dropCount) {
                             // override existing key
-                            writer.put(keyGenerator.apply(inboxKeyPrefix, startSeq + dropCount),
-                                msgListBuilder.build().toByteString());
+                            writer.put(chunkKey, chunk.toByteString());
                         } else {
                             // insert new key
-                            writer.insert(keyGenerator.apply(inboxKeyPrefix, startSeq + dropCount),
-                                msgListBuilder.build().toByteString());
+                            writer.insert(chunkKey, chunk.toByteString());
                         }
+                        msgCacheUpdates.add(() -> {
+                            inboxMsgCache.invalidateQueue(InboxMsgCache.queuePrefix(chunkKey));
+                            inboxMsgCache.put(chunkKey, chunk);
+                        });
                     }
                 }
                 startSeq += dropCount;
             } else {
-                writer.insert(keyGenerator.apply(inboxKeyPrefix, nextSeq),
-                    buildInboxMessageList(nextSeq, messages).toByteString());
+                insertChunk(keyGenerator.apply(inboxKeyPrefix, nextSeq), buildInboxMessageList(nextSeq, messages),
+                    msgCacheUpdates, writer);
             }
             nextSeq += newMsgCount;
             startSeqSetter.apply(startSeq);
@@ -1654,8 +1729,8 @@ final class InboxStoreCoProc implements IKVRangeCoProc {
         } else {
             if (dropCount < newMsgCount) {
                 List<SubMessage> subMessages = dropCount > 0 ? messages.subList(0, newMsgCount - dropCount) : messages;
-                writer.insert(keyGenerator.apply(inboxKeyPrefix, nextSeq),
-                    buildInboxMessageList(nextSeq, subMessages).toByteString());
+                insertChunk(keyGenerator.apply(inboxKeyPrefix, nextSeq), buildInboxMessageList(nextSeq, subMessages),
+                    msgCacheUpdates, writer);
                 nextSeq += subMessages.size();
             }
             // else drop all new messages;
@@ -1665,6 +1740,15 @@ final class InboxStoreCoProc implements IKVRangeCoProc {
         return Math.max(dropCount, 0);
     }
 
+    private void insertChunk(ByteString chunkKey,
+                             InboxMessageList chunk,
+                             List<Runnable> msgCacheUpdates,
+                             IKVWriter writer) {
+        writer.insert(chunkKey, chunk.toByteString());
+        // the freshly inserted chunk is likely to be fetched soon
+        msgCacheUpdates.add(() -> inboxMsgCache.put(chunkKey, chunk));
+    }
+
     private InboxMessageList buildInboxMessageList(long beginSeq, List<SubMessage> subMessages) {
         InboxMessageList.Builder listBuilder = InboxMessageList.newBuilder();
         for (SubMessage subMessage : subMessages) {
@@ -1688,9 +1772,10 @@ final class InboxStoreCoProc implements IKVRangeCoProc {
                                  IKVRangeReader reader,
                                  IKVWriter writer) {
         Map<String, Map<InboxMetadata, Boolean>> toBeCached = new HashMap<>();
+        List<Runnable> msgCacheUpdates = new ArrayList<>();
         for (BatchCommitRequest.Params params : request.getParamsList()) {
-            Optional<InboxMetadata> metadataOpt = inboxMetaCache.get(params.getTenantId(), params.getInboxId(),
-                params.getVersion().getIncarnation(), inboxMetadataProvider(reader));
+            Optional<InboxMetadata> metadataOpt = getInboxMetadata(params.getTenantId(), params.getInboxId(),
+                params.getVersion().getIncarnation(), reader);
             if (metadataOpt.isEmpty()) {
                 replyBuilder.addCode(BatchCommitReply.Code.NO_INBOX);
                 continue;
@@ -1703,18 +1788,22 @@ final class InboxStoreCoProc implements IKVRangeCoProc {
                 params.getVersion().getIncarnation());
             InboxMetadata metadata = metadataOpt.get();
             InboxMetadata.Builder metaBuilder = metadata.toBuilder();
-            commitInbox(inboxInstStartKey, params, metaBuilder, reader, writer);
+            commitInbox(inboxInstStartKey, params, metaBuilder, msgCacheUpdates, reader, writer);
             metadata = metaBuilder.setLastActiveTime(params.getNow()).build();
             writer.put(inboxInstStartKey, metadata.toByteString());
             replyBuilder.addCode(BatchCommitReply.Code.OK);
             toBeCached.computeIfAbsent(params.getTenantId(), k -> new HashMap<>()).put(metadata, false);
         }
-        return () -> updateTenantStates(toBeCached, isLeader);
+        return () -> {
+            msgCacheUpdates.forEach(Runnable::run);
+            updateTenantStates(toBeCached, isLeader);
+        };
     }
 
     private void commitInbox(ByteString scopedInboxId,
                              BatchCommitRequest.Params params,
                              InboxMetadata.Builder metaBuilder,
+                             List<Runnable> msgCacheUpdates,
                              IKVRangeReader reader,
                              IKVWriter writer) {
         if (params.hasQos0UpToSeq()) {
@@ -1722,14 +1811,14 @@ final class InboxStoreCoProc implements IKVRangeCoProc {
             long nextSeq = metaBuilder.getQos0NextSeq();
             long commitSeq = params.getQos0UpToSeq();
             commitToInbox(scopedInboxId, startSeq, nextSeq, commitSeq, KVSchemaUtil::qos0MsgKey,
-                metaBuilder::setQos0StartSeq, reader, writer);
+                metaBuilder::setQos0StartSeq, msgCacheUpdates, reader, writer);
         }
         if (params.hasSendBufferUpToSeq()) {
             long startSeq = metaBuilder.getSendBufferStartSeq();
             long nextSeq = metaBuilder.getSendBufferNextSeq();
             long commitSeq = params.getSendBufferUpToSeq();
             commitToInbox(scopedInboxId, startSeq, nextSeq, commitSeq, KVSchemaUtil::bufferedMsgKey,
-                metaBuilder::setSendBufferStartSeq, reader, writer);
+                metaBuilder::setSendBufferStartSeq, msgCacheUpdates, reader, writer);
         }
     }
 
@@ -1740,13 +1829,14 @@ final class InboxStoreCoProc implements IKVRangeCoProc {
                                long commitSeq,
                                BiFunction<ByteString, Long, ByteString> keyGenerator,
                                Function<Long, InboxMetadata.Builder> metadataSetter,
+                               List<Runnable> msgCacheUpdates,
                                IKVRangeReader reader,
                                IKVWriter writer) {
         if (startSeq <= commitSeq && commitSeq < nextSeq) {
             // Fast path 1: delete directly when startSeq equals commitSeq
             // This path favors performance by removing the chunk at startSeq
             if (startSeq == commitSeq) {
-                writer.delete(keyGenerator.apply(scopedInboxId, startSeq));
+                deleteChunk(keyGenerator.apply(scopedInboxId, startSeq), msgCacheUpdates, writer);
                 metadataSetter.apply(startSeq + 1);
                 return;
             }
@@ -1755,10 +1845,12 @@ final class InboxStoreCoProc implements IKVRangeCoProc {
             // This removes all chunks whose key is in [startSeq, commitSeq + 1)
             Optional<ByteString> nextChunk = reader.get(keyGenerator.apply(scopedInboxId, commitSeq + 1));
             if (nextChunk.isPresent()) {
+                ByteString endChunkKey = keyGenerator.apply(scopedInboxId, commitSeq + 1);
                 writer.clear(Boundary.newBuilder()
                     .setStartKey(keyGenerator.apply(scopedInboxId, startSeq))
-                    .setEndKey(keyGenerator.apply(scopedInboxId, commitSeq + 1))
+                    .setEndKey(endChunkKey)
                     .build());
+                msgCacheUpdates.add(() -> inboxMsgCache.invalidateQueue(InboxMsgCache.queuePrefix(endChunkKey)));
                 metadataSetter.apply(commitSeq + 1);
                 return;
             }
@@ -1772,13 +1864,13 @@ final class InboxStoreCoProc implements IKVRangeCoProc {
                     .getMessageList();
                 long lastSeq = msgList.get(msgList.size() - 1).getSeq();
                 if (lastSeq <= commitSeq) {
-                    writer.delete(msgKey);
+                    deleteChunk(msgKey, msgCacheUpdates, writer);
                     startSeq = lastSeq + 1;
                 } else {
-                    writer.delete(msgKey);
+                    deleteChunk(msgKey, msgCacheUpdates, writer);
                     msgList = msgList.subList((int) (commitSeq - startSeq + 1), msgList.size());
-                    writer.insert(keyGenerator.apply(scopedInboxId, commitSeq + 1),
-                        InboxMessageList.newBuilder().addAllMessage(msgList).build().toByteString());
+                    insertChunk(keyGenerator.apply(scopedInboxId, commitSeq + 1),
+                        InboxMessageList.newBuilder().addAllMessage(msgList).build(), msgCacheUpdates, writer);
                     startSeq = commitSeq + 1;
                     break;
                 }
@@ -1787,6 +1879,18 @@ final class InboxStoreCoProc implements IKVRangeCoProc {
         }
     }
 
+    private void deleteChunk(ByteString chunkKey, List<Runnable> msgCacheUpdates, IKVWriter writer) {
+        writer.delete(chunkKey);
+        msgCacheUpdates.add(() -> inboxMsgCache.invalidate(chunkKey));
+    }
+
+    private void invalidateMsgCache(InboxMetadata metadata) {
+        ByteString inboxInstStartKey = inboxInstanceStartKey(metadata.getClient().getTenantId(),
+            metadata.getInboxId(), metadata.getIncarnation());
+        inboxMsgCache.invalidateQueue(qos0QueuePrefix(inboxInstStartKey));
+        inboxMsgCache.invalidateQueue(sendBufferPrefix(inboxInstStartKey));
+    }
+
     private CompletableFuture<ExpireTenantReply> expireTenant(ExpireTenantRequest request, IKVRangeReader reader) {
         return expireTenant(request.getTenantId(), ofSeconds(request.getExpirySeconds()), request.getNow(), reader)
             .thenApply(v -> ExpireTenantReply.newBuilder().build());
@@ -2039,6 +2143,52 @@ final class InboxStoreCoProc implements IKVRangeCoProc {
         return inboxInstances;
     }
 
+    private Optional<InboxMetadata> getInboxMetadata(String tenantId,
+                                                     String inboxId,
+                                                     long incarnation,
+                                                     IKVRangeReader reader) {
+        if (!pendingMetaKeys.isEmpty()
+            && pendingMetaKeys.containsKey(inboxInstanceStartKey(tenantId, inboxId, incarnation))) {
+            // the cached one may be stale before the callbacks of earlier mutations in the same group are run
+            return Optional.ofNullable(getInboxVersion(tenantId, inboxId, incarnation, reader));
+        }
+        return inboxMetaCache.get(tenantId, inboxId, incarnation, inboxMetadataProvider(reader));
+    }
+
+    private IKVWriter trackMetaKeys(IKVWriter writer, List<ByteString> metaKeys) {
+        return new IKVWriter() {
+            @Override
+            public void delete(ByteString key) {
+                track(key);
+                writer.delete(key);
+            }
+
+            @Override
+            public void clear(Boundary boundary) {
+                writer.clear(boundary);
+            }
+
+            @Override
+            public void insert(ByteString key, ByteString value) {
+                track(key);
+                writer.insert(key, value);
+            }
+
+            @Override
+            public void put(ByteString key, ByteString value) {
+                track(key);
+                writer.put(key, value);
+            }
+
+            private void track(ByteString key) {
+                if (isInboxInstanceStartKey(key)) {
+                    pendingMetaKeys.merge(key, 1, Integer::sum);
+                    metaKeys.add(key);
+                }
+            }
+        };
+    }
+
     private IInboxMetaCache.InboxMetadataProvider inboxMetadataProvider(IKVRangeReader reader) {
         return (tenantId, inboxId, incarnation) -> getInboxVersion(tenantId, inboxId, incarnation, reader);
     }
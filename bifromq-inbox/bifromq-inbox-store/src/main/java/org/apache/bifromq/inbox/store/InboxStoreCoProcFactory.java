@@ -53,6 +53,7 @@ public class InboxStoreCoProcFactory implements IKVRangeCoProcFactory {
     private final IResourceThrottler resourceThrottler;
     private final Duration detachTimeout;
     private final Duration metaCacheExpireTime;
+    private final long msgCacheSize;
     private final int expireRateLimit;
 
 
@@ -65,6 +66,7 @@ public class InboxStoreCoProcFactory implements IKVRangeCoProcFactory {
                                    IResourceThrottler resourceThrottler,
                                    Duration detachTimeout,
                                    Duration metaCacheExpireTime,
+                                   long msgCacheSize,
                                    int expireRateLimit) {
         this.distClient = distClient;
         this.inboxClient = inboxClient;
@@ -75,6 +77,7 @@ public class InboxStoreCoProcFactory implements IKVRangeCoProcFactory {
         this.resourceThrottler = resourceThrottler;
         this.detachTimeout = detachTimeout;
         this.metaCacheExpireTime = metaCacheExpireTime;
+        this.msgCacheSize = msgCacheSize;
         this.expireRateLimit = expireRateLimit;
     }
 
@@ -109,6 +112,7 @@ public class InboxStoreCoProcFactory implements IKVRangeCoProcFactory {
             rangeReaderProvider,
             detachTimeout,
             metaCacheExpireTime,
+            msgCacheSize,
             expireRateLimit);
     }
 
@@ -27,6 +27,7 @@ import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertTrue;
 
+import java.util.List;
 import java.util.function.BiFunction;
 import java.util.function.Function;
 import org.apache.bifromq.inbox.storage.proto.BatchAttachRequest;
@@ -975,6 +976,140 @@ public class InboxInsertTest extends InboxStoreTest {
         assertEquals(msgGetter(qos).apply(fetched, 1).getMsg().getMessage(), msg1.getMessage(0));
     }
 
+    protected void insertReturnInsertedDropOldest(QoS qos) {
+        long now = 0;
+        String tenantId = "tenantId-" + System.nanoTime();
+        String inboxId = "inboxId-" + System.nanoTime();
+        long incarnation = System.nanoTime();
+        String topicFilter = "/a/b/c";
+        attachAndSub(tenantId, inboxId, incarnation, topicFilter, qos, true, 2, now);
+
+        TopicMessagePack.PublisherPack msg0 = message(qos, "m0");
+        TopicMessagePack.PublisherPack msg1 = message(qos, "m1");
+        TopicMessagePack.PublisherPack msg2 = message(qos, "m2");
+        TopicMessagePack.PublisherPack msg3 = message(qos, "m3");
+
+        List<InboxMessage> inserted = insertedGetter(qos).apply(
+            requestInsert(insertRequest(tenantId, inboxId, incarnation, topicFilter, true, msg0)).get(0));
+        assertEquals(inserted.size(), 1);
+        assertEquals(inserted.get(0).getSeq(), 0);
+        assertEquals(inserted.get(0).getMsg().getMessage(), msg0.getMessage(0));
+
+        // the oldest ones in the batch are dropped, the kept tail continues right after the dropped seqs
+        inserted = insertedGetter(qos).apply(
+            requestInsert(insertRequest(tenantId, inboxId, incarnation, topicFilter, true, msg1, msg2, msg3)).get(0));
+        assertEquals(inserted.size(), 2);
+        assertEquals(inserted.get(0).getSeq(), 2);
+        assertEquals(inserted.get(0).getMsg().getMessage(), msg2.getMessage(0));
+        assertEquals(inserted.get(1).getSeq(), 3);
+        assertEquals(inserted.get(1).getMsg().getMessage(), msg3.getMessage(0));
+
+        Fetched fetched = requestFetch(BatchFetchRequest.Params.newBuilder()
+            .setTenantId(tenantId)
+            .setInboxId(inboxId)
+            .setIncarnation(incarnation)
+            .setMaxFetch(10)
+            .build())
+            .get(0);
+        assertEquals(msgCountGetter(qos).apply(fetched), 2);
+        assertEquals(msgGetter(qos).apply(fetched, 0), inserted.get(0));
+        assertEquals(msgGetter(qos).apply(fetched, 1), inserted.get(1));
+
+        // not requested
+        InsertResult result = requestInsert(insertRequest(tenantId, inboxId, incarnation, topicFilter, false, msg0))
+            .get(0);
+        assertEquals(result.getCode(), InsertResult.Code.OK);
+        assertTrue(insertedGetter(qos).apply(result).isEmpty());
+    }
+
+    protected void insertReturnInsertedDropYoungest(QoS qos) {
+        long now = 0;
+        String tenantId = "tenantId-" + System.nanoTime();
+        String inboxId = "inboxId-" + System.nanoTime();
+        long incarnation = System.nanoTime();
+        String topicFilter = "/a/b/c";
+        attachAndSub(tenantId, inboxId, incarnation, topicFilter, qos, false, 2, now);
+
+        TopicMessagePack.PublisherPack msg0 = message(qos, "m0");
+        TopicMessagePack.PublisherPack msg1 = message(qos, "m1");
+        TopicMessagePack.PublisherPack msg2 = message(qos, "m2");
+
+        List<InboxMessage> inserted = insertedGetter(qos).apply(
+            requestInsert(insertRequest(tenantId, inboxId, incarnation, topicFilter, true, msg0)).get(0));
+        assertEquals(inserted.size(), 1);
+        assertEquals(inserted.get(0).getSeq(), 0);
+        assertEquals(inserted.get(0).getMsg().getMessage(), msg0.getMessage(0));
+
+        // the youngest ones in the batch are dropped, only the head fitting the limit is kept
+        inserted = insertedGetter(qos).apply(
+            requestInsert(insertRequest(tenantId, inboxId, incarnation, topicFilter, true, msg1, msg2)).get(0));
+        assertEquals(inserted.size(), 1);
+        assertEquals(inserted.get(0).getSeq(), 1);
+        assertEquals(inserted.get(0).getMsg().getMessage(), msg1.getMessage(0));
+
+        // nothing kept when the queue is full
+        inserted = insertedGetter(qos).apply(
+            requestInsert(insertRequest(tenantId, inboxId, incarnation, topicFilter, true, msg2)).get(0));
+        assertTrue(inserted.isEmpty());
+
+        Fetched fetched = requestFetch(BatchFetchRequest.Params.newBuilder()
+            .setTenantId(tenantId)
+            .setInboxId(inboxId)
+            .setIncarnation(incarnation)
+            .setMaxFetch(10)
+            .build())
+            .get(0);
+        assertEquals(msgCountGetter(qos).apply(fetched), 2);
+        assertEquals(msgGetter(qos).apply(fetched, 1).getSeq(), 1);
+        assertEquals(msgGetter(qos).apply(fetched, 1).getMsg().getMessage(), msg1.getMessage(0));
+    }
+
+    private void attachAndSub(String tenantId,
+                              String inboxId,
+                              long incarnation,
+                              String topicFilter,
+                              QoS qos,
+                              boolean dropOldest,
+                              int limit,
+                              long now) {
+        InboxVersion inboxVersion = requestAttach(BatchAttachRequest.Params.newBuilder()
+            .setInboxId(inboxId)
+            .setIncarnation(incarnation)
+            .setExpirySeconds(2)
+            .setDropOldest(dropOldest)
+            .setLimit(limit)
+            .setClient(ClientInfo.newBuilder().setTenantId(tenantId).build())
+            .setNow(now)
+            .build()).get(0);
+        requestSub(BatchSubRequest.Params.newBuilder()
+            .setTenantId(tenantId)
+            .setInboxId(inboxId)
+            .setVersion(inboxVersion)
+            .setTopicFilter(topicFilter)
+            .setOption(TopicFilterOption.newBuilder().setQos(qos).build())
+            .setMaxTopicFilters(100)
+            .setNow(now)
+            .build());
+    }
+
+    private InsertRequest insertRequest(String tenantId,
+                                        String inboxId,
+                                        long incarnation,
+                                        String topicFilter,
+                                        boolean returnInserted,
+                                        TopicMessagePack.PublisherPack... msgs) {
+        return InsertRequest.newBuilder()
+            .setTenantId(tenantId)
+            .setInboxId(inboxId)
+            .setIncarnation(incarnation)
+            .addMessagePack(SubMessagePack.newBuilder()
+                .addMatchedRoute(MatchedRoute.newBuilder().setTopicFilter(topicFilter).setIncarnation(0L).build())
+                .setMessages(TopicMessagePack.newBuilder().setTopic(topicFilter).addAllMessage(List.of(msgs)).build())
+                .build())
+            .setReturnInserted(returnInserted)
+            .build();
+    }
+
     @Test(groups = "integration")
     public void insertQoS012() {
         long now = 0;
@@ -1057,6 +1192,13 @@ public class InboxInsertTest extends InboxStoreTest {
         };
     }
 
+    private Function<InsertResult, List<InboxMessage>> insertedGetter(QoS qos) {
+        return switch (qos) {
+            case AT_MOST_ONCE -> InsertResult::getQos0MsgList;
+            default -> InsertResult::getSendBufferMsgList;
+        };
+    }
+
     @Test(groups = "integration")
     public void commitDeleteRangeSendBuffer() {
         long now = 0;
@@ -0,0 +1,140 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.bifromq.inbox.store;
+
+import static org.apache.bifromq.inbox.store.schema.KVSchemaUtil.bufferedMsgKey;
+import static org.apache.bifromq.inbox.store.schema.KVSchemaUtil.inboxInstanceStartKey;
+import static org.apache.bifromq.inbox.store.schema.KVSchemaUtil.qos0MsgKey;
+import static org.apache.bifromq.inbox.store.schema.KVSchemaUtil.qos0QueuePrefix;
+import static org.apache.bifromq.inbox.store.schema.KVSchemaUtil.sendBufferPrefix;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import com.google.protobuf.ByteString;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import lombok.SneakyThrows;
+import org.apache.bifromq.inbox.storage.proto.InboxMessage;
+import org.apache.bifromq.inbox.storage.proto.InboxMessageList;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class InboxMsgCacheTest {
+    private final ByteString inboxInstStartKey = inboxInstanceStartKey("tenant", "inbox", 1);
+    private final InboxMessageList chunk = InboxMessageList.newBuilder()
+        .addMessage(InboxMessage.newBuilder().setSeq(0).build())
+        .build();
+    private SimpleMeterRegistry meterRegistry;
+    private InboxMsgCache cache;
+
+    @BeforeMethod
+    public void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        Metrics.addRegistry(meterRegistry);
+        cache = new InboxMsgCache(1024 * 1024, Duration.ofMinutes(1), "rangeId", "test");
+    }
+
+    @AfterMethod
+    public void tearDown() {
+        cache.close();
+        Metrics.removeRegistry(meterRegistry);
+    }
+
+    @Test
+    public void putAndGet() {
+        ByteString chunkKey = qos0MsgKey(inboxInstStartKey, 0);
+        assertFalse(cache.get(chunkKey).isPresent());
+        cache.put(chunkKey, chunk);
+        assertEquals(cache.get(chunkKey).get(), chunk);
+        assertEquals(meterRegistry.find("inbox.msg.cache.hit.ratio").gauge().value(), 0.5);
+    }
+
+    @Test
+    public void invalidateChunk() {
+        ByteString chunkKey = bufferedMsgKey(inboxInstStartKey, 0);
+        cache.put(chunkKey, chunk);
+        cache.invalidate(chunkKey);
+        assertFalse(cache.get(chunkKey).isPresent());
+    }
+
+    @Test
+    public void invalidateQueue() {
+        ByteString queuePrefix = qos0QueuePrefix(inboxInstStartKey);
+        ByteString chunkKey = qos0MsgKey(inboxInstStartKey, 0);
+        ByteString otherChunkKey = bufferedMsgKey(inboxInstStartKey, 0);
+        assertEquals(InboxMsgCache.queuePrefix(chunkKey), queuePrefix);
+
+        long generation = cache.generation();
+        cache.put(chunkKey, generation, chunk, chunk.getSerializedSize());
+        cache.put(otherChunkKey, chunk);
+        cache.invalidateQueue(queuePrefix);
+        assertFalse(cache.get(chunkKey).isPresent());
+        // chunk read before invalidation is obsolete
+        cache.put(chunkKey, generation, chunk, chunk.getSerializedSize());
+        assertFalse(cache.get(chunkKey).isPresent());
+        assertTrue(cache.get(otherChunkKey).isPresent());
+
+        cache.put(chunkKey, chunk);
+        assertTrue(cache.get(chunkKey).isPresent());
+    }
+
+    @SneakyThrows
+    @Test
+    public void rejectStaleChunkAfterInvalidationPruned() {
+        InboxMsgCache cache = new InboxMsgCache(1024 * 1024, Duration.ofMillis(200), "rangeId", "prune");
+        ByteString queuePrefix = qos0QueuePrefix(inboxInstStartKey);
+        ByteString chunkKey = qos0MsgKey(inboxInstStartKey, 0);
+        // a slow reader observed the generation before invalidation
+        long generation = cache.generation();
+        cache.invalidateQueue(queuePrefix);
+        Thread.sleep(300);
+        // prune the invalidation record of the queue
+        cache.invalidateQueue(sendBufferPrefix(inboxInstStartKey));
+        cache.put(chunkKey, generation, chunk, chunk.getSerializedSize());
+        assertFalse(cache.get(chunkKey).isPresent());
+
+        cache.put(chunkKey, cache.generation(), chunk, chunk.getSerializedSize());
+        assertTrue(cache.get(chunkKey).isPresent());
+        cache.close();
+    }
+
+    @Test
+    public void reset() {
+        ByteString chunkKey = qos0MsgKey(inboxInstStartKey, 0);
+        cache.put(chunkKey, chunk);
+        long generation = cache.generation();
+        cache.reset();
+        assertFalse(cache.get(chunkKey).isPresent());
+        cache.put(chunkKey, generation, chunk, chunk.getSerializedSize());
+        assertFalse(cache.get(chunkKey).isPresent());
+    }
+
+    @Test
+    public void disabled() {
+        InboxMsgCache disabled = new InboxMsgCache(0, Duration.ofMinutes(1), "rangeId", "disabled");
+        ByteString chunkKey = qos0MsgKey(inboxInstStartKey, 0);
+        disabled.put(chunkKey, chunk);
+        assertFalse(disabled.get(chunkKey).isPresent());
+        disabled.close();
+    }
+}
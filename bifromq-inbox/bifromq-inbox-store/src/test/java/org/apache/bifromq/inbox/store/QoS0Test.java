@@ -53,5 +53,15 @@ public class QoS0Test extends InboxInsertTest {
     public void insertDropYoungest() {
         insertDropYoungest(AT_MOST_ONCE);
     }
+
+    @Test(groups = "integration")
+    public void insertReturnInsertedDropOldest() {
+        insertReturnInsertedDropOldest(AT_MOST_ONCE);
+    }
+
+    @Test(groups = "integration")
+    public void insertReturnInsertedDropYoungest() {
+        insertReturnInsertedDropYoungest(AT_MOST_ONCE);
+    }
 }
 
@@ -53,5 +53,10 @@ public class QoS1Test extends InboxInsertTest {
     public void insertDropYoungest() {
         insertDropYoungest(AT_LEAST_ONCE);
     }
+
+    @Test(groups = "integration")
+    public void insertReturnInsertedDropYoungest() {
+        insertReturnInsertedDropYoungest(AT_LEAST_ONCE);
+    }
 }
 
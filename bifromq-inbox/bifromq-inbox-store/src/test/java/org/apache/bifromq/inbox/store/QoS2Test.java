@@ -53,5 +53,10 @@ public class QoS2Test extends InboxInsertTest {
     public void insertDropYoungest() {
         insertDropYoungest(EXACTLY_ONCE);
     }
+
+    @Test(groups = "integration")
+    public void insertReturnInsertedDropYoungest() {
+        insertReturnInsertedDropYoungest(EXACTLY_ONCE);
+    }
 }
 
@@ -19,16 +19,32 @@
 
 package org.apache.bifromq.mqtt.inbox;
 
+import io.grpc.MethodDescriptor;
 import org.apache.bifromq.baserpc.BluePrint;
+import org.apache.bifromq.baserpc.marshaller.OnWireTransformMarshaller;
 import org.apache.bifromq.mqtt.inbox.rpc.proto.BrokerServiceGrpc;
+import org.apache.bifromq.mqtt.inbox.rpc.proto.WriteRequest;
+import org.apache.bifromq.plugin.subbroker.MessagePackSplicer;
+import org.apache.bifromq.sysprops.props.DeliverySpliceMessagePack;
 
 public class RPCBluePrint {
     public static final BluePrint INSTANCE = BluePrint.builder()
         .serviceDescriptor(BrokerServiceGrpc.getServiceDescriptor())
-        .methodSemantic(BrokerServiceGrpc.getWriteMethod(), BluePrint.DDPipelineUnaryMethod.getInstance())
+        .methodSemantic(BrokerServiceGrpc.getWriteMethod(), BluePrint.DDPipelineUnaryMethod.getInstance(),
+            writeRequestMarshaller())
         .methodSemantic(BrokerServiceGrpc.getSubMethod(), BluePrint.DDUnaryMethod.getInstance())
         .methodSemantic(BrokerServiceGrpc.getUnsubMethod(), BluePrint.DDUnaryMethod.getInstance())
         .methodSemantic(BrokerServiceGrpc.getCheckSubscriptionsMethod(), BluePrint.DDUnaryMethod.getInstance())
         .methodSemantic(BrokerServiceGrpc.getStateMethod(), BluePrint.DDUnaryMethod.getInstance())
         .build();
+
+    private static MethodDescriptor.Marshaller<WriteRequest> writeRequestMarshaller() {
+        MethodDescriptor.Marshaller<WriteRequest> marshaller =
+            BrokerServiceGrpc.getWriteMethod().getRequestMarshaller();
+        if (!DeliverySpliceMessagePack.INSTANCE.get()) {
+            return marshaller;
+        }
+        return new OnWireTransformMarshaller<>(marshaller,
+            req -> req.toBuilder().setRequest(MessagePackSplicer.splice(req.getRequest())).build());
+    }
 }
@@ -48,6 +48,7 @@ import org.apache.bifromq.mqtt.handler.ConditionalRejectHandler;
 import org.apache.bifromq.mqtt.handler.ConnectionRateLimitHandler;
 import org.apache.bifromq.mqtt.handler.MQTTMessageDebounceHandler;
 import org.apache.bifromq.mqtt.handler.MQTTPreludeHandler;
+import org.apache.bifromq.mqtt.handler.MQTTPublishEncoder;
 import org.apache.bifromq.mqtt.handler.ProxyProtocolDetector;
 import org.apache.bifromq.mqtt.handler.ProxyProtocolHandler;
 import org.apache.bifromq.mqtt.handler.condition.DirectMemPressureCondition;
@@ -179,6 +180,7 @@ class MQTTBroker implements IMQTTBroker {
                     p.addLast("trafficShaper",
                         new ChannelTrafficShapingHandler(builder.writeLimit, builder.readLimit));
                     p.addLast(MqttEncoder.class.getName(), MqttEncoder.INSTANCE);
+                    p.addLast(MQTTPublishEncoder.NAME, MQTTPublishEncoder.INSTANCE);
                     // insert PacketFilter here
                     p.addLast(MqttDecoder.class.getName(), new MqttDecoder(builder.maxBytesInMessage));
                     p.addLast(MQTTMessageDebounceHandler.NAME, new MQTTMessageDebounceHandler());
@@ -204,6 +206,7 @@ class MQTTBroker implements IMQTTBroker {
                     p.addLast("trafficShaper",
                         new ChannelTrafficShapingHandler(builder.writeLimit, builder.readLimit));
                     p.addLast(MqttEncoder.class.getName(), MqttEncoder.INSTANCE);
+                    p.addLast(MQTTPublishEncoder.NAME, MQTTPublishEncoder.INSTANCE);
                     // insert PacketFilter here
                     p.addLast(MqttDecoder.class.getName(), new MqttDecoder(builder.maxBytesInMessage));
                     p.addLast(MQTTMessageDebounceHandler.NAME, new MQTTMessageDebounceHandler());
@@ -0,0 +1,187 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.bifromq.mqtt.handler;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * The ring of confirming messages ordered by their sequence numbers, which can be looked up by the packet id derived
+ * from the sequence number via {@link MQTTSessionIdUtil#packetId(long)}.
+ *
+ * <p>Sequence numbers are strictly increasing but not necessarily contiguous, so the lookup is a binary search for the
+ * candidate sequence numbers sharing the packet id. Messages are only removed from the head. The backing arrays are
+ * allocated on first use, grown by doubling and dropped when the ring becomes empty. Not thread-safe, it's meant to be
+ * accessed in the event loop of the channel.
+ *
+ * @param <E> the type of the confirming message
+ */
+public final class ConfirmingRing<E> implements Iterable<E> {
+    private static final int INIT_CAPACITY = 8;
+    private static final int PACKET_ID_SPAN = 65535;
+    private long[] seqs;
+    private Object[] elements;
+    private int head;
+    private int size;
+    private long polled; // the number of polled messages, used for locating the iterating one across polling
+
+    /**
+     * Append the message at the tail.
+     *
+     * @param seq     the sequence number, which must be greater than the one at the tail
+     * @param element the message
+     * @return false if the sequence number is out of order, or its packet id is in use
+     */
+    public boolean add(long seq, E element) {
+        if (size > 0 && (seq <= seqs[index(size - 1)] || get(MQTTSessionIdUtil.packetId(seq)) != null)) {
+            return false;
+        }
+        if (elements == null) {
+            seqs = new long[INIT_CAPACITY];
+            elements = new Object[INIT_CAPACITY];
+        } else if (size == elements.length) {
+            grow();
+        }
+        int i = index(size);
+        seqs[i] = seq;
+        elements[i] = element;
+        size++;
+        return true;
+    }
+
+    /**
+     * Get the message with the packet id.
+     *
+     * @param packetId the packet id
+     * @return the message or null if not found
+     */
+    public E get(int packetId) {
+        if (size == 0) {
+            return null;
+        }
+        long headSeq = seqs[index(0)];
+        long tailSeq = seqs[index(size - 1)];
+        int headPacketId = MQTTSessionIdUtil.packetId(headSeq);
+        long candidate = headSeq + Math.floorMod(packetId - headPacketId, PACKET_ID_SPAN);
+        for (; candidate <= tailSeq; candidate += PACKET_ID_SPAN) {
+            int found = search(candidate);
+            if (found >= 0) {
+                return elementAt(found);
+            }
+        }
+        return null;
+    }
+
+    public E peekFirst() {
+        return size == 0 ? null : elementAt(0);
+    }
+
+    public E pollFirst() {
+        if (size == 0) {
+            return null;
+        }
+        int i = index(0);
+        @SuppressWarnings("unchecked")
+        E element = (E) elements[i];
+        elements[i] = null;
+        head = (head + 1) & (elements.length - 1);
+        polled++;
+        if (--size == 0) {
+            seqs = null;
+            elements = null;
+            head = 0;
+        }
+        return element;
+    }
+
+    /**
+     * Iterate the messages from head to tail. Removing messages from the head and appending messages to the tail are
+     * allowed during iterating, the appended ones will be visited as well.
+     *
+     * @return the iterator
+     */
+    @Override
+    public Iterator<E> iterator() {
+        return new Iterator<>() {
+            private long pos = polled;
+
+            @Override
+            public boolean hasNext() {
+                pos = Math.max(pos, polled);
+                return pos < polled + size;
+            }
+
+            @Override
+            public E next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return elementAt((int) (pos++ - polled));
+            }
+        };
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    private int search(long seq) {
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            long midSeq = seqs[index(mid)];
+            if (midSeq < seq) {
+                low = mid + 1;
+            } else if (midSeq > seq) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    @SuppressWarnings("unchecked")
+    private E elementAt(int offset) {
+        return (E) elements[index(offset)];
+    }
+
+    private int index(int offset) {
+        return (head + offset) & (elements.length - 1);
+    }
+
+    private void grow() {
+        int capacity = elements.length << 1;
+        long[] newSeqs = new long[capacity];
+        Object[] newElements = new Object[capacity];
+        for (int i = 0; i < size; i++) {
+            newSeqs[i] = seqs[index(i)];
+            newElements[i] = elements[index(i)];
+        }
+        seqs = newSeqs;
+        elements = newElements;
+        head = 0;
+    }
+}
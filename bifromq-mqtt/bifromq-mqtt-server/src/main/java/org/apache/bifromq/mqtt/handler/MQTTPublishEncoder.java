@@ -0,0 +1,188 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.bifromq.mqtt.handler;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.MessageToMessageEncoder;
+import io.netty.handler.codec.mqtt.MqttFixedHeader;
+import io.netty.handler.codec.mqtt.MqttProperties;
+import io.netty.handler.codec.mqtt.MqttPublishMessage;
+import io.netty.handler.codec.mqtt.MqttPublishVariableHeader;
+import io.netty.handler.codec.mqtt.MqttVersion;
+import io.netty.util.AttributeKey;
+import java.util.List;
+
+/**
+ * The encoder for {@link SharedPayloadPublishMessage} whose payload buffer is shared among local subscribers. Unlike
+ * {@link io.netty.handler.codec.mqtt.MqttEncoder} which copies the payload into the packet buffer, only the fixed and
+ * variable header are encoded, and the payload is written as-is after them. Other messages including ordinary PUBLISH
+ * are left to MqttEncoder, so the encoder MUST be configured after MqttEncoder in the pipeline.
+ */
+@ChannelHandler.Sharable
+public final class MQTTPublishEncoder extends MessageToMessageEncoder<SharedPayloadPublishMessage> {
+    public static final String NAME = "MQTTPublishEncoder";
+    public static final MQTTPublishEncoder INSTANCE = new MQTTPublishEncoder();
+    // the attribute set by MqttDecoder when decoding CONNECT
+    private static final AttributeKey<MqttVersion> MQTT_VERSION_KEY = AttributeKey.valueOf("NETTY_CODEC_MQTT_VERSION");
+
+    private MQTTPublishEncoder() {
+    }
+
+    @Override
+    protected void encode(ChannelHandlerContext ctx, SharedPayloadPublishMessage msg, List<Object> out) {
+        MqttVersion version = ctx.channel().attr(MQTT_VERSION_KEY).get();
+        out.add(encode(ctx.alloc(), msg, version == null ? MqttVersion.MQTT_3_1_1 : version));
+    }
+
+    static ByteBuf encode(ByteBufAllocator alloc, MqttPublishMessage msg, MqttVersion version) {
+        MqttFixedHeader fixedHeader = msg.fixedHeader();
+        MqttPublishVariableHeader variableHeader = msg.variableHeader();
+        ByteBuf payload = msg.payload();
+        ByteBuf propertiesBuf = version == MqttVersion.MQTT_5
+            ? encodeProperties(alloc, variableHeader.properties()) : null;
+        try {
+            int topicBytes = ByteBufUtil.utf8Bytes(variableHeader.topicName());
+            int variableHeaderBytes = 2 + topicBytes
+                + (fixedHeader.qosLevel().value() > 0 ? 2 : 0)
+                + (propertiesBuf != null ? propertiesBuf.readableBytes() : 0);
+            int remainingLength = variableHeaderBytes + payload.readableBytes();
+            ByteBuf header = alloc.buffer(1 + varIntBytes(remainingLength) + variableHeaderBytes);
+            header.writeByte(firstByte(fixedHeader));
+            writeVarInt(header, remainingLength);
+            header.writeShort(topicBytes);
+            ByteBufUtil.reserveAndWriteUtf8(header, variableHeader.topicName(), topicBytes);
+            if (fixedHeader.qosLevel().value() > 0) {
+                header.writeShort(variableHeader.packetId());
+            }
+            if (propertiesBuf != null) {
+                header.writeBytes(propertiesBuf);
+            }
+            return Unpooled.wrappedBuffer(header, payload.retain());
+        } finally {
+            if (propertiesBuf != null) {
+                propertiesBuf.release();
+            }
+        }
+    }
+
+    private static int firstByte(MqttFixedHeader header) {
+        int ret = header.messageType().value() << 4;
+        if (header.isDup()) {
+            ret |= 0x08;
+        }
+        ret |= header.qosLevel().value() << 1;
+        if (header.isRetain()) {
+            ret |= 0x01;
+        }
+        return ret;
+    }
+
+    private static ByteBuf encodeProperties(ByteBufAllocator alloc, MqttProperties properties) {
+        ByteBuf propertiesBuf = alloc.buffer();
+        try {
+            for (MqttProperties.MqttProperty<?> property : properties.listAll()) {
+                MqttProperties.MqttPropertyType type = MqttProperties.MqttPropertyType.valueOf(property.propertyId());
+                switch (type) {
+                    case PAYLOAD_FORMAT_INDICATOR -> {
+                        writeVarInt(propertiesBuf, property.propertyId());
+                        propertiesBuf.writeByte((Integer) property.value());
+                    }
+                    case TOPIC_ALIAS -> {
+                        writeVarInt(propertiesBuf, property.propertyId());
+                        propertiesBuf.writeShort((Integer) property.value());
+                    }
+                    case PUBLICATION_EXPIRY_INTERVAL -> {
+                        writeVarInt(propertiesBuf, property.propertyId());
+                        propertiesBuf.writeInt((Integer) property.value());
+                    }
+                    case SUBSCRIPTION_IDENTIFIER -> {
+                        writeVarInt(propertiesBuf, property.propertyId());
+                        writeVarInt(propertiesBuf, (Integer) property.value());
+                    }
+                    case CONTENT_TYPE, RESPONSE_TOPIC -> {
+                        writeVarInt(propertiesBuf, property.propertyId());
+                        writeString(propertiesBuf, (String) property.value());
+                    }
+                    case CORRELATION_DATA -> {
+                        writeVarInt(propertiesBuf, property.propertyId());
+                        byte[] data = (byte[]) property.value();
+                        propertiesBuf.writeShort(data.length);
+                        propertiesBuf.writeBytes(data);
+                    }
+                    case USER_PROPERTY -> {
+                        Object value = property.value();
+                        if (value instanceof List<?> pairs) {
+                            for (Object pair : pairs) {
+                                writeUserProperty(propertiesBuf, property.propertyId(),
+                                    (MqttProperties.StringPair) pair);
+                            }
+                        } else {
+                            writeUserProperty(propertiesBuf, property.propertyId(), (MqttProperties.StringPair) value);
+                        }
+                    }
+                    default -> throw new IllegalArgumentException("Unexpected property type in PUBLISH: " + type);
+                }
+            }
+            ByteBuf buf = alloc.buffer(varIntBytes(propertiesBuf.readableBytes()) + propertiesBuf.readableBytes());
+            writeVarInt(buf, propertiesBuf.readableBytes());
+            buf.writeBytes(propertiesBuf);
+            return buf;
+        } finally {
+            propertiesBuf.release();
+        }
+    }
+
+    private static void writeUserProperty(ByteBuf buf, int propertyId, MqttProperties.StringPair pair) {
+        writeVarInt(buf, propertyId);
+        writeString(buf, pair.key);
+        writeString(buf, pair.value);
+    }
+
+    private static void writeString(ByteBuf buf, String value) {
+        int utf8Bytes = ByteBufUtil.utf8Bytes(value);
+        buf.writeShort(utf8Bytes);
+        ByteBufUtil.reserveAndWriteUtf8(buf, value, utf8Bytes);
+    }
+
+    private static void writeVarInt(ByteBuf buf, int num) {
+        do {
+            int digit = num & 0x7F;
+            num >>>= 7;
+            if (num > 0) {
+                digit |= 0x80;
+            }
+            buf.writeByte(digit);
+        } while (num > 0);
+    }
+
+    private static int varIntBytes(int num) {
+        int count = 0;
+        do {
+            num >>>= 7;
+            count++;
+        } while (num > 0);
+        return count;
+    }
+}
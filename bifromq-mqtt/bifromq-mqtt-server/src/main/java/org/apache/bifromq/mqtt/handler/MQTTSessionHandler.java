@@ -78,8 +78,6 @@ import io.netty.handler.codec.mqtt.MqttTopicSubscription;
 import io.netty.handler.codec.mqtt.MqttUnsubscribeMessage;
 import java.time.Duration;
 import java.util.HashSet;
-import java.util.Iterator;
-import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
@@ -185,9 +183,9 @@ public abstract class MQTTSessionHandler extends MQTTMessageHandler implements I
     private final MPSThrottler throttler;
     private final Set<CompletableFuture<?>> fgTasks = new HashSet<>();
     private final FutureTracker bgTasks = new FutureTracker();
-    private final Set<Integer> inUsePacketIds = new HashSet<>();
+    private final PacketIdSet inUsePacketIds = new PacketIdSet();
     private final IMQTTMessageSizer sizer;
-    private final LinkedHashMap<Integer, ConfirmingMessage> unconfirmedPacketIds = new LinkedHashMap<>();
+    private final ConfirmingRing<ConfirmingMessage> unconfirmedPacketIds = new ConfirmingRing<>();
     private final CompletableFuture<Void> onInitialized = new CompletableFuture<>();
     private final CompletableFuture<Void> tearDownSignal = new CompletableFuture<>();
     private AdaptiveReceiveQuota receiveQuota;
@@ -863,7 +861,7 @@ public abstract class MQTTSessionHandler extends MQTTMessageHandler implements I
     }
 
     protected final boolean isConfirming(int packetId) {
-        return unconfirmedPacketIds.containsKey(packetId);
+        return unconfirmedPacketIds.get(packetId) != null;
     }
 
     private RoutedMessage getConfirming(int packetId) {
@@ -896,12 +894,11 @@ public abstract class MQTTSessionHandler extends MQTTMessageHandler implements I
     private void confirm(ConfirmingMessage confirmingMsg, boolean delivered) {
         long now = sessionCtx.nanoTime();
         confirmingMsg.setAcked();
-        Iterator<Integer> packetIdItr = unconfirmedPacketIds.keySet().iterator();
-        while (packetIdItr.hasNext()) {
-            int packetId = packetIdItr.next();
-            ConfirmingMessage head = unconfirmedPacketIds.get(packetId);
+        ConfirmingMessage head;
+        while ((head = unconfirmedPacketIds.peekFirst()) != null) {
+            int packetId = head.packetId();
             if (head.acked) {
-                packetIdItr.remove();
+                unconfirmedPacketIds.pollFirst();
                 confirmingMsg = head;
                 long lastSentTimestamp = head.resendTimestamp > 0 ? head.resendTimestamp : head.timestamp;
                 RoutedMessage confirmed = confirmingMsg.message;
@@ -1059,6 +1056,10 @@ public abstract class MQTTSessionHandler extends MQTTMessageHandler implements I
                 .clientInfo(clientInfo()));
             return;
         }
+        if (msg.sharedPayload() != null) {
+            // write the payload encoded once for all local subscribers, the header is still built per session
+            pubMsg = new SharedPayloadPublishMessage(pubMsg, msg.sharedPayload().retainedDuplicate());
+        }
         memUsage.addAndGet(msgSize);
         write(pubMsg).addListener(f -> {
             memUsage.addAndGet(-msgSize);
@@ -1090,8 +1091,7 @@ public abstract class MQTTSessionHandler extends MQTTMessageHandler implements I
         assert seq > -1;
         assert unconfirmedPacketIds.size() < clientReceiveMaximum();
         ConfirmingMessage confirmingMessage = new ConfirmingMessage(seq, msg);
-        ConfirmingMessage prev = unconfirmedPacketIds.putIfAbsent(confirmingMessage.packetId(), confirmingMessage);
-        if (prev == null) {
+        if (unconfirmedPacketIds.add(seq, confirmingMessage)) {
             if (resendTask == null || resendTask.isDone()) {
                 scheduleResend();
             }
@@ -1286,7 +1286,7 @@ public abstract class MQTTSessionHandler extends MQTTMessageHandler implements I
     private void resend() {
         long now = sessionCtx.nanoTime();
         boolean flush = false;
-        for (ConfirmingMessage confirmingMsg : unconfirmedPacketIds.values()) {
+        for (ConfirmingMessage confirmingMsg : unconfirmedPacketIds) {
             if (confirmingMsg.sentCount <= settings.maxResendTimes) {
                 if (ctx.channel().isWritable()) {
                     if (confirmingMsg.sentCount == 0) {
@@ -40,20 +40,18 @@ import static org.apache.bifromq.plugin.resourcethrottler.TenantResourceType.Tot
 
 import com.google.common.collect.Sets;
 import io.micrometer.core.instrument.Timer;
+import io.netty.buffer.ByteBuf;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.handler.codec.mqtt.MqttMessage;
 import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-import java.util.NavigableMap;
 import java.util.Optional;
 import java.util.Set;
-import java.util.SortedMap;
-import java.util.TreeMap;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
@@ -93,14 +91,13 @@ import org.apache.bifromq.util.TopicUtil;
 public abstract class MQTTTransientSessionHandler extends MQTTSessionHandler implements IMQTTTransientSession {
     // the topicFilters could be accessed concurrently
     private final Map<String, TopicFilterOption> topicFilters = new ConcurrentHashMap<>();
-    private final NavigableMap<Long, RoutedMessage> inbox = new TreeMap<>();
+    private final SeqRing<RoutedMessage> inbox = new SeqRing<>();
     private final DedupCache dedupCache = new DedupCache(
         2 * DataPlaneMaxBurstLatencyMillis.INSTANCE.get(),
         MaxActiveDedupChannels.INSTANCE.get(),
         MaxActiveDedupTopicsPerChannel.INSTANCE.get()
     );
     private long nextSendSeq = 0;
-    private long msgSeqNo = 0;
     private AtomicLong subNumGauge;
 
     protected MQTTTransientSessionHandler(TenantSettings settings,
@@ -129,7 +126,7 @@ public abstract class MQTTTransientSessionHandler extends MQTTSessionHandler imp
         if (!topicFilters.isEmpty()) {
             topicFilters.forEach((topicFilter, option) -> addBgTask(unsubTopicFilter(System.nanoTime(), topicFilter)));
         }
-        for (RoutedMessage msg : inbox.values()) {
+        inbox.forEach(msg -> {
             memUsage.addAndGet(-msg.estBytes());
             if (msg.qos() == QoS.AT_LEAST_ONCE) {
                 eventCollector.report(getLocal(QoS1Dropped.class)
@@ -152,7 +149,7 @@ public abstract class MQTTTransientSessionHandler extends MQTTSessionHandler imp
                     .size(msg.message().getPayload().size())
                     .clientInfo(clientInfo()));
             }
-        }
+        });
         // Transient session lifetime is bounded by the channel lifetime
         eventCollector.report(getLocal(MQTTSessionStop.class).sessionId(userSessionId).clientInfo(clientInfo));
     }
@@ -171,11 +168,7 @@ public abstract class MQTTTransientSessionHandler extends MQTTSessionHandler imp
 
     @Override
     protected final void onConfirm(long seq) {
-        NavigableMap<Long, RoutedMessage> confirmed = inbox.headMap(seq, true);
-        for (RoutedMessage msg : confirmed.values()) {
-            memUsage.addAndGet(-msg.estBytes());
-        }
-        confirmed.clear();
+        inbox.removeUntil(seq, msg -> memUsage.addAndGet(-msg.estBytes()));
         send(false);
     }
 
@@ -305,6 +298,13 @@ public abstract class MQTTTransientSessionHandler extends MQTTSessionHandler imp
 
     @Override
     public Set<MatchedTopicFilter> publish(TopicMessagePack messagePack, Set<MatchedTopicFilter> matchedTopicFilters) {
+        return publish(messagePack, null, matchedTopicFilters);
+    }
+
+    @Override
+    public Set<MatchedTopicFilter> publish(TopicMessagePack messagePack,
+                                          SharedPayloads sharedPayloads,
+                                          Set<MatchedTopicFilter> matchedTopicFilters) {
         if (!ctx.channel().isActive()) {
             return matchedTopicFilters;
         }
@@ -319,7 +319,18 @@ public abstract class MQTTTransientSessionHandler extends MQTTSessionHandler imp
                 }
             }
         }
-        ctx.executor().execute(() -> publish(validTopicFilters, messagePack));
+        if (sharedPayloads != null) {
+            sharedPayloads.retain();
+        }
+        try {
+            ctx.executor().execute(() -> publish(validTopicFilters, messagePack, sharedPayloads));
+        } catch (RejectedExecutionException e) {
+            // the event loop is shutting down, nothing will be delivered
+            if (sharedPayloads != null) {
+                sharedPayloads.release();
+            }
+            return matchedTopicFilters;
+        }
         return Sets.difference(matchedTopicFilters, validTopicFilters.keySet());
     }
 
@@ -345,7 +356,8 @@ public abstract class MQTTTransientSessionHandler extends MQTTSessionHandler imp
     }
 
     private void publish(Map<MatchedTopicFilter, TopicFilterOption> matchedTopicFilters,
-                         TopicMessagePack topicMsgPack) {
+                         TopicMessagePack topicMsgPack,
+                         SharedPayloads sharedPayloads) {
         CompletableFuture<?>[] checkPermissionFutures = new CompletableFuture[matchedTopicFilters.size()];
         List<TopicFilterAndPermission> topicFilterAndPermissions = new ArrayList<>(matchedTopicFilters.size());
         int i = 0;
@@ -360,9 +372,16 @@ public abstract class MQTTTransientSessionHandler extends MQTTSessionHandler imp
 
         CompletableFuture.allOf(checkPermissionFutures)
             .thenAccept(v -> {
+                int msgIdx = 0;
                 for (TopicMessagePack.PublisherPack publisherPack : topicMsgPack.getMessageList()) {
                     publish(topicMsgPack.getTopic(), publisherPack.getPublisher(), publisherPack.getMessageList(),
-                        topicFilterAndPermissions);
+                        topicFilterAndPermissions, sharedPayloads, msgIdx);
+                    msgIdx += publisherPack.getMessageCount();
+                }
+            })
+            .whenComplete((v, e) -> {
+                if (sharedPayloads != null) {
+                    sharedPayloads.release();
                 }
             });
     }
@@ -370,23 +389,29 @@ public abstract class MQTTTransientSessionHandler extends MQTTSessionHandler imp
     private void publish(String topic,
                          ClientInfo publisher,
                          List<Message> messages,
-                         List<TopicFilterAndPermission> topicFilterAndPermissions) {
+                         List<TopicFilterAndPermission> topicFilterAndPermissions,
+                         SharedPayloads sharedPayloads,
+                         int msgIdx) {
         AtomicInteger totalMsgBytesSize = new AtomicInteger();
         long now = HLC.INST.get();
         boolean flush = false;
         for (Message message : messages) {
             // deduplicate messages based on topic and publisher
             for (TopicFilterAndPermission tfp : topicFilterAndPermissions) {
+                // only qos0 message is sent right away, so the shared payload won't outlive the publishing
+                ByteBuf sharedPayload = sharedPayloads != null
+                    && (message.getPubQoS() == QoS.AT_MOST_ONCE || tfp.option.getQos() == QoS.AT_MOST_ONCE)
+                    ? sharedPayloads.get(msgIdx, message.getPayload()) : null;
                 RoutedMessage subMsg = new RoutedMessage(topic, message, publisher, tfp.topicFilter, tfp.option, now,
                     tfp.permissionCheckFuture.join().hasGranted(),
-                    isDuplicateMessage(topic, publisher, message, dedupCache));
+                    isDuplicateMessage(topic, publisher, message, dedupCache), sharedPayload);
                 logInternalLatency(subMsg);
                 if (subMsg.qos() == QoS.AT_MOST_ONCE) {
                     sendQoS0SubMessage(subMsg);
                     flush = true;
                 } else {
                     if (inbox.size() < settings.inboxQueueLength) {
-                        inbox.put(msgSeqNo++, subMsg);
+                        inbox.add(subMsg);
                         totalMsgBytesSize.addAndGet(subMsg.estBytes());
                     } else {
                         switch (subMsg.qos()) {
@@ -415,26 +440,23 @@ public abstract class MQTTTransientSessionHandler extends MQTTSessionHandler imp
                     }
                 }
             }
+            msgIdx++;
         }
         memUsage.addAndGet(totalMsgBytesSize.get());
         send(flush);
     }
 
     private void send(boolean flushNeeded) {
-        SortedMap<Long, RoutedMessage> toBeSent = inbox.tailMap(nextSendSeq);
-        if (toBeSent.isEmpty()) {
+        long seq = Math.max(nextSendSeq, inbox.firstSeq());
+        if (seq >= inbox.nextSeq()) {
             if (flushNeeded) {
                 flush(true);
             }
             return;
         }
-        Iterator<Map.Entry<Long, RoutedMessage>> itr = toBeSent.entrySet().iterator();
-        while (clientReceiveQuota() > 0 && itr.hasNext()) {
-            Map.Entry<Long, RoutedMessage> entry = itr.next();
-            long seq = entry.getKey();
-            RoutedMessage msg = entry.getValue();
-            sendConfirmableSubMessage(seq, msg);
-            nextSendSeq = seq + 1;
+        while (clientReceiveQuota() > 0 && seq < inbox.nextSeq()) {
+            sendConfirmableSubMessage(seq, inbox.get(seq));
+            nextSendSeq = ++seq;
         }
         flush(true);
     }
@@ -0,0 +1,142 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.bifromq.mqtt.handler;
+
+/**
+ * The set of in-use packet ids of a session, backed by an open-addressing int array with linear probing.
+ *
+ * <p>Valid packet ids are in [1, 65535], so 0 marks the empty slot. The table is allocated on first use and dropped
+ * when the set becomes empty, so an idle session costs nothing. Not thread-safe, it's meant to be accessed in the
+ * event loop of the channel.
+ */
+public final class PacketIdSet {
+    private static final int INIT_CAPACITY = 8;
+    private int[] table;
+    private int size;
+
+    public boolean contains(int packetId) {
+        if (table == null) {
+            return false;
+        }
+        int mask = table.length - 1;
+        for (int i = hash(packetId) & mask; ; i = (i + 1) & mask) {
+            int slot = table[i];
+            if (slot == packetId) {
+                return true;
+            }
+            if (slot == 0) {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Add the packet id.
+     *
+     * @param packetId the packet id
+     * @return true if the packet id was not in the set
+     */
+    public boolean add(int packetId) {
+        assert packetId > 0 && packetId <= 65535;
+        if (table == null) {
+            table = new int[INIT_CAPACITY];
+        } else if ((size + 1) << 1 > table.length) {
+            // keep load factor under 0.5
+            rehash(table.length << 1);
+        }
+        int mask = table.length - 1;
+        for (int i = hash(packetId) & mask; ; i = (i + 1) & mask) {
+            int slot = table[i];
+            if (slot == packetId) {
+                return false;
+            }
+            if (slot == 0) {
+                table[i] = packetId;
+                size++;
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Remove the packet id.
+     *
+     * @param packetId the packet id
+     * @return true if the packet id was in the set
+     */
+    public boolean remove(int packetId) {
+        if (table == null) {
+            return false;
+        }
+        int mask = table.length - 1;
+        int i = hash(packetId) & mask;
+        while (table[i] != packetId) {
+            if (table[i] == 0) {
+                return false;
+            }
+            i = (i + 1) & mask;
+        }
+        if (--size == 0) {
+            table = null;
+            return true;
+        }
+        // backward shift the following entries of the probe sequence to fill the hole
+        int hole = i;
+        for (int j = (i + 1) & mask; table[j] != 0; j = (j + 1) & mask) {
+            int home = hash(table[j]) & mask;
+            // move the entry if its home slot is not in the cyclic range (hole, j]
+            if (((j - home) & mask) >= ((j - hole) & mask)) {
+                table[hole] = table[j];
+                hole = j;
+            }
+        }
+        table[hole] = 0;
+        return true;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    private void rehash(int capacity) {
+        int[] oldTable = table;
+        table = new int[capacity];
+        int mask = capacity - 1;
+        for (int packetId : oldTable) {
+            if (packetId != 0) {
+                int i = hash(packetId) & mask;
+                while (table[i] != 0) {
+                    i = (i + 1) & mask;
+                }
+                table[i] = packetId;
+            }
+        }
+    }
+
+    private static int hash(int packetId) {
+        // spread the sequentially assigned packet ids
+        int h = packetId * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
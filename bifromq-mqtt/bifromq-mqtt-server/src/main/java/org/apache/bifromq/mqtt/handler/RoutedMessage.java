@@ -19,6 +19,7 @@
 
 package org.apache.bifromq.mqtt.handler;
 
+import io.netty.buffer.ByteBuf;
 import lombok.Getter;
 import lombok.experimental.Accessors;
 import org.apache.bifromq.type.ClientInfo;
@@ -44,6 +45,7 @@ public class RoutedMessage {
     private final boolean isDup; // if duplicated because of internal retry, should be dropped before send
     private final long hlc;
     private final long inboxPos; // used in persistent session, the position in inbox
+    private final ByteBuf sharedPayload; // payload buffer shared among local subscribers, owned by SharedPayloads
 
     public RoutedMessage(String topic,
                          Message message,
@@ -53,7 +55,19 @@ public class RoutedMessage {
                          long hlc,
                          boolean permissionGranted,
                          boolean isDup) {
-        this(topic, message, publisher, topicFilter, option, hlc, permissionGranted, isDup, 0);
+        this(topic, message, publisher, topicFilter, option, hlc, permissionGranted, isDup, 0, null);
+    }
+
+    public RoutedMessage(String topic,
+                         Message message,
+                         ClientInfo publisher,
+                         String topicFilter,
+                         TopicFilterOption option,
+                         long hlc,
+                         boolean permissionGranted,
+                         boolean isDup,
+                         ByteBuf sharedPayload) {
+        this(topic, message, publisher, topicFilter, option, hlc, permissionGranted, isDup, 0, sharedPayload);
     }
 
     public RoutedMessage(String topic,
@@ -65,6 +79,19 @@ public class RoutedMessage {
                          boolean permissionGranted,
                          boolean isDup,
                          long inboxPos) {
+        this(topic, message, publisher, topicFilter, option, hlc, permissionGranted, isDup, inboxPos, null);
+    }
+
+    private RoutedMessage(String topic,
+                          Message message,
+                          ClientInfo publisher,
+                          String topicFilter,
+                          TopicFilterOption option,
+                          long hlc,
+                          boolean permissionGranted,
+                          boolean isDup,
+                          long inboxPos,
+                          ByteBuf sharedPayload) {
         this.topic = topic;
         this.message = message;
         this.publisher = publisher;
@@ -75,6 +102,7 @@ public class RoutedMessage {
         this.isDup = isDup;
         this.bytesSize = topic.length() + topicFilter.length() + message.getPayload().size();
         this.inboxPos = inboxPos;
+        this.sharedPayload = sharedPayload;
     }
 
     public boolean isRetain() {
@@ -0,0 +1,136 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.bifromq.mqtt.handler;
+
+import java.util.function.Consumer;
+
+/**
+ * The ring of messages keyed by contiguous sequence numbers, the sequence number is assigned when appending.
+ *
+ * <p>The backing array is allocated on first use, grown by doubling and dropped when the ring becomes empty. Not
+ * thread-safe, it's meant to be accessed in the event loop of the channel.
+ *
+ * @param <E> the type of the message
+ */
+public final class SeqRing<E> {
+    private static final int INIT_CAPACITY = 8;
+    private Object[] elements;
+    private int head;
+    private int size;
+    private long firstSeq;
+
+    /**
+     * Append the message at the tail.
+     *
+     * @param element the message
+     * @return the sequence number assigned
+     */
+    public long add(E element) {
+        if (elements == null) {
+            elements = new Object[INIT_CAPACITY];
+        } else if (size == elements.length) {
+            grow();
+        }
+        elements[index(size)] = element;
+        return firstSeq + size++;
+    }
+
+    /**
+     * Get the message of the sequence number.
+     *
+     * @param seq the sequence number
+     * @return the message or null if the sequence number is out of range
+     */
+    public E get(long seq) {
+        if (seq < firstSeq || seq >= nextSeq()) {
+            return null;
+        }
+        return elementAt((int) (seq - firstSeq));
+    }
+
+    /**
+     * Remove the messages up to the sequence number inclusively.
+     *
+     * @param seq       the sequence number
+     * @param onRemoved the callback for each removed message
+     */
+    public void removeUntil(long seq, Consumer<E> onRemoved) {
+        while (size > 0 && firstSeq <= seq) {
+            int i = index(0);
+            @SuppressWarnings("unchecked")
+            E element = (E) elements[i];
+            elements[i] = null;
+            head = (head + 1) & (elements.length - 1);
+            firstSeq++;
+            size--;
+            onRemoved.accept(element);
+        }
+        if (size == 0) {
+            elements = null;
+            head = 0;
+        }
+    }
+
+    public void forEach(Consumer<E> action) {
+        for (int i = 0; i < size; i++) {
+            action.accept(elementAt(i));
+        }
+    }
+
+    /**
+     * The sequence number of the head message, or the one to be assigned if empty.
+     */
+    public long firstSeq() {
+        return firstSeq;
+    }
+
+    /**
+     * The sequence number to be assigned to the next appended message.
+     */
+    public long nextSeq() {
+        return firstSeq + size;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    private E elementAt(int offset) {
+        return (E) elements[index(offset)];
+    }
+
+    private int index(int offset) {
+        return (head + offset) & (elements.length - 1);
+    }
+
+    private void grow() {
+        Object[] newElements = new Object[elements.length << 1];
+        for (int i = 0; i < size; i++) {
+            newElements[i] = elements[index(i)];
+        }
+        elements = newElements;
+        head = 0;
+    }
+}
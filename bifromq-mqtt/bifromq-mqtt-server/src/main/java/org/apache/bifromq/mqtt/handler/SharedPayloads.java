@@ -0,0 +1,112 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.bifromq.mqtt.handler;
+
+import com.google.protobuf.ByteString;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.util.AbstractReferenceCounted;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import org.apache.bifromq.type.Message;
+import org.apache.bifromq.type.TopicMessagePack;
+
+/**
+ * The payloads of a message pack shared by all local subscribers it's fanned out to. Each payload is copied into a
+ * direct buffer once on first use, and every subscriber writes a retained duplicate of it instead of encoding its own
+ * copy.
+ *
+ * <p>The holder is reference counted: the distributor holds the initial reference, and each session retains it before
+ * handing the pack over to its event loop and releases it once done. The buffers are released with the last reference.
+ */
+public final class SharedPayloads extends AbstractReferenceCounted {
+    private final ByteBufAllocator allocator;
+    private final AtomicReferenceArray<ByteBuf> payloads;
+
+    private SharedPayloads(ByteBufAllocator allocator, int msgCount) {
+        this.allocator = allocator;
+        this.payloads = new AtomicReferenceArray<>(msgCount);
+    }
+
+    /**
+     * Create the shared payloads for given message pack.
+     *
+     * @param allocator    the allocator for the payload buffers
+     * @param topicMsgPack the message pack
+     * @return the shared payloads, or null if there is no payload worth sharing in the pack
+     */
+    public static SharedPayloads of(ByteBufAllocator allocator, TopicMessagePack topicMsgPack) {
+        int msgCount = 0;
+        boolean hasPayload = false;
+        for (TopicMessagePack.PublisherPack publisherPack : topicMsgPack.getMessageList()) {
+            for (Message message : publisherPack.getMessageList()) {
+                msgCount++;
+                hasPayload |= !message.getPayload().isEmpty();
+            }
+        }
+        return hasPayload ? new SharedPayloads(allocator, msgCount) : null;
+    }
+
+    /**
+     * Get the shared payload buffer of the message at given position of the pack. The returned buffer is owned by the
+     * holder, callers should use {@link ByteBuf#retainedDuplicate()} to hand it over.
+     *
+     * @param msgIdx  the position of the message in the pack, counting across publisher packs
+     * @param payload the payload of the message
+     * @return the shared payload buffer, or null if the payload is empty
+     */
+    public ByteBuf get(int msgIdx, ByteString payload) {
+        if (payload.isEmpty()) {
+            return null;
+        }
+        ByteBuf buf = payloads.get(msgIdx);
+        if (buf == null) {
+            ByteBuf newBuf = allocator.directBuffer(payload.size(), payload.size());
+            newBuf.writeBytes(payload.asReadOnlyByteBuffer());
+            if (payloads.compareAndSet(msgIdx, null, newBuf)) {
+                buf = newBuf;
+            } else {
+                newBuf.release();
+                buf = payloads.get(msgIdx);
+            }
+        }
+        return buf;
+    }
+
+    @Override
+    public SharedPayloads retain() {
+        super.retain();
+        return this;
+    }
+
+    @Override
+    public SharedPayloads touch(Object hint) {
+        return this;
+    }
+
+    @Override
+    protected void deallocate() {
+        for (int i = 0; i < payloads.length(); i++) {
+            ByteBuf buf = payloads.getAndSet(i, null);
+            if (buf != null) {
+                buf.release();
+            }
+        }
+    }
+}
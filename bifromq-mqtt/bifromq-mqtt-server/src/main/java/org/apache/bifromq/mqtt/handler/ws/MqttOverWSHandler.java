@@ -24,6 +24,7 @@ import static org.apache.bifromq.mqtt.handler.condition.ORCondition.or;
 import org.apache.bifromq.mqtt.handler.ConditionalRejectHandler;
 import org.apache.bifromq.mqtt.handler.MQTTMessageDebounceHandler;
 import org.apache.bifromq.mqtt.handler.MQTTPreludeHandler;
+import org.apache.bifromq.mqtt.handler.MQTTPublishEncoder;
 import org.apache.bifromq.mqtt.handler.condition.DirectMemPressureCondition;
 import org.apache.bifromq.mqtt.handler.condition.HeapMemPressureCondition;
 import org.apache.bifromq.plugin.eventcollector.IEventCollector;
@@ -56,6 +57,7 @@ public class MqttOverWSHandler extends ChannelInboundHandlerAdapter {
             pipeline.addLast("ws2bytebufDecoder", new WebSocketFrameToByteBufDecoder());
             pipeline.addLast("bytebuf2wsEncoder", new ByteBufToWebSocketFrameEncoder());
             pipeline.addLast(MqttEncoder.class.getName(), MqttEncoder.INSTANCE);
+            pipeline.addLast(MQTTPublishEncoder.NAME, MQTTPublishEncoder.INSTANCE);
             // insert PacketFilter between Encoder
             pipeline.addLast(MqttDecoder.class.getName(), new MqttDecoder(maxMQTTConnectPacketSize));
             pipeline.addLast(MQTTMessageDebounceHandler.NAME, new MQTTMessageDebounceHandler());
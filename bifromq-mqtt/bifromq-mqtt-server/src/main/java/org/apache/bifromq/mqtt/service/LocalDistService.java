@@ -23,6 +23,7 @@ import static org.apache.bifromq.plugin.resourcethrottler.TenantResourceType.Tot
 import static org.apache.bifromq.metrics.TenantMetric.MqttTransientFanOutBytes;
 import static org.apache.bifromq.mqtt.inbox.util.DelivererKeyUtil.toDelivererKey;
 
+import org.apache.bifromq.mqtt.handler.SharedPayloads;
 import org.apache.bifromq.mqtt.session.IMQTTSession;
 import org.apache.bifromq.mqtt.session.IMQTTTransientSession;
 import org.apache.bifromq.plugin.subbroker.CheckReply;
@@ -34,6 +35,7 @@ import org.apache.bifromq.plugin.subbroker.DeliveryResult;
 import org.apache.bifromq.plugin.subbroker.DeliveryResults;
 import org.apache.bifromq.plugin.resourcethrottler.IResourceThrottler;
 import com.google.common.collect.Sets;
+import io.netty.buffer.PooledByteBufAllocator;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
@@ -174,20 +176,30 @@ public class LocalDistService implements ILocalDistService {
                 }
                 long msgPackSize = SizeUtil.estSizeOf(topicMsgPack);
                 int fanoutScale = 0;
-                for (Map.Entry<IMQTTTransientSession, Map<IMQTTTransientSession.MatchedTopicFilter, MatchInfo>> entry : matchedSessions.entrySet()) {
-                    IMQTTTransientSession session = entry.getKey();
-                    Map<IMQTTTransientSession.MatchedTopicFilter, MatchInfo> matchedTopics = entry.getValue();
-                    Set<IMQTTTransientSession.MatchedTopicFilter> obsoleted =
-                        session.publish(topicMsgPack, matchedTopics.keySet());
-                    for (IMQTTTransientSession.MatchedTopicFilter matchedTopic : matchedTopics.keySet()) {
-                        MatchInfo matchInfo = matchedTopics.get(matchedTopic);
-                        if (obsoleted.contains(matchedTopic)) {
-                            noSub.add(matchInfo);
-                        } else {
-                            ok.add(matchInfo);
-                            fanoutScale++;
+                // encode the payloads once when fanning out to more than one local session
+                SharedPayloads sharedPayloads = matchedSessions.size() > 1
+                    ? SharedPayloads.of(PooledByteBufAllocator.DEFAULT, topicMsgPack) : null;
+                try {
+                    for (Map.Entry<IMQTTTransientSession, Map<IMQTTTransientSession.MatchedTopicFilter, MatchInfo>> entry : matchedSessions.entrySet()) {
+                        IMQTTTransientSession session = entry.getKey();
+                        Map<IMQTTTransientSession.MatchedTopicFilter, MatchInfo> matchedTopics = entry.getValue();
+                        Set<IMQTTTransientSession.MatchedTopicFilter> obsoleted = sharedPayloads != null
+                            ? session.publish(topicMsgPack, sharedPayloads, matchedTopics.keySet())
+                            : session.publish(topicMsgPack, matchedTopics.keySet());
+                        for (IMQTTTransientSession.MatchedTopicFilter matchedTopic : matchedTopics.keySet()) {
+                            MatchInfo matchInfo = matchedTopics.get(matchedTopic);
+                            if (obsoleted.contains(matchedTopic)) {
+                                noSub.add(matchInfo);
+                            } else {
+                                ok.add(matchInfo);
+                                fanoutScale++;
+                            }
                         }
                     }
+                } finally {
+                    if (sharedPayloads != null) {
+                        sharedPayloads.release();
+                    }
                 }
                 totalFanOutBytes += msgPackSize * fanoutScale;
             }
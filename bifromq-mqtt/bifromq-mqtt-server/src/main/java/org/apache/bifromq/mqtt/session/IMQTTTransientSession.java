@@ -20,6 +20,7 @@
 package org.apache.bifromq.mqtt.session;
 
 import java.util.Set;
+import org.apache.bifromq.mqtt.handler.SharedPayloads;
 import org.apache.bifromq.type.InboxState;
 import org.apache.bifromq.type.TopicMessagePack;
 
@@ -38,6 +39,22 @@ public interface IMQTTTransientSession extends IMQTTSession {
      */
     Set<MatchedTopicFilter> publish(TopicMessagePack messagePack, Set<MatchedTopicFilter> matchedTopicFilters);
 
+    /**
+     * Publish message to the topic filters with the payloads shared among the local sessions the pack is fanned out
+     * to, and return the topic filters that are not subscribed. The session retains the shared payloads if it's going
+     * to use them, the caller still owns its own reference.
+     *
+     * @param messagePack         The message pack to publish.
+     * @param sharedPayloads      The shared payloads of the message pack.
+     * @param matchedTopicFilters The topic filters to publish.
+     * @return The topic filters that are not subscribed.
+     */
+    default Set<MatchedTopicFilter> publish(TopicMessagePack messagePack,
+                                            SharedPayloads sharedPayloads,
+                                            Set<MatchedTopicFilter> matchedTopicFilters) {
+        return publish(messagePack, matchedTopicFilters);
+    }
+
     /**
      * Get the inbox state of the session.
      *
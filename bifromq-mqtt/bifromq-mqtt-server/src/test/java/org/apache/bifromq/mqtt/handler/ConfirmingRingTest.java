@@ -0,0 +1,107 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.bifromq.mqtt.handler;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.testng.annotations.Test;
+
+public class ConfirmingRingTest {
+    @Test
+    public void addAndPoll() {
+        ConfirmingRing<String> ring = new ConfirmingRing<>();
+        assertTrue(ring.isEmpty());
+        assertNull(ring.peekFirst());
+        assertNull(ring.pollFirst());
+        assertNull(ring.get(1));
+        for (long seq = 0; seq < 20; seq++) {
+            assertTrue(ring.add(seq, "msg" + seq));
+        }
+        assertEquals(ring.size(), 20);
+        assertEquals(ring.get(MQTTSessionIdUtil.packetId(10)), "msg10");
+        for (long seq = 0; seq < 20; seq++) {
+            assertEquals(ring.peekFirst(), "msg" + seq);
+            assertEquals(ring.pollFirst(), "msg" + seq);
+        }
+        assertTrue(ring.isEmpty());
+    }
+
+    @Test
+    public void rejectOutOfOrderOrInUsePacketId() {
+        ConfirmingRing<String> ring = new ConfirmingRing<>();
+        assertTrue(ring.add(10, "msg10"));
+        assertFalse(ring.add(10, "dup"));
+        assertFalse(ring.add(5, "msg5"));
+        // same packet id as seq 10
+        assertFalse(ring.add(10 + 65535, "msg65545"));
+        ring.pollFirst();
+        assertTrue(ring.add(10 + 65535, "msg65545"));
+        assertEquals(ring.get(MQTTSessionIdUtil.packetId(10)), "msg65545");
+    }
+
+    @Test
+    public void lookupSparseSeqsAcrossWrap() {
+        ConfirmingRing<Long> ring = new ConfirmingRing<>();
+        List<Long> seqs = new ArrayList<>();
+        for (long seq = 65500; seq < 65535 * 3; seq += 997) {
+            assertTrue(ring.add(seq, seq));
+            seqs.add(seq);
+        }
+        for (int i = 0; i < seqs.size(); i++) {
+            if (i % 3 == 0) {
+                assertEquals(ring.pollFirst(), seqs.get(i));
+                continue;
+            }
+            for (int j = i; j < seqs.size(); j++) {
+                assertEquals(ring.get(MQTTSessionIdUtil.packetId(seqs.get(j))), seqs.get(j));
+            }
+            assertEquals(ring.pollFirst(), seqs.get(i));
+            assertTrue(ring.add(seqs.get(seqs.size() - 1) + i + 1, -1L));
+        }
+    }
+
+    @Test
+    public void iterateWhilePollingAndAdding() {
+        ConfirmingRing<Long> ring = new ConfirmingRing<>();
+        for (long seq = 0; seq < 10; seq++) {
+            ring.add(seq, seq);
+        }
+        List<Long> visited = new ArrayList<>();
+        for (Long seq : ring) {
+            visited.add(seq);
+            if (seq < 10) {
+                // remove the visited head and append a new one
+                ring.pollFirst();
+                ring.add(seq + 10, seq + 10);
+            }
+            if (seq == 12) {
+                break;
+            }
+        }
+        assertEquals(visited, List.of(0L, 1L, 2L, 3L, 4L, 5L, 6L, 7L, 8L, 9L, 10L, 11L, 12L));
+        assertEquals(ring.size(), 10);
+        assertEquals(ring.peekFirst(), 10L);
+    }
+}
@@ -0,0 +1,161 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.bifromq.mqtt.handler;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+import com.google.protobuf.ByteString;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.buffer.Unpooled;
+import io.netty.buffer.UnpooledByteBufAllocator;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.mqtt.MqttEncoder;
+import io.netty.handler.codec.mqtt.MqttFixedHeader;
+import io.netty.handler.codec.mqtt.MqttMessageType;
+import io.netty.handler.codec.mqtt.MqttProperties;
+import io.netty.handler.codec.mqtt.MqttPublishMessage;
+import io.netty.handler.codec.mqtt.MqttPublishVariableHeader;
+import io.netty.handler.codec.mqtt.MqttQoS;
+import io.netty.handler.codec.mqtt.MqttVersion;
+import io.netty.util.AttributeKey;
+import java.nio.charset.StandardCharsets;
+import org.apache.bifromq.type.ClientInfo;
+import org.apache.bifromq.type.Message;
+import org.apache.bifromq.type.TopicMessagePack;
+import org.testng.annotations.Test;
+
+public class MQTTPublishEncoderTest {
+    private static final AttributeKey<MqttVersion> MQTT_VERSION_KEY =
+        AttributeKey.valueOf("NETTY_CODEC_MQTT_VERSION");
+
+    @Test
+    public void encodeMQTT3() {
+        assertSameEncoding(publish(MqttQoS.AT_MOST_ONCE, false, false, "a/b", 0, MqttProperties.NO_PROPERTIES),
+            MqttVersion.MQTT_3_1_1);
+        assertSameEncoding(publish(MqttQoS.AT_LEAST_ONCE, true, true, "主题/b", 12, MqttProperties.NO_PROPERTIES),
+            MqttVersion.MQTT_3_1_1);
+    }
+
+    @Test
+    public void encodeMQTT5() {
+        MqttProperties properties = new MqttProperties();
+        properties.add(new MqttProperties.IntegerProperty(
+            MqttProperties.MqttPropertyType.PAYLOAD_FORMAT_INDICATOR.value(), 1));
+        properties.add(new MqttProperties.IntegerProperty(
+            MqttProperties.MqttPropertyType.PUBLICATION_EXPIRY_INTERVAL.value(), 3600));
+        properties.add(new MqttProperties.IntegerProperty(
+            MqttProperties.MqttPropertyType.TOPIC_ALIAS.value(), 5));
+        properties.add(new MqttProperties.StringProperty(
+            MqttProperties.MqttPropertyType.CONTENT_TYPE.value(), "text/plain"));
+        properties.add(new MqttProperties.StringProperty(
+            MqttProperties.MqttPropertyType.RESPONSE_TOPIC.value(), "resp"));
+        properties.add(new MqttProperties.BinaryProperty(
+            MqttProperties.MqttPropertyType.CORRELATION_DATA.value(), new byte[] {1, 2, 3}));
+        properties.add(new MqttProperties.UserProperty("k1", "v1"));
+        properties.add(new MqttProperties.UserProperty("k2", "v2"));
+        assertSameEncoding(publish(MqttQoS.AT_MOST_ONCE, false, true, "", 0, properties), MqttVersion.MQTT_5);
+        assertSameEncoding(publish(MqttQoS.EXACTLY_ONCE, true, false, "a/b", 1, properties), MqttVersion.MQTT_5);
+        assertSameEncoding(publish(MqttQoS.AT_MOST_ONCE, false, false, "a/b", 0, MqttProperties.NO_PROPERTIES),
+            MqttVersion.MQTT_5);
+    }
+
+    @Test
+    public void onlySharedPayload() {
+        EmbeddedChannel channel = new EmbeddedChannel(MqttEncoder.INSTANCE, MQTTPublishEncoder.INSTANCE);
+        ByteBuf payload = Unpooled.directBuffer().writeBytes("hello".getBytes(StandardCharsets.UTF_8));
+        MqttPublishMessage built = publish(MqttQoS.AT_MOST_ONCE, false, false, "a", 0, MqttProperties.NO_PROPERTIES);
+        channel.writeOutbound(new SharedPayloadPublishMessage(built, payload.retainedDuplicate()));
+        built.release();
+        ByteBuf encoded = channel.readOutbound();
+        assertEquals(encoded.readableBytes(), 2 + 3 + 5);
+        // the shared payload is not copied
+        assertTrue(encoded instanceof CompositeByteBuf);
+        encoded.release();
+        // and released along with the written packet
+        assertEquals(payload.refCnt(), 1);
+
+        // ordinary PUBLISH with direct payload is left to MqttEncoder
+        channel.writeOutbound(publish(MqttQoS.AT_MOST_ONCE, false, false, "a", 0, MqttProperties.NO_PROPERTIES)
+            .replace(payload.retainedDuplicate()));
+        encoded = channel.readOutbound();
+        assertEquals(encoded.readableBytes(), 2 + 3 + 5);
+        assertFalse(encoded instanceof CompositeByteBuf);
+        encoded.release();
+        assertEquals(payload.refCnt(), 1);
+        payload.release();
+        channel.finishAndReleaseAll();
+    }
+
+    @Test
+    public void sharedPayloads() {
+        TopicMessagePack pack = TopicMessagePack.newBuilder()
+            .setTopic("a")
+            .addMessage(TopicMessagePack.PublisherPack.newBuilder()
+                .setPublisher(ClientInfo.getDefaultInstance())
+                .addMessage(Message.newBuilder().setPayload(ByteString.copyFromUtf8("hello")).build())
+                .addMessage(Message.newBuilder().build())
+                .build())
+            .build();
+        SharedPayloads sharedPayloads = SharedPayloads.of(PooledByteBufAllocator.DEFAULT, pack);
+        ByteBuf payload = sharedPayloads.get(0, ByteString.copyFromUtf8("hello"));
+        assertTrue(payload.isDirect());
+        assertSame(sharedPayloads.get(0, ByteString.copyFromUtf8("hello")), payload);
+        assertNull(sharedPayloads.get(1, ByteString.EMPTY));
+        ByteBuf duplicate = payload.retainedDuplicate();
+        sharedPayloads.retain();
+        sharedPayloads.release();
+        assertTrue(sharedPayloads.release());
+        assertEquals(duplicate.toString(StandardCharsets.UTF_8), "hello");
+        assertTrue(duplicate.release());
+
+        assertNull(SharedPayloads.of(PooledByteBufAllocator.DEFAULT, TopicMessagePack.newBuilder()
+            .addMessage(TopicMessagePack.PublisherPack.newBuilder().addMessage(Message.newBuilder().build()))
+            .build()));
+    }
+
+    private void assertSameEncoding(MqttPublishMessage message, MqttVersion version) {
+        EmbeddedChannel channel = new EmbeddedChannel(MqttEncoder.INSTANCE);
+        channel.attr(MQTT_VERSION_KEY).set(version);
+        channel.writeOutbound(message.retainedDuplicate());
+        ByteBuf expected = channel.readOutbound();
+
+        ByteBuf encoded = MQTTPublishEncoder.encode(UnpooledByteBufAllocator.DEFAULT, message, version);
+        assertTrue(ByteBufUtil.equals(expected, encoded),
+            ByteBufUtil.hexDump(expected) + " != " + ByteBufUtil.hexDump(encoded));
+        assertFalse(channel.finishAndReleaseAll());
+        expected.release();
+        encoded.release();
+        message.release();
+    }
+
+    private MqttPublishMessage publish(MqttQoS qos, boolean dup, boolean retain, String topic, int packetId,
+                                       MqttProperties properties) {
+        ByteBuf payload = Unpooled.directBuffer().writeBytes("payload".getBytes(StandardCharsets.UTF_8));
+        return new MqttPublishMessage(new MqttFixedHeader(MqttMessageType.PUBLISH, dup, qos, retain, 0),
+            new MqttPublishVariableHeader(topic, packetId, properties), payload);
+    }
+}
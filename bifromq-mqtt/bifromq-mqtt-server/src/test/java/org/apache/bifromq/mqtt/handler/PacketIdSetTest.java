@@ -0,0 +1,71 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.bifromq.mqtt.handler;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import org.testng.annotations.Test;
+
+public class PacketIdSetTest {
+    @Test
+    public void addAndRemove() {
+        PacketIdSet packetIds = new PacketIdSet();
+        assertTrue(packetIds.isEmpty());
+        assertFalse(packetIds.contains(1));
+        assertFalse(packetIds.remove(1));
+
+        assertTrue(packetIds.add(1));
+        assertFalse(packetIds.add(1));
+        assertTrue(packetIds.add(65535));
+        assertTrue(packetIds.contains(1));
+        assertTrue(packetIds.contains(65535));
+        assertEquals(packetIds.size(), 2);
+
+        assertTrue(packetIds.remove(1));
+        assertFalse(packetIds.contains(1));
+        assertTrue(packetIds.remove(65535));
+        assertTrue(packetIds.isEmpty());
+    }
+
+    @Test
+    public void sameAsHashSet() {
+        Random random = new Random(1234);
+        PacketIdSet packetIds = new PacketIdSet();
+        Set<Integer> expected = new HashSet<>();
+        for (int i = 0; i < 200000; i++) {
+            // narrow range to make collisions and removals frequent
+            int packetId = 1 + random.nextInt(i % 2 == 0 ? 64 : 4096);
+            if (random.nextBoolean()) {
+                assertEquals(packetIds.add(packetId), expected.add(packetId));
+            } else {
+                assertEquals(packetIds.remove(packetId), expected.remove(packetId));
+            }
+            assertEquals(packetIds.size(), expected.size());
+        }
+        for (int packetId = 1; packetId <= 65535; packetId++) {
+            assertEquals(packetIds.contains(packetId), expected.contains(packetId));
+        }
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.bifromq.mqtt.handler;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.testng.annotations.Test;
+
+public class SeqRingTest {
+    @Test
+    public void addAndRemove() {
+        SeqRing<String> ring = new SeqRing<>();
+        assertTrue(ring.isEmpty());
+        assertNull(ring.get(0));
+        for (int i = 0; i < 20; i++) {
+            assertEquals(ring.add("msg" + i), i);
+        }
+        assertEquals(ring.size(), 20);
+        assertEquals(ring.firstSeq(), 0);
+        assertEquals(ring.nextSeq(), 20);
+        assertEquals(ring.get(15), "msg15");
+        assertNull(ring.get(20));
+
+        List<String> removed = new ArrayList<>();
+        ring.removeUntil(9, removed::add);
+        assertEquals(removed.size(), 10);
+        assertEquals(removed.get(9), "msg9");
+        assertEquals(ring.firstSeq(), 10);
+        assertNull(ring.get(9));
+        assertEquals(ring.get(10), "msg10");
+
+        ring.removeUntil(100, removed::add);
+        assertTrue(ring.isEmpty());
+        assertEquals(ring.firstSeq(), 20);
+        assertEquals(ring.add("msg20"), 20);
+        assertEquals(ring.get(20), "msg20");
+    }
+
+    @Test
+    public void wrapAround() {
+        SeqRing<Long> ring = new SeqRing<>();
+        long nextToRemove = 0;
+        for (long i = 0; i < 1000; i++) {
+            assertEquals(ring.add(i), i);
+            if (i % 3 == 0) {
+                ring.removeUntil(nextToRemove++, seq -> {
+                });
+            }
+        }
+        List<Long> remaining = new ArrayList<>();
+        ring.forEach(remaining::add);
+        assertEquals(remaining.size(), ring.size());
+        for (int i = 0; i < remaining.size(); i++) {
+            assertEquals(remaining.get(i), ring.firstSeq() + i);
+            assertEquals(ring.get(ring.firstSeq() + i), ring.firstSeq() + i);
+        }
+    }
+}
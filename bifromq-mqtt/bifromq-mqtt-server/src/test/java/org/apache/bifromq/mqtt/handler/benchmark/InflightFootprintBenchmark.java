@@ -0,0 +1,98 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.bifromq.mqtt.handler.benchmark;
+
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import lombok.SneakyThrows;
+import org.apache.bifromq.mqtt.handler.ConfirmingRing;
+import org.apache.bifromq.mqtt.handler.MQTTSessionIdUtil;
+import org.apache.bifromq.mqtt.handler.PacketIdSet;
+import org.apache.bifromq.mqtt.handler.SeqRing;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compare the per-connection heap footprint of the in-flight tracking structures of a session. Each invocation builds
+ * the state of one connection with given number of in-flight messages, check 'gc.alloc.rate.norm' for the bytes
+ * allocated per connection.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class InflightFootprintBenchmark {
+    private static final Object MSG = new Object();
+
+    @Param({"0", "16", "256"})
+    private int inflight;
+
+    @SneakyThrows
+    public static void main(String[] args) {
+        Options opt = new OptionsBuilder()
+            .include(InflightFootprintBenchmark.class.getSimpleName())
+            .addProfiler(GCProfiler.class)
+            .warmupIterations(3)
+            .measurementIterations(5)
+            .forks(1)
+            .build();
+        new Runner(opt).run();
+    }
+
+    @Benchmark
+    public Object boxedCollections() {
+        Set<Integer> inUsePacketIds = new HashSet<>();
+        Map<Integer, Object> unconfirmed = new LinkedHashMap<>();
+        NavigableMap<Long, Object> inbox = new TreeMap<>();
+        for (long seq = 0; seq < inflight; seq++) {
+            int packetId = MQTTSessionIdUtil.packetId(seq);
+            inUsePacketIds.add(packetId);
+            unconfirmed.put(packetId, MSG);
+            inbox.put(seq, MSG);
+        }
+        return new Object[] {inUsePacketIds, unconfirmed, inbox};
+    }
+
+    @Benchmark
+    public Object primitiveStructures() {
+        PacketIdSet inUsePacketIds = new PacketIdSet();
+        ConfirmingRing<Object> unconfirmed = new ConfirmingRing<>();
+        SeqRing<Object> inbox = new SeqRing<>();
+        for (long seq = 0; seq < inflight; seq++) {
+            inUsePacketIds.add(MQTTSessionIdUtil.packetId(seq));
+            unconfirmed.add(seq, MSG);
+            inbox.add(MSG);
+        }
+        return new Object[] {inUsePacketIds, unconfirmed, inbox};
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.bifromq.plugin.subbroker;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.google.protobuf.UnknownFieldSet;
+import org.apache.bifromq.type.TopicMessagePack;
+
+/**
+ * Splice the encoded message pack into the delivery request right before it goes on wire. The same message pack
+ * instance fanned out to many sub-broker servers is encoded only once, and receivers parse the spliced bytes as
+ * the ordinary 'messagePack' field.
+ */
+public class MessagePackSplicer {
+    private static final Cache<TopicMessagePack, UnknownFieldSet> SPLICED_CACHE = Caffeine.newBuilder()
+        .weakKeys()
+        .build();
+
+    /**
+     * Replace the message pack of every delivery pack with its cached encoding.
+     *
+     * @param request the delivery request
+     * @return the delivery request which is wire compatible with the original one
+     */
+    public static DeliveryRequest splice(DeliveryRequest request) {
+        DeliveryRequest.Builder requestBuilder = DeliveryRequest.newBuilder();
+        request.getPackageMap().forEach((tenantId, deliveryPackage) -> {
+            DeliveryPackage.Builder packageBuilder = DeliveryPackage.newBuilder();
+            for (DeliveryPack pack : deliveryPackage.getPackList()) {
+                if (pack.hasMessagePack()) {
+                    packageBuilder.addPack(pack.toBuilder()
+                        .clearMessagePack()
+                        .mergeUnknownFields(SPLICED_CACHE.get(pack.getMessagePack(), MessagePackSplicer::encode))
+                        .build());
+                } else {
+                    packageBuilder.addPack(pack);
+                }
+            }
+            requestBuilder.putPackage(tenantId, packageBuilder.build());
+        });
+        return requestBuilder.build();
+    }
+
+    private static UnknownFieldSet encode(TopicMessagePack messagePack) {
+        return UnknownFieldSet.newBuilder()
+            .addField(DeliveryPack.MESSAGEPACK_FIELD_NUMBER, UnknownFieldSet.Field.newBuilder()
+                .addLengthDelimited(messagePack.toByteString())
+                .build())
+            .build();
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.bifromq.plugin.subbroker;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertSame;
+
+import com.google.protobuf.ByteString;
+import org.apache.bifromq.type.ClientInfo;
+import org.apache.bifromq.type.MatchInfo;
+import org.apache.bifromq.type.Message;
+import org.apache.bifromq.type.TopicMessagePack;
+import org.testng.annotations.Test;
+
+public class MessagePackSplicerTest {
+    private final TopicMessagePack messagePack = TopicMessagePack.newBuilder()
+        .setTopic("a/b")
+        .addMessage(TopicMessagePack.PublisherPack.newBuilder()
+            .setPublisher(ClientInfo.newBuilder().setTenantId("tenant").build())
+            .addMessage(Message.newBuilder()
+                .setMessageId(1)
+                .setPayload(ByteString.copyFromUtf8("payload"))
+                .build())
+            .build())
+        .build();
+
+    @Test
+    public void wireCompatible() throws Exception {
+        DeliveryRequest request = DeliveryRequest.newBuilder()
+            .putPackage("tenant", DeliveryPackage.newBuilder()
+                .addPack(DeliveryPack.newBuilder()
+                    .setMessagePack(messagePack)
+                    .addMatchInfo(MatchInfo.newBuilder().setReceiverId("receiver1").build())
+                    .build())
+                .addPack(DeliveryPack.newBuilder()
+                    .addMatchInfo(MatchInfo.newBuilder().setReceiverId("receiver2").build())
+                    .build())
+                .build())
+            .build();
+        DeliveryRequest spliced = MessagePackSplicer.splice(request);
+        assertFalse(spliced.getPackageMap().get("tenant").getPack(0).hasMessagePack());
+        assertEquals(DeliveryRequest.parseFrom(spliced.toByteString()), request);
+    }
+
+    @Test
+    public void encodeOnce() {
+        DeliveryRequest request1 = DeliveryRequest.newBuilder()
+            .putPackage("tenant", DeliveryPackage.newBuilder()
+                .addPack(DeliveryPack.newBuilder().setMessagePack(messagePack).build())
+                .build())
+            .build();
+        DeliveryRequest request2 = DeliveryRequest.newBuilder()
+            .putPackage("tenant", DeliveryPackage.newBuilder()
+                .addPack(DeliveryPack.newBuilder().setMessagePack(messagePack).build())
+                .build())
+            .build();
+        ByteString encoded1 = MessagePackSplicer.splice(request1).getPackageMap().get("tenant").getPack(0)
+            .getUnknownFields().getField(DeliveryPack.MESSAGEPACK_FIELD_NUMBER).getLengthDelimitedList().get(0);
+        ByteString encoded2 = MessagePackSplicer.splice(request2).getPackageMap().get("tenant").getPack(0)
+            .getUnknownFields().getField(DeliveryPack.MESSAGEPACK_FIELD_NUMBER).getLengthDelimitedList().get(0);
+        assertSame(encoded1, encoded2);
+    }
+}
@@ -41,6 +41,7 @@ import org.apache.bifromq.retain.rpc.proto.RetainRequest;
 import org.apache.bifromq.retain.rpc.proto.RetainServiceGrpc;
 import org.apache.bifromq.retain.server.scheduler.IMatchCallScheduler;
 import org.apache.bifromq.retain.server.scheduler.IRetainCallScheduler;
+import org.apache.bifromq.retain.server.scheduler.MatchCursor;
 import org.apache.bifromq.retain.server.scheduler.MatchRetainedRequest;
 import org.apache.bifromq.retain.store.gc.IRetainStoreGCProcessor;
 import org.apache.bifromq.type.MatchInfo;
@@ -109,10 +110,28 @@ public class RetainService extends RetainServiceGrpc.RetainServiceImplBase {
     @Override
     public void match(MatchRequest request, StreamObserver<MatchReply> responseObserver) {
         log.trace("Handling match request:\n{}", request);
-        response((tenantId, metadata) -> matchCallScheduler
+        response((tenantId, metadata) -> matchAndDeliver(request, null)
+            .exceptionally(unwrap(e -> {
+                if (e instanceof BackPressureException) {
+                    return MatchReply.newBuilder()
+                        .setReqId(request.getReqId())
+                        .setResult(MatchReply.Result.BACK_PRESSURE_REJECTED)
+                        .build();
+                }
+                log.debug("Match failed", e);
+                return MatchReply.newBuilder()
+                    .setReqId(request.getReqId())
+                    .setResult(MatchReply.Result.ERROR)
+                    .build();
+            })), responseObserver);
+    }
+
+    private CompletableFuture<MatchReply> matchAndDeliver(MatchRequest request, MatchCursor cursor) {
+        return matchCallScheduler
             .schedule(new MatchRetainedRequest(request.getTenantId(),
                 request.getMatchInfo().getMatcher().getMqttTopicFilter(),
-                request.getLimit()))
+                request.getLimit(),
+                cursor))
             .thenCompose(matchCallResult -> {
                 if (Objects.requireNonNull(matchCallResult.result()) == MatchReply.Result.OK) {
                     MatchInfo matchInfo = request.getMatchInfo();
@@ -136,38 +155,28 @@ public class RetainService extends RetainServiceGrpc.RetainServiceImplBase {
                     ITenantMeter.get(request.getTenantId()).recordSummary(MqttRetainMatchedBytes, matchedBytes.get());
                     return CompletableFuture.allOf(deliveryResults.toArray(CompletableFuture[]::new))
                         .thenApply(v -> deliveryResults.stream().map(CompletableFuture::join))
-                        .thenApply(resultList -> {
-                            if (resultList.allMatch(r -> r == OK)) {
-                                return MatchReply.newBuilder()
-                                    .setReqId(request.getReqId())
-                                    .setResult(MatchReply.Result.OK)
-                                    .build();
-                            } else {
-                                return MatchReply.newBuilder()
+                        .thenCompose(resultList -> {
+                            if (!resultList.allMatch(r -> r == OK)) {
+                                return CompletableFuture.completedFuture(MatchReply.newBuilder()
                                     .setReqId(request.getReqId())
                                     .setResult(MatchReply.Result.ERROR)
-                                    .build();
+                                    .build());
+                            }
+                            if (matchCallResult.next() != null) {
+                                // fetch the next page only after the current one has been delivered
+                                return matchAndDeliver(request, matchCallResult.next());
                             }
+                            return CompletableFuture.completedFuture(MatchReply.newBuilder()
+                                .setReqId(request.getReqId())
+                                .setResult(MatchReply.Result.OK)
+                                .build());
                         });
                 }
                 return CompletableFuture.completedFuture(MatchReply.newBuilder()
                     .setReqId(request.getReqId())
                     .setResult(matchCallResult.result())
                     .build());
-            })
-            .exceptionally(unwrap(e -> {
-                if (e instanceof BackPressureException) {
-                    return MatchReply.newBuilder()
-                        .setReqId(request.getReqId())
-                        .setResult(MatchReply.Result.BACK_PRESSURE_REJECTED)
-                        .build();
-                }
-                log.debug("Match failed", e);
-                return MatchReply.newBuilder()
-                    .setReqId(request.getReqId())
-                    .setResult(MatchReply.Result.ERROR)
-                    .build();
-            })), responseObserver);
+            });
     }
 
     @Override
@@ -20,16 +20,22 @@
 package org.apache.bifromq.retain.server.scheduler;
 
 import static org.apache.bifromq.base.util.CompletableFutureUtil.unwrap;
+import static org.apache.bifromq.basekv.utils.BoundaryUtil.compareEndKeys;
+import static org.apache.bifromq.basekv.utils.BoundaryUtil.endKey;
 import static org.apache.bifromq.retain.rpc.proto.MatchReply.Result.OK;
+import static org.apache.bifromq.retain.server.scheduler.BatchMatchCallHelper.pagedMatch;
 import static org.apache.bifromq.retain.server.scheduler.BatchMatchCallHelper.parallelMatch;
-import static org.apache.bifromq.retain.server.scheduler.BatchMatchCallHelper.serialMatch;
 import static org.apache.bifromq.retain.server.scheduler.MatchCallRangeRouter.rangeLookup;
+import static org.apache.bifromq.retain.store.schema.KVSchemaUtil.retainMessageKey;
 import static org.apache.bifromq.util.TopicUtil.isWildcardTopicFilter;
 
+import com.google.protobuf.ByteString;
 import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.NavigableMap;
 import java.util.Optional;
@@ -47,6 +53,7 @@ import org.apache.bifromq.basekv.client.exception.TryLaterException;
 import org.apache.bifromq.basekv.proto.Boundary;
 import org.apache.bifromq.basekv.store.proto.KVRangeRORequest;
 import org.apache.bifromq.basekv.store.proto.ROCoProcInput;
+import org.apache.bifromq.basekv.utils.BoundaryUtil;
 import org.apache.bifromq.baserpc.client.exception.ServerNotFoundException;
 import org.apache.bifromq.basescheduler.IBatchCall;
 import org.apache.bifromq.basescheduler.ICallTask;
@@ -54,13 +61,19 @@ import org.apache.bifromq.plugin.settingprovider.ISettingProvider;
 import org.apache.bifromq.plugin.settingprovider.Setting;
 import org.apache.bifromq.retain.rpc.proto.BatchMatchReply;
 import org.apache.bifromq.retain.rpc.proto.BatchMatchRequest;
+import org.apache.bifromq.retain.rpc.proto.MatchPage;
 import org.apache.bifromq.retain.rpc.proto.MatchParam;
 import org.apache.bifromq.retain.rpc.proto.MatchReply;
 import org.apache.bifromq.retain.rpc.proto.MatchResult;
 import org.apache.bifromq.retain.rpc.proto.RetainServiceROCoProcInput;
+import org.apache.bifromq.sysprops.props.RetainMatchMaxReplicaLag;
+import org.apache.bifromq.sysprops.props.RetainMatchPageSize;
+import org.apache.bifromq.type.TopicMessage;
 
 @Slf4j
 class BatchMatchCall implements IBatchCall<MatchRetainedRequest, MatchRetainedResult, MatchCallBatcherKey> {
+    private static final long MAX_REPLICA_LAG = RetainMatchMaxReplicaLag.INSTANCE.get();
+    private static final int PAGE_SIZE = RetainMatchPageSize.INSTANCE.get();
     private final MatchCallBatcherKey batcherKey;
     private final IBaseKVStoreClient retainStoreClient;
     private final ISettingProvider settingProvider;
@@ -115,14 +128,32 @@ class BatchMatchCall implements IBatchCall<MatchRetainedRequest, MatchRetainedRe
             rangeLookup(batcherKey.tenantId(), nonWildcardTopicFilters, effectiveRouter);
         CompletableFuture<Map<String, MatchResult>> parallelMatchFutures =
             parallelMatch(reqId, now, parallelMatches, this::match);
-        CompletableFuture<Map<String, MatchResult>> wildcardMatchFuture;
+        CompletableFuture<Map<MatchPage, List<TopicMessage>>> wildcardMatchFuture;
+        int limit;
         if (wildcardTopicFilters.isEmpty()) {
+            limit = 0;
             wildcardMatchFuture = CompletableFuture.completedFuture(Collections.emptyMap());
         } else {
-            int limit = settingProvider.provide(Setting.RetainMessageMatchLimit, batcherKey.tenantId());
-            Map<KVRangeSetting, Set<String>> serialMatches =
-                rangeLookup(batcherKey.tenantId(), wildcardTopicFilters, effectiveRouter);
-            wildcardMatchFuture = serialMatch(reqId, now, serialMatches, limit, this::match);
+            limit = settingProvider.provide(Setting.RetainMessageMatchLimit, batcherKey.tenantId());
+            // candidate ranges of each wildcard topic filter in key order
+            Map<String, List<KVRangeSetting>> filterRanges = new HashMap<>();
+            rangeLookup(batcherKey.tenantId(), wildcardTopicFilters, effectiveRouter)
+                .forEach((rangeSetting, topicFilters) -> topicFilters.forEach(topicFilter ->
+                    filterRanges.computeIfAbsent(topicFilter, k -> new ArrayList<>()).add(rangeSetting)));
+            filterRanges.values().forEach(rangeSettings ->
+                rangeSettings.sort((r1, r2) -> BoundaryUtil.compare(r1.boundary(), r2.boundary())));
+            Map<MatchPage, List<KVRangeSetting>> pageRanges = new HashMap<>();
+            for (ICallTask<MatchRetainedRequest, MatchRetainedResult, MatchCallBatcherKey> task : tasks) {
+                if (isWildcardTopicFilter(task.call().topicFilter())) {
+                    pageRanges.computeIfAbsent(page(task.call(), limit), page ->
+                        filterRanges.getOrDefault(page.getTopicFilter(), Collections.emptyList()).stream()
+                            // skip the ranges before the page
+                            .filter(rangeSetting -> compareEndKeys(endKey(rangeSetting.boundary()),
+                                page.getAfterKey()) > 0)
+                            .toList());
+                }
+            }
+            wildcardMatchFuture = pagedMatch(reqId, now, pageRanges, this::matchPages);
         }
 
         return CompletableFuture.allOf(parallelMatchFutures, wildcardMatchFuture)
@@ -145,12 +176,18 @@ class BatchMatchCall implements IBatchCall<MatchRetainedRequest, MatchRetainedRe
                     }
                 } else {
                     // aggregate result from each reply
-                    Map<String, MatchResult> aggregatedResults = new HashMap<>();
-                    aggregatedResults.putAll(parallelMatchFutures.join());
-                    aggregatedResults.putAll(wildcardMatchFuture.join());
+                    Map<String, MatchResult> aggregatedResults = parallelMatchFutures.join();
+                    Map<MatchPage, List<TopicMessage>> pageResults = wildcardMatchFuture.join();
                     while ((task = tasks.poll()) != null) {
-                        MatchResult matchResult = aggregatedResults.get(task.call().topicFilter());
-                        task.resultPromise().complete(new MatchRetainedResult(OK, matchResult.getMessagesList()));
+                        if (isWildcardTopicFilter(task.call().topicFilter())) {
+                            MatchPage page = page(task.call(), limit);
+                            List<TopicMessage> retainMessages = pageResults.get(page);
+                            task.resultPromise().complete(new MatchRetainedResult(OK, retainMessages,
+                                next(task.call(), page, retainMessages, limit)));
+                        } else {
+                            MatchResult matchResult = aggregatedResults.get(task.call().topicFilter());
+                            task.resultPromise().complete(new MatchRetainedResult(OK, matchResult.getMessagesList()));
+                        }
                     }
                 }
                 return null;
@@ -167,8 +204,42 @@ class BatchMatchCall implements IBatchCall<MatchRetainedRequest, MatchRetainedRe
                 .getResultsMap());
     }
 
+    private CompletableFuture<List<MatchResult>> matchPages(long reqId, long now, List<MatchPage> pages,
+                                                            KVRangeSetting rangeSetting) {
+        BatchMatchRequest request = BatchMatchRequest.newBuilder().putMatchParams(batcherKey.tenantId(),
+            MatchParam.newBuilder().addAllPages(pages).setNow(now).build()).setReqId(reqId).build();
+        return queryCoProc(request, rangeSetting)
+            .thenApply(reply -> reply.getResultPackMap()
+                .get(batcherKey.tenantId())
+                .getPageResultsList());
+    }
+
+    private MatchPage page(MatchRetainedRequest request, int limit) {
+        MatchCursor cursor = request.cursor();
+        int matched = cursor == null ? 0 : cursor.matched();
+        return MatchPage.newBuilder()
+            .setTopicFilter(request.topicFilter())
+            .setAfterKey(cursor == null ? ByteString.EMPTY : cursor.afterKey())
+            .setLimit(Math.max(0, Math.min(PAGE_SIZE, limit - matched)))
+            .build();
+    }
+
+    private MatchCursor next(MatchRetainedRequest request,
+                             MatchPage page,
+                             List<TopicMessage> retainMessages,
+                             int limit) {
+        int matched = (request.cursor() == null ? 0 : request.cursor().matched()) + retainMessages.size();
+        // a partially filled page is the last one
+        if (retainMessages.isEmpty() || retainMessages.size() < page.getLimit() || matched >= limit) {
+            return null;
+        }
+        String lastTopic = retainMessages.get(retainMessages.size() - 1).getTopic();
+        return new MatchCursor(retainMessageKey(batcherKey.tenantId(), lastTopic), matched);
+    }
+
     private CompletableFuture<BatchMatchReply> queryCoProc(BatchMatchRequest request, KVRangeSetting rangeSetting) {
-        Optional<String> replica = rangeSetting.randomReplicaForQuery();
+        Optional<String> replica = MAX_REPLICA_LAG < 0
+            ? rangeSetting.randomReplicaForQuery() : rangeSetting.randomReplicaForQuery(MAX_REPLICA_LAG);
         if (replica.isEmpty()) {
             return CompletableFuture.failedFuture(new TryLaterException());
         }
@@ -20,6 +20,7 @@
 package org.apache.bifromq.retain.server.scheduler;
 
 import org.apache.bifromq.basekv.client.KVRangeSetting;
+import org.apache.bifromq.retain.rpc.proto.MatchPage;
 import org.apache.bifromq.retain.rpc.proto.MatchResult;
 import org.apache.bifromq.type.TopicMessage;
 import java.util.ArrayList;
@@ -107,6 +108,64 @@ class BatchMatchCallHelper {
         });
     }
 
+    /**
+     * Match pages across their candidate ranges, which are sorted in key order. A page is matched against the next
+     * range only if the previous ranges could not fill it, so the messages of each page are in key order.
+     */
+    static CompletableFuture<Map<MatchPage, List<TopicMessage>>> pagedMatch(
+        long reqId, long now, Map<MatchPage, List<KVRangeSetting>> pageRanges, IRetainPageMatcher matcher) {
+        Map<MatchPage, List<TopicMessage>> aggregated = new HashMap<>();
+        Map<MatchPage, Integer> nextRange = new HashMap<>();
+        for (MatchPage page : pageRanges.keySet()) {
+            aggregated.put(page, new ArrayList<>(page.getLimit()));
+            nextRange.put(page, 0);
+        }
+        return matchRound(reqId, now, pageRanges, nextRange, aggregated, matcher).thenApply(v -> aggregated);
+    }
+
+    private static CompletableFuture<Void> matchRound(long reqId, long now,
+                                                      Map<MatchPage, List<KVRangeSetting>> pageRanges,
+                                                      Map<MatchPage, Integer> nextRange,
+                                                      Map<MatchPage, List<TopicMessage>> aggregated,
+                                                      IRetainPageMatcher matcher) {
+        // group the unfilled pages by the range to match next, each range is queried once per round
+        Map<KVRangeSetting, List<MatchPage>> roundPages = new HashMap<>();
+        for (MatchPage page : pageRanges.keySet()) {
+            int rangeIdx = nextRange.get(page);
+            if (rangeIdx < pageRanges.get(page).size() && aggregated.get(page).size() < page.getLimit()) {
+                roundPages.computeIfAbsent(pageRanges.get(page).get(rangeIdx), k -> new ArrayList<>()).add(page);
+            }
+        }
+        if (roundPages.isEmpty()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        Map<KVRangeSetting, CompletableFuture<List<MatchResult>>> futures = new HashMap<>();
+        roundPages.forEach((rangeSetting, pages) -> {
+            List<MatchPage> remainingPages = pages.stream()
+                .map(page -> page.toBuilder().setLimit(page.getLimit() - aggregated.get(page).size()).build())
+                .toList();
+            futures.put(rangeSetting, matcher.match(reqId, now, remainingPages, rangeSetting));
+        });
+        return CompletableFuture.allOf(futures.values().toArray(CompletableFuture[]::new))
+            .thenCompose(v -> {
+                futures.forEach((rangeSetting, future) -> {
+                    List<MatchPage> pages = roundPages.get(rangeSetting);
+                    List<MatchResult> results = future.join();
+                    for (int i = 0; i < pages.size(); i++) {
+                        MatchPage page = pages.get(i);
+                        aggregated.get(page).addAll(results.get(i).getMessagesList());
+                        nextRange.computeIfPresent(page, (k, idx) -> idx + 1);
+                    }
+                });
+                return matchRound(reqId, now, pageRanges, nextRange, aggregated, matcher);
+            });
+    }
+
+    interface IRetainPageMatcher {
+        CompletableFuture<List<MatchResult>> match(long reqId, long now, List<MatchPage> pages,
+                                                   KVRangeSetting rangeSetting);
+    }
+
     interface IRetainMatcher {
         CompletableFuture<Map<String, MatchResult>> match(long reqId, long now, Map<String, Integer> topicFilters,
                                                           KVRangeSetting rangeSetting);
@@ -21,6 +21,9 @@ package org.apache.bifromq.retain.server.scheduler;
 
 import java.time.Duration;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import org.apache.bifromq.basekv.client.IBaseKVStoreClient;
 import org.apache.bifromq.basescheduler.BatchCallScheduler;
 import org.apache.bifromq.plugin.settingprovider.ISettingProvider;
@@ -29,12 +32,33 @@ import org.apache.bifromq.sysprops.props.DataPlaneMaxBurstLatencyMillis;
 public class MatchCallScheduler
     extends BatchCallScheduler<MatchRetainedRequest, MatchRetainedResult, MatchCallBatcherKey>
     implements IMatchCallScheduler {
+    // identical matches in flight, e.g. subscribe storm after clients reconnecting, share one lookup
+    private final ConcurrentMap<MatchRetainedRequest, CompletableFuture<MatchRetainedResult>> inflightMatches =
+        new ConcurrentHashMap<>();
 
     public MatchCallScheduler(IBaseKVStoreClient retainStoreClient, ISettingProvider settingProvider) {
         super((name, batcherKey) -> () -> new BatchMatchCall(batcherKey, retainStoreClient, settingProvider),
             Duration.ofMillis(DataPlaneMaxBurstLatencyMillis.INSTANCE.get()).toNanos());
     }
 
+    @Override
+    public CompletableFuture<MatchRetainedResult> schedule(MatchRetainedRequest request) {
+        CompletableFuture<MatchRetainedResult> onDone = new CompletableFuture<>();
+        CompletableFuture<MatchRetainedResult> inflight = inflightMatches.putIfAbsent(request, onDone);
+        if (inflight != null) {
+            return inflight.copy();
+        }
+        super.schedule(request).whenComplete((v, e) -> {
+            inflightMatches.remove(request, onDone);
+            if (e != null) {
+                onDone.completeExceptionally(e);
+            } else {
+                onDone.complete(v);
+            }
+        });
+        return onDone.copy();
+    }
+
     @Override
     protected Optional<MatchCallBatcherKey> find(MatchRetainedRequest call) {
         // TODO: implement multi batcher for tenant
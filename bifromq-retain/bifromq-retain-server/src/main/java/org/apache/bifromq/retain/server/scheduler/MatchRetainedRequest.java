@@ -19,5 +19,8 @@
 
 package org.apache.bifromq.retain.server.scheduler;
 
-public record MatchRetainedRequest(String tenantId, String topicFilter, int limit) {
+public record MatchRetainedRequest(String tenantId, String topicFilter, int limit, MatchCursor cursor) {
+    public MatchRetainedRequest(String tenantId, String topicFilter, int limit) {
+        this(tenantId, topicFilter, limit, null);
+    }
 }
@@ -23,6 +23,15 @@ import org.apache.bifromq.retain.rpc.proto.MatchReply;
 import org.apache.bifromq.type.TopicMessage;
 import java.util.List;
 
-public record MatchRetainedResult(MatchReply.Result result, List<TopicMessage> retainMessages) {
-
+/**
+ * The result of matching retained messages.
+ *
+ * @param result         the result code
+ * @param retainMessages the matched retained messages
+ * @param next           the cursor of the next page, null if no more pages
+ */
+public record MatchRetainedResult(MatchReply.Result result, List<TopicMessage> retainMessages, MatchCursor next) {
+    public MatchRetainedResult(MatchReply.Result result, List<TopicMessage> retainMessages) {
+        this(result, retainMessages, null);
+    }
 }
@@ -39,6 +39,7 @@ import org.apache.bifromq.retain.rpc.proto.RetainReply;
 import org.apache.bifromq.retain.rpc.proto.RetainRequest;
 import org.apache.bifromq.retain.server.scheduler.IMatchCallScheduler;
 import org.apache.bifromq.retain.server.scheduler.IRetainCallScheduler;
+import org.apache.bifromq.retain.server.scheduler.MatchCursor;
 import org.apache.bifromq.retain.server.scheduler.MatchRetainedResult;
 import org.apache.bifromq.retain.store.gc.IRetainStoreGCProcessor;
 import org.apache.bifromq.type.ClientInfo;
@@ -184,6 +185,40 @@ public class RetainServiceTest {
         assertEquals(req1.delivererKey.subBrokerId(), matchRequest.getBrokerId());
     }
 
+    @Test
+    public void testDeliverRetainMessagesInPages() {
+        TopicMessage retainMsg1 = TopicMessage.newBuilder().setTopic("topic1").setMessage(Message.newBuilder().build())
+            .setPublisher(ClientInfo.newBuilder().build()).build();
+        TopicMessage retainMsg2 = TopicMessage.newBuilder().setTopic("topic2").setMessage(Message.newBuilder().build())
+            .setPublisher(ClientInfo.newBuilder().build()).build();
+        MatchCursor cursor = new MatchCursor(ByteString.copyFromUtf8("topic1"), 1);
+        CompletableFuture<DeliveryCallResult> firstPageDelivered = new CompletableFuture<>();
+        when(matchCallScheduler.schedule(argThat(r -> r != null && r.cursor() == null))).thenReturn(
+            CompletableFuture.completedFuture(
+                new MatchRetainedResult(MatchReply.Result.OK, List.of(retainMsg1), cursor)));
+        when(matchCallScheduler.schedule(argThat(r -> r != null && cursor.equals(r.cursor())))).thenReturn(
+            CompletableFuture.completedFuture(new MatchRetainedResult(MatchReply.Result.OK, List.of(retainMsg2))));
+        when(messageDeliverer.schedule(any()))
+            .thenReturn(firstPageDelivered, CompletableFuture.completedFuture(DeliveryCallResult.OK));
+        MatchRequest matchRequest = MatchRequest.newBuilder().setReqId(1).setTenantId("tenant")
+            .setMatchInfo(MatchInfo.newBuilder().setMatcher(TopicUtil.from("#")).setReceiverId("inbox").build())
+            .setDelivererKey("delivererKey").setBrokerId(1).build();
+        service.match(matchRequest, matchResponseObserver);
+
+        // the next page is not fetched until the first one delivered
+        verify(matchCallScheduler, times(1)).schedule(any());
+        verify(matchResponseObserver, never()).onNext(any());
+
+        firstPageDelivered.complete(DeliveryCallResult.OK);
+        verify(matchCallScheduler, times(2)).schedule(any());
+        verify(matchResponseObserver).onNext(
+            argThat(r -> r.getReqId() == matchRequest.getReqId() && r.getResult() == MatchReply.Result.OK));
+        ArgumentCaptor<DeliveryCall> reqCaptor = ArgumentCaptor.forClass(DeliveryCall.class);
+        verify(messageDeliverer, times(2)).schedule(reqCaptor.capture());
+        assertEquals(reqCaptor.getAllValues().get(0).messagePackHolder.messagePack.getTopic(), retainMsg1.getTopic());
+        assertEquals(reqCaptor.getAllValues().get(1).messagePackHolder.messagePack.getTopic(), retainMsg2.getTopic());
+    }
+
     @Test
     public void testDeliverToNoInbox() {
         TopicMessage retainMsg1 = TopicMessage.newBuilder().setTopic("topic1").setMessage(Message.newBuilder().build())
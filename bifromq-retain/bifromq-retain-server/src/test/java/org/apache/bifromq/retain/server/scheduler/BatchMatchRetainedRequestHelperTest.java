@@ -32,12 +32,14 @@ import static org.testng.Assert.assertEquals;
 import com.google.protobuf.ByteString;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 import lombok.SneakyThrows;
 import org.apache.bifromq.basekv.client.KVRangeSetting;
 import org.apache.bifromq.basekv.proto.KVRangeDescriptor;
+import org.apache.bifromq.retain.rpc.proto.MatchPage;
 import org.apache.bifromq.retain.rpc.proto.MatchResult;
 import org.apache.bifromq.type.Message;
 import org.apache.bifromq.type.TopicMessage;
@@ -50,6 +52,8 @@ import org.testng.annotations.Test;
 public class BatchMatchRetainedRequestHelperTest {
     @Mock
     private BatchMatchCallHelper.IRetainMatcher matcher;
+    @Mock
+    private BatchMatchCallHelper.IRetainPageMatcher pageMatcher;
     private AutoCloseable closeable;
 
     @BeforeMethod
@@ -138,6 +142,45 @@ public class BatchMatchRetainedRequestHelperTest {
         assertEquals(topic2Result.getMessages(2).getMessage().getPayload().toStringUtf8(), "msg2-3");
     }
 
+    @Test
+    public void testPagedMatch() {
+        MatchPage page1 = MatchPage.newBuilder().setTopicFilter("a/#").setLimit(3).build();
+        MatchPage page2 = MatchPage.newBuilder().setTopicFilter("b/#").setLimit(2).build();
+        Map<MatchPage, List<KVRangeSetting>> pageRanges = new LinkedHashMap<>();
+        pageRanges.put(page1, List.of(rangeSetting("1"), rangeSetting("2")));
+        pageRanges.put(page2, List.of(rangeSetting("1"), rangeSetting("2")));
+
+        when(pageMatcher.match(eq(1L), eq(2L), any(), eq(rangeSetting("1")))).thenAnswer(invocation -> {
+            List<MatchPage> pages = invocation.getArgument(2);
+            return CompletableFuture.completedFuture(pages.stream()
+                .map(page -> page.getTopicFilter().equals("a/#")
+                    ? matchResult("a/1") : matchResult("b/1", "b/2"))
+                .toList());
+        });
+        when(pageMatcher.match(eq(1L), eq(2L), any(), eq(rangeSetting("2")))).thenReturn(
+            CompletableFuture.completedFuture(List.of(matchResult("a/2", "a/3"))));
+
+        Map<MatchPage, List<TopicMessage>> result =
+            BatchMatchCallHelper.pagedMatch(1L, 2L, pageRanges, pageMatcher).join();
+
+        ArgumentCaptor<List<MatchPage>> pagesCaptor = ArgumentCaptor.forClass(List.class);
+        verify(pageMatcher, times(1)).match(eq(1L), eq(2L), any(), eq(rangeSetting("1")));
+        verify(pageMatcher, times(1)).match(eq(1L), eq(2L), pagesCaptor.capture(), eq(rangeSetting("2")));
+        // only the unfilled page goes to next range with the remaining limit
+        assertEquals(pagesCaptor.getValue(), List.of(page1.toBuilder().setLimit(2).build()));
+
+        assertEquals(result.get(page1).stream().map(TopicMessage::getTopic).toList(), List.of("a/1", "a/2", "a/3"));
+        assertEquals(result.get(page2).stream().map(TopicMessage::getTopic).toList(), List.of("b/1", "b/2"));
+    }
+
+    private MatchResult matchResult(String... topics) {
+        MatchResult.Builder builder = MatchResult.newBuilder();
+        for (String topic : topics) {
+            builder.addMessages(TopicMessage.newBuilder().setTopic(topic).setMessage(Message.newBuilder().build()));
+        }
+        return builder.build();
+    }
+
     private KVRangeSetting rangeSetting(String storeId) {
         return new KVRangeSetting("clusterId", storeId, new HashMap<>() {
             {
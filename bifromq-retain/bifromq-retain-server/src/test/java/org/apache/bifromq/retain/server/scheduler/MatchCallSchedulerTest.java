@@ -0,0 +1,122 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.bifromq.retain.server.scheduler;
+
+import static org.apache.bifromq.basekv.utils.BoundaryUtil.FULL_BOUNDARY;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import lombok.SneakyThrows;
+import org.apache.bifromq.basekv.client.IBaseKVStoreClient;
+import org.apache.bifromq.basekv.client.KVRangeSetting;
+import org.apache.bifromq.basekv.proto.Boundary;
+import org.apache.bifromq.basekv.store.proto.KVRangeROReply;
+import org.apache.bifromq.basekv.store.proto.ROCoProcOutput;
+import org.apache.bifromq.basekv.store.proto.ReplyCode;
+import org.apache.bifromq.basekv.utils.BoundaryUtil;
+import org.apache.bifromq.basekv.utils.KVRangeIdUtil;
+import org.apache.bifromq.plugin.settingprovider.ISettingProvider;
+import org.apache.bifromq.retain.rpc.proto.BatchMatchReply;
+import org.apache.bifromq.retain.rpc.proto.MatchReply;
+import org.apache.bifromq.retain.rpc.proto.MatchResult;
+import org.apache.bifromq.retain.rpc.proto.MatchResultPack;
+import org.apache.bifromq.retain.rpc.proto.RetainServiceROCoProcOutput;
+import org.apache.bifromq.type.TopicMessage;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class MatchCallSchedulerTest {
+    private final String tenantId = "testTenant";
+    private final String topicFilter = "a/b";
+    @Mock
+    private IBaseKVStoreClient retainStoreClient;
+    @Mock
+    private ISettingProvider settingProvider;
+    @Mock
+    private KVRangeSetting rangeSetting;
+    private AutoCloseable closeable;
+
+    @BeforeMethod
+    public void setup() {
+        closeable = MockitoAnnotations.openMocks(this);
+        when(rangeSetting.id()).thenReturn(KVRangeIdUtil.generate());
+        when(rangeSetting.boundary()).thenReturn(FULL_BOUNDARY);
+        when(rangeSetting.randomReplicaForQuery()).thenReturn(Optional.of("store1"));
+        when(rangeSetting.randomReplicaForQuery(anyLong())).thenReturn(Optional.of("store1"));
+        TreeMap<Boundary, KVRangeSetting> effectiveRouter = new TreeMap<>(BoundaryUtil::compare);
+        effectiveRouter.put(FULL_BOUNDARY, rangeSetting);
+        when(retainStoreClient.latestEffectiveRouter()).thenReturn(effectiveRouter);
+    }
+
+    @SneakyThrows
+    @AfterMethod
+    public void tearDown() {
+        closeable.close();
+    }
+
+    @Test
+    public void singleFlight() {
+        CompletableFuture<KVRangeROReply> queryFuture = new CompletableFuture<>();
+        when(retainStoreClient.query(any(), any())).thenReturn(queryFuture);
+        MatchCallScheduler scheduler = new MatchCallScheduler(retainStoreClient, settingProvider);
+
+        CompletableFuture<MatchRetainedResult> result1 =
+            scheduler.schedule(new MatchRetainedRequest(tenantId, topicFilter, 10));
+        CompletableFuture<MatchRetainedResult> result2 =
+            scheduler.schedule(new MatchRetainedRequest(tenantId, topicFilter, 10));
+        assertFalse(result1.isDone());
+        assertFalse(result2.isDone());
+
+        TopicMessage message = TopicMessage.newBuilder().setTopic(topicFilter).build();
+        queryFuture.complete(KVRangeROReply.newBuilder()
+            .setCode(ReplyCode.Ok)
+            .setRoCoProcResult(ROCoProcOutput.newBuilder()
+                .setRetainService(RetainServiceROCoProcOutput.newBuilder()
+                    .setBatchMatch(BatchMatchReply.newBuilder()
+                        .putResultPack(tenantId, MatchResultPack.newBuilder()
+                            .putResults(topicFilter, MatchResult.newBuilder().addMessages(message).build())
+                            .build())
+                        .build())
+                    .build())
+                .build())
+            .build());
+        assertEquals(result1.join().result(), MatchReply.Result.OK);
+        assertEquals(result1.join().retainMessages().get(0), message);
+        assertEquals(result2.join(), result1.join());
+        // only one batch call issued for the identical requests
+        verify(retainStoreClient, times(1)).query(any(), any());
+
+        // a later identical request starts a new lookup
+        scheduler.schedule(new MatchRetainedRequest(tenantId, topicFilter, 10)).join();
+        verify(retainStoreClient, times(2)).query(any(), any());
+        scheduler.close();
+    }
+}
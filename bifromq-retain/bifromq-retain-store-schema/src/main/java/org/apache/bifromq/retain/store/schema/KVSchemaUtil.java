@@ -25,6 +25,7 @@ import static org.apache.bifromq.util.TopicConst.MULTI_WILDCARD;
 import static org.apache.bifromq.util.TopicConst.SINGLE_WILDCARD;
 import static org.apache.bifromq.util.TopicUtil.escape;
 import static org.apache.bifromq.util.TopicUtil.parse;
+import static org.apache.bifromq.util.TopicUtil.unescape;
 import static com.google.protobuf.ByteString.copyFromUtf8;
 import static com.google.protobuf.UnsafeByteOperations.unsafeWrap;
 
@@ -76,6 +77,11 @@ public class KVSchemaUtil {
         return key.substring(TENANT_ID_PREFIX_LENGTH, TENANT_ID_PREFIX_LENGTH + tenantIdLength(key)).toStringUtf8();
     }
 
+    public static short parseLevels(ByteString key) {
+        int levelBytesIdx = TENANT_ID_PREFIX_LENGTH + tenantIdLength(key);
+        return toShort(key.substring(levelBytesIdx, levelBytesIdx + Short.BYTES));
+    }
+
     public static ByteString parseLevelHash(ByteString key) {
         short tenantIdLength = tenantIdLength(key);
         int levelBytesIdx = TENANT_ID_PREFIX_LENGTH + tenantIdLength;
@@ -84,6 +90,14 @@ public class KVSchemaUtil {
         return key.substring(levelHashIdx, levelHashIdx + levels);
     }
 
+    public static String parseTopic(ByteString key) {
+        short tenantIdLength = tenantIdLength(key);
+        int levelBytesIdx = TENANT_ID_PREFIX_LENGTH + tenantIdLength;
+        int levelHashIdx = levelBytesIdx + Short.BYTES;
+        short levels = toShort(key.substring(levelBytesIdx, levelHashIdx));
+        return unescape(key.substring(levelHashIdx + levels).toStringUtf8());
+    }
+
     private static short tenantIdLength(ByteString key) {
         return toShort(key.substring(SCHEMA_VER.size(), TENANT_ID_PREFIX_LENGTH));
     }
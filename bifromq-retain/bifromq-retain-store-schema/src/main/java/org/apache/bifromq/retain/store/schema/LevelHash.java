@@ -34,15 +34,15 @@ public class LevelHash {
     public static ByteString hash(List<String> topicLevels) {
         byte[] hash = new byte[topicLevels.size()];
         for (int i = 0; i < topicLevels.size(); i++) {
-            hash[i] = hashToByte(topicLevels.get(i));
+            hash[i] = hash(topicLevels.get(i));
         }
         return unsafeWrap(hash);
     }
 
-    private static byte hashToByte(String data) {
+    public static byte hash(String topicLevel) {
         int hash = FNV_32_INIT;
-        for (int i = 0; i < data.length(); i++) {
-            hash ^= data.charAt(i);
+        for (int i = 0; i < topicLevel.length(); i++) {
+            hash ^= topicLevel.charAt(i);
             hash *= FNV_32_PRIME;
         }
         return (byte) (hash & 0xff);
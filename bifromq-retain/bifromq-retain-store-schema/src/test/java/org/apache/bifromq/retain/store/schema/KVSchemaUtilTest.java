@@ -20,7 +20,9 @@
 package org.apache.bifromq.retain.store.schema;
 
 import static org.apache.bifromq.retain.store.schema.KVSchemaUtil.filterPrefix;
+import static org.apache.bifromq.retain.store.schema.KVSchemaUtil.parseLevels;
 import static org.apache.bifromq.retain.store.schema.KVSchemaUtil.parseTenantId;
+import static org.apache.bifromq.retain.store.schema.KVSchemaUtil.parseTopic;
 import static org.apache.bifromq.retain.store.schema.KVSchemaUtil.retainKeyPrefix;
 import static org.apache.bifromq.retain.store.schema.KVSchemaUtil.retainMessageKey;
 import static org.apache.bifromq.retain.store.schema.KVSchemaUtil.tenantBeginKey;
@@ -95,6 +97,22 @@ public class KVSchemaUtilTest {
         assertEquals(parseTenantId(toRetainMessageKeyPrefix(tenantId, "/a/b/c")), tenantId);
     }
 
+    @Test
+    public void testParseLevels() {
+        String tenantId = "tenantA";
+        assertEquals(parseLevels(retainMessageKey(tenantId, "a")), 1);
+        assertEquals(parseLevels(retainMessageKey(tenantId, "/a/b/c")), 4);
+        assertEquals(parseLevels(toRetainMessageKeyPrefix(tenantId, "/a/+")), 3);
+    }
+
+    @Test
+    public void testParseTopic() {
+        String tenantId = "tenantA";
+        assertEquals(parseTopic(retainMessageKey(tenantId, "a")), "a");
+        assertEquals(parseTopic(retainMessageKey(tenantId, "/a/b/c")), "/a/b/c");
+        assertEquals(parseTopic(retainMessageKey(tenantId, "a//")), "a//");
+    }
+
     @Test
     public void testFilterPrefix() {
         List<String> filterLevels = parse("/a/b/+", false);
@@ -0,0 +1,233 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.bifromq.retain.store;
+
+import static org.apache.bifromq.retain.store.RetainMatcher.MatchResult.MATCHED_AND_CONTINUE;
+import static org.apache.bifromq.retain.store.RetainMatcher.MatchResult.MATCHED_AND_STOP;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.bifromq.retain.store.RetainMatcher.MatchResult;
+import org.apache.bifromq.type.TopicMessage;
+import org.apache.bifromq.util.TopicUtil;
+
+/**
+ * The short-lived cache of retain match results. The cached results are tagged with the last applied index of the
+ * range reader and the generation of the cache when the match started, a result is accepted only if it's computed
+ * after the latest invalidation affecting it. The cache is bounded by the serialized size of the cached results,
+ * weighed per tenant. The first page of a paged match is cached apart from the limited match of the same filter, since
+ * they are ordered differently.
+ */
+class RetainMatchCache {
+    private static final int MAX_CACHED_FILTERS_PER_TENANT = 256;
+    private final long expiryNanos;
+    private final long maxBytes;
+    private final Cache<String, TenantEntries> tenants;
+    // the floor index and generation for the entries created later, raised by every invalidation
+    private final AtomicLong floorIndex = new AtomicLong();
+    private final AtomicLong generation = new AtomicLong();
+
+    RetainMatchCache(Duration expiry, long maxBytes) {
+        this.expiryNanos = expiry.toNanos();
+        this.maxBytes = maxBytes;
+        this.tenants = Caffeine.newBuilder()
+            .maximumWeight(maxBytes)
+            .weigher((String tenantId, TenantEntries tenantEntries) ->
+                (int) Math.min(Integer.MAX_VALUE, tenantEntries.bytes()))
+            .expireAfterAccess(expiry)
+            .build();
+    }
+
+    boolean enabled() {
+        return expiryNanos > 0 && maxBytes > 0;
+    }
+
+    Optional<List<TopicMessage>> get(String tenantId, String topicFilter, int limit, long now) {
+        return get(tenantId, new MatchKey(topicFilter, limit, false), now);
+    }
+
+    Optional<List<TopicMessage>> getFirstPage(String tenantId, String topicFilter, int pageLimit, long now) {
+        return get(tenantId, new MatchKey(topicFilter, pageLimit, true), now);
+    }
+
+    long generation() {
+        return generation.get();
+    }
+
+    void put(String tenantId,
+             String topicFilter,
+             int limit,
+             long readerIndex,
+             long generation,
+             List<TopicMessage> messages) {
+        put(tenantId, new MatchKey(topicFilter, limit, false), readerIndex, generation, messages);
+    }
+
+    void putFirstPage(String tenantId,
+                      String topicFilter,
+                      int pageLimit,
+                      long readerIndex,
+                      long generation,
+                      List<TopicMessage> messages) {
+        put(tenantId, new MatchKey(topicFilter, pageLimit, true), readerIndex, generation, messages);
+    }
+
+    void invalidate(String tenantId, Collection<String> topics, long index) {
+        floorIndex.accumulateAndGet(index, Math::max);
+        long gen = generation.incrementAndGet();
+        TenantEntries tenantEntries = tenants.getIfPresent(tenantId);
+        if (tenantEntries == null || topics.isEmpty()) {
+            return;
+        }
+        List<List<String>> topicLevels = topics.stream().map(topic -> TopicUtil.parse(topic, false)).toList();
+        boolean changed = false;
+        for (Entry entry : tenantEntries.entries.values()) {
+            for (List<String> levels : topicLevels) {
+                MatchResult result = RetainMatcher.match(levels, entry.filterLevels);
+                if (result == MATCHED_AND_STOP || result == MATCHED_AND_CONTINUE) {
+                    changed |= entry.invalidate(index, gen);
+                    break;
+                }
+            }
+        }
+        if (changed) {
+            reweigh(tenantId);
+        }
+    }
+
+    void reset(long index) {
+        floorIndex.accumulateAndGet(index, Math::max);
+        generation.incrementAndGet();
+        tenants.invalidateAll();
+    }
+
+    private Optional<List<TopicMessage>> get(String tenantId, MatchKey key, long now) {
+        if (!enabled()) {
+            return Optional.empty();
+        }
+        TenantEntries tenantEntries = tenants.getIfPresent(tenantId);
+        if (tenantEntries == null) {
+            return Optional.empty();
+        }
+        Entry entry = tenantEntries.entries.get(key);
+        if (entry == null) {
+            return Optional.empty();
+        }
+        CachedResult cached = entry.result;
+        if (cached == null || System.nanoTime() - cached.cachedAt > expiryNanos) {
+            return Optional.empty();
+        }
+        for (TopicMessage message : cached.messages) {
+            if (RetainStoreCoProc.expireAt(message.getMessage()) <= now) {
+                // an expired message means there may be more matched messages within the limit
+                return Optional.empty();
+            }
+        }
+        return Optional.of(cached.messages);
+    }
+
+    private void put(String tenantId, MatchKey key, long readerIndex, long generation, List<TopicMessage> messages) {
+        if (!enabled()) {
+            return;
+        }
+        TenantEntries tenantEntries = tenants.get(tenantId, k -> new TenantEntries());
+        Entry entry = tenantEntries.entries.get(key);
+        if (entry == null) {
+            if (tenantEntries.entries.size() >= MAX_CACHED_FILTERS_PER_TENANT) {
+                long now = System.nanoTime();
+                tenantEntries.entries.values().removeIf(e -> e.result == null
+                    || now - e.result.cachedAt > expiryNanos);
+                if (tenantEntries.entries.size() >= MAX_CACHED_FILTERS_PER_TENANT) {
+                    return;
+                }
+            }
+            entry = tenantEntries.entries.computeIfAbsent(key,
+                k -> new Entry(floorIndex.get(), this.generation.get(), TopicUtil.parse(key.topicFilter, false)));
+        }
+        if (entry.offer(readerIndex, generation, new CachedResult(messages, System.nanoTime()))) {
+            reweigh(tenantId);
+        }
+    }
+
+    private void reweigh(String tenantId) {
+        // caffeine only weighs the value when it's written
+        tenants.asMap().computeIfPresent(tenantId, (k, v) -> v);
+    }
+
+    private record MatchKey(String topicFilter, int limit, boolean firstPage) {
+    }
+
+    private record CachedResult(List<TopicMessage> messages, long cachedAt, int bytes) {
+        CachedResult(List<TopicMessage> messages, long cachedAt) {
+            this(messages, cachedAt, messages.stream().mapToInt(TopicMessage::getSerializedSize).sum());
+        }
+    }
+
+    private static class TenantEntries {
+        final Map<MatchKey, Entry> entries = new ConcurrentHashMap<>();
+
+        long bytes() {
+            long bytes = 0;
+            for (Map.Entry<MatchKey, Entry> entry : entries.entrySet()) {
+                CachedResult cached = entry.getValue().result;
+                bytes += entry.getKey().topicFilter.length() + (cached == null ? 0 : cached.bytes);
+            }
+            return bytes;
+        }
+    }
+
+    private static class Entry {
+        private final List<String> filterLevels;
+        private long floorIndex;
+        private long floorGeneration;
+        private volatile CachedResult result;
+
+        Entry(long floorIndex, long floorGeneration, List<String> filterLevels) {
+            this.floorIndex = floorIndex;
+            this.floorGeneration = floorGeneration;
+            this.filterLevels = filterLevels;
+        }
+
+        synchronized boolean offer(long readerIndex, long generation, CachedResult result) {
+            if (readerIndex >= floorIndex && generation >= floorGeneration) {
+                this.result = result;
+                return true;
+            }
+            return false;
+        }
+
+        synchronized boolean invalidate(long index, long generation) {
+            floorIndex = Math.max(floorIndex, index);
+            floorGeneration = Math.max(floorGeneration, generation);
+            if (result != null) {
+                result = null;
+                return true;
+            }
+            return false;
+        }
+    }
+}
@@ -20,26 +20,30 @@
 package org.apache.bifromq.retain.store;
 
 import static java.util.Collections.emptyList;
+import static org.apache.bifromq.basekv.utils.BoundaryUtil.upperBound;
 import static org.apache.bifromq.retain.store.schema.KVSchemaUtil.parseTenantId;
 import static org.apache.bifromq.retain.store.schema.KVSchemaUtil.retainMessageKey;
+import static org.apache.bifromq.retain.store.schema.KVSchemaUtil.tenantBeginKey;
 import static org.apache.bifromq.util.TopicConst.MULTI_WILDCARD;
 
 import com.google.protobuf.Any;
 import com.google.protobuf.ByteString;
 import com.google.protobuf.InvalidProtocolBufferException;
 import java.time.Duration;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Supplier;
 import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.bifromq.baseenv.ZeroCopyParser;
 import org.apache.bifromq.basehlc.HLC;
 import org.apache.bifromq.basekv.proto.Boundary;
 import org.apache.bifromq.basekv.proto.KVRangeId;
@@ -59,6 +63,7 @@ import org.apache.bifromq.retain.rpc.proto.BatchRetainReply;
 import org.apache.bifromq.retain.rpc.proto.BatchRetainRequest;
 import org.apache.bifromq.retain.rpc.proto.GCReply;
 import org.apache.bifromq.retain.rpc.proto.GCRequest;
+import org.apache.bifromq.retain.rpc.proto.MatchPage;
 import org.apache.bifromq.retain.rpc.proto.MatchResult;
 import org.apache.bifromq.retain.rpc.proto.MatchResultPack;
 import org.apache.bifromq.retain.rpc.proto.RetainMessage;
@@ -67,8 +72,13 @@ import org.apache.bifromq.retain.rpc.proto.RetainServiceROCoProcInput;
 import org.apache.bifromq.retain.rpc.proto.RetainServiceROCoProcOutput;
 import org.apache.bifromq.retain.rpc.proto.RetainServiceRWCoProcInput;
 import org.apache.bifromq.retain.rpc.proto.RetainServiceRWCoProcOutput;
+import org.apache.bifromq.retain.store.index.IRetainTopicIndex;
+import org.apache.bifromq.retain.store.index.KVRetainTopicIndex;
 import org.apache.bifromq.retain.store.index.RetainTopicIndex;
 import org.apache.bifromq.retain.store.index.RetainedMsgInfo;
+import org.apache.bifromq.sysprops.props.RetainMatchCacheExpirySeconds;
+import org.apache.bifromq.sysprops.props.RetainMatchCacheSizeMB;
+import org.apache.bifromq.sysprops.props.RetainStoreKVIndex;
 import org.apache.bifromq.type.Message;
 import org.apache.bifromq.type.TopicMessage;
 
@@ -76,16 +86,32 @@ import org.apache.bifromq.type.TopicMessage;
 class RetainStoreCoProc implements IKVRangeCoProc {
     private final Supplier<IKVRangeRefreshableReader> rangeReaderProvider;
     private final TenantsStats tenantsStats;
+    private final RetainMatchCache matchCache;
     private final String[] tags;
+    private final boolean kvIndex;
+    // the retain keys written by the mutations whose after-mutate callbacks have not been run yet
+    private final Map<ByteString, Integer> pendingKeys = new ConcurrentHashMap<>();
+    // null if retained messages are indexed in KV space
     private RetainTopicIndex index;
 
     RetainStoreCoProc(String clusterId,
                       String storeId,
                       KVRangeId id,
                       Supplier<IKVRangeRefreshableReader> rangeReaderProvider) {
+        this(clusterId, storeId, id, rangeReaderProvider, RetainStoreKVIndex.INSTANCE.get());
+    }
+
+    RetainStoreCoProc(String clusterId,
+                      String storeId,
+                      KVRangeId id,
+                      Supplier<IKVRangeRefreshableReader> rangeReaderProvider,
+                      boolean kvIndex) {
         this.tags = new String[] {"clusterId", clusterId, "storeId", storeId, "rangeId", KVRangeIdUtil.toString(id)};
         this.rangeReaderProvider = rangeReaderProvider;
         this.tenantsStats = new TenantsStats(rangeReaderProvider, tags);
+        this.matchCache = new RetainMatchCache(Duration.ofSeconds(RetainMatchCacheExpirySeconds.INSTANCE.get()),
+            RetainMatchCacheSizeMB.INSTANCE.get() * 1024L * 1024L);
+        this.kvIndex = kvIndex;
     }
 
     @Override
@@ -111,27 +137,37 @@ class RetainStoreCoProc implements IKVRangeCoProc {
         RetainServiceRWCoProcInput coProcInput = input.getRetainService();
         RetainServiceRWCoProcOutput.Builder outputBuilder = RetainServiceRWCoProcOutput.newBuilder();
         AtomicReference<Runnable> afterMutate = new AtomicReference<>();
+        List<ByteString> writtenKeys = new ArrayList<>();
         switch (coProcInput.getTypeCase()) {
             case BATCHRETAIN -> {
                 BatchRetainReply.Builder replyBuilder = BatchRetainReply.newBuilder();
-                afterMutate.set(batchRetain(coProcInput.getBatchRetain(), replyBuilder, isLeader, writer));
+                afterMutate.set(batchRetain(coProcInput.getBatchRetain(), replyBuilder, isLeader, reader, writer,
+                    writtenKeys));
                 outputBuilder.setBatchRetain(replyBuilder);
             }
             case GC -> {
                 GCReply.Builder replyBuilder = GCReply.newBuilder();
-                afterMutate.set(gc(coProcInput.getGc(), replyBuilder, isLeader, writer));
+                afterMutate.set(gc(coProcInput.getGc(), replyBuilder, isLeader, reader, writer, writtenKeys));
                 outputBuilder.setGc(replyBuilder);
             }
         }
+        writtenKeys.forEach(key -> pendingKeys.merge(key, 1, Integer::sum));
         RWCoProcOutput output = RWCoProcOutput.newBuilder().setRetainService(outputBuilder.build()).build();
         return () -> {
             afterMutate.get().run();
+            writtenKeys.forEach(key -> pendingKeys.computeIfPresent(key, (k, v) -> v > 1 ? v - 1 : null));
             return new MutationResult(output, Optional.empty());
         };
     }
 
+    @Override
+    public boolean supportGroupMutation() {
+        return true;
+    }
+
     @Override
     public Any reset(Boundary boundary) {
+        pendingKeys.clear();
         load();
         return Any.getDefaultInstance();
     }
@@ -144,6 +180,7 @@ class RetainStoreCoProc implements IKVRangeCoProc {
     @Override
     public void close() {
         index = null;
+        matchCache.reset(Long.MAX_VALUE);
         tenantsStats.close();
     }
 
@@ -158,12 +195,17 @@ class RetainStoreCoProc implements IKVRangeCoProc {
                     request.getMatchParamsMap().get(tenantId).getNow(), reader));
                 resultPackBuilder.putResults(topicFilter, resultBuilder.build());
             }
+            for (MatchPage page : request.getMatchParamsMap().get(tenantId).getPagesList()) {
+                resultPackBuilder.addPageResults(MatchResult.newBuilder()
+                    .addAllMessages(pagedMatch(tenantId, page, request.getMatchParamsMap().get(tenantId).getNow(),
+                        reader))
+                    .build());
+            }
             replyBuilder.putResultPack(tenantId, resultPackBuilder.build());
         }
         return CompletableFuture.completedFuture(replyBuilder.build());
     }
 
-    @SneakyThrows
     private List<TopicMessage> match(String tenantId,
                                      String topicFilter,
                                      int limit,
@@ -172,29 +214,139 @@ class RetainStoreCoProc implements IKVRangeCoProc {
         if (limit == 0) {
             return emptyList();
         }
-        Set<RetainedMsgInfo> matchedMsgInfos = index.match(tenantId, topicFilter);
-        List<TopicMessage> messages = new LinkedList<>();
-        for (RetainedMsgInfo msgInfo : matchedMsgInfos) {
-            if (messages.size() >= limit) {
-                break;
+        Optional<List<TopicMessage>> cached = matchCache.get(tenantId, topicFilter, limit, now);
+        if (cached.isPresent()) {
+            return cached.get();
+        }
+        long readerIndex = reader.lastAppliedIndex();
+        long generation = matchCache.generation();
+        List<TopicMessage> messages = doMatch(tenantId, topicFilter, limit, now, reader);
+        matchCache.put(tenantId, topicFilter, limit, readerIndex, generation, messages);
+        return messages;
+    }
+
+    private List<TopicMessage> doMatch(String tenantId,
+                                       String topicFilter,
+                                       int limit,
+                                       long now,
+                                       IKVRangeReader reader) {
+        if (kvIndex) {
+            return kvMatch(tenantId, topicFilter, ByteString.EMPTY, limit, now, reader);
+        }
+        // collect at most limit unexpired candidates, the same topic may be visited again if matching restarts
+        Set<String> matchedTopics = new HashSet<>();
+        List<ByteString> retainKeys = new ArrayList<>();
+        index(reader).match(tenantId, topicFilter, msgInfo -> {
+            if (expireAt(msgInfo.timestamp, msgInfo.expirySeconds) > now && matchedTopics.add(msgInfo.topic)) {
+                retainKeys.add(retainMessageKey(msgInfo.tenantId, msgInfo.topic));
             }
-            Optional<ByteString> val = reader.get(retainMessageKey(msgInfo.tenantId, msgInfo.topic));
-            if (val.isPresent()) {
-                TopicMessage message = TopicMessage.parseFrom(val.get());
+            return retainKeys.size() < limit;
+        });
+        if (retainKeys.isEmpty()) {
+            return emptyList();
+        }
+        retainKeys.sort(ByteString.unsignedLexicographicalComparator());
+        return fetch(retainKeys, now, reader);
+    }
+
+    private List<TopicMessage> kvMatch(String tenantId,
+                                       String topicFilter,
+                                       ByteString afterKey,
+                                       int limit,
+                                       long now,
+                                       IKVRangeReader reader) {
+        // the retained messages are parsed once while being matched in key order, no need to seek them again
+        List<TopicMessage> messages = new ArrayList<>();
+        if (limit <= 0) {
+            return emptyList();
+        }
+        new KVRetainTopicIndex(reader).matchValues(tenantId, topicFilter, afterKey, (topic, value) -> {
+            try {
+                TopicMessage message = ZeroCopyParser.parse(value, TopicMessage.parser());
                 if (expireAt(message.getMessage()) > now) {
                     messages.add(message);
                 }
+            } catch (InvalidProtocolBufferException e) {
+                log.error("Failed to parse retained message", e);
             }
+            return messages.size() < limit;
+        });
+        return messages;
+    }
+
+    private List<TopicMessage> pagedMatch(String tenantId, MatchPage page, long now, IKVRangeReader reader) {
+        if (!page.getAfterKey().isEmpty() || page.getLimit() == 0) {
+            return doPagedMatch(tenantId, page, now, reader);
+        }
+        // every wildcard match starts from the first page, which is as hot as the limited match used to be
+        Optional<List<TopicMessage>> cached = matchCache.getFirstPage(tenantId, page.getTopicFilter(),
+            page.getLimit(), now);
+        if (cached.isPresent()) {
+            return cached.get();
         }
+        long readerIndex = reader.lastAppliedIndex();
+        long generation = matchCache.generation();
+        List<TopicMessage> messages = doPagedMatch(tenantId, page, now, reader);
+        matchCache.putFirstPage(tenantId, page.getTopicFilter(), page.getLimit(), readerIndex, generation, messages);
         return messages;
     }
 
+    private List<TopicMessage> doPagedMatch(String tenantId, MatchPage page, long now, IKVRangeReader reader) {
+        // a page with less than limit messages means no more matches after it
+        if (kvIndex) {
+            return kvMatch(tenantId, page.getTopicFilter(), page.getAfterKey(), page.getLimit(), now, reader);
+        }
+        IRetainTopicIndex index = index(reader);
+        List<TopicMessage> messages = new ArrayList<>();
+        ByteString afterKey = page.getAfterKey();
+        while (messages.size() < page.getLimit()) {
+            int batchSize = page.getLimit() - messages.size();
+            List<RetainedMsgInfo> candidates = index.match(tenantId, page.getTopicFilter(), afterKey, batchSize);
+            List<ByteString> retainKeys = new ArrayList<>(candidates.size());
+            for (RetainedMsgInfo msgInfo : candidates) {
+                if (expireAt(msgInfo.timestamp, msgInfo.expirySeconds) > now) {
+                    retainKeys.add(retainMessageKey(msgInfo.tenantId, msgInfo.topic));
+                }
+            }
+            messages.addAll(fetch(retainKeys, now, reader));
+            if (candidates.size() < batchSize) {
+                break;
+            }
+            afterKey = retainMessageKey(tenantId, candidates.get(candidates.size() - 1).topic);
+        }
+        return messages;
+    }
+
+    private List<TopicMessage> fetch(List<ByteString> retainKeys, long now, IKVRangeReader reader) {
+        // fetch values in key order within one iterator pass
+        List<TopicMessage> messages = new ArrayList<>(retainKeys.size());
+        try (IKVIterator itr = reader.iterator()) {
+            for (ByteString retainKey : retainKeys) {
+                itr.seek(retainKey);
+                if (!itr.isValid() || !itr.key().equals(retainKey)) {
+                    continue;
+                }
+                try {
+                    TopicMessage message = ZeroCopyParser.parse(itr.value(), TopicMessage.parser());
+                    if (expireAt(message.getMessage()) > now) {
+                        messages.add(message);
+                    }
+                } catch (InvalidProtocolBufferException e) {
+                    log.error("Failed to parse retained message", e);
+                }
+            }
+        }
+        return messages;
+    }
 
     private Runnable batchRetain(BatchRetainRequest request,
                                  BatchRetainReply.Builder replyBuilder,
                                  boolean isLeader,
-                                 IKVWriter writer) {
+                                 IKVRangeReader reader,
+                                 IKVWriter writer,
+                                 List<ByteString> writtenKeys) {
         replyBuilder.setReqId(request.getReqId());
+        IRetainTopicIndex index = index(reader);
         Map<String, Map<String, Message>> addTopics = new HashMap<>();
         Map<String, Map<String, Message>> updateTopics = new HashMap<>();
         Map<String, Set<String>> removeTopics = new HashMap<>();
@@ -210,24 +362,25 @@ class RetainStoreCoProc implements IKVRangeCoProc {
                     .setPublisher(retainMessage.getPublisher())
                     .build();
                 ByteString retainKey = retainMessageKey(tenantId, topicMessage.getTopic());
-                Set<RetainedMsgInfo> retainedMsgInfos = index.match(tenantId, topic);
+                boolean retained = isRetained(index, tenantId, topic, retainKey, reader);
                 if (topicMessage.getMessage().getPayload().isEmpty()) {
                     // delete existing retained
-                    if (!retainedMsgInfos.isEmpty()) {
+                    if (retained) {
                         writer.delete(retainKey);
+                        writtenKeys.add(retainKey);
                         removeTopics.computeIfAbsent(tenantId, k -> new HashSet<>()).add(topic);
                     }
                     results.put(topic, RetainResult.Code.CLEARED);
                     continue;
                 }
-                if (retainedMsgInfos.isEmpty()) {
+                writer.put(retainKey, topicMessage.toByteString());
+                writtenKeys.add(retainKey);
+                if (!retained) {
                     // retain new message
-                    writer.put(retainKey, topicMessage.toByteString());
                     addTopics.computeIfAbsent(tenantId, k -> new HashMap<>())
                         .put(topic, topicMessage.getMessage());
                 } else {
                     // replace existing
-                    writer.put(retainKey, topicMessage.toByteString());
                     updateTopics.computeIfAbsent(tenantId, k -> new HashMap<>())
                         .put(topic, topicMessage.getMessage());
                 }
@@ -237,11 +390,19 @@ class RetainStoreCoProc implements IKVRangeCoProc {
                 .putAllResults(results)
                 .build());
         }
+        // the changes are visible since next applied index
+        long changeIndex = reader.lastAppliedIndex() + 1;
+        Runnable invalidateMatchCache = () -> {
+            addTopics.forEach((tenantId, topics) -> matchCache.invalidate(tenantId, topics.keySet(), changeIndex));
+            updateTopics.forEach((tenantId, topics) -> matchCache.invalidate(tenantId, topics.keySet(), changeIndex));
+            removeTopics.forEach((tenantId, topics) -> matchCache.invalidate(tenantId, topics, changeIndex));
+        };
+        invalidateMatchCache.run();
         return () -> {
             addTopics.forEach((tenantId, topics) -> {
                 topics.forEach(
                     (topic, msg) -> index.add(tenantId, topic, msg.getTimestamp(), msg.getExpiryInterval()));
-                tenantsStats.increaseTopicCount(tenantId, topics.size());
+                tenantsStats.increaseTopicCount(tenantId, topics.size(), changeIndex);
             });
             updateTopics.forEach((tenantId, topics) -> {
                 topics.forEach((topic, msg) -> index.remove(tenantId, topic));
@@ -249,37 +410,94 @@ class RetainStoreCoProc implements IKVRangeCoProc {
             });
             removeTopics.forEach((tenantId, topics) -> {
                 topics.forEach(topic -> index.remove(tenantId, topic));
-                tenantsStats.increaseTopicCount(tenantId, -topics.size());
+                tenantsStats.increaseTopicCount(tenantId, -topics.size(), changeIndex);
             });
+            // invalidate again for the matches started before the index is updated
+            invalidateMatchCache.run();
             tenantsStats.toggleMetering(isLeader);
         };
     }
 
-    private Runnable gc(GCRequest request, GCReply.Builder replyBuilder, boolean isLeader, IKVWriter writer) {
+    private Runnable gc(GCRequest request,
+                        GCReply.Builder replyBuilder,
+                        boolean isLeader,
+                        IKVRangeReader reader,
+                        IKVWriter writer,
+                        List<ByteString> writtenKeys) {
         replyBuilder.setReqId(request.getReqId());
+        IRetainTopicIndex index = index(reader);
         long now = request.getNow();
         Map<String, Set<String>> removedTopics = new HashMap<>();
-        Set<RetainedMsgInfo> retainedMsgInfos = request.hasTenantId()
-            ? index.match(request.getTenantId(), MULTI_WILDCARD) : index.findAll();
-        for (RetainedMsgInfo msgInfo : retainedMsgInfos) {
-            long expireTime = expireAt(msgInfo.timestamp,
-                (request.hasExpirySeconds() ? request.getExpirySeconds() : msgInfo.expirySeconds));
-            if (expireTime <= now) {
-                writer.delete(retainMessageKey(msgInfo.tenantId, msgInfo.topic));
-                removedTopics.computeIfAbsent(msgInfo.tenantId, k -> new HashSet<>()).add(msgInfo.topic);
+        if (request.hasExpirySeconds()) {
+            // expiry order doesn't apply when overriding expiry seconds
+            Set<RetainedMsgInfo> retainedMsgInfos = request.hasTenantId()
+                ? index.match(request.getTenantId(), MULTI_WILDCARD) : index.findAll();
+            for (RetainedMsgInfo msgInfo : retainedMsgInfos) {
+                ByteString retainKey = retainMessageKey(msgInfo.tenantId, msgInfo.topic);
+                if (!pendingKeys.containsKey(retainKey)
+                    && expireAt(msgInfo.timestamp, request.getExpirySeconds()) <= now) {
+                    writer.delete(retainKey);
+                    writtenKeys.add(retainKey);
+                    removedTopics.computeIfAbsent(msgInfo.tenantId, k -> new HashSet<>()).add(msgInfo.topic);
+                }
             }
+        } else {
+            index.expired(now, msgInfo -> {
+                ByteString retainKey = retainMessageKey(msgInfo.tenantId, msgInfo.topic);
+                if ((!request.hasTenantId() || request.getTenantId().equals(msgInfo.tenantId))
+                    && !pendingKeys.containsKey(retainKey)) {
+                    // the retained messages changed by earlier mutations in the same group are left to next round
+                    writer.delete(retainKey);
+                    writtenKeys.add(retainKey);
+                    removedTopics.computeIfAbsent(msgInfo.tenantId, k -> new HashSet<>()).add(msgInfo.topic);
+                }
+                return true;
+            });
         }
+        long changeIndex = reader.lastAppliedIndex() + 1;
+        removedTopics.forEach((tenantId, topics) -> matchCache.invalidate(tenantId, topics, changeIndex));
         return () -> {
             removedTopics.forEach((tenantId, topics) -> topics.forEach(topic -> index.remove(tenantId, topic)));
-            removedTopics.forEach((tenantId, topics) -> tenantsStats.increaseTopicCount(tenantId, -topics.size()));
+            removedTopics.forEach((tenantId, topics) -> matchCache.invalidate(tenantId, topics, changeIndex));
+            removedTopics.forEach((tenantId, topics) -> tenantsStats.increaseTopicCount(tenantId, -topics.size(), changeIndex));
             tenantsStats.toggleMetering(isLeader);
         };
     }
 
+    private boolean isRetained(IRetainTopicIndex index,
+                               String tenantId,
+                               String topic,
+                               ByteString retainKey,
+                               IKVRangeReader reader) {
+        if (pendingKeys.containsKey(retainKey)) {
+            // the index is not updated before the callbacks of earlier mutations in the same group are run
+            return reader.exist(retainKey);
+        }
+        return !index.match(tenantId, topic).isEmpty();
+    }
+
+    private IRetainTopicIndex index(IKVRangeReader reader) {
+        return kvIndex ? new KVRetainTopicIndex(reader) : index;
+    }
+
     private void load() {
-        index = new RetainTopicIndex();
+        // the range may be restored from snapshot or changed boundary, none of the cached match results is trustable
+        try (IKVRangeRefreshableReader reader = rangeReaderProvider.get()) {
+            matchCache.reset(reader.lastAppliedIndex());
+        }
         tenantsStats.reset();
-
+        if (kvIndex) {
+            // only seek to the first retained message of each tenant, the topics are counted when firstly metered
+            try (IKVRangeRefreshableReader reader = rangeReaderProvider.get(); IKVIterator itr = reader.iterator()) {
+                for (itr.seekToFirst(); itr.isValid(); ) {
+                    String tenantId = parseTenantId(itr.key());
+                    tenantsStats.addUncountedTenant(tenantId);
+                    itr.seek(upperBound(tenantBeginKey(tenantId)));
+                }
+            }
+            return;
+        }
+        index = new RetainTopicIndex();
         try (IKVRangeRefreshableReader reader = rangeReaderProvider.get(); IKVIterator itr = reader.iterator()) {
             for (itr.seekToFirst(); itr.isValid(); itr.next()) {
                 try {
@@ -295,11 +513,11 @@ class RetainStoreCoProc implements IKVRangeCoProc {
         }
     }
 
-    private long expireAt(Message message) {
+    static long expireAt(Message message) {
         return expireAt(message.getTimestamp(), message.getExpiryInterval());
     }
 
-    private long expireAt(long hlc, int expirySeconds) {
+    private static long expireAt(long hlc, int expirySeconds) {
         return Duration.ofMillis(HLC.INST.getPhysical(hlc)).plusSeconds(expirySeconds).toMillis();
     }
 }
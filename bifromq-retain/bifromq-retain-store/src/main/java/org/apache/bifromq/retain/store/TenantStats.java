@@ -22,29 +22,82 @@ package org.apache.bifromq.retain.store;
 import static org.apache.bifromq.metrics.TenantMetric.MqttRetainNumGauge;
 import static org.apache.bifromq.metrics.TenantMetric.MqttRetainSpaceGauge;
 
-import java.util.concurrent.atomic.AtomicLong;
+import java.util.NavigableMap;
+import java.util.TreeMap;
 import java.util.function.Supplier;
 import org.apache.bifromq.metrics.ITenantMeter;
 
 class TenantStats {
-    private final AtomicLong topicCount = new AtomicLong();
     private final String tenantId;
     private final String[] tags;
+    // count the retained topics of the tenant in KV space, null if the count starts from zero
+    private final Supplier<CountedTopics> topicCounter;
+    // the deltas reported before the topic count is counted, keyed by the applied index they become visible at
+    private NavigableMap<Long, Long> uncountedDeltas;
+    private long topicCount;
+    private long countedIndex = Long.MIN_VALUE;
     private boolean isLeader;
 
     TenantStats(String tenantId, Supplier<Number> usedSpaceGetter, String... tags) {
+        this(tenantId, usedSpaceGetter, null, tags);
+    }
+
+    TenantStats(String tenantId,
+                Supplier<Number> usedSpaceGetter,
+                Supplier<CountedTopics> topicCounter,
+                String... tags) {
         this.tenantId = tenantId;
         this.tags = tags;
+        this.topicCounter = topicCounter;
+        this.uncountedDeltas = topicCounter != null ? new TreeMap<>() : null;
         ITenantMeter.gauging(tenantId, MqttRetainSpaceGauge, usedSpaceGetter, tags);
     }
 
-    public long incrementTopicCount(int delta) {
-        return topicCount.addAndGet(delta);
+    long incrementTopicCount(int delta) {
+        return incrementTopicCount(delta, Long.MAX_VALUE);
+    }
+
+    /**
+     * Apply the delta of topic count which becomes visible since the given applied index.
+     *
+     * @return the topic count after applied, or -1 if the topic count is not counted yet
+     */
+    synchronized long incrementTopicCount(int delta, long changeIndex) {
+        if (uncountedDeltas != null) {
+            uncountedDeltas.merge(changeIndex, (long) delta, Long::sum);
+            return -1;
+        }
+        if (changeIndex > countedIndex) {
+            // the changes visible at counted index have been included
+            topicCount += delta;
+        }
+        return topicCount;
+    }
+
+    long topicCount() {
+        synchronized (this) {
+            if (uncountedDeltas == null) {
+                return topicCount;
+            }
+        }
+        // count outside the lock to not block the deltas reported by mutations
+        CountedTopics counted = topicCounter.get();
+        synchronized (this) {
+            if (uncountedDeltas != null) {
+                topicCount = counted.count();
+                for (long delta : uncountedDeltas.tailMap(counted.appliedIndex(), false).values()) {
+                    topicCount += delta;
+                }
+                countedIndex = counted.appliedIndex();
+                uncountedDeltas = null;
+            }
+            return topicCount;
+        }
     }
 
     void toggleMetering(boolean isLeader) {
         if (!this.isLeader && isLeader) {
-            ITenantMeter.gauging(tenantId, MqttRetainNumGauge, topicCount::get, tags);
+            ITenantMeter.gauging(tenantId, MqttRetainNumGauge, this::topicCount, tags);
             this.isLeader = true;
         } else if (this.isLeader && !isLeader) {
             ITenantMeter.stopGauging(tenantId, MqttRetainNumGauge, tags);
@@ -56,4 +109,10 @@ class TenantStats {
         ITenantMeter.stopGauging(tenantId, MqttRetainSpaceGauge, tags);
         ITenantMeter.stopGauging(tenantId, MqttRetainNumGauge, tags);
     }
+
+    /**
+     * The retained topics counted in KV space and the applied index of the counted view.
+     */
+    record CountedTopics(long count, long appliedIndex) {
+    }
 }
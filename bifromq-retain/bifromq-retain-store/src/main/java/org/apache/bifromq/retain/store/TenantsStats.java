@@ -32,6 +32,7 @@ import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.locks.StampedLock;
 import java.util.function.Supplier;
 import org.apache.bifromq.basekv.proto.Boundary;
+import org.apache.bifromq.basekv.store.api.IKVIterator;
 import org.apache.bifromq.basekv.store.api.IKVRangeRefreshableReader;
 
 class TenantsStats {
@@ -47,11 +48,15 @@ class TenantsStats {
     }
 
     void increaseTopicCount(String tenantId, int delta) {
+        increaseTopicCount(tenantId, delta, Long.MAX_VALUE);
+    }
+
+    void increaseTopicCount(String tenantId, int delta, long changeIndex) {
         retainedSet.compute(tenantId, (k, v) -> {
             if (v == null) {
                 v = new TenantStats(tenantId, getTenantUsedSpaceProvider(tenantId), tags);
             }
-            if (v.incrementTopicCount(delta) == 0) {
+            if (v.incrementTopicCount(delta, changeIndex) == 0) {
                 v.destroy();
                 return null;
             }
@@ -59,6 +64,14 @@ class TenantsStats {
         });
     }
 
+    /**
+     * Track the tenant whose retained topics are counted in KV space when the topic count is firstly read.
+     */
+    void addUncountedTenant(String tenantId) {
+        retainedSet.computeIfAbsent(tenantId,
+            k -> new TenantStats(tenantId, getTenantUsedSpaceProvider(tenantId), getTopicCounter(tenantId), tags));
+    }
+
     public void toggleMetering(boolean isLeader) {
         retainedSet.values().forEach(s -> s.toggleMetering(isLeader));
     }
@@ -84,6 +97,32 @@ class TenantsStats {
         };
     }
 
+    private Supplier<TenantStats.CountedTopics> getTopicCounter(String tenantId) {
+        return () -> {
+            long stamped = closeLock.readLock();
+            if (closed.get()) {
+                closeLock.unlock(stamped);
+                return new TenantStats.CountedTopics(0, Long.MAX_VALUE);
+            }
+            try (IKVRangeRefreshableReader reader = readerSupplier.get()) {
+                ByteString tenantBeginKey = tenantBeginKey(tenantId);
+                Boundary tenantBoundary =
+                    intersect(toBoundary(tenantBeginKey, upperBound(tenantBeginKey)), reader.boundary());
+                long count = 0;
+                if (!isNULLRange(tenantBoundary)) {
+                    try (IKVIterator itr = reader.iterator(tenantBoundary)) {
+                        for (itr.seekToFirst(); itr.isValid(); itr.next()) {
+                            count++;
+                        }
+                    }
+                }
+                return new TenantStats.CountedTopics(count, reader.lastAppliedIndex());
+            } finally {
+                closeLock.unlock(stamped);
+            }
+        };
+    }
+
     void reset() {
         // clear gauges without marking closed
         long stamp = closeLock.writeLock();
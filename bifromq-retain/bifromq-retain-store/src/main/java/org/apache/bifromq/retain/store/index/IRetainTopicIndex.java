@@ -19,7 +19,10 @@
 
 package org.apache.bifromq.retain.store.index;
 
+import com.google.protobuf.ByteString;
+import java.util.List;
 import java.util.Set;
+import java.util.function.Predicate;
 
 /**
  * The index of retain topics.
@@ -31,5 +34,33 @@ public interface IRetainTopicIndex {
 
     Set<RetainedMsgInfo> match(String tenantId, String topicFilter);
 
+    /**
+     * Visit the retained messages matching the topic filter until the visitor returns false.
+     *
+     * @param tenantId    the tenant id
+     * @param topicFilter the topic filter
+     * @param visitor     the visitor, returns false to stop matching
+     */
+    void match(String tenantId, String topicFilter, Predicate<RetainedMsgInfo> visitor);
+
+    /**
+     * Find at most limit retained messages matching the topic filter, whose retain keys are after the given one.
+     *
+     * @param tenantId    the tenant id
+     * @param topicFilter the topic filter
+     * @param afterKey    the retain key to match after, empty to match from the beginning
+     * @param limit       the max number of retained messages to find
+     * @return the matched retained messages in the order of their retain keys
+     */
+    List<RetainedMsgInfo> match(String tenantId, String topicFilter, ByteString afterKey, int limit);
+
     Set<RetainedMsgInfo> findAll();
+
+    /**
+     * Visit the retained messages expired at the given time until the visitor returns false.
+     *
+     * @param now     the physical time in milliseconds
+     * @param visitor the visitor, returns false to stop visiting
+     */
+    void expired(long now, Predicate<RetainedMsgInfo> visitor);
 }
@@ -0,0 +1,257 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.bifromq.retain.store.index;
+
+import static com.google.protobuf.WireFormat.getTagFieldNumber;
+import static org.apache.bifromq.basekv.utils.BoundaryUtil.intersect;
+import static org.apache.bifromq.basekv.utils.BoundaryUtil.isNULLRange;
+import static org.apache.bifromq.basekv.utils.BoundaryUtil.toBoundary;
+import static org.apache.bifromq.basekv.utils.BoundaryUtil.upperBound;
+import static org.apache.bifromq.retain.store.schema.KVSchemaUtil.filterPrefix;
+import static org.apache.bifromq.retain.store.schema.KVSchemaUtil.parseLevels;
+import static org.apache.bifromq.retain.store.schema.KVSchemaUtil.parseTenantId;
+import static org.apache.bifromq.retain.store.schema.KVSchemaUtil.parseTopic;
+import static org.apache.bifromq.retain.store.schema.KVSchemaUtil.retainKeyPrefix;
+import static org.apache.bifromq.retain.store.schema.KVSchemaUtil.retainMessageKey;
+import static org.apache.bifromq.retain.store.schema.KVSchemaUtil.tenantBeginKey;
+import static org.apache.bifromq.util.TopicConst.MULTI_WILDCARD;
+import static org.apache.bifromq.util.TopicConst.SINGLE_WILDCARD;
+import static org.apache.bifromq.util.TopicConst.SYS_PREFIX;
+import static org.apache.bifromq.util.TopicUtil.isWildcardTopicFilter;
+import static org.apache.bifromq.util.TopicUtil.parse;
+
+import com.google.protobuf.ByteString;
+import com.google.protobuf.CodedInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.BiPredicate;
+import java.util.function.Predicate;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.bifromq.basekv.proto.Boundary;
+import org.apache.bifromq.basekv.store.api.IKVIterator;
+import org.apache.bifromq.basekv.store.api.IKVRangeReader;
+import org.apache.bifromq.type.Message;
+import org.apache.bifromq.type.TopicMessage;
+
+/**
+ * The retain topic index backed by the retained message keys in KV space. The keys are grouped by topic level number
+ * and prefixed by the level hash, so matching is done by seeking to the key prefix of each candidate level number.
+ * The index keeps no state, retained messages are indexed once they are written. The topic is taken from the key and
+ * only the timestamp and expiry interval are decoded from the value, the payload of retained message is skipped.
+ */
+@Slf4j
+public class KVRetainTopicIndex implements IRetainTopicIndex {
+    private static final Comparator<ByteString> KEY_COMPARATOR = ByteString.unsignedLexicographicalComparator();
+    private final IKVRangeReader reader;
+
+    public KVRetainTopicIndex(IKVRangeReader reader) {
+        this.reader = reader;
+    }
+
+    @Override
+    public void add(String tenantId, String topic, long timestamp, int expirySeconds) {
+        // indexed by the retained message key
+    }
+
+    @Override
+    public void remove(String tenantId, String topic) {
+        // indexed by the retained message key
+    }
+
+    @Override
+    public Set<RetainedMsgInfo> match(String tenantId, String topicFilter) {
+        Set<RetainedMsgInfo> result = new HashSet<>();
+        match(tenantId, topicFilter, result::add);
+        return result;
+    }
+
+    @Override
+    public void match(String tenantId, String topicFilter, Predicate<RetainedMsgInfo> visitor) {
+        scan(tenantId, topicFilter, ByteString.EMPTY, toValueVisitor(tenantId, visitor));
+    }
+
+    /**
+     * Visit the topics and the stored values of matched retained messages in key order, until the visitor returns
+     * false. The values are the serialized TopicMessage, so callers need not seek them again.
+     *
+     * @param tenantId    the tenant id
+     * @param topicFilter the topic filter
+     * @param afterKey    the retain key to match after, empty to match from the beginning
+     * @param visitor     the visitor of topic and retained value
+     */
+    public void matchValues(String tenantId,
+                            String topicFilter,
+                            ByteString afterKey,
+                            BiPredicate<String, ByteString> visitor) {
+        scan(tenantId, topicFilter, afterKey, visitor);
+    }
+
+    @Override
+    public List<RetainedMsgInfo> match(String tenantId, String topicFilter, ByteString afterKey, int limit) {
+        List<RetainedMsgInfo> result = new ArrayList<>();
+        if (limit <= 0) {
+            return result;
+        }
+        // retained messages are visited in key order
+        scan(tenantId, topicFilter, afterKey, toValueVisitor(tenantId, msgInfo -> {
+            result.add(msgInfo);
+            return result.size() < limit;
+        }));
+        return result;
+    }
+
+    private BiPredicate<String, ByteString> toValueVisitor(String tenantId, Predicate<RetainedMsgInfo> visitor) {
+        return (topic, value) -> parseMsgInfo(tenantId, topic, value).map(visitor::test).orElse(true);
+    }
+
+    private void scan(String tenantId,
+                      String topicFilter,
+                      ByteString afterKey,
+                      BiPredicate<String, ByteString> visitor) {
+        if (!isWildcardTopicFilter(topicFilter)) {
+            ByteString retainKey = retainMessageKey(tenantId, topicFilter);
+            if (KEY_COMPARATOR.compare(retainKey, afterKey) > 0) {
+                reader.get(retainKey).ifPresent(value -> visitor.test(topicFilter, value));
+            }
+            return;
+        }
+        ByteString tenantBeginKey = tenantBeginKey(tenantId);
+        Boundary tenantBoundary = intersect(toBoundary(tenantBeginKey, upperBound(tenantBeginKey)), reader.boundary());
+        if (isNULLRange(tenantBoundary)) {
+            return;
+        }
+        List<String> filterLevels = parse(topicFilter, false);
+        List<String> filterPrefix = filterPrefix(filterLevels);
+        boolean multiLevel = filterLevels.get(filterLevels.size() - 1).equals(MULTI_WILDCARD);
+        try (IKVIterator itr = reader.iterator(tenantBoundary)) {
+            int levels = Math.max(1, multiLevel ? filterLevels.size() - 1 : filterLevels.size());
+            int maxLevels = levels;
+            if (multiLevel) {
+                itr.seekToLast();
+                if (!itr.isValid()) {
+                    return;
+                }
+                maxLevels = parseLevels(itr.key());
+            }
+            if (afterKey.startsWith(tenantBeginKey) && afterKey.size() > tenantBeginKey.size()) {
+                levels = Math.max(levels, parseLevels(afterKey));
+            }
+            for (; levels <= maxLevels; levels++) {
+                ByteString keyPrefix = retainKeyPrefix(tenantId, (short) levels, filterPrefix);
+                itr.seek(KEY_COMPARATOR.compare(keyPrefix, afterKey) >= 0 ? keyPrefix : afterKey);
+                for (; itr.isValid() && itr.key().startsWith(keyPrefix); itr.next()) {
+                    if (KEY_COMPARATOR.compare(itr.key(), afterKey) <= 0) {
+                        continue;
+                    }
+                    String topic = parseTopic(itr.key());
+                    if (!matches(parse(topic, false), filterLevels)) {
+                        continue;
+                    }
+                    if (!visitor.test(topic, itr.value())) {
+                        return;
+                    }
+                }
+            }
+        }
+    }
+
+    @Override
+    public Set<RetainedMsgInfo> findAll() {
+        Set<RetainedMsgInfo> result = new HashSet<>();
+        try (IKVIterator itr = reader.iterator()) {
+            for (itr.seekToFirst(); itr.isValid(); itr.next()) {
+                parseMsgInfo(itr.key(), itr.value()).ifPresent(result::add);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public void expired(long now, Predicate<RetainedMsgInfo> visitor) {
+        // no expiry order kept in KV space, scan all retained messages
+        try (IKVIterator itr = reader.iterator()) {
+            for (itr.seekToFirst(); itr.isValid(); itr.next()) {
+                Optional<RetainedMsgInfo> msgInfo = parseMsgInfo(itr.key(), itr.value());
+                if (msgInfo.isPresent() && msgInfo.get().expireAt() <= now && !visitor.test(msgInfo.get())) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private Optional<RetainedMsgInfo> parseMsgInfo(ByteString retainKey, ByteString value) {
+        return parseMsgInfo(parseTenantId(retainKey), parseTopic(retainKey), value);
+    }
+
+    private Optional<RetainedMsgInfo> parseMsgInfo(String tenantId, String topic, ByteString value) {
+        long timestamp = 0;
+        int expirySeconds = 0;
+        try {
+            CodedInputStream input = value.newCodedInput();
+            for (int tag = input.readTag(); tag != 0; tag = input.readTag()) {
+                if (getTagFieldNumber(tag) != TopicMessage.MESSAGE_FIELD_NUMBER) {
+                    input.skipField(tag);
+                    continue;
+                }
+                int oldLimit = input.pushLimit(input.readRawVarint32());
+                for (int msgTag = input.readTag(); msgTag != 0; msgTag = input.readTag()) {
+                    switch (getTagFieldNumber(msgTag)) {
+                        case Message.TIMESTAMP_FIELD_NUMBER -> timestamp = input.readUInt64();
+                        case Message.EXPIRYINTERVAL_FIELD_NUMBER -> expirySeconds = input.readUInt32();
+                        default -> input.skipField(msgTag);
+                    }
+                }
+                input.popLimit(oldLimit);
+            }
+            return Optional.of(new RetainedMsgInfo(tenantId, topic, timestamp, expirySeconds));
+        } catch (IOException e) {
+            log.error("Failed to parse retained message", e);
+            return Optional.empty();
+        }
+    }
+
+    private boolean matches(List<String> topicLevels, List<String> filterLevels) {
+        for (int i = 0; i < filterLevels.size(); i++) {
+            String filterLevel = filterLevels.get(i);
+            if (filterLevel.equals(MULTI_WILDCARD)) {
+                // wildcard at first level doesn't match SYS topic
+                return i != 0 || !topicLevels.get(0).startsWith(SYS_PREFIX);
+            }
+            if (i >= topicLevels.size()) {
+                return false;
+            }
+            if (filterLevel.equals(SINGLE_WILDCARD)) {
+                if (i == 0 && topicLevels.get(0).startsWith(SYS_PREFIX)) {
+                    return false;
+                }
+                continue;
+            }
+            if (!filterLevel.equals(topicLevels.get(i))) {
+                return false;
+            }
+        }
+        return topicLevels.size() == filterLevels.size();
+    }
+}
@@ -19,30 +19,37 @@
 
 package org.apache.bifromq.retain.store.index;
 
+import static org.apache.bifromq.retain.store.schema.KVSchemaUtil.parseTopic;
+import static org.apache.bifromq.retain.store.schema.KVSchemaUtil.retainMessageKey;
+import static org.apache.bifromq.retain.store.schema.KVSchemaUtil.tenantBeginKey;
 import static org.apache.bifromq.util.TopicConst.MULTI_WILDCARD;
 import static org.apache.bifromq.util.TopicConst.SINGLE_WILDCARD;
 import static org.apache.bifromq.util.TopicConst.SYS_PREFIX;
 
+import com.google.protobuf.ByteString;
+import org.apache.bifromq.retain.store.schema.LevelHash;
 import org.apache.bifromq.util.TopicUtil;
-import org.apache.bifromq.util.index.Branch;
 import org.apache.bifromq.util.index.TopicLevelTrie;
+import org.apache.bifromq.util.index.TopicLevelTrie.BranchSelector.Action;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.NavigableSet;
 import java.util.Set;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.function.Predicate;
 
 public class RetainTopicIndex extends TopicLevelTrie<RetainedMsgInfo> implements IRetainTopicIndex {
-    private static final BranchSelector RetainMatcher = new BranchSelector() {
+    private static final LevelSelector RetainLevelMatcher = new LevelSelector() {
         @Override
-        public <T> Map<Branch<T>, Action> selectBranch(Map<String, Branch<T>> branches,
-                                                       List<String> topicLevels,
-                                                       int currentLevel) {
+        public Map<String, Action> selectLevel(Set<String> levels, List<String> topicLevels, int currentLevel) {
             if (topicLevels.isEmpty()) {
-                Map<Branch<T>, Action> result = new HashMap<>();
-                for (Map.Entry<String, Branch<T>> entry : branches.entrySet()) {
-                    Branch<T> branch = entry.getValue();
-                    result.put(branch, Action.MATCH_AND_CONTINUE);
+                Map<String, Action> result = new HashMap<>();
+                for (String level : levels) {
+                    result.put(level, Action.MATCH_AND_CONTINUE);
                 }
                 return result;
             }
@@ -53,22 +60,21 @@ public class RetainTopicIndex extends TopicLevelTrie<RetainedMsgInfo> implements
                 String topicLevelToMatch = topicLevels.get(currentLevel);
                 switch (topicLevelToMatch) {
                     case SINGLE_WILDCARD -> {
-                        Map<Branch<T>, Action> result = new HashMap<>();
-                        for (Map.Entry<String, Branch<T>> entry : branches.entrySet()) {
-                            Branch<T> branch = entry.getValue();
+                        Map<String, Action> result = new HashMap<>();
+                        for (String level : levels) {
                             // the first level represents tenant
-                            if (currentLevel == 1 && entry.getKey().startsWith(SYS_PREFIX)) {
+                            if (currentLevel == 1 && level.startsWith(SYS_PREFIX)) {
                                 // + skip SYS topic
                                 continue;
                             }
-                            result.put(branch, matchParent ? Action.MATCH_AND_CONTINUE : Action.CONTINUE);
+                            result.put(level, matchParent ? Action.MATCH_AND_CONTINUE : Action.CONTINUE);
                         }
                         return result;
                     }
                     default -> {
                         assert !topicLevelToMatch.equals(MULTI_WILDCARD) : "MULTI_WILDCARD should be the last level";
-                        if (branches.containsKey(topicLevelToMatch)) {
-                            return Map.of(branches.get(topicLevelToMatch),
+                        if (levels.contains(topicLevelToMatch)) {
+                            return Map.of(topicLevelToMatch,
                                 matchParent ? Action.MATCH_AND_CONTINUE : Action.CONTINUE);
                         }
                         return Collections.emptyMap();
@@ -79,66 +85,142 @@ public class RetainTopicIndex extends TopicLevelTrie<RetainedMsgInfo> implements
                 String topicLevelToMatch = topicLevels.get(currentLevel);
                 switch (topicLevelToMatch) {
                     case SINGLE_WILDCARD -> {
-                        Map<Branch<T>, Action> result = new HashMap<>();
-                        for (Map.Entry<String, Branch<T>> entry : branches.entrySet()) {
-                            Branch<T> branch = entry.getValue();
+                        Map<String, Action> result = new HashMap<>();
+                        for (String level : levels) {
                             // the first level represents tenant
-                            if (currentLevel == 1 && entry.getKey().startsWith(SYS_PREFIX)) {
+                            if (currentLevel == 1 && level.startsWith(SYS_PREFIX)) {
                                 // + skip SYS topic
                                 continue;
                             }
-                            result.put(branch, Action.MATCH_AND_STOP);
+                            result.put(level, Action.MATCH_AND_STOP);
                         }
                         return result;
                     }
                     case MULTI_WILDCARD -> {
-                        Map<Branch<T>, Action> result = new HashMap<>();
-                        for (Map.Entry<String, Branch<T>> entry : branches.entrySet()) {
-                            Branch<T> branch = entry.getValue();
+                        Map<String, Action> result = new HashMap<>();
+                        for (String level : levels) {
                             // the first level represents tenant
-                            if (currentLevel == 1 && entry.getKey().startsWith(SYS_PREFIX)) {
+                            if (currentLevel == 1 && level.startsWith(SYS_PREFIX)) {
                                 // # skip SYS topic
                                 continue;
                             }
-                            result.put(branch, Action.MATCH_AND_CONTINUE);
+                            result.put(level, Action.MATCH_AND_CONTINUE);
                         }
                         return result;
                     }
                     default -> {
-                        if (branches.containsKey(topicLevelToMatch)) {
-                            return Map.of(branches.get(topicLevelToMatch), Action.MATCH_AND_STOP);
+                        if (levels.contains(topicLevelToMatch)) {
+                            return Map.of(topicLevelToMatch, Action.MATCH_AND_STOP);
                         }
                         return Collections.emptyMap();
                     }
                 }
             } else {
                 // # matches all descendant levels
-                Map<Branch<T>, Action> result = new HashMap<>();
-                for (Map.Entry<String, Branch<T>> entry : branches.entrySet()) {
-                    Branch<T> branch = entry.getValue();
-                    result.put(branch, Action.MATCH_AND_CONTINUE);
+                Map<String, Action> result = new HashMap<>();
+                for (String level : levels) {
+                    result.put(level, Action.MATCH_AND_CONTINUE);
                 }
                 return result;
             }
         }
     };
+    private static final BranchSelector RetainMatcher = RetainLevelMatcher.asBranchSelector();
+    private static final Comparator<ByteString> KEY_COMPARATOR = ByteString.unsignedLexicographicalComparator();
+
+    // retained messages ordered by expiry time, so that gc only visits the expired ones
+    private final NavigableSet<RetainedMsgInfo> expirySet = new ConcurrentSkipListSet<>(
+        Comparator.comparingLong(RetainedMsgInfo::expireAt)
+            .thenComparing(msgInfo -> msgInfo.tenantId)
+            .thenComparing(msgInfo -> msgInfo.topic));
 
     public void add(String tenantId, String topic, long timestamp, int expirySeconds) {
-        add(TopicUtil.parse(tenantId, topic, false),
-            new RetainedMsgInfo(tenantId, topic, timestamp, expirySeconds));
+        RetainedMsgInfo msgInfo = new RetainedMsgInfo(tenantId, topic, timestamp, expirySeconds);
+        add(TopicUtil.parse(tenantId, topic, false), msgInfo);
+        expirySet.add(msgInfo);
     }
 
     public void remove(String tenantId, String topic) {
-        remove(TopicUtil.parse(tenantId, topic, false),
-            new RetainedMsgInfo(tenantId, topic, 0, 0));
+        List<String> topicLevels = TopicUtil.parse(tenantId, topic, false);
+        // locate the indexed one to find its position in expiry order
+        for (RetainedMsgInfo msgInfo : lookup(topicLevels, RetainMatcher)) {
+            expirySet.remove(msgInfo);
+        }
+        remove(topicLevels, new RetainedMsgInfo(tenantId, topic, 0, 0));
     }
 
     public Set<RetainedMsgInfo> match(String tenantId, String topicFilter) {
         return lookup(TopicUtil.parse(tenantId, topicFilter, false), RetainMatcher);
     }
 
+    @Override
+    public void match(String tenantId, String topicFilter, Predicate<RetainedMsgInfo> visitor) {
+        lookup(TopicUtil.parse(tenantId, topicFilter, false), RetainMatcher, visitor);
+    }
+
+    @Override
+    public List<RetainedMsgInfo> match(String tenantId, String topicFilter, ByteString afterKey, int limit) {
+        if (limit <= 0) {
+            return Collections.emptyList();
+        }
+        // walk the trie in the order of retain key, which is ordered by level count first and then the level hashes
+        List<String> filterLevels = TopicUtil.parse(tenantId, topicFilter, false);
+        boolean multiLevel = filterLevels.get(filterLevels.size() - 1).equals(MULTI_WILDCARD);
+        int level = multiLevel ? Math.max(1, filterLevels.size() - 2) : filterLevels.size() - 1;
+        int[] startRanks = new int[0];
+        ByteString tenantBeginKey = tenantBeginKey(tenantId);
+        if (afterKey.startsWith(tenantBeginKey) && afterKey.size() > tenantBeginKey.size()) {
+            List<String> afterLevels = TopicUtil.parse(tenantId, parseTopic(afterKey), false);
+            if (afterLevels.size() - 1 > level) {
+                if (!multiLevel) {
+                    return Collections.emptyList();
+                }
+                level = afterLevels.size() - 1;
+            }
+            if (afterLevels.size() - 1 == level) {
+                startRanks = new int[afterLevels.size()];
+                for (int i = 0; i < startRanks.length; i++) {
+                    startRanks[i] = rank(afterLevels.get(i));
+                }
+            }
+        }
+        List<RetainedMsgInfo> result = new ArrayList<>();
+        ByteString[] lastKey = new ByteString[] {afterKey};
+        Predicate<RetainedMsgInfo> visitor = msgInfo -> {
+            ByteString retainKey = retainMessageKey(tenantId, msgInfo.topic);
+            if (KEY_COMPARATOR.compare(retainKey, lastKey[0]) <= 0) {
+                // visited before the lookup is restarted
+                return true;
+            }
+            lastKey[0] = retainKey;
+            result.add(msgInfo);
+            return result.size() < limit;
+        };
+        Comparator<RetainedMsgInfo> valueOrder =
+            Comparator.comparing(msgInfo -> retainMessageKey(tenantId, msgInfo.topic), KEY_COMPARATOR);
+        while (lookup(filterLevels, RetainLevelMatcher, level, RetainTopicIndex::rank, startRanks, valueOrder, visitor)
+            && multiLevel && result.size() < limit) {
+            level++;
+            startRanks = new int[0];
+        }
+        return result;
+    }
+
     @Override
     public Set<RetainedMsgInfo> findAll() {
         return lookup(Collections.emptyList(), RetainMatcher);
     }
+
+    @Override
+    public void expired(long now, Predicate<RetainedMsgInfo> visitor) {
+        for (RetainedMsgInfo msgInfo : expirySet) {
+            if (msgInfo.expireAt() > now || !visitor.test(msgInfo)) {
+                return;
+            }
+        }
+    }
+
+    private static int rank(String topicLevel) {
+        return Byte.toUnsignedInt(LevelHash.hash(topicLevel));
+    }
 }
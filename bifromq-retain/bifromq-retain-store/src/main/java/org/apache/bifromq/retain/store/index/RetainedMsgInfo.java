@@ -22,6 +22,7 @@ package org.apache.bifromq.retain.store.index;
 import lombok.AllArgsConstructor;
 import lombok.EqualsAndHashCode;
 import lombok.ToString;
+import org.apache.bifromq.basehlc.HLC;
 
 @EqualsAndHashCode
 @AllArgsConstructor
@@ -33,4 +34,13 @@ public class RetainedMsgInfo {
     public final long timestamp;
     @EqualsAndHashCode.Exclude
     public final int expirySeconds;
+
+    /**
+     * The physical time in milliseconds when the retained message expires.
+     *
+     * @return the expiry time
+     */
+    public long expireAt() {
+        return HLC.INST.getPhysical(timestamp) + expirySeconds * 1000L;
+    }
 }
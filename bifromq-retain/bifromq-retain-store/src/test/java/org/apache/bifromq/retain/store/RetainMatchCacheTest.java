@@ -0,0 +1,170 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.bifromq.retain.store;
+
+import static org.awaitility.Awaitility.await;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import com.google.protobuf.ByteString;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.IntStream;
+import org.apache.bifromq.basehlc.HLC;
+import org.apache.bifromq.type.Message;
+import org.apache.bifromq.type.TopicMessage;
+import org.testng.annotations.Test;
+
+public class RetainMatchCacheTest {
+    private static final long MAX_BYTES = 1024 * 1024;
+    private final String tenantId = "tenantA";
+
+    @Test
+    public void hitAndInvalidate() {
+        RetainMatchCache cache = new RetainMatchCache(Duration.ofSeconds(5), MAX_BYTES);
+        long now = HLC.INST.getPhysical();
+        List<TopicMessage> messages = List.of(message("a/b", 60));
+        cache.put(tenantId, "a/+", 10, 1, cache.generation(), messages);
+        assertEquals(cache.get(tenantId, "a/+", 10, now).get(), messages);
+        assertTrue(cache.get(tenantId, "a/+", 5, now).isEmpty());
+        assertTrue(cache.get("tenantB", "a/+", 10, now).isEmpty());
+
+        // unrelated topic
+        cache.invalidate(tenantId, Set.of("b/c"), 2);
+        assertTrue(cache.get(tenantId, "a/+", 10, now).isPresent());
+
+        cache.invalidate(tenantId, Set.of("a/c"), 3);
+        assertTrue(cache.get(tenantId, "a/+", 10, now).isEmpty());
+
+        // computed before invalidation
+        cache.put(tenantId, "a/+", 10, 2, cache.generation(), messages);
+        assertTrue(cache.get(tenantId, "a/+", 10, now).isEmpty());
+
+        cache.put(tenantId, "a/+", 10, 3, cache.generation(), messages);
+        assertTrue(cache.get(tenantId, "a/+", 10, now).isPresent());
+    }
+
+    @Test
+    public void rejectStaleResultForNewEntry() {
+        RetainMatchCache cache = new RetainMatchCache(Duration.ofSeconds(5), MAX_BYTES);
+        long now = HLC.INST.getPhysical();
+        cache.invalidate(tenantId, Set.of("a"), 5);
+        cache.put(tenantId, "#", 10, 4, cache.generation(), List.of());
+        assertTrue(cache.get(tenantId, "#", 10, now).isEmpty());
+
+        cache.put(tenantId, "#", 10, 5, cache.generation(), List.of());
+        assertTrue(cache.get(tenantId, "#", 10, now).isPresent());
+
+        cache.reset(6);
+        assertTrue(cache.get(tenantId, "#", 10, now).isEmpty());
+        cache.put(tenantId, "#", 10, 5, cache.generation(), List.of());
+        assertTrue(cache.get(tenantId, "#", 10, now).isEmpty());
+    }
+
+    @Test
+    public void rejectResultStartedBeforeInvalidation() {
+        RetainMatchCache cache = new RetainMatchCache(Duration.ofSeconds(5), MAX_BYTES);
+        long now = HLC.INST.getPhysical();
+        cache.put(tenantId, "a/#", 10, 1, cache.generation(), List.of());
+        long generation = cache.generation();
+        cache.invalidate(tenantId, Set.of("a/b"), 1);
+        cache.put(tenantId, "a/#", 10, 1, generation, List.of());
+        assertTrue(cache.get(tenantId, "a/#", 10, now).isEmpty());
+        cache.put(tenantId, "a/#", 10, 1, cache.generation(), List.of());
+        assertTrue(cache.get(tenantId, "a/#", 10, now).isPresent());
+    }
+
+    @Test
+    public void missIfMessageExpired() {
+        RetainMatchCache cache = new RetainMatchCache(Duration.ofSeconds(5), MAX_BYTES);
+        long now = HLC.INST.getPhysical();
+        cache.put(tenantId, "a", 10, 1, cache.generation(), List.of(message("a", 1)));
+        assertTrue(cache.get(tenantId, "a", 10, now).isPresent());
+        assertTrue(cache.get(tenantId, "a", 10, now + 2000).isEmpty());
+    }
+
+    @Test
+    public void disabled() {
+        RetainMatchCache cache = new RetainMatchCache(Duration.ZERO, MAX_BYTES);
+        assertFalse(cache.enabled());
+        cache.put(tenantId, "a", 10, 1, cache.generation(), List.of(message("a", 60)));
+        assertTrue(cache.get(tenantId, "a", 10, HLC.INST.getPhysical()).isEmpty());
+
+        assertFalse(new RetainMatchCache(Duration.ofSeconds(5), 0).enabled());
+    }
+
+    @Test
+    public void firstPageCachedApart() {
+        RetainMatchCache cache = new RetainMatchCache(Duration.ofSeconds(5), MAX_BYTES);
+        long now = HLC.INST.getPhysical();
+        List<TopicMessage> matched = List.of(message("a/c", 60), message("a/b", 60));
+        List<TopicMessage> firstPage = List.of(message("a/b", 60), message("a/c", 60));
+        cache.put(tenantId, "a/#", 2, 1, cache.generation(), matched);
+        assertTrue(cache.getFirstPage(tenantId, "a/#", 2, now).isEmpty());
+
+        cache.putFirstPage(tenantId, "a/#", 2, 1, cache.generation(), firstPage);
+        assertEquals(cache.getFirstPage(tenantId, "a/#", 2, now).get(), firstPage);
+        assertEquals(cache.get(tenantId, "a/#", 2, now).get(), matched);
+        assertTrue(cache.getFirstPage(tenantId, "a/#", 1, now).isEmpty());
+
+        cache.invalidate(tenantId, Set.of("a/d"), 2);
+        assertTrue(cache.getFirstPage(tenantId, "a/#", 2, now).isEmpty());
+        assertTrue(cache.get(tenantId, "a/#", 2, now).isEmpty());
+
+        // computed before invalidation
+        cache.putFirstPage(tenantId, "a/#", 2, 1, cache.generation(), firstPage);
+        assertTrue(cache.getFirstPage(tenantId, "a/#", 2, now).isEmpty());
+        cache.putFirstPage(tenantId, "a/#", 2, 2, cache.generation(), firstPage);
+        assertTrue(cache.getFirstPage(tenantId, "a/#", 2, now).isPresent());
+    }
+
+    @Test
+    public void boundedBySerializedSize() {
+        RetainMatchCache cache = new RetainMatchCache(Duration.ofSeconds(5), 4096);
+        long now = HLC.INST.getPhysical();
+        // larger than the whole cache
+        cache.put(tenantId, "a/#", 10, 1, cache.generation(), List.of(message("a/b", 60, 8192)));
+        await().until(() -> cache.get(tenantId, "a/#", 10, now).isEmpty());
+
+        for (int i = 0; i < 4; i++) {
+            cache.put("tenant" + i, "a/#", 10, 1, cache.generation(), List.of(message("a/b", 60, 1024)));
+        }
+        await().until(() -> IntStream.range(0, 4)
+            .filter(i -> cache.get("tenant" + i, "a/#", 10, now).isPresent())
+            .count() < 4);
+    }
+
+    private TopicMessage message(String topic, int expirySeconds) {
+        return message(topic, expirySeconds, 0);
+    }
+
+    private TopicMessage message(String topic, int expirySeconds, int payloadSize) {
+        return TopicMessage.newBuilder()
+            .setTopic(topic)
+            .setMessage(Message.newBuilder()
+                .setTimestamp(HLC.INST.get())
+                .setExpiryInterval(expirySeconds)
+                .setPayload(ByteString.copyFrom(new byte[payloadSize]))
+                .build())
+            .build();
+    }
+}
@@ -20,8 +20,13 @@
 package org.apache.bifromq.retain.store;
 
 import static com.google.common.collect.Sets.newHashSet;
+import static org.apache.bifromq.retain.store.schema.KVSchemaUtil.retainMessageKey;
 import static org.testng.Assert.assertEquals;
 
+import com.google.protobuf.ByteString;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
 import org.apache.bifromq.retain.rpc.proto.MatchResult;
 import org.apache.bifromq.type.TopicMessage;
 import org.testng.annotations.BeforeMethod;
@@ -122,4 +127,38 @@ public class RetainMatchTest extends RetainStoreTest {
         assertEquals(requestMatch(tenantId, "#", 0).getMessagesCount(), 0);
         assertEquals(requestMatch(tenantId, "#", 1).getMessagesCount(), 1);
     }
+
+    @Test(groups = "integration")
+    public void firstPageReflectsRetainChanges() {
+        TopicMessage message1 = message("/a/b", "hello");
+        TopicMessage message2 = message("/a/c", "hello");
+        TopicMessage message3 = message("/a/d", "hello");
+        requestRetain(tenantId, message1);
+        requestRetain(tenantId, message3);
+
+        assertEquals(requestMatchPage(tenantId, "/a/#", ByteString.EMPTY, 2).getMessagesList(),
+            inKeyOrder(message1, message3));
+        // served from cache
+        assertEquals(requestMatchPage(tenantId, "/a/#", ByteString.EMPTY, 2).getMessagesList(),
+            inKeyOrder(message1, message3));
+
+        requestRetain(tenantId, message2);
+        List<TopicMessage> all = inKeyOrder(message1, message2, message3);
+        assertEquals(requestMatchPage(tenantId, "/a/#", ByteString.EMPTY, 2).getMessagesList(), all.subList(0, 2));
+        assertEquals(requestMatchPage(tenantId, "/a/#", retainMessageKey(tenantId, all.get(1).getTopic()), 2)
+            .getMessagesList(), all.subList(2, 3));
+        // the limited match is not mixed up with the first page
+        assertEquals(requestMatch(tenantId, "/a/#", 3).getMessagesCount(), 3);
+
+        requestRetain(tenantId, message("/a/b", ""));
+        assertEquals(requestMatchPage(tenantId, "/a/#", ByteString.EMPTY, 2).getMessagesList(),
+            inKeyOrder(message2, message3));
+    }
+
+    private List<TopicMessage> inKeyOrder(TopicMessage... messages) {
+        return Stream.of(messages)
+            .sorted(Comparator.comparing(msg -> retainMessageKey(tenantId, msg.getTopic()),
+                ByteString.unsignedLexicographicalComparator()))
+            .toList();
+    }
 }
@@ -77,8 +77,10 @@ import org.apache.bifromq.retain.rpc.proto.BatchMatchRequest;
 import org.apache.bifromq.retain.rpc.proto.BatchRetainRequest;
 import org.apache.bifromq.retain.rpc.proto.GCReply;
 import org.apache.bifromq.retain.rpc.proto.GCRequest;
+import org.apache.bifromq.retain.rpc.proto.MatchPage;
 import org.apache.bifromq.retain.rpc.proto.MatchParam;
 import org.apache.bifromq.retain.rpc.proto.MatchResult;
+import org.apache.bifromq.retain.rpc.proto.MatchResultPack;
 import org.apache.bifromq.retain.rpc.proto.RetainMessage;
 import org.apache.bifromq.retain.rpc.proto.RetainParam;
 import org.apache.bifromq.retain.rpc.proto.RetainResult;
@@ -230,11 +232,26 @@ public class RetainStoreTest {
 
     protected MatchResult requestMatch(String tenantId, long now, String topicFilter, int limit) {
         long reqId = ThreadLocalRandom.current().nextInt();
-        ByteString tenantNS = KVSchemaUtil.tenantBeginKey(tenantId);
-        KVRangeSetting s = findByKey(tenantNS, storeClient.latestEffectiveRouter()).get();
         BatchMatchRequest request = BatchMatchRequest.newBuilder().setReqId(reqId)
             .putMatchParams(tenantId, MatchParam.newBuilder().setNow(now).putTopicFilters(topicFilter, limit).build())
             .build();
+        return requestBatchMatch(tenantId, request).getResultsMap().get(topicFilter);
+    }
+
+    protected MatchResult requestMatchPage(String tenantId, String topicFilter, ByteString afterKey, int limit) {
+        BatchMatchRequest request = BatchMatchRequest.newBuilder().setReqId(ThreadLocalRandom.current().nextInt())
+            .putMatchParams(tenantId, MatchParam.newBuilder()
+                .setNow(HLC.INST.getPhysical())
+                .addPages(MatchPage.newBuilder().setTopicFilter(topicFilter).setAfterKey(afterKey).setLimit(limit))
+                .build())
+            .build();
+        return requestBatchMatch(tenantId, request).getPageResults(0);
+    }
+
+    private MatchResultPack requestBatchMatch(String tenantId, BatchMatchRequest request) {
+        long reqId = request.getReqId();
+        ByteString tenantNS = KVSchemaUtil.tenantBeginKey(tenantId);
+        KVRangeSetting s = findByKey(tenantNS, storeClient.latestEffectiveRouter()).get();
         RetainServiceROCoProcInput input = buildMatchRequest(request);
         KVRangeROReply reply = storeClient.query(s.leader(),
             KVRangeRORequest.newBuilder().setReqId(reqId).setVer(s.ver()).setKvRangeId(s.id())
@@ -244,7 +261,7 @@ public class RetainStoreTest {
         RetainServiceROCoProcOutput output = reply.getRoCoProcResult().getRetainService();
         assertTrue(output.hasBatchMatch());
         assertEquals(output.getBatchMatch().getReqId(), reqId);
-        return output.getBatchMatch().getResultPackMap().get(tenantId).getResultsMap().get(topicFilter);
+        return output.getBatchMatch().getResultPackMap().get(tenantId);
     }
 
     protected GCReply requestGC(long now, String tenantId, Integer expirySeconds) {
@@ -19,16 +19,21 @@
 
 package org.apache.bifromq.retain.store;
 
+import static org.apache.bifromq.basekv.utils.BoundaryUtil.FULL_BOUNDARY;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertTrue;
 
+import io.micrometer.core.instrument.Gauge;
 import io.micrometer.core.instrument.Meter;
 import io.micrometer.core.instrument.Metrics;
 import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import java.util.Optional;
 import java.util.function.Supplier;
+import org.apache.bifromq.basekv.proto.Boundary;
+import org.apache.bifromq.basekv.store.api.IKVIterator;
 import org.apache.bifromq.basekv.store.api.IKVRangeRefreshableReader;
 import org.apache.bifromq.metrics.ITenantMeter;
 import org.apache.bifromq.metrics.TenantMetric;
@@ -83,6 +88,27 @@ public class TenantsStatsTest {
         assertNoGauge(tenantId, TenantMetric.MqttRetainSpaceGauge);
     }
 
+    @Test
+    public void countUncountedTenantWhenMetered() {
+        IKVIterator itr = mock(IKVIterator.class);
+        when(reader.boundary()).thenReturn(FULL_BOUNDARY);
+        when(reader.iterator(any(Boundary.class))).thenReturn(itr);
+        when(itr.isValid()).thenReturn(true, true, true, false);
+        when(reader.lastAppliedIndex()).thenReturn(10L);
+        TenantsStats tenantsStats = new TenantsStats(readerSupplier);
+        tenantsStats.addUncountedTenant(tenantId);
+        // visible at counted index
+        tenantsStats.increaseTopicCount(tenantId, 1, 10);
+        tenantsStats.increaseTopicCount(tenantId, 1, 11);
+        tenantsStats.toggleMetering(true);
+        assertGaugeValue(tenantId, TenantMetric.MqttRetainNumGauge, 4);
+
+        tenantsStats.increaseTopicCount(tenantId, -1, 9);
+        tenantsStats.increaseTopicCount(tenantId, -1, 12);
+        assertGaugeValue(tenantId, TenantMetric.MqttRetainNumGauge, 3);
+        tenantsStats.close();
+    }
+
     @Test
     public void close() {
         TenantsStats tenantsStats = new TenantsStats(readerSupplier);
@@ -103,6 +129,12 @@ public class TenantsStatsTest {
         assertEquals(gauge.get().getId().getTag(ITenantMeter.TAG_TENANT_ID), tenantId);
     }
 
+    private void assertGaugeValue(String tenantId, TenantMetric tenantMetric, double value) {
+        Optional<Meter> gauge = getGauge(tenantId, tenantMetric);
+        assertTrue(gauge.isPresent());
+        assertEquals(((Gauge) gauge.get()).value(), value);
+    }
+
     private void assertNoGauge(String tenantId, TenantMetric tenantMetric) {
         Optional<Meter> gauge = getGauge(tenantId, tenantMetric);
         gauge.ifPresent(meter -> assertEquals(meter.getId().getTag(ITenantMeter.TAG_TENANT_ID), tenantId));
@@ -0,0 +1,122 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.    
+ */
+
+package org.apache.bifromq.retain.store.index;
+
+import static org.apache.bifromq.retain.store.schema.KVSchemaUtil.retainMessageKey;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import com.google.protobuf.ByteString;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.testng.annotations.Test;
+
+public abstract class AbstractRetainTopicIndexTest {
+    protected abstract IRetainTopicIndex index();
+
+    protected abstract void retain(String tenantId, String... topics);
+
+    @Test
+    public void testMatchWithEarlyStop() {
+        String tenantId = "tenantA";
+        retain(tenantId, "/", "/a", "/b", "a", "a/", "a/b", "a/b/c", "$a", "$a/", "$a/b");
+        Set<RetainedMsgInfo> visited = new HashSet<>();
+        index().match(tenantId, "#", msgInfo -> {
+            visited.add(msgInfo);
+            return visited.size() < 3;
+        });
+        assertEquals(visited.size(), 3);
+        assertTrue(index().match(tenantId, "#").containsAll(visited));
+
+        visited.clear();
+        index().match(tenantId, "a/b", msgInfo -> {
+            visited.add(msgInfo);
+            return false;
+        });
+        assertMatch(tenantId, visited, "a/b");
+    }
+
+    @Test
+    public void testPagedMatch() {
+        String tenantId = "tenantA";
+        retain(tenantId, "/", "/a", "/b", "a", "a/", "a/b", "a/b/c", "$a", "$a/", "$a/b");
+        List<RetainedMsgInfo> paged = new ArrayList<>();
+        ByteString afterKey = ByteString.EMPTY;
+        List<RetainedMsgInfo> page;
+        do {
+            page = index().match(tenantId, "#", afterKey, 3);
+            assertTrue(page.size() <= 3);
+            paged.addAll(page);
+            if (!page.isEmpty()) {
+                afterKey = retainMessageKey(tenantId, page.get(page.size() - 1).topic);
+            }
+        } while (page.size() == 3);
+        assertMatch(tenantId, new HashSet<>(paged), "/", "/a", "/b", "a", "a/", "a/b", "a/b/c");
+        assertEquals(paged.size(), 7);
+        for (int i = 1; i < paged.size(); i++) {
+            assertTrue(ByteString.unsignedLexicographicalComparator().compare(
+                retainMessageKey(tenantId, paged.get(i - 1).topic),
+                retainMessageKey(tenantId, paged.get(i).topic)) < 0);
+        }
+
+        assertMatch(tenantId, new HashSet<>(index().match(tenantId, "a/b", ByteString.EMPTY, 3)), "a/b");
+        assertTrue(index().match(tenantId, "a/b", retainMessageKey(tenantId, "a/b"), 3).isEmpty());
+    }
+
+    @Test
+    public void testPagedMatchInKeyOrder() {
+        String tenantId = "tenantA";
+        Random random = new Random(0);
+        Set<String> topics = new HashSet<>();
+        while (topics.size() < 500) {
+            StringBuilder topic = new StringBuilder(random.nextBoolean() ? "a" : "b");
+            int levels = random.nextInt(4);
+            for (int i = 0; i < levels; i++) {
+                topic.append('/').append(random.nextInt(40));
+            }
+            topics.add(topic.toString());
+        }
+        retain(tenantId, topics.toArray(String[]::new));
+        for (String topicFilter : List.of("#", "a/#", "+/+", "a/+/+", "b/1/#")) {
+            List<ByteString> expected = index().match(tenantId, topicFilter).stream()
+                .map(msgInfo -> retainMessageKey(tenantId, msgInfo.topic))
+                .sorted(ByteString.unsignedLexicographicalComparator())
+                .toList();
+            List<ByteString> paged = new ArrayList<>();
+            List<RetainedMsgInfo> page;
+            do {
+                ByteString afterKey = paged.isEmpty() ? ByteString.EMPTY : paged.get(paged.size() - 1);
+                page = index().match(tenantId, topicFilter, afterKey, 7);
+                page.forEach(msgInfo -> paged.add(retainMessageKey(tenantId, msgInfo.topic)));
+            } while (page.size() == 7);
+            assertEquals(paged, expected, topicFilter);
+        }
+    }
+
+    protected void assertMatch(String tenantId, Set<RetainedMsgInfo> matches, String... expected) {
+        assertEquals(new HashSet<>(matches),
+            Set.of(expected).stream().map(topic -> new RetainedMsgInfo(tenantId, topic, 0, 0))
+                .collect(Collectors.toSet()));
+    }
+}
@@ -0,0 +1,241 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.    
+ */
+
+package org.apache.bifromq.retain.store.index;
+
+import static org.apache.bifromq.basekv.utils.BoundaryUtil.FULL_BOUNDARY;
+import static org.apache.bifromq.basekv.utils.BoundaryUtil.inRange;
+import static org.apache.bifromq.retain.store.schema.KVSchemaUtil.retainMessageKey;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertEquals;
+
+import com.google.protobuf.ByteString;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import org.apache.bifromq.basehlc.HLC;
+import org.apache.bifromq.basekv.proto.Boundary;
+import org.apache.bifromq.basekv.store.api.IKVIterator;
+import org.apache.bifromq.basekv.store.api.IKVRangeReader;
+import org.apache.bifromq.type.Message;
+import org.apache.bifromq.type.TopicMessage;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class KVRetainTopicIndexTest extends AbstractRetainTopicIndexTest {
+    private final TreeMap<ByteString, ByteString> kvSpace = new TreeMap<>(ByteString.unsignedLexicographicalComparator());
+    private KVRetainTopicIndex index;
+
+    @BeforeMethod
+    public void setUp() {
+        kvSpace.clear();
+        IKVRangeReader reader = mock(IKVRangeReader.class);
+        when(reader.boundary()).thenReturn(FULL_BOUNDARY);
+        when(reader.get(any())).thenAnswer(invocation -> Optional.ofNullable(kvSpace.get(invocation.getArgument(0))));
+        when(reader.iterator()).thenAnswer(invocation -> new TestIterator(kvSpace));
+        when(reader.iterator(any())).thenAnswer(invocation -> {
+            Boundary boundary = invocation.getArgument(0);
+            return new TestIterator(kvSpace.entrySet().stream()
+                .filter(e -> inRange(e.getKey(), boundary))
+                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue, (a, b) -> a,
+                    () -> new TreeMap<>(ByteString.unsignedLexicographicalComparator()))));
+        });
+        index = new KVRetainTopicIndex(reader);
+    }
+
+    @Override
+    protected IRetainTopicIndex index() {
+        return index;
+    }
+
+    @Override
+    protected void retain(String tenantId, String... topics) {
+        add(tenantId, topics);
+    }
+
+    @Test
+    public void testMatch() {
+        String tenantId = "tenantA";
+        add(tenantId, "/", "/a", "/b", "a", "a/", "a/b", "a/b/c", "$a", "$a/", "$a/b");
+        add("tenantB", "a", "a/b");
+        assertMatch(tenantId, index.match(tenantId, "/"), "/");
+        assertMatch(tenantId, index.match(tenantId, "/a"), "/a");
+        assertMatch(tenantId, index.match(tenantId, "a"), "a");
+        assertMatch(tenantId, index.match(tenantId, "a/"), "a/");
+        assertMatch(tenantId, index.match(tenantId, "a/b/c"), "a/b/c");
+        assertMatch(tenantId, index.match(tenantId, "$a/b"), "$a/b");
+
+        assertMatch(tenantId, index.match(tenantId, ""));
+        assertMatch(tenantId, index.match(tenantId, "fakeTopic"));
+        assertMatch(tenantId, index.match(tenantId, "+"), "a");
+        assertMatch(tenantId, index.match(tenantId, "+/#"), "/", "/a", "/b", "a", "a/", "a/b", "a/b/c");
+        assertMatch(tenantId, index.match(tenantId, "+/+"), "/", "/a", "/b", "a/", "a/b");
+
+        assertMatch(tenantId, index.match(tenantId, "#"), "/", "/a", "/b", "a", "a/", "a/b", "a/b/c");
+
+        assertMatch(tenantId, index.match(tenantId, "/+"), "/", "/a", "/b");
+        assertMatch(tenantId, index.match(tenantId, "/#"), "/", "/a", "/b");
+
+        assertMatch(tenantId, index.match(tenantId, "a/+"), "a/", "a/b");
+        assertMatch(tenantId, index.match(tenantId, "a/#"), "a", "a/", "a/b", "a/b/c");
+
+        assertMatch(tenantId, index.match(tenantId, "$a/+"), "$a/", "$a/b");
+        assertMatch(tenantId, index.match(tenantId, "$a/+/#"), "$a/", "$a/b");
+        assertMatch(tenantId, index.match(tenantId, "$a/#"), "$a", "$a/", "$a/b");
+
+        assertMatch("tenantC", index.match("tenantC", "#"));
+    }
+
+    @Test
+    public void testMatchValues() throws Exception {
+        String tenantId = "tenantA";
+        add(tenantId, "a", "a/b", "a/c", "b/c");
+        List<String> visited = new ArrayList<>();
+        index.matchValues(tenantId, "a/+", ByteString.EMPTY, (topic, value) -> {
+            visited.add(topic);
+            return true;
+        });
+        assertEquals(new HashSet<>(visited), Set.of("a/b", "a/c"));
+
+        visited.clear();
+        index.matchValues(tenantId, "#", ByteString.EMPTY, (topic, value) -> {
+            visited.add(topic);
+            return false;
+        });
+        assertEquals(visited.size(), 1);
+
+        List<ByteString> values = new ArrayList<>();
+        index.matchValues(tenantId, "a/b", ByteString.EMPTY, (topic, value) -> values.add(value));
+        assertEquals(TopicMessage.parseFrom(values.get(0)).getTopic(), "a/b");
+
+        // resume after the first matched one
+        visited.clear();
+        index.matchValues(tenantId, "a/+", ByteString.EMPTY, (topic, value) -> {
+            visited.add(topic);
+            return false;
+        });
+        String first = visited.get(0);
+        visited.clear();
+        index.matchValues(tenantId, "a/+", retainMessageKey(tenantId, first), (topic, value) -> visited.add(topic));
+        assertEquals(visited, List.of(first.equals("a/b") ? "a/c" : "a/b"));
+    }
+
+    @Test
+    public void testExpired() {
+        String tenantId = "tenantA";
+        long now = HLC.INST.get();
+        long nowMillis = HLC.INST.getPhysical(now);
+        put(tenantId, "a", now, 1);
+        put(tenantId, "b", now, 10);
+        put("tenantB", "c", now, 100);
+        Set<RetainedMsgInfo> expired = new HashSet<>();
+        index.expired(nowMillis + 10000, expired::add);
+        assertMatch(tenantId, expired, "a", "b");
+    }
+
+    @Test
+    public void testFindAll() {
+        add("tenantA", "/", "a/b");
+        add("tenantB", "a");
+        Set<RetainedMsgInfo> all = index.findAll();
+        assertEquals(all, Set.of(new RetainedMsgInfo("tenantA", "/", 0, 0),
+            new RetainedMsgInfo("tenantA", "a/b", 0, 0),
+            new RetainedMsgInfo("tenantB", "a", 0, 0)));
+    }
+
+    private void add(String tenantId, String... topics) {
+        for (String topic : topics) {
+            put(tenantId, topic, System.nanoTime(), 1);
+        }
+    }
+
+    private void put(String tenantId, String topic, long timestamp, int expirySeconds) {
+        kvSpace.put(retainMessageKey(tenantId, topic), TopicMessage.newBuilder()
+            .setTopic(topic)
+            .setMessage(Message.newBuilder().setTimestamp(timestamp).setExpiryInterval(expirySeconds).build())
+            .build()
+            .toByteString());
+    }
+
+    private static class TestIterator implements IKVIterator {
+        private final NavigableMap<ByteString, ByteString> data;
+        private Map.Entry<ByteString, ByteString> current;
+
+        TestIterator(NavigableMap<ByteString, ByteString> data) {
+            this.data = data;
+        }
+
+        @Override
+        public ByteString key() {
+            return current.getKey();
+        }
+
+        @Override
+        public ByteString value() {
+            return current.getValue();
+        }
+
+        @Override
+        public boolean isValid() {
+            return current != null;
+        }
+
+        @Override
+        public void next() {
+            current = data.higherEntry(current.getKey());
+        }
+
+        @Override
+        public void prev() {
+            current = data.lowerEntry(current.getKey());
+        }
+
+        @Override
+        public void seekToFirst() {
+            current = data.firstEntry();
+        }
+
+        @Override
+        public void seekToLast() {
+            current = data.lastEntry();
+        }
+
+        @Override
+        public void seek(ByteString key) {
+            current = data.ceilingEntry(key);
+        }
+
+        @Override
+        public void seekForPrev(ByteString key) {
+            current = data.floorEntry(key);
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -19,18 +19,16 @@
 
 package org.apache.bifromq.retain.store.index;
 
-import static org.testng.Assert.assertEquals;
-
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
-import java.util.stream.Collectors;
+import org.apache.bifromq.basehlc.HLC;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
-public class RetainTopicIndexTest {
+public class RetainTopicIndexTest extends AbstractRetainTopicIndexTest {
     private RetainTopicIndex index;
 
     @BeforeMethod
@@ -38,6 +36,16 @@ public class RetainTopicIndexTest {
         index = new RetainTopicIndex();
     }
 
+    @Override
+    protected IRetainTopicIndex index() {
+        return index;
+    }
+
+    @Override
+    protected void retain(String tenantId, String... topics) {
+        add(tenantId, topics).join();
+    }
+
     @Test
     public void testMatch() {
         String tenantId = "tenantA";
@@ -74,6 +82,31 @@ public class RetainTopicIndexTest {
         assertMatch(tenantId, index.match("tenantB", "#"));
     }
 
+    @Test
+    public void testExpired() {
+        String tenantId = "tenantA";
+        long now = HLC.INST.get();
+        long nowMillis = HLC.INST.getPhysical(now);
+        index.add(tenantId, "a", now, 1);
+        index.add(tenantId, "b", now, 10);
+        index.add(tenantId, "c", now, 100);
+        assertMatch(tenantId, expired(nowMillis));
+        assertMatch(tenantId, expired(nowMillis + 1000), "a");
+        assertMatch(tenantId, expired(nowMillis + 10000), "a", "b");
+
+        // replaced retained message follows the new expiry
+        index.remove(tenantId, "b");
+        index.add(tenantId, "b", now, 1000);
+        index.remove(tenantId, "a");
+        assertMatch(tenantId, expired(nowMillis + 100000), "c");
+    }
+
+    private Set<RetainedMsgInfo> expired(long now) {
+        Set<RetainedMsgInfo> expired = new HashSet<>();
+        index.expired(now, expired::add);
+        return expired;
+    }
+
     @Test
     public void testFindAll() {
         String tenantId = "tenantA";
@@ -108,7 +141,6 @@ public class RetainTopicIndexTest {
         assertMatch(tenantId, index.match(tenantId, "#"));
     }
 
-
     @Test
     public void testEdgeCases() {
         String tenantId = "tenantA";
@@ -123,10 +155,4 @@ public class RetainTopicIndexTest {
         }
         return CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new));
     }
-
-    private void assertMatch(String tenantId, Set<RetainedMsgInfo> matches, String... expected) {
-        assertEquals(new HashSet<>(matches),
-            Set.of(expected).stream().map(topic -> new RetainedMsgInfo(tenantId, topic, 0, 0))
-                .collect(Collectors.toSet()));
-    }
 }
@@ -0,0 +1,112 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.    
+ */
+
+package org.apache.bifromq.retain.store.index.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import org.apache.bifromq.basehlc.HLC;
+import org.apache.bifromq.retain.store.index.RetainTopicIndex;
+import org.apache.bifromq.retain.store.index.RetainedMsgInfo;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compare finding expired retained messages via full index scan and via expiry order.
+ */
+public class RetainGCBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        Options opt = new OptionsBuilder()
+            .include(RetainGCBenchmark.class.getSimpleName())
+            .jvmArgs("-Xmx16G")
+            .build();
+        new Runner(opt).run();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @Warmup(iterations = 1)
+    @Measurement(iterations = 3)
+    @Threads(1)
+    @Fork(1)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public void scanAll(BenchState state, Blackhole bh) {
+        for (RetainedMsgInfo msgInfo : state.index.findAll()) {
+            if (msgInfo.expireAt() <= state.now) {
+                bh.consume(msgInfo);
+            }
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @Warmup(iterations = 1)
+    @Measurement(iterations = 3)
+    @Threads(1)
+    @Fork(1)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public void expiryOrder(BenchState state, Blackhole bh) {
+        state.index.expired(state.now, msgInfo -> {
+            bh.consume(msgInfo);
+            return true;
+        });
+    }
+
+    @State(Scope.Benchmark)
+    public static class BenchState {
+        @Param({"10000000"})
+        public int topicCount;
+
+        @Param({"0.001"})
+        public double expiredRatio;
+
+        RetainTopicIndex index;
+
+        long now;
+
+        @Setup(Level.Trial)
+        public void setup() {
+            index = new RetainTopicIndex();
+            long timestamp = HLC.INST.get();
+            now = HLC.INST.getPhysical(timestamp) + 1000;
+            int expiredCount = (int) (topicCount * expiredRatio);
+            for (int i = 0; i < topicCount; i++) {
+                String tenantId = "tenant" + (i % 100);
+                String topic = "device/" + (i / 100) + "/state";
+                // the expired ones live for 1 second, the others for 1 day
+                index.add(tenantId, topic, timestamp, i < expiredCount ? 1 : 86400);
+            }
+        }
+    }
+}
@@ -19,18 +19,27 @@
 
 package org.apache.bifromq.sessiondict.client;
 
+import static org.apache.bifromq.sessiondict.SessionRegisterKeyUtil.REGISTER_ATTR_KEY_BATCH;
+
 import org.apache.bifromq.baserpc.client.IRPCClient;
 import org.apache.bifromq.baserpc.client.IRPCClient.IMessageStream;
 import java.lang.ref.Cleaner;
 import java.lang.ref.Cleaner.Cleanable;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
 import java.util.Map;
+import java.util.Queue;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Consumer;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.bifromq.sessiondict.rpc.proto.Quit;
 import org.apache.bifromq.sessiondict.rpc.proto.Session;
 import org.apache.bifromq.sessiondict.rpc.proto.SessionDictServiceGrpc;
+import org.apache.bifromq.sysprops.props.SessionRegisterMaxBatchSize;
 import org.apache.bifromq.type.ClientInfo;
 
 @Slf4j
@@ -39,22 +48,21 @@ class SessionRegister {
 
     private final IRPCClient.IMessageStream<Quit, Session> messageStream;
     private final Map<ClientInfo, Consumer<Quit>> sessions = new ConcurrentHashMap<>();
+    private final BatchNegotiation batchNegotiation = new BatchNegotiation();
+    private final RegInfoSender regInfoSender;
     private final Cleanable cleanable;
 
     SessionRegister(String tenantId, String registerKey, IRPCClient rpcClient) {
         this.messageStream = rpcClient.createMessageStream(tenantId, null, registerKey,
-            Collections.emptyMap(), SessionDictServiceGrpc.getDictMethod());
+            batchNegotiation::newStream, SessionDictServiceGrpc.getDictMethod());
+        this.regInfoSender = new RegInfoSender(messageStream, batchNegotiation);
         this.cleanable = CLEANER.register(this, new PipelineCloseAction(messageStream));
-        this.messageStream.onMessage(new QuitListener(sessions));
-        this.messageStream.onRetarget(new RetargetListener(sessions, messageStream));
+        this.messageStream.onMessage(new QuitListener(sessions, batchNegotiation));
+        this.messageStream.onRetarget(new RetargetListener(sessions, regInfoSender));
     }
 
     public void sendRegInfo(ClientInfo owner, boolean keep) {
-        messageStream.ack(Session.newBuilder()
-            .setReqId(System.nanoTime())
-            .setOwner(owner)
-            .setKeep(keep)
-            .build());
+        regInfoSender.send(owner, keep);
     }
 
     public void reg(ClientInfo owner, Consumer<Quit> kickConsumer) {
@@ -71,9 +79,22 @@ class SessionRegister {
         }
     }
 
-    private record QuitListener(Map<ClientInfo, Consumer<Quit>> sessions) implements Consumer<Quit> {
+    private record QuitListener(Map<ClientInfo, Consumer<Quit>> sessions,
+                                BatchNegotiation batchNegotiation) implements Consumer<Quit> {
         @Override
         public void accept(Quit quit) {
+            if (quit.getBatchAccepted()) {
+                batchNegotiation.accept(quit.getBatchEpoch());
+                return;
+            }
+            if (quit.getBatchCount() > 0) {
+                quit.getBatchList().forEach(this::kick);
+            } else {
+                kick(quit);
+            }
+        }
+
+        private void kick(Quit quit) {
             sessions.computeIfPresent(quit.getOwner(), (k, v) -> {
                 v.accept(quit);
                 return v;
@@ -82,16 +103,81 @@ class SessionRegister {
     }
 
     private record RetargetListener(Map<ClientInfo, Consumer<Quit>> sessions,
-                                    IRPCClient.IMessageStream<Quit, Session> messageStream) implements Consumer<Long> {
+                                    RegInfoSender regInfoSender) implements Consumer<Long> {
 
         @Override
         public void accept(Long ts) {
             for (ClientInfo owner : sessions.keySet()) {
-                this.messageStream.ack(Session.newBuilder()
-                    .setReqId(System.nanoTime())
-                    .setOwner(owner)
-                    .setKeep(true)
-                    .build());
+                regInfoSender.send(owner, true);
+            }
+        }
+    }
+
+    /**
+     * Track whether the server of the current stream accepts batched frames. Each stream opened announces a new epoch
+     * via its metadata, and only the acceptance echoing the epoch of the current stream enables batching.
+     */
+    private static class BatchNegotiation {
+        private final AtomicLong streamEpoch = new AtomicLong();
+        private volatile long acceptedEpoch = -1;
+
+        // called right before opening a stream
+        Map<String, String> newStream() {
+            return Collections.singletonMap(REGISTER_ATTR_KEY_BATCH, Long.toString(streamEpoch.incrementAndGet()));
+        }
+
+        void accept(long epoch) {
+            if (epoch == streamEpoch.get()) {
+                acceptedEpoch = epoch;
+            }
+        }
+
+        boolean accepted() {
+            return acceptedEpoch == streamEpoch.get();
+        }
+    }
+
+    /**
+     * Send the registration changes in order, the changes queued up while sending are merged into one frame if the
+     * server accepts batched frames.
+     */
+    private static class RegInfoSender {
+        private static final int MAX_BATCH_SIZE = SessionRegisterMaxBatchSize.INSTANCE.get();
+        private final IRPCClient.IMessageStream<Quit, Session> messageStream;
+        private final Queue<Session> regInfos = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean sending = new AtomicBoolean();
+        private final BatchNegotiation batchNegotiation;
+
+        private RegInfoSender(IMessageStream<Quit, Session> messageStream, BatchNegotiation batchNegotiation) {
+            this.messageStream = messageStream;
+            this.batchNegotiation = batchNegotiation;
+        }
+
+        void send(ClientInfo owner, boolean keep) {
+            regInfos.add(Session.newBuilder()
+                .setReqId(System.nanoTime())
+                .setOwner(owner)
+                .setKeep(keep)
+                .build());
+            while (!regInfos.isEmpty() && sending.compareAndSet(false, true)) {
+                try {
+                    List<Session> batch = new ArrayList<>();
+                    Session regInfo;
+                    int maxBatchSize = batchNegotiation.accepted() ? MAX_BATCH_SIZE : 1;
+                    while (batch.size() < maxBatchSize && (regInfo = regInfos.poll()) != null) {
+                        batch.add(regInfo);
+                    }
+                    if (batch.size() == 1) {
+                        messageStream.ack(batch.get(0));
+                    } else if (batch.size() > 1) {
+                        messageStream.ack(Session.newBuilder()
+                            .setReqId(System.nanoTime())
+                            .addAllBatch(batch)
+                            .build());
+                    }
+                } finally {
+                    sending.set(false);
+                }
             }
         }
     }
@@ -19,15 +19,17 @@
 
 package org.apache.bifromq.sessiondict.client;
 
+import static org.apache.bifromq.sessiondict.SessionRegisterKeyUtil.REGISTER_ATTR_KEY_BATCH;
 import static org.apache.bifromq.type.MQTTClientInfoConstants.MQTT_CLIENT_ID_KEY;
 import static org.apache.bifromq.type.MQTTClientInfoConstants.MQTT_TYPE_VALUE;
 import static org.apache.bifromq.type.MQTTClientInfoConstants.MQTT_USER_ID_KEY;
 import static org.awaitility.Awaitility.await;
 import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.ArgumentMatchers.anyMap;
 import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -36,7 +38,11 @@ import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertTrue;
 
 import org.apache.bifromq.baserpc.client.IRPCClient;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Consumer;
+import java.util.function.Supplier;
 import lombok.SneakyThrows;
 import org.apache.bifromq.sessiondict.rpc.proto.Quit;
 import org.apache.bifromq.sessiondict.rpc.proto.ServerRedirection;
@@ -73,7 +79,7 @@ public class SessionRegisterTest {
     @BeforeMethod
     public void setup() {
         closeable = MockitoAnnotations.openMocks(this);
-        when(rpcClient.createMessageStream(eq(tenantId), any(), eq(registryKey), anyMap(),
+        when(rpcClient.createMessageStream(eq(tenantId), any(), eq(registryKey), any(Supplier.class),
             eq(SessionDictServiceGrpc.getDictMethod()))).thenReturn(messageStream);
         regPipeline = new SessionRegister(tenantId, registryKey, rpcClient);
     }
@@ -125,6 +131,95 @@ public class SessionRegisterTest {
         assertEquals(killerCaptor.getValue(), quit.getKiller());
     }
 
+    @Test
+    public void batchedQuit() {
+        ClientInfo owner2 = owner.toBuilder().putMetadata(MQTT_CLIENT_ID_KEY, "clientId2").build();
+        ClientInfo killer = ClientInfo.newBuilder().setTenantId(tenantId).setType("MockKiller").build();
+        new SessionRegistration(owner, killListener, regPipeline);
+        new SessionRegistration(owner2, killListener, regPipeline);
+        ArgumentCaptor<Consumer<Quit>> consumerCaptor = ArgumentCaptor.forClass(Consumer.class);
+        verify(messageStream).onMessage(consumerCaptor.capture());
+        consumerCaptor.getValue().accept(Quit.newBuilder()
+            .setReqId(System.nanoTime())
+            .addBatch(Quit.newBuilder().setReqId(System.nanoTime()).setOwner(owner).setKiller(killer).build())
+            .addBatch(Quit.newBuilder().setReqId(System.nanoTime()).setOwner(owner2).setKiller(killer).build())
+            .build());
+
+        verify(killListener, times(2)).onKill(eq(killer), argThat(r -> r.getType() == ServerRedirection.Type.NO_MOVE));
+    }
+
+    @Test
+    public void batchAcceptedIsNotKick() {
+        new SessionRegistration(owner, killListener, regPipeline);
+        ArgumentCaptor<Consumer<Quit>> consumerCaptor = ArgumentCaptor.forClass(Consumer.class);
+        verify(messageStream).onMessage(consumerCaptor.capture());
+        consumerCaptor.getValue().accept(Quit.newBuilder()
+            .setReqId(System.nanoTime())
+            .setBatchAccepted(true)
+            .build());
+
+        verify(killListener, times(0)).onKill(any(), any());
+        assertTrue(openStream().containsKey(REGISTER_ATTR_KEY_BATCH));
+    }
+
+    @Test
+    public void batchRegInfoOnAcceptedStream() {
+        long epoch = Long.parseLong(openStream().get(REGISTER_ATTR_KEY_BATCH));
+        acceptBatch(epoch);
+
+        List<Session> sent = sendQueuedRegInfos();
+        assertEquals(sent.size(), 2);
+        assertEquals(sent.get(0).getBatchCount(), 0);
+        assertEquals(sent.get(1).getBatchCount(), 2);
+    }
+
+    @Test
+    public void ignoreBatchAcceptedOfStaleStream() {
+        long epoch = Long.parseLong(openStream().get(REGISTER_ATTR_KEY_BATCH));
+        // the stream is reopened before the acceptance of the previous one arrives
+        openStream();
+        acceptBatch(epoch);
+
+        List<Session> sent = sendQueuedRegInfos();
+        assertEquals(sent.size(), 3);
+        assertTrue(sent.stream().allMatch(session -> session.getBatchCount() == 0));
+    }
+
+    private Map<String, String> openStream() {
+        ArgumentCaptor<Supplier<Map<String, String>>> metadataCaptor = ArgumentCaptor.forClass(Supplier.class);
+        verify(rpcClient).createMessageStream(eq(tenantId), any(), eq(registryKey), metadataCaptor.capture(),
+            eq(SessionDictServiceGrpc.getDictMethod()));
+        return metadataCaptor.getValue().get();
+    }
+
+    private void acceptBatch(long epoch) {
+        ArgumentCaptor<Consumer<Quit>> consumerCaptor = ArgumentCaptor.forClass(Consumer.class);
+        verify(messageStream).onMessage(consumerCaptor.capture());
+        consumerCaptor.getValue().accept(Quit.newBuilder()
+            .setReqId(System.nanoTime())
+            .setBatchAccepted(true)
+            .setBatchEpoch(epoch)
+            .build());
+    }
+
+    private List<Session> sendQueuedRegInfos() {
+        ClientInfo owner2 = owner.toBuilder().putMetadata(MQTT_CLIENT_ID_KEY, "clientId2").build();
+        ClientInfo owner3 = owner.toBuilder().putMetadata(MQTT_CLIENT_ID_KEY, "clientId3").build();
+        AtomicBoolean queued = new AtomicBoolean();
+        doAnswer(invocation -> {
+            if (queued.compareAndSet(false, true)) {
+                // queued up while the first one is being sent
+                regPipeline.sendRegInfo(owner2, true);
+                regPipeline.sendRegInfo(owner3, true);
+            }
+            return null;
+        }).when(messageStream).ack(any());
+        regPipeline.sendRegInfo(owner, true);
+        ArgumentCaptor<Session> sessionCaptor = ArgumentCaptor.forClass(Session.class);
+        verify(messageStream, atLeastOnce()).ack(sessionCaptor.capture());
+        return sessionCaptor.getAllValues();
+    }
+
     @Test
     public void ignoreQuit() {
         new SessionRegistration(owner, killListener, regPipeline);
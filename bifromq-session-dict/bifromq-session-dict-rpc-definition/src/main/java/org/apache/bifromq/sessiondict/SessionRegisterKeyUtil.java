@@ -27,6 +27,8 @@ import org.apache.bifromq.sysprops.props.SessionRegisterNumber;
 import org.apache.bifromq.type.ClientInfo;
 
 public class SessionRegisterKeyUtil {
+    // the stream metadata announcing the client accepts batched frames, its value is the epoch of the stream
+    public static final String REGISTER_ATTR_KEY_BATCH = "batch";
     private static final int SESSION_REGISTER_NUM = SessionRegisterNumber.INSTANCE.get();
 
     public static String toRegisterKey(ClientInfo owner) {
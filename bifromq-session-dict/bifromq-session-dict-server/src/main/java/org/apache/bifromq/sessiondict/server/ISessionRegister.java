@@ -19,6 +19,7 @@
 
 package org.apache.bifromq.sessiondict.server;
 
+import java.util.Collection;
 import org.apache.bifromq.sessiondict.rpc.proto.ServerRedirection;
 import org.apache.bifromq.type.ClientInfo;
 
@@ -28,6 +29,13 @@ public interface ISessionRegister {
               ClientInfo kicker,
               ServerRedirection serverRedirection);
 
+    default void kickAll(String tenantId,
+                         Collection<ClientInfo> sessionOwners,
+                         ClientInfo kicker,
+                         ServerRedirection serverRedirection) {
+        sessionOwners.forEach(sessionOwner -> kick(tenantId, sessionOwner, kicker, serverRedirection));
+    }
+
     interface IRegistrationListener {
         void on(ClientInfo sessionOwner, boolean reg, ISessionRegister register);
     }
@@ -26,6 +26,10 @@ import static org.apache.bifromq.type.MQTTClientInfoConstants.MQTT_CLIENT_SESSIO
 import static org.apache.bifromq.type.MQTTClientInfoConstants.MQTT_CLIENT_SESSION_TYPE_P_VALUE;
 
 import io.grpc.stub.StreamObserver;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 import lombok.extern.slf4j.Slf4j;
@@ -100,7 +104,13 @@ class SessionDictService extends SessionDictServiceGrpc.SessionDictServiceImplBa
             }
             try {
                 // TODO: support disconnect a constant rate
-                sessionRegistrations.forEach(reg -> reg.stop(request.getKiller(), request.getServerRedirection()));
+                // kick the sessions registered via the same register in batch
+                Map<ISessionRegister, List<ClientInfo>> sessionOwnersByRegister = new HashMap<>();
+                sessionRegistrations.forEach(reg -> sessionOwnersByRegister
+                    .computeIfAbsent(reg.register(), k -> new ArrayList<>())
+                    .add(reg.sessionOwner()));
+                sessionOwnersByRegister.forEach((register, sessionOwners) ->
+                    register.kickAll(tenantId, sessionOwners, request.getKiller(), request.getServerRedirection()));
                 return CompletableFuture.completedFuture(KillAllReply.newBuilder()
                     .setReqId(request.getReqId())
                     .setResult(KillAllReply.Result.OK)
@@ -19,46 +19,58 @@
 
 package org.apache.bifromq.sessiondict.server;
 
-import org.apache.bifromq.baserpc.server.AckStream;
+import static org.apache.bifromq.sessiondict.SessionRegisterKeyUtil.REGISTER_ATTR_KEY_BATCH;
+
 import com.google.common.collect.Sets;
 import io.grpc.stub.StreamObserver;
 import io.reactivex.rxjava3.disposables.Disposable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 import java.util.Set;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.bifromq.baserpc.server.AckStream;
 import org.apache.bifromq.sessiondict.rpc.proto.Quit;
 import org.apache.bifromq.sessiondict.rpc.proto.ServerRedirection;
 import org.apache.bifromq.sessiondict.rpc.proto.Session;
+import org.apache.bifromq.sysprops.props.SessionRegisterMaxBatchSize;
 import org.apache.bifromq.type.ClientInfo;
 
 @Slf4j
 class SessionRegister extends AckStream<Session, Quit> implements ISessionRegister {
+    private static final int MAX_BATCH_SIZE = SessionRegisterMaxBatchSize.INSTANCE.get();
     // keep the session registered via this stream
     private final Set<ClientInfo> sessionOwners = Sets.newConcurrentHashSet();
     private final IRegistrationListener regListener;
+    // whether the client accepts batched frames, old clients don't
+    private final boolean batchEnabled;
     private final Disposable disposable;
 
     SessionRegister(IRegistrationListener listener, StreamObserver<Quit> responseObserver) {
         super(responseObserver);
         this.regListener = listener;
+        long batchEpoch = parseBatchEpoch(metadata(REGISTER_ATTR_KEY_BATCH));
+        this.batchEnabled = batchEpoch > 0;
         disposable = ack()
             .doFinally(() -> {
                 log.debug("SessionRegister@{} closed: sessions={}", this.hashCode(), sessionOwners.size());
                 sessionOwners.forEach(sessionOwner -> regListener.on(sessionOwner, false, this));
             })
             .subscribe(session -> {
-                ClientInfo owner = session.getOwner();
-                String tenantId = owner.getTenantId();
-                assert this.tenantId.equals(tenantId);
-                if (session.getKeep()) {
-                    if (sessionOwners.add(owner)) {
-                        listener.on(owner, true, this);
-                    }
+                if (session.getBatchCount() > 0) {
+                    session.getBatchList().forEach(this::apply);
                 } else {
-                    if (sessionOwners.remove(owner)) {
-                        listener.on(owner, false, this);
-                    }
+                    apply(session);
                 }
             });
+        if (batchEnabled) {
+            // tell the client batched frames are accepted on the stream of the announced epoch
+            send(Quit.newBuilder()
+                .setReqId(System.nanoTime())
+                .setBatchAccepted(true)
+                .setBatchEpoch(batchEpoch)
+                .build());
+        }
         log.debug("SessionRegister@{} created", this.hashCode());
     }
 
@@ -77,9 +89,76 @@ class SessionRegister extends AckStream<Session, Quit> implements ISessionRegist
         }
     }
 
+    @Override
+    public void kickAll(String tenantId,
+                        Collection<ClientInfo> sessionOwners,
+                        ClientInfo kicker,
+                        ServerRedirection serverRedirection) {
+        if (!batchEnabled) {
+            ISessionRegister.super.kickAll(tenantId, sessionOwners, kicker, serverRedirection);
+            return;
+        }
+        List<Quit> quits = new ArrayList<>();
+        for (ClientInfo sessionOwner : sessionOwners) {
+            if (this.sessionOwners.remove(sessionOwner)) {
+                quits.add(Quit.newBuilder()
+                    .setReqId(System.nanoTime())
+                    .setOwner(sessionOwner)
+                    .setKiller(kicker)
+                    .setServerRedirection(serverRedirection).build());
+                regListener.on(sessionOwner, false, this);
+                if (quits.size() == MAX_BATCH_SIZE) {
+                    sendQuits(quits);
+                    quits = new ArrayList<>();
+                }
+            }
+        }
+        sendQuits(quits);
+    }
+
     @Override
     public void close() {
         super.close();
         disposable.dispose();
     }
+
+    private static long parseBatchEpoch(String batchEpoch) {
+        if (batchEpoch == null) {
+            return 0;
+        }
+        try {
+            return Long.parseLong(batchEpoch);
+        } catch (NumberFormatException e) {
+            log.debug("Invalid batch epoch: {}", batchEpoch);
+            return 0;
+        }
+    }
+
+    private void apply(Session session) {
+        ClientInfo owner = session.getOwner();
+        assert this.tenantId.equals(owner.getTenantId());
+        if (session.getKeep()) {
+            if (sessionOwners.add(owner)) {
+                regListener.on(owner, true, this);
+            }
+        } else {
+            if (sessionOwners.remove(owner)) {
+                regListener.on(owner, false, this);
+            }
+        }
+    }
+
+    private void sendQuits(List<Quit> quits) {
+        if (quits.isEmpty()) {
+            return;
+        }
+        if (quits.size() == 1) {
+            send(quits.get(0));
+        } else {
+            send(Quit.newBuilder()
+                .setReqId(System.nanoTime())
+                .addAllBatch(quits)
+                .build());
+        }
+    }
 }
@@ -27,14 +27,12 @@ import static org.apache.bifromq.type.MQTTClientInfoConstants.MQTT_CLIENT_SESSIO
 import static org.apache.bifromq.type.MQTTClientInfoConstants.MQTT_CLIENT_SESSION_TYPE_P_VALUE;
 import static org.apache.bifromq.type.MQTTClientInfoConstants.MQTT_CLIENT_SESSION_TYPE_T_VALUE;
 
-import com.google.common.collect.AbstractIterator;
 import com.google.common.collect.Maps;
+import java.util.Collections;
 import java.util.Comparator;
-import java.util.Iterator;
 import java.util.Map;
 import java.util.NavigableMap;
 import java.util.Optional;
-import java.util.TreeMap;
 import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.concurrent.atomic.AtomicInteger;
 import org.apache.bifromq.sessiondict.rpc.proto.ServerRedirection;
@@ -43,154 +41,78 @@ import org.apache.bifromq.type.ClientInfo;
 class SessionRegistry implements ISessionRegistry {
     private static final ServerRedirection NO_MOVE =
         ServerRedirection.newBuilder().setType(ServerRedirection.Type.NO_MOVE).build();
+    // must be power of two
+    private static final int LOCK_STRIPES = 16;
     static Comparator<MqttClientKey> ClientKeyComparator = (key1, key2) -> Comparator
         .comparing(MqttClientKey::userId)
         .thenComparing(MqttClientKey::clientId)
         .compare(key1, key2);
-    private static final NavigableMap<MqttClientKey, ClientInfo> EMPTY_MAP = new TreeMap<>(ClientKeyComparator);
-    private final Map<String, NavigableMap<MqttClientKey, ClientInfo>> tenantSessions = Maps.newConcurrentMap();
-    private final Map<String, SessionCounter> sessionCounters = Maps.newConcurrentMap();
-    private final Map<ClientInfo, ISessionRegister> clientRegisterMap = Maps.newConcurrentMap();
+    private final Map<String, TenantSessions> tenantSessions = Maps.newConcurrentMap();
 
     @Override
     public void add(ClientInfo sessionOwner, ISessionRegister register) {
         String tenantId = sessionOwner.getTenantId();
         MqttClientKey clientKey = MqttClientKey.from(sessionOwner);
-        tenantSessions.compute(tenantId, (k, v) -> {
-            if (v == null) {
-                v = new ConcurrentSkipListMap<>(ClientKeyComparator);
-                SessionCounter sessionCounter = new SessionCounter();
-                sessionCounters.put(tenantId, sessionCounter);
-                gauging(tenantId, MqttConnectionGauge, sessionCounter.total::get);
-                gauging(tenantId, MqttLivePersistentSessionGauge, sessionCounter.persistent::get);
+        SessionRegistration registration = new SessionRegistration(sessionOwner, register);
+        while (true) {
+            TenantSessions sessions = tenantSessions.computeIfAbsent(tenantId, TenantSessions::new);
+            if (sessions.add(clientKey, registration)) {
+                return;
             }
-            ClientInfo prevSessionOwner = v.put(clientKey, sessionOwner);
-            if (prevSessionOwner != null) {
-                if (!prevSessionOwner.equals(sessionOwner)) {
-                    ISessionRegister prevSessionRegister = clientRegisterMap.remove(prevSessionOwner);
-                    clientRegisterMap.put(sessionOwner, register);
-                    // kick previous session owner
-                    assert prevSessionRegister != null;
-                    prevSessionRegister.kick(tenantId, prevSessionOwner, sessionOwner, NO_MOVE);
-                    if (isPersistent(sessionOwner) && !isPersistent(prevSessionOwner)) {
-                        // kicked by a persistent session
-                        SessionCounter sessionCounter = sessionCounters.get(tenantId);
-                        sessionCounter.persistent.incrementAndGet();
-                    } else if (!isPersistent(sessionOwner) && isPersistent(prevSessionOwner)) {
-                        SessionCounter sessionCounter = sessionCounters.get(tenantId);
-                        sessionCounter.persistent.decrementAndGet();
-                    }
-                } else {
-                    ISessionRegister prevSessionRegister = clientRegisterMap.put(sessionOwner, register);
-                    if (prevSessionRegister != null && prevSessionRegister != register) {
-                        prevSessionRegister.kick(tenantId, prevSessionOwner, sessionOwner, NO_MOVE);
-                    }
-                }
-                // ignore duplicated add
-            } else {
-                // new session
-                clientRegisterMap.put(sessionOwner, register);
-                SessionCounter sessionCounter = sessionCounters.get(tenantId);
-                sessionCounter.total.incrementAndGet();
-                if (isPersistent(sessionOwner)) {
-                    sessionCounter.persistent.incrementAndGet();
-                }
-            }
-            return v;
-        });
+            // the tenant sessions has been retired by concurrent remove, retry with a new one
+            tenantSessions.remove(tenantId, sessions);
+        }
     }
 
     @Override
     public void remove(ClientInfo sessionOwner, ISessionRegister register) {
         String tenantId = sessionOwner.getTenantId();
-        MqttClientKey clientKey = MqttClientKey.from(sessionOwner);
-        tenantSessions.computeIfPresent(tenantId, (k, v) -> {
-            boolean s1 = v.remove(clientKey, sessionOwner);
-            boolean s2 = clientRegisterMap.remove(sessionOwner, register);
-            if (s1) {
-                SessionCounter sessionCounter = sessionCounters.get(tenantId);
-                sessionCounter.total.decrementAndGet();
-                if (isPersistent(sessionOwner)) {
-                    sessionCounter.persistent.decrementAndGet();
-                }
-            }
-            if (v.isEmpty()) {
-                sessionCounters.remove(k);
-                stopGauging(tenantId, MqttConnectionGauge);
-                stopGauging(tenantId, MqttLivePersistentSessionGauge);
-                return null;
-            }
-            return v;
-        });
+        TenantSessions sessions = tenantSessions.get(tenantId);
+        if (sessions == null) {
+            return;
+        }
+        if (sessions.remove(MqttClientKey.from(sessionOwner), new SessionRegistration(sessionOwner, register))
+            && sessions.tryRetire()) {
+            tenantSessions.remove(tenantId, sessions);
+        }
     }
 
     @Override
     public Optional<ClientInfo> get(String tenantId, String userId, String mqttClientId) {
-        return Optional.ofNullable(
-            tenantSessions.getOrDefault(tenantId, EMPTY_MAP).get(new MqttClientKey(userId, mqttClientId)));
+        return findRegistration(tenantId, userId, mqttClientId).map(SessionRegistration::sessionOwner);
     }
 
     @Override
     public Optional<SessionRegistration> findRegistration(String tenantId, String userId, String mqttClientId) {
-        Optional<ClientInfo> sessionOwner = get(tenantId, userId, mqttClientId);
-        if (sessionOwner.isPresent()) {
-            ISessionRegister sessionRegister = clientRegisterMap.get(sessionOwner.get());
-            if (sessionRegister != null) {
-                return Optional.of(
-                    new SessionRegistration(sessionOwner.get(), clientRegisterMap.get(sessionOwner.get())));
-            }
+        TenantSessions sessions = tenantSessions.get(tenantId);
+        if (sessions == null) {
+            return Optional.empty();
         }
-        return Optional.empty();
+        return Optional.ofNullable(sessions.sessions.get(new MqttClientKey(userId, mqttClientId)));
     }
 
     @Override
     public Iterable<SessionRegistration> findRegistrations(String tenantId, String userId) {
-        return () -> new AbstractIterator<>() {
-            private final MqttClientKey fromKey = new MqttClientKey(userId, "");
-            private final MqttClientKey toKey = new MqttClientKey(userId + "\0", "");
-            private final Iterator<ClientInfo> sessionOwners = tenantSessions
-                .getOrDefault(tenantId, EMPTY_MAP)
-                .subMap(fromKey, true, toKey, false)
+        return () -> {
+            TenantSessions sessions = tenantSessions.get(tenantId);
+            if (sessions == null) {
+                return Collections.emptyIterator();
+            }
+            return sessions.userIndex
+                .subMap(new MqttClientKey(userId, ""), true, new MqttClientKey(userId + "\0", ""), false)
                 .values()
                 .iterator();
-
-            @Override
-            protected SessionRegistration computeNext() {
-                if (sessionOwners.hasNext()) {
-                    ClientInfo sessionOwner = sessionOwners.next();
-                    ISessionRegister sessionRegister = clientRegisterMap.get(sessionOwner);
-                    if (sessionRegister != null) {
-                        return new SessionRegistration(sessionOwner, sessionRegister);
-                    }
-                    return computeNext();
-                } else {
-                    return endOfData();
-                }
-            }
         };
     }
 
     @Override
     public Iterable<SessionRegistration> findRegistrations(String tenantId) {
-        return () -> new AbstractIterator<>() {
-            private final Iterator<ClientInfo> sessionOwners = tenantSessions
-                .getOrDefault(tenantId, EMPTY_MAP)
-                .values()
-                .iterator();
-
-            @Override
-            protected SessionRegistration computeNext() {
-                if (sessionOwners.hasNext()) {
-                    ClientInfo sessionOwner = sessionOwners.next();
-                    ISessionRegister sessionRegister = clientRegisterMap.get(sessionOwner);
-                    if (sessionRegister != null) {
-                        return new SessionRegistration(sessionOwner, sessionRegister);
-                    }
-                    return computeNext();
-                } else {
-                    return endOfData();
-                }
+        return () -> {
+            TenantSessions sessions = tenantSessions.get(tenantId);
+            if (sessions == null) {
+                return Collections.emptyIterator();
             }
+            return sessions.sessions.values().iterator();
         };
     }
 
@@ -202,13 +124,109 @@ class SessionRegistry implements ISessionRegistry {
         }
     }
 
-    private boolean isPersistent(ClientInfo sessionOwner) {
+    private static boolean isPersistent(ClientInfo sessionOwner) {
         return sessionOwner.getMetadataOrDefault(MQTT_CLIENT_SESSION_TYPE, MQTT_CLIENT_SESSION_TYPE_T_VALUE)
             .equals(MQTT_CLIENT_SESSION_TYPE_P_VALUE);
     }
 
-    private static class SessionCounter {
+    /**
+     * The sessions of a tenant. Point lookup goes through the hash index, the sorted index is only for finding
+     * sessions by user. Updates on different client keys are serialized by lock stripes instead of a tenant-wide lock.
+     */
+    private static class TenantSessions {
+        private final String tenantId;
+        private final Map<MqttClientKey, SessionRegistration> sessions = Maps.newConcurrentMap();
+        private final NavigableMap<MqttClientKey, SessionRegistration> userIndex =
+            new ConcurrentSkipListMap<>(ClientKeyComparator);
+        private final Object[] locks = new Object[LOCK_STRIPES];
         private final AtomicInteger total = new AtomicInteger();
         private final AtomicInteger persistent = new AtomicInteger();
+        private volatile boolean retired = false;
+
+        TenantSessions(String tenantId) {
+            this.tenantId = tenantId;
+            for (int i = 0; i < LOCK_STRIPES; i++) {
+                locks[i] = new Object();
+            }
+            gauging(tenantId, MqttConnectionGauge, total::get);
+            gauging(tenantId, MqttLivePersistentSessionGauge, persistent::get);
+        }
+
+        /**
+         * Add the registration, the previous registration of the same client key will be kicked.
+         *
+         * @return false if the tenant sessions has been retired
+         */
+        boolean add(MqttClientKey clientKey, SessionRegistration registration) {
+            SessionRegistration prevRegistration;
+            synchronized (lock(clientKey)) {
+                if (retired) {
+                    return false;
+                }
+                prevRegistration = sessions.put(clientKey, registration);
+                userIndex.put(clientKey, registration);
+                boolean isPersistent = isPersistent(registration.sessionOwner());
+                if (prevRegistration == null) {
+                    // new session
+                    total.incrementAndGet();
+                    if (isPersistent) {
+                        persistent.incrementAndGet();
+                    }
+                } else if (isPersistent && !isPersistent(prevRegistration.sessionOwner())) {
+                    // kicked by a persistent session
+                    persistent.incrementAndGet();
+                } else if (!isPersistent && isPersistent(prevRegistration.sessionOwner())) {
+                    persistent.decrementAndGet();
+                }
+            }
+            // kick previous session owner, ignore duplicated add
+            if (prevRegistration != null && !prevRegistration.equals(registration)) {
+                prevRegistration.stop(registration.sessionOwner(), NO_MOVE);
+            }
+            return true;
+        }
+
+        /**
+         * Remove the registration.
+         *
+         * @return true if the tenant has no session left
+         */
+        boolean remove(MqttClientKey clientKey, SessionRegistration registration) {
+            synchronized (lock(clientKey)) {
+                if (!sessions.remove(clientKey, registration)) {
+                    return false;
+                }
+                userIndex.remove(clientKey, registration);
+                if (isPersistent(registration.sessionOwner())) {
+                    persistent.decrementAndGet();
+                }
+                return total.decrementAndGet() == 0;
+            }
+        }
+
+        boolean tryRetire() {
+            return tryRetire(0);
+        }
+
+        private boolean tryRetire(int stripe) {
+            if (stripe == LOCK_STRIPES) {
+                // all stripes are locked, no concurrent add could happen
+                if (total.get() > 0) {
+                    return false;
+                }
+                retired = true;
+                stopGauging(tenantId, MqttConnectionGauge);
+                stopGauging(tenantId, MqttLivePersistentSessionGauge);
+                return true;
+            }
+            synchronized (locks[stripe]) {
+                return tryRetire(stripe + 1);
+            }
+        }
+
+        private Object lock(MqttClientKey clientKey) {
+            int h = clientKey.hashCode();
+            return locks[(h ^ (h >>> 16)) & (LOCK_STRIPES - 1)];
+        }
     }
 }
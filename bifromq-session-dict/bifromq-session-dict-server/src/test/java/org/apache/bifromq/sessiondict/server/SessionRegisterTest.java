@@ -19,6 +19,7 @@
 
 package org.apache.bifromq.sessiondict.server;
 
+import static org.apache.bifromq.sessiondict.SessionRegisterKeyUtil.REGISTER_ATTR_KEY_BATCH;
 import static org.apache.bifromq.type.MQTTClientInfoConstants.MQTT_CHANNEL_ID_KEY;
 import static org.apache.bifromq.type.MQTTClientInfoConstants.MQTT_CLIENT_ID_KEY;
 import static org.apache.bifromq.type.MQTTClientInfoConstants.MQTT_TYPE_VALUE;
@@ -41,6 +42,8 @@ import io.grpc.Context;
 import io.grpc.stub.ServerCallStreamObserver;
 import io.micrometer.core.instrument.Timer;
 import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 import lombok.SneakyThrows;
 import org.apache.bifromq.sessiondict.rpc.proto.Quit;
@@ -147,6 +150,53 @@ public class SessionRegisterTest {
         });
     }
 
+    @Test
+    public void batchRegAndKick() {
+        test(Map.of(REGISTER_ATTR_KEY_BATCH, "3"), () -> {
+            ClientInfo owner2 = owner.toBuilder().putMetadata(MQTT_CLIENT_ID_KEY, "clientId2").build();
+            SessionRegister register = new SessionRegister(listener, responseObserver);
+            register.onNext(Session.newBuilder()
+                .setReqId(System.nanoTime())
+                .addBatch(Session.newBuilder().setReqId(System.nanoTime()).setOwner(owner).setKeep(true).build())
+                .addBatch(Session.newBuilder().setReqId(System.nanoTime()).setOwner(owner2).setKeep(true).build())
+                .build());
+            verify(responseObserver).onNext(argThat(quit -> quit.getBatchAccepted() && quit.getBatchEpoch() == 3));
+            verify(listener).on(eq(owner), eq(true), eq(register));
+            verify(listener).on(eq(owner2), eq(true), eq(register));
+
+            ServerRedirection redirection =
+                ServerRedirection.newBuilder().setType(ServerRedirection.Type.PERMANENT_MOVE).build();
+            register.kickAll(tenantId, List.of(owner, owner2), killer, redirection);
+            verify(responseObserver).onNext(argThat(quit -> quit.getBatchCount() == 2
+                && quit.getBatch(0).getOwner().equals(owner)
+                && quit.getBatch(1).getOwner().equals(owner2)
+                && quit.getBatch(1).getKiller().equals(killer)
+                && quit.getBatch(1).getServerRedirection().equals(redirection)));
+            verify(listener).on(eq(owner), eq(false), eq(register));
+            verify(listener).on(eq(owner2), eq(false), eq(register));
+        });
+    }
+
+    @Test
+    public void kickAllWithoutBatch() {
+        test(() -> {
+            ClientInfo owner2 = owner.toBuilder().putMetadata(MQTT_CLIENT_ID_KEY, "clientId2").build();
+            SessionRegister register = new SessionRegister(listener, responseObserver);
+            register.onNext(Session.newBuilder().setReqId(System.nanoTime()).setOwner(owner).setKeep(true).build());
+            register.onNext(Session.newBuilder().setReqId(System.nanoTime()).setOwner(owner2).setKeep(true).build());
+
+            ServerRedirection redirection =
+                ServerRedirection.newBuilder().setType(ServerRedirection.Type.PERMANENT_MOVE).build();
+            register.kickAll(tenantId, List.of(owner, owner2), killer, redirection);
+            // old client doesn't understand batched frames
+            verify(responseObserver, never()).onNext(argThat(Quit::getBatchAccepted));
+            verify(responseObserver).onNext(argThat(quit -> quit.getBatchCount() == 0
+                && quit.getOwner().equals(owner)));
+            verify(responseObserver).onNext(argThat(quit -> quit.getBatchCount() == 0
+                && quit.getOwner().equals(owner2)));
+        });
+    }
+
     @Test
     public void kickNonExist() {
         test(() -> {
@@ -161,9 +211,13 @@ public class SessionRegisterTest {
 
 
     private void test(Runnable runnable) {
+        test(Collections.emptyMap(), runnable);
+    }
+
+    private void test(Map<String, String> metadata, Runnable runnable) {
         Context ctx = Context.ROOT
             .withValue(RPCContext.TENANT_ID_CTX_KEY, tenantId)
-            .withValue(RPCContext.CUSTOM_METADATA_CTX_KEY, Collections.emptyMap())
+            .withValue(RPCContext.CUSTOM_METADATA_CTX_KEY, metadata)
             .withValue(RPCContext.METER_KEY_CTX_KEY, new IRPCMeter.IRPCMethodMeter() {
                 @Override
                 public void recordCount(RPCMetric metric) {
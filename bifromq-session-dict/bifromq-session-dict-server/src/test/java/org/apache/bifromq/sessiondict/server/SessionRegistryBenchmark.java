@@ -0,0 +1,109 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.    
+ */
+
+
+package org.apache.bifromq.sessiondict.server;
+
+import static org.apache.bifromq.type.MQTTClientInfoConstants.MQTT_CLIENT_ID_KEY;
+import static org.apache.bifromq.type.MQTTClientInfoConstants.MQTT_CLIENT_SESSION_TYPE;
+import static org.apache.bifromq.type.MQTTClientInfoConstants.MQTT_CLIENT_SESSION_TYPE_P_VALUE;
+import static org.apache.bifromq.type.MQTTClientInfoConstants.MQTT_CLIENT_SESSION_TYPE_T_VALUE;
+import static org.apache.bifromq.type.MQTTClientInfoConstants.MQTT_USER_ID_KEY;
+
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+import org.apache.bifromq.type.ClientInfo;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Connect storm: register all sessions of a few large tenants concurrently into an empty registry.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class SessionRegistryBenchmark {
+    private static final ISessionRegister NOOP_REGISTER = (tenantId, sessionOwner, kicker, serverRedirection) -> {
+    };
+
+    @Param({"1000000"})
+    int sessionCount;
+
+    @Param({"4"})
+    int tenantCount;
+
+    @Param({"100"})
+    int clientsPerUser;
+
+    ClientInfo[] sessionOwners;
+    SessionRegistry registry;
+
+    public static void main(String[] args) throws Exception {
+        Options opt = new OptionsBuilder()
+            .include(SessionRegistryBenchmark.class.getSimpleName())
+            .warmupIterations(3)
+            .measurementIterations(10)
+            .forks(1)
+            .shouldDoGC(true)
+            .build();
+        new Runner(opt).run();
+    }
+
+    @Setup(Level.Trial)
+    public void setup() {
+        sessionOwners = new ClientInfo[sessionCount];
+        for (int i = 0; i < sessionCount; i++) {
+            sessionOwners[i] = ClientInfo.newBuilder()
+                .setTenantId("tenant" + i % tenantCount)
+                .putMetadata(MQTT_USER_ID_KEY, "user" + i / clientsPerUser)
+                .putMetadata(MQTT_CLIENT_ID_KEY, "client" + i)
+                .putMetadata(MQTT_CLIENT_SESSION_TYPE,
+                    i % 2 == 0 ? MQTT_CLIENT_SESSION_TYPE_P_VALUE : MQTT_CLIENT_SESSION_TYPE_T_VALUE)
+                .build();
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void newRegistry() {
+        registry = new SessionRegistry();
+    }
+
+    @TearDown(Level.Iteration)
+    public void closeRegistry() {
+        registry.close();
+    }
+
+    @Benchmark
+    public void connectStorm(Blackhole bh) {
+        IntStream.range(0, sessionCount).parallel().forEach(i -> registry.add(sessionOwners[i], NOOP_REGISTER));
+        bh.consume(registry.findRegistrations("tenant0", "user0").iterator().hasNext());
+    }
+}
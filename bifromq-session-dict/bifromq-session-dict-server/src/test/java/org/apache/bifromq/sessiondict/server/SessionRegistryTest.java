@@ -70,7 +70,7 @@ public class SessionRegistryTest {
         Metrics.globalRegistry.remove(meterRegistry);
         stopGauging(tenantId1, MqttConnectionGauge);
         stopGauging(tenantId1, MqttLivePersistentSessionGauge);
-        stopGauging(tenantId2, MqttLivePersistentSessionGauge);
+        stopGauging(tenantId2, MqttConnectionGauge);
         stopGauging(tenantId2, MqttLivePersistentSessionGauge);
     }
 
@@ -372,6 +372,40 @@ public class SessionRegistryTest {
         assertNoGauge(tenantId1, MqttLivePersistentSessionGauge);
     }
 
+    @Test
+    public void testConcurrentAddAndRemove() {
+        ISessionRegister register = Mockito.mock(ISessionRegister.class);
+        List<ClientInfo> sessionOwners = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            sessionOwners.add(ClientInfo.newBuilder()
+                .setTenantId(i % 2 == 0 ? tenantId1 : tenantId2)
+                .putMetadata(MQTT_USER_ID_KEY, "user" + i % 10)
+                .putMetadata(MQTT_CLIENT_ID_KEY, "client" + i)
+                .putMetadata(MQTT_CLIENT_SESSION_TYPE, MQTT_CLIENT_SESSION_TYPE_P_VALUE)
+                .build());
+        }
+        // keep adding and removing to make tenant sessions retired and recreated concurrently
+        for (int round = 0; round < 10; round++) {
+            sessionOwners.parallelStream().forEach(sessionOwner -> sessionRegistry.add(sessionOwner, register));
+            sessionOwners.parallelStream().forEach(sessionOwner -> sessionRegistry.remove(sessionOwner, register));
+        }
+        assertNoGauge(tenantId1, MqttConnectionGauge);
+        assertFalse(sessionRegistry.findRegistrations(tenantId1).iterator().hasNext());
+
+        sessionOwners.parallelStream().forEach(sessionOwner -> sessionRegistry.add(sessionOwner, register));
+        assertGaugeValue(tenantId1, MqttConnectionGauge, 500.0);
+        assertGaugeValue(tenantId2, MqttLivePersistentSessionGauge, 500.0);
+        List<ISessionRegistry.SessionRegistration> registrations = new ArrayList<>();
+        sessionRegistry.findRegistrations(tenantId1, "user0").forEach(registrations::add);
+        assertEquals(registrations.size(), 100);
+        for (ClientInfo sessionOwner : sessionOwners) {
+            assertEquals(sessionRegistry.get(sessionOwner.getTenantId(),
+                sessionOwner.getMetadataOrThrow(MQTT_USER_ID_KEY),
+                sessionOwner.getMetadataOrThrow(MQTT_CLIENT_ID_KEY)).get(), sessionOwner);
+        }
+        Mockito.verify(register, Mockito.never()).kick(Mockito.any(), Mockito.any(), Mockito.any(), Mockito.any());
+    }
+
     private void assertNoGauge(String tenantId, TenantMetric tenantMetric) {
         Optional<Meter> gauge = getGauge(tenantId, tenantMetric);
         assertTrue(gauge.isEmpty());
@@ -0,0 +1,35 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.bifromq.sysprops.props;
+
+import org.apache.bifromq.sysprops.BifroMQSysProp;
+import org.apache.bifromq.sysprops.parser.LongParser;
+
+/**
+ * The max number of log entries an inbox store replica could lag behind the leader to serve inbox existence and
+ * subscription checks. Negative value disables the follower read, and all checks go to the range leader.
+ */
+public final class InboxReadMaxReplicaLag extends BifroMQSysProp<Long, LongParser> {
+    public static final InboxReadMaxReplicaLag INSTANCE = new InboxReadMaxReplicaLag();
+
+    private InboxReadMaxReplicaLag() {
+        super("inbox_read_max_replica_lag", -1L, LongParser.from(-1, Long.MAX_VALUE));
+    }
+}
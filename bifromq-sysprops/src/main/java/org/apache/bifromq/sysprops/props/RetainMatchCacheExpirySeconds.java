@@ -0,0 +1,34 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.bifromq.sysprops.props;
+
+import org.apache.bifromq.sysprops.BifroMQSysProp;
+import org.apache.bifromq.sysprops.parser.IntegerParser;
+
+/**
+ * The system property for how long the retain match results could be served from cache in retain store, 0 to disable.
+ */
+public final class RetainMatchCacheExpirySeconds extends BifroMQSysProp<Integer, IntegerParser> {
+    public static final RetainMatchCacheExpirySeconds INSTANCE = new RetainMatchCacheExpirySeconds();
+
+    private RetainMatchCacheExpirySeconds() {
+        super("retain_match_cache_expiry_seconds", 5, IntegerParser.NON_NEGATIVE);
+    }
+}
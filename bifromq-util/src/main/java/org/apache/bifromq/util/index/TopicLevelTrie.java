@@ -19,10 +19,16 @@
 
 package org.apache.bifromq.util.index;
 
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
 import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.function.Predicate;
+import java.util.function.ToIntFunction;
 import lombok.ToString;
 
 /**
@@ -248,6 +254,188 @@ public abstract class TopicLevelTrie<V> {
         throw new IllegalStateException("TopicLevelTrie is in an invalid state");
     }
 
+    /**
+     * Visit the values for the given topic levels using the given branch selector until the visitor returns false.
+     * A value may be visited more than once if the lookup is restarted due to concurrent modification.
+     *
+     * @param topicLevels    The topic levels.
+     * @param branchSelector The branch selector.
+     * @param visitor        The visitor, returns false to stop visiting.
+     */
+    protected final void lookup(List<String> topicLevels, BranchSelector branchSelector, Predicate<V> visitor) {
+        while (true) {
+            INode<V> r = root();
+            if (visit(r, null, topicLevels, 0, branchSelector, visitor) != VisitResult.RETRY) {
+                return;
+            }
+        }
+    }
+
+    private VisitResult visit(INode<V> i,
+                              INode<V> parent,
+                              List<String> topicLevels,
+                              int currentLevel,
+                              BranchSelector branchSelector,
+                              Predicate<V> visitor) {
+        // LPoint
+        MainNode<V> main = i.main();
+        if (main.cNode != null) {
+            CNode<V> cn = main.cNode;
+            Map<Branch<V>, BranchSelector.Action> branches =
+                branchSelector.selectBranch(cn.branches(), topicLevels, currentLevel);
+            for (Map.Entry<Branch<V>, BranchSelector.Action> entry : branches.entrySet()) {
+                Branch<V> branch = entry.getKey();
+                BranchSelector.Action action = entry.getValue();
+                switch (action) {
+                    case MATCH_AND_CONTINUE, CONTINUE -> {
+                        if (action == BranchSelector.Action.MATCH_AND_CONTINUE && !visitAll(branch, visitor)) {
+                            return VisitResult.STOPPED;
+                        }
+                        if (branch.iNode != null) {
+                            VisitResult result =
+                                visit(branch.iNode, i, topicLevels, currentLevel + 1, branchSelector, visitor);
+                            if (result != VisitResult.DONE) {
+                                return result;
+                            }
+                        }
+                    }
+                    case MATCH_AND_STOP, STOP -> {
+                        if (action == BranchSelector.Action.MATCH_AND_STOP && !visitAll(branch, visitor)) {
+                            return VisitResult.STOPPED;
+                        }
+                    }
+                    default -> throw new IllegalStateException("Unknown action: " + action);
+                }
+            }
+            return VisitResult.DONE;
+        } else if (main.tNode != null) {
+            if (parent != null) {
+                clean(parent);
+            }
+            return VisitResult.RETRY;
+        }
+        throw new IllegalStateException("TopicLevelTrie is in an invalid state");
+    }
+
+    /**
+     * Visit the values of the branches at the given level in rank order until the visitor returns false. The branches
+     * of a node are visited in the ascending order of the ranks of their topic levels, the branches of equal rank are
+     * visited together, and the values at the given level are visited in the given value order within equal ranks.
+     * The branches ranked before the start ranks are skipped, so a lookup could resume without walking through the
+     * visited ones. A value may be visited more than once if the lookup is restarted due to concurrent modification.
+     *
+     * @param topicLevels   The topic levels.
+     * @param levelSelector The level selector.
+     * @param level         The level of the branches whose values are visited.
+     * @param ranker        The ranker of topic level.
+     * @param startRanks    The ranks of the levels to start from, either empty or one for each level till the given one.
+     * @param valueOrder    The order of the values having equal ranks.
+     * @param visitor       The visitor, returns false to stop visiting.
+     * @return false if it's known that no selected branch goes deeper than the given level
+     */
+    protected final boolean lookup(List<String> topicLevels,
+                                   LevelSelector levelSelector,
+                                   int level,
+                                   ToIntFunction<String> ranker,
+                                   int[] startRanks,
+                                   Comparator<V> valueOrder,
+                                   Predicate<V> visitor) {
+        assert startRanks.length == 0 || startRanks.length == level + 1;
+        while (true) {
+            RankedLookup<V> lookup =
+                new RankedLookup<>(topicLevels, levelSelector, level, ranker, startRanks, valueOrder, visitor);
+            VisitResult result = visitRanked(List.of(root()), null, 0, startRanks.length > 0, lookup);
+            if (result != VisitResult.RETRY) {
+                return lookup.deeper;
+            }
+        }
+    }
+
+    private VisitResult visitRanked(List<INode<V>> nodes,
+                                    List<INode<V>> parents,
+                                    int currentLevel,
+                                    boolean fromStart,
+                                    RankedLookup<V> lookup) {
+        // LPoint, the branches of equal rank from all nodes are merged
+        TreeMap<Integer, List<RankedBranch<V>>> rankedBranches = new TreeMap<>();
+        for (int n = 0; n < nodes.size(); n++) {
+            INode<V> i = nodes.get(n);
+            MainNode<V> main = i.main();
+            if (main.cNode == null) {
+                if (main.tNode != null) {
+                    if (parents != null) {
+                        clean(parents.get(n));
+                    }
+                    return VisitResult.RETRY;
+                }
+                throw new IllegalStateException("TopicLevelTrie is in an invalid state");
+            }
+            Map<String, Branch<V>> branches = main.cNode.branches();
+            Map<String, BranchSelector.Action> selected =
+                lookup.levelSelector.selectLevel(branches.keySet(), lookup.topicLevels, currentLevel);
+            for (Map.Entry<String, BranchSelector.Action> entry : selected.entrySet()) {
+                Branch<V> branch = branches.get(entry.getKey());
+                if (branch == null) {
+                    continue;
+                }
+                int rank = lookup.ranker.applyAsInt(entry.getKey());
+                if (fromStart && rank < lookup.startRanks[currentLevel]) {
+                    // the skipped branch may still go deeper
+                    lookup.deeper |= branch.iNode != null;
+                    continue;
+                }
+                rankedBranches.computeIfAbsent(rank, k -> new ArrayList<>(1))
+                    .add(new RankedBranch<>(branch, entry.getValue(), i));
+            }
+        }
+        for (Map.Entry<Integer, List<RankedBranch<V>>> entry : rankedBranches.entrySet()) {
+            boolean atStart = fromStart && entry.getKey() == lookup.startRanks[currentLevel];
+            List<INode<V>> children = new ArrayList<>(1);
+            List<INode<V>> childParents = new ArrayList<>(1);
+            List<V> values = new ArrayList<>();
+            for (RankedBranch<V> rankedBranch : entry.getValue()) {
+                BranchSelector.Action action = rankedBranch.action;
+                Branch<V> branch = rankedBranch.branch;
+                boolean canContinue = action == BranchSelector.Action.MATCH_AND_CONTINUE
+                    || action == BranchSelector.Action.CONTINUE;
+                if (currentLevel < lookup.level) {
+                    if (canContinue && branch.iNode != null) {
+                        children.add(branch.iNode);
+                        childParents.add(rankedBranch.parent);
+                    }
+                    continue;
+                }
+                if (action == BranchSelector.Action.MATCH_AND_CONTINUE
+                    || action == BranchSelector.Action.MATCH_AND_STOP) {
+                    values.addAll(branch.values());
+                }
+                lookup.deeper |= canContinue && branch.iNode != null;
+            }
+            if (!children.isEmpty()) {
+                VisitResult result = visitRanked(children, childParents, currentLevel + 1, atStart, lookup);
+                if (result != VisitResult.DONE) {
+                    return result;
+                }
+            }
+            values.sort(lookup.valueOrder);
+            for (V value : values) {
+                if (!lookup.visitor.test(value)) {
+                    return VisitResult.STOPPED;
+                }
+            }
+        }
+        return VisitResult.DONE;
+    }
+
+    private boolean visitAll(Branch<V> branch, Predicate<V> visitor) {
+        for (V value : branch.values()) {
+            if (!visitor.test(value)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     // visible for testing
     @SuppressWarnings("unchecked")
     INode<V> root() {
@@ -409,6 +597,45 @@ public abstract class TopicLevelTrie<V> {
         }
     }
 
+    /**
+     * The selector selecting branches by their topic levels, which is required when doing lookup in rank order.
+     */
+    public interface LevelSelector {
+        /**
+         * Select the topic levels of the branches to lookup.
+         *
+         * @param levels       The topic levels of the branches to select.
+         * @param topicLevels  The topic levels.
+         * @param currentLevel The current level of the trie.
+         * @return The selected topic levels.
+         */
+        Map<String, BranchSelector.Action> selectLevel(Set<String> levels, List<String> topicLevels, int currentLevel);
+
+        /**
+         * Use as the branch selector.
+         *
+         * @return The branch selector selecting the same branches.
+         */
+        default BranchSelector asBranchSelector() {
+            return new BranchSelector() {
+                @Override
+                public <V> Map<Branch<V>, Action> selectBranch(Map<String, Branch<V>> branches,
+                                                               List<String> topicLevels,
+                                                               int currentLevel) {
+                    Map<String, Action> selected = selectLevel(branches.keySet(), topicLevels, currentLevel);
+                    Map<Branch<V>, Action> result = new HashMap<>();
+                    selected.forEach((topicLevel, action) -> {
+                        Branch<V> branch = branches.get(topicLevel);
+                        if (branch != null) {
+                            result.put(branch, action);
+                        }
+                    });
+                    return result;
+                }
+            };
+        }
+    }
+
     // StrategySet moved to package class
 
     /**
@@ -422,6 +649,42 @@ public abstract class TopicLevelTrie<V> {
     private record LookupResult<V>(Set<V> values, boolean successOrRetry) {
     }
 
+    private enum VisitResult {
+        DONE,
+        STOPPED,
+        RETRY
+    }
+
+    private record RankedBranch<V>(Branch<V> branch, BranchSelector.Action action, INode<V> parent) {
+    }
+
+    private static final class RankedLookup<V> {
+        final List<String> topicLevels;
+        final LevelSelector levelSelector;
+        final int level;
+        final ToIntFunction<String> ranker;
+        final int[] startRanks;
+        final Comparator<V> valueOrder;
+        final Predicate<V> visitor;
+        boolean deeper;
+
+        RankedLookup(List<String> topicLevels,
+                     LevelSelector levelSelector,
+                     int level,
+                     ToIntFunction<String> ranker,
+                     int[] startRanks,
+                     Comparator<V> valueOrder,
+                     Predicate<V> visitor) {
+            this.topicLevels = topicLevels;
+            this.levelSelector = levelSelector;
+            this.level = level;
+            this.ranker = ranker;
+            this.startRanks = startRanks;
+            this.valueOrder = valueOrder;
+            this.visitor = visitor;
+        }
+    }
+
     /** Path frame for upward contraction after a successful remove. */
     private static final class Frame<T> {
         final INode<T> node;          // current inode
@@ -19,12 +19,15 @@
 
 package org.apache.bifromq.util.index;
 
+import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertNotNull;
 import static org.testng.Assert.assertNull;
 import static org.testng.Assert.assertTrue;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -32,6 +35,7 @@ import java.util.Set;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Predicate;
 import org.testng.annotations.AfterMethod;
 import org.testng.annotations.Test;
 
@@ -213,6 +217,33 @@ public class TopicLevelTrieTest {
         return root.main().cNode.branchCount() == 0;
     }
 
+    @Test
+    public void testLookupInRankOrder() {
+        TestTrie trie = new TestTrie();
+        trie.addPath(List.of("a"), "a");
+        trie.addPath(List.of("a", "x"), "ax");
+        trie.addPath(List.of("a", "y"), "ay");
+        trie.addPath(List.of("b", "x"), "bx");
+        trie.addPath(List.of("c", "x", "z"), "cxz");
+
+        // "a" and "c" have equal rank, so do "x" and "z"
+        List<String> visited = new ArrayList<>();
+        assertTrue(trie.lookupRanked(1, new int[0], visited::add));
+        assertEquals(visited, List.of("bx", "ay", "ax"));
+
+        visited.clear();
+        assertTrue(trie.lookupRanked(1, new int[] {1, 1}, visited::add));
+        assertEquals(visited, List.of("ax"));
+
+        visited.clear();
+        assertFalse(trie.lookupRanked(2, new int[0], visited::add));
+        assertEquals(visited, List.of("cxz"));
+
+        visited.clear();
+        trie.lookupRanked(1, new int[0], v -> visited.add(v) && visited.size() < 2);
+        assertEquals(visited, List.of("bx", "ay"));
+    }
+
     private static final class TestTrie extends TopicLevelTrie<String> {
         void addPath(List<String> topicLevels, String value) {
             add(topicLevels, value);
@@ -244,5 +275,15 @@ public class TopicLevelTrieTest {
             };
             return lookup(topicLevels, selector);
         }
+
+        boolean lookupRanked(int level, int[] startRanks, Predicate<String> visitor) {
+            LevelSelector selectAll = (levels, topicLevels, currentLevel) -> {
+                Map<String, BranchSelector.Action> m = new HashMap<>();
+                levels.forEach(l -> m.put(l, BranchSelector.Action.MATCH_AND_CONTINUE));
+                return m;
+            };
+            return lookup(List.of(), selectAll, level, l -> l.equals("b") || l.equals("y") ? 0 : 1, startRanks,
+                Comparator.naturalOrder(), visitor);
+        }
     }
 }
@@ -47,6 +47,10 @@ public class InboxStoreConfig {
     private int tickerThreads = Math.max(1, Runtime.getRuntime().availableProcessors() / 20);
     private int maxWALFetchSize = -1; // no limit
     private int compactWALThreshold = 256 * 1024 * 1024; // size threshold in bytes
+    private int maxInflightQueriesPerStream = 1;
+    private boolean orderQueriesPerRange = true;
+    private long walFlushGroupWindowMicros = 0; // no group flush
+    private int maxGroupApplyEntries = 1; // no group apply
     private int expireRateLimit = 1000;
     private int minGCIntervalSeconds = 30; // every 30 s
     private int maxGCIntervalSeconds = 24 * 3600; // every day
@@ -46,6 +46,10 @@ public class RetainStoreConfig {
     private int tickerThreads = Math.max(1, Runtime.getRuntime().availableProcessors() / 20);
     private int maxWALFetchSize = 50 * 1024 * 1024; // 50MB
     private int compactWALThreshold = 256 * 1024 * 1024;
+    private int maxInflightQueriesPerStream = 1;
+    private boolean orderQueriesPerRange = true;
+    private long walFlushGroupWindowMicros = 0; // no group flush
+    private int maxGroupApplyEntries = 1; // no group apply
     private int gcIntervalSeconds = 600;
     @JsonSetter(nulls = Nulls.SKIP)
     @JsonMerge
@@ -115,6 +115,9 @@ public class DistServiceModule extends AbstractModule {
                 .bgTaskExecutor(
                     injector.getInstance(Key.get(ScheduledExecutorService.class, Names.named("bgTaskScheduler"))))
                 .storeOptions(new KVRangeStoreOptions()
+                    .setMaxInflightQueriesPerStream(workerConfig.getMaxInflightQueriesPerStream())
+                    .setOrderQueriesPerRange(workerConfig.isOrderQueriesPerRange())
+                    .setWalFlushGroupWindowMicros(workerConfig.getWalFlushGroupWindowMicros())
                     .setKvRangeOptions(new KVRangeOptions()
                         .setMaxWALFatchBatchSize(workerConfig.getMaxWALFetchSize())
                         .setCompactWALThreshold(workerConfig.getCompactWALThreshold()))
@@ -47,6 +47,7 @@ import org.apache.bifromq.sessiondict.client.ISessionDictClient;
 import org.apache.bifromq.starter.config.StandaloneConfig;
 import org.apache.bifromq.starter.config.model.inbox.InboxServerConfig;
 import org.apache.bifromq.starter.config.model.inbox.InboxStoreConfig;
+import org.apache.bifromq.sysprops.props.InboxReadMaxReplicaLag;
 
 public class InboxServiceModule extends AbstractModule {
     @Override
@@ -129,9 +130,15 @@ public class InboxServiceModule extends AbstractModule {
                 .balancerFactoryConfig(
                     storeConfig.getBalanceConfig().getBalancers())
                 .storeOptions(new KVRangeStoreOptions()
+                    .setMaxInflightQueriesPerStream(storeConfig.getMaxInflightQueriesPerStream())
+                    .setOrderQueriesPerRange(storeConfig.isOrderQueriesPerRange())
+                    .setWalFlushGroupWindowMicros(storeConfig.getWalFlushGroupWindowMicros())
                     .setKvRangeOptions(new KVRangeOptions()
                         .setMaxWALFatchBatchSize(storeConfig.getMaxWALFetchSize())
                         .setCompactWALThreshold(storeConfig.getCompactWALThreshold())
+                        .setMaxGroupApplyEntries(storeConfig.getMaxGroupApplyEntries())
+                        // refresh the applied index in range descriptor only when lag bounded reads are enabled
+                        .setAppliedIndexSampleIntervalInMS(InboxReadMaxReplicaLag.INSTANCE.get() >= 0 ? 1000 : 0)
                         .setEnableLoadEstimation(true))
                     .setSplitHinterFactoryConfig(storeConfig.getSplitHinterConfig().getHinters())
                     .setDataEngineType(storeConfig.getDataEngineConfig().getType())
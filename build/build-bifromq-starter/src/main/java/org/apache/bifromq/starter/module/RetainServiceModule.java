@@ -43,6 +43,7 @@ import org.apache.bifromq.retain.store.IRetainStore;
 import org.apache.bifromq.starter.config.StandaloneConfig;
 import org.apache.bifromq.starter.config.model.retain.RetainServerConfig;
 import org.apache.bifromq.starter.config.model.retain.RetainStoreConfig;
+import org.apache.bifromq.sysprops.props.RetainMatchMaxReplicaLag;
 
 public class RetainServiceModule extends AbstractModule {
     @Override
@@ -116,9 +117,15 @@ public class RetainServiceModule extends AbstractModule {
                 .balancerFactoryConfig(storeConfig.getBalanceConfig().getBalancers())
                 .gcInterval(Duration.ofSeconds(storeConfig.getGcIntervalSeconds()))
                 .storeOptions(new KVRangeStoreOptions()
+                    .setMaxInflightQueriesPerStream(storeConfig.getMaxInflightQueriesPerStream())
+                    .setOrderQueriesPerRange(storeConfig.isOrderQueriesPerRange())
+                    .setWalFlushGroupWindowMicros(storeConfig.getWalFlushGroupWindowMicros())
                     .setKvRangeOptions(new KVRangeOptions()
                         .setMaxWALFatchBatchSize(storeConfig.getMaxWALFetchSize())
-                        .setCompactWALThreshold(storeConfig.getCompactWALThreshold()))
+                        .setCompactWALThreshold(storeConfig.getCompactWALThreshold())
+                        .setMaxGroupApplyEntries(storeConfig.getMaxGroupApplyEntries())
+                        // refresh the applied index in range descriptor only when lag bounded reads are enabled
+                        .setAppliedIndexSampleIntervalInMS(RetainMatchMaxReplicaLag.INSTANCE.get() >= 0 ? 1000 : 0))
                     .setSplitHinterFactoryConfig(storeConfig.getSplitHinterConfig().getHinters())
                     .setDataEngineType(storeConfig.getDataEngineConfig().getType())
                     .setDataEngineConf(storeConfig.getDataEngineConfig().toStruct())